@@ -6,6 +6,7 @@ import android.view.View;
 
 import androidx.activity.EdgeToEdge;
 import androidx.annotation.IdRes;
+import androidx.annotation.NonNull;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.collection.SparseArrayCompat;
 import androidx.core.graphics.Insets;
@@ -21,13 +22,15 @@ import com.justyn.travelmap.fragment.HomeFragment;
 import com.justyn.travelmap.fragment.MallFragment;
 import com.justyn.travelmap.fragment.MyFragment;
 import com.justyn.travelmap.fragment.MapFragment;
+import com.justyn.travelmap.ui.feed.FeedViewPool;
 
-public class MainActivity extends AppCompatActivity {
+public class MainActivity extends AppCompatActivity implements FeedViewPool.Provider {
 
     private static final String KEY_SELECTED_ITEM = "key_selected_nav_item";
     private final SparseArrayCompat<Fragment> fragmentCache = new SparseArrayCompat<>();
     private int currentItemId = R.id.navigation_home;
     private UserPreferences userPreferences;
+    private FeedViewPool feedViewPool;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -137,6 +140,23 @@ public class MainActivity extends AppCompatActivity {
         }
     }
 
+    @NonNull
+    @Override
+    public FeedViewPool getFeedViewPool() {
+        if (feedViewPool == null) {
+            feedViewPool = new FeedViewPool(getResources().getInteger(R.integer.feed_warm_pool_size));
+        }
+        return feedViewPool;
+    }
+
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        if (feedViewPool != null) {
+            feedViewPool.clear();
+        }
+    }
+
     @Override
     protected void onSaveInstanceState(Bundle outState) {
         super.onSaveInstanceState(outState);
@@ -0,0 +1,57 @@
+package com.justyn.travelmap.data.local;
+
+import androidx.annotation.Nullable;
+
+import java.util.List;
+
+/**
+ * 景点 / 商品增量同步副本：保存服务端原始行 JSON 与同步版本号，由 {@code since} 增量接口维护。
+ * 线上实现为 {@link CatalogStore}。
+ */
+public interface CatalogReplica {
+
+    /**
+     * 实体上次同步到的版本号，从未同步过时为 0（服务端按全量返回）。
+     */
+    long getSyncVersion(String entity);
+
+    /**
+     * 在一个事务中应用一次增量结果：{@code full} 为 true 时先清空该实体的副本，
+     * 再写入 {@code upserts}，最后删除 {@code deletes}（tombstone）中的 id。
+     */
+    void applyDelta(String entity, boolean full, List<Row> upserts, long[] deletes, long version);
+
+    /**
+     * 按 id 游标分页读取行 JSON（id 升序，与服务端列表顺序一致）；{@code tag} 非空时只读该类型。
+     */
+    List<String> loadRows(String entity, @Nullable String tag, long afterId, int limit);
+
+    /**
+     * 增量同步中的一行：服务端 id、分类标签（可为空）与原始 JSON。
+     */
+    final class Row {
+        private final long id;
+        @Nullable
+        private final String tag;
+        private final String json;
+
+        public Row(long id, @Nullable String tag, String json) {
+            this.id = id;
+            this.tag = tag;
+            this.json = json;
+        }
+
+        public long getId() {
+            return id;
+        }
+
+        @Nullable
+        public String getTag() {
+            return tag;
+        }
+
+        public String getJson() {
+            return json;
+        }
+    }
+}
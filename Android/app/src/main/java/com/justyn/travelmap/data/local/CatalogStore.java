@@ -0,0 +1,271 @@
+package com.justyn.travelmap.data.local;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteOpenHelper;
+
+import androidx.annotation.Nullable;
+
+import com.justyn.travelmap.model.FeedItem;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 景点 / 商品的本地存储，包含两部分：
+ * <ul>
+ *     <li>列表快照：每个列表（首页景点、商城、预订）对应一个 feed_key，按原顺序保存 {@link FeedItem}，
+ *     冷启动时先展示上次的数据。单个列表最多 {@link #MAX_ITEMS_PER_FEED} 条，最多保留 {@link #MAX_FEEDS} 个列表。</li>
+ *     <li>增量同步副本（{@link CatalogReplica}）：按实体（scenic / product）保存服务端原始行 JSON 与同步版本号，
+ *     由 {@code since} 增量接口维护；{@code tag} 保存商品类型，便于按类型分页读取。</li>
+ * </ul>
+ * 这里只是缓存：版本升级时直接重建表。
+ */
+public final class CatalogStore extends SQLiteOpenHelper implements CatalogReplica {
+
+    private static final String DB_NAME = "travelmap_catalog.db";
+    private static final int DB_VERSION = 3;
+
+    public static final int MAX_ITEMS_PER_FEED = 300;
+    public static final int MAX_FEEDS = 8;
+
+    private static final String TABLE_SNAPSHOT = "feed_snapshot";
+    private static final String TABLE_ITEM = "feed_item";
+    private static final String TABLE_ROW = "catalog_row";
+    private static final String TABLE_SYNC = "catalog_sync";
+
+    private static volatile CatalogStore instance;
+
+    private CatalogStore(Context context) {
+        super(context.getApplicationContext(), DB_NAME, null, DB_VERSION);
+    }
+
+    public static CatalogStore getInstance(Context context) {
+        CatalogStore store = instance;
+        if (store == null) {
+            synchronized (CatalogStore.class) {
+                store = instance;
+                if (store == null) {
+                    store = new CatalogStore(context);
+                    instance = store;
+                }
+            }
+        }
+        return store;
+    }
+
+    @Override
+    public void onCreate(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE " + TABLE_SNAPSHOT + " ("
+                + "feed_key TEXT PRIMARY KEY, "
+                + "updated_at INTEGER NOT NULL)");
+        db.execSQL("CREATE TABLE " + TABLE_ITEM + " ("
+                + "feed_key TEXT NOT NULL, "
+                + "position INTEGER NOT NULL, "
+                + "item_id INTEGER NOT NULL, "
+                + "title TEXT, "
+                + "description TEXT, "
+                + "image_url TEXT, "
+                + "price_label TEXT, "
+                + "extra_info TEXT, "
+                + "address TEXT, "
+                + "latitude REAL, "
+                + "longitude REAL, "
+                + "stock INTEGER, "
+                + "visit_time TEXT, "
+                + "rating_label TEXT, "
+                + "PRIMARY KEY (feed_key, position))");
+        db.execSQL("CREATE TABLE " + TABLE_ROW + " ("
+                + "entity TEXT NOT NULL, "
+                + "id INTEGER NOT NULL, "
+                + "tag TEXT, "
+                + "json TEXT NOT NULL, "
+                + "PRIMARY KEY (entity, id))");
+        db.execSQL("CREATE INDEX idx_catalog_row_tag ON " + TABLE_ROW + " (entity, tag, id)");
+        db.execSQL("CREATE TABLE " + TABLE_SYNC + " ("
+                + "entity TEXT PRIMARY KEY, "
+                + "version INTEGER NOT NULL)");
+    }
+
+    @Override
+    public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+        // 仅缓存数据，结构变化时直接重建
+        db.execSQL("DROP TABLE IF EXISTS " + TABLE_ITEM);
+        db.execSQL("DROP TABLE IF EXISTS " + TABLE_SNAPSHOT);
+        db.execSQL("DROP TABLE IF EXISTS " + TABLE_ROW);
+        db.execSQL("DROP TABLE IF EXISTS " + TABLE_SYNC);
+        onCreate(db);
+    }
+
+    @Override
+    public void onDowngrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+        onUpgrade(db, oldVersion, newVersion);
+    }
+
+    /**
+     * 读取列表快照；从未保存过时返回 null。需在后台线程调用。
+     */
+    @Nullable
+    public List<FeedItem> load(String feedKey) {
+        SQLiteDatabase db = getReadableDatabase();
+        try (Cursor snapshot = db.query(TABLE_SNAPSHOT, new String[]{"updated_at"},
+                "feed_key = ?", new String[]{feedKey}, null, null, null)) {
+            if (!snapshot.moveToFirst()) {
+                return null;
+            }
+        }
+        List<FeedItem> items = new ArrayList<>();
+        try (Cursor cursor = db.query(TABLE_ITEM, null, "feed_key = ?", new String[]{feedKey},
+                null, null, "position ASC")) {
+            int idIndex = cursor.getColumnIndexOrThrow("item_id");
+            int titleIndex = cursor.getColumnIndexOrThrow("title");
+            int descIndex = cursor.getColumnIndexOrThrow("description");
+            int imageIndex = cursor.getColumnIndexOrThrow("image_url");
+            int priceIndex = cursor.getColumnIndexOrThrow("price_label");
+            int extraIndex = cursor.getColumnIndexOrThrow("extra_info");
+            int addressIndex = cursor.getColumnIndexOrThrow("address");
+            int latIndex = cursor.getColumnIndexOrThrow("latitude");
+            int lngIndex = cursor.getColumnIndexOrThrow("longitude");
+            int stockIndex = cursor.getColumnIndexOrThrow("stock");
+            int visitIndex = cursor.getColumnIndexOrThrow("visit_time");
+            int ratingIndex = cursor.getColumnIndexOrThrow("rating_label");
+            while (cursor.moveToNext()) {
+                items.add(new FeedItem(
+                        cursor.getLong(idIndex),
+                        cursor.getString(titleIndex),
+                        cursor.getString(descIndex),
+                        cursor.getString(imageIndex),
+                        cursor.getString(priceIndex),
+                        cursor.getString(extraIndex),
+                        cursor.getString(addressIndex),
+                        cursor.isNull(latIndex) ? null : cursor.getDouble(latIndex),
+                        cursor.isNull(lngIndex) ? null : cursor.getDouble(lngIndex),
+                        cursor.isNull(stockIndex) ? null : cursor.getInt(stockIndex),
+                        cursor.getString(visitIndex),
+                        cursor.getString(ratingIndex)));
+            }
+        }
+        return items;
+    }
+
+    /**
+     * 用最新的网络结果覆盖列表快照，并按容量上限淘汰旧列表。需在后台线程调用。
+     */
+    public void save(String feedKey, List<FeedItem> items) {
+        SQLiteDatabase db = getWritableDatabase();
+        db.beginTransaction();
+        try {
+            db.delete(TABLE_ITEM, "feed_key = ?", new String[]{feedKey});
+            ContentValues snapshot = new ContentValues();
+            snapshot.put("feed_key", feedKey);
+            snapshot.put("updated_at", System.currentTimeMillis());
+            db.insertWithOnConflict(TABLE_SNAPSHOT, null, snapshot, SQLiteDatabase.CONFLICT_REPLACE);
+            int count = Math.min(items.size(), MAX_ITEMS_PER_FEED);
+            ContentValues values = new ContentValues();
+            for (int i = 0; i < count; i++) {
+                FeedItem item = items.get(i);
+                values.clear();
+                values.put("feed_key", feedKey);
+                values.put("position", i);
+                values.put("item_id", item.getId());
+                values.put("title", item.getTitle());
+                values.put("description", item.getDescription());
+                values.put("image_url", item.getImageUrl());
+                values.put("price_label", item.getPriceLabel());
+                values.put("extra_info", item.getExtraInfo());
+                values.put("address", item.getAddress());
+                values.put("latitude", item.getLatitude());
+                values.put("longitude", item.getLongitude());
+                values.put("stock", item.getStock());
+                values.put("visit_time", item.getVisitTime());
+                values.put("rating_label", item.getRatingLabel());
+                db.insert(TABLE_ITEM, null, values);
+            }
+            trimFeeds(db);
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    @Override
+    public long getSyncVersion(String entity) {
+        try (Cursor cursor = getReadableDatabase().query(TABLE_SYNC, new String[]{"version"},
+                "entity = ?", new String[]{entity}, null, null, null)) {
+            return cursor.moveToFirst() ? cursor.getLong(0) : 0L;
+        }
+    }
+
+    @Override
+    public void applyDelta(String entity, boolean full, List<Row> upserts, long[] deletes, long version) {
+        SQLiteDatabase db = getWritableDatabase();
+        db.beginTransaction();
+        try {
+            if (full) {
+                db.delete(TABLE_ROW, "entity = ?", new String[]{entity});
+            }
+            ContentValues values = new ContentValues();
+            for (Row row : upserts) {
+                values.clear();
+                values.put("entity", entity);
+                values.put("id", row.getId());
+                values.put("tag", row.getTag());
+                values.put("json", row.getJson());
+                db.insertWithOnConflict(TABLE_ROW, null, values, SQLiteDatabase.CONFLICT_REPLACE);
+            }
+            for (long id : deletes) {
+                db.delete(TABLE_ROW, "entity = ? AND id = ?", new String[]{entity, String.valueOf(id)});
+            }
+            ContentValues sync = new ContentValues();
+            sync.put("entity", entity);
+            sync.put("version", version);
+            db.insertWithOnConflict(TABLE_SYNC, null, sync, SQLiteDatabase.CONFLICT_REPLACE);
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    @Override
+    public List<String> loadRows(String entity, @Nullable String tag, long afterId, int limit) {
+        List<String> rows = new ArrayList<>();
+        String selection = tag != null ? "entity = ? AND tag = ? AND id > ?" : "entity = ? AND id > ?";
+        String[] args = tag != null
+                ? new String[]{entity, tag, String.valueOf(afterId)}
+                : new String[]{entity, String.valueOf(afterId)};
+        try (Cursor cursor = getReadableDatabase().query(TABLE_ROW, new String[]{"json"},
+                selection, args, null, null, "id ASC", String.valueOf(limit))) {
+            while (cursor.moveToNext()) {
+                rows.add(cursor.getString(0));
+            }
+        }
+        return rows;
+    }
+
+    public void clear() {
+        SQLiteDatabase db = getWritableDatabase();
+        db.delete(TABLE_ITEM, null, null);
+        db.delete(TABLE_SNAPSHOT, null, null);
+        db.delete(TABLE_ROW, null, null);
+        db.delete(TABLE_SYNC, null, null);
+    }
+
+    private void trimFeeds(SQLiteDatabase db) {
+        List<String> expired = new ArrayList<>();
+        try (Cursor cursor = db.query(TABLE_SNAPSHOT, new String[]{"feed_key"}, null, null,
+                null, null, "updated_at DESC", null)) {
+            int index = 0;
+            while (cursor.moveToNext()) {
+                if (index++ >= MAX_FEEDS) {
+                    expired.add(cursor.getString(0));
+                }
+            }
+        }
+        for (String key : expired) {
+            db.delete(TABLE_ITEM, "feed_key = ?", new String[]{key});
+            db.delete(TABLE_SNAPSHOT, "feed_key = ?", new String[]{key});
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.justyn.travelmap.data.local;
+
+/**
+ * 当前用户收藏集合的内存副本，(targetType, targetId) 编码为一个 long 存入 {@link LongHashSet}，
+ * 详情页与列表卡片可以直接判断是否已收藏而不发请求。
+ * <p>
+ * 每个会话从服务端加载一次；收藏/取消收藏时先乐观更新，再由 Repository 在后台与服务端对齐。
+ * {@link #getVersion()} 在集合内容变化时递增，界面可据此判断是否需要刷新。
+ */
+public final class FavoriteStore {
+
+    public static final String TYPE_SCENIC = "SCENIC";
+    public static final String TYPE_PRODUCT = "PRODUCT";
+
+    private static final FavoriteStore DEFAULT = new FavoriteStore();
+
+    private LongHashSet keys = new LongHashSet();
+    private long userId = -1;
+    private boolean loaded;
+    private int version;
+
+    public static FavoriteStore getDefault() {
+        return DEFAULT;
+    }
+
+    public synchronized boolean isLoaded(long userId) {
+        return loaded && this.userId == userId;
+    }
+
+    public synchronized boolean contains(long userId, String targetType, long targetId) {
+        return this.userId == userId && keys.contains(key(targetType, targetId));
+    }
+
+    /**
+     * 乐观添加，返回集合是否发生变化（用于失败回滚）。
+     */
+    public synchronized boolean add(long userId, String targetType, long targetId) {
+        switchUser(userId);
+        long key = key(targetType, targetId);
+        if (key <= 0 || !keys.add(key)) {
+            return false;
+        }
+        version++;
+        return true;
+    }
+
+    public synchronized boolean remove(long userId, String targetType, long targetId) {
+        if (this.userId != userId || !keys.remove(key(targetType, targetId))) {
+            return false;
+        }
+        version++;
+        return true;
+    }
+
+    /**
+     * 用服务端结果替换集合；若加载期间本地又有修改（版本号变化），放弃本次结果，等下一次对齐。
+     */
+    public synchronized boolean replaceAllIfUnchanged(long userId, int expectedVersion,
+                                                      long[] scenicIds, long[] productIds) {
+        if (this.userId == userId && version != expectedVersion) {
+            return false;
+        }
+        switchUser(userId);
+        LongHashSet fresh = new LongHashSet();
+        for (long id : scenicIds) {
+            long key = key(TYPE_SCENIC, id);
+            if (key > 0) {
+                fresh.add(key);
+            }
+        }
+        for (long id : productIds) {
+            long key = key(TYPE_PRODUCT, id);
+            if (key > 0) {
+                fresh.add(key);
+            }
+        }
+        loaded = true;
+        if (!fresh.sameElements(keys)) {
+            keys = fresh;
+            version++;
+        }
+        return true;
+    }
+
+    public synchronized int getVersion() {
+        return version;
+    }
+
+    public synchronized int size() {
+        return keys.size();
+    }
+
+    public synchronized void clear() {
+        keys.clear();
+        userId = -1;
+        loaded = false;
+        version++;
+    }
+
+    private void switchUser(long userId) {
+        if (this.userId != userId) {
+            keys.clear();
+            loaded = false;
+            this.userId = userId;
+            version++;
+        }
+    }
+
+    /**
+     * 低位 1 bit 区分类型，其余位存 id；id 非正数时返回 0（不可存储）。
+     */
+    private static long key(String targetType, long targetId) {
+        if (targetId <= 0) {
+            return 0;
+        }
+        long typeBit = TYPE_PRODUCT.equalsIgnoreCase(targetType) ? 1L : 0L;
+        return (targetId << 1) | typeBit;
+    }
+}
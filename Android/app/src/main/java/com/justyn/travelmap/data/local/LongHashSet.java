@@ -0,0 +1,120 @@
+package com.justyn.travelmap.data.local;
+
+import java.util.Arrays;
+
+/**
+ * 只存正数 long 的开放寻址哈希集合，避免 {@code HashSet<Long>} 的装箱与 Entry 开销。
+ * 0 作为空槽标记，因此不能存 0 或负数。非线程安全，由调用方加锁。
+ */
+final class LongHashSet {
+
+    private static final int MIN_CAPACITY = 16;
+
+    private long[] slots;
+    private int size;
+
+    LongHashSet() {
+        slots = new long[MIN_CAPACITY];
+    }
+
+    boolean contains(long value) {
+        if (value <= 0) {
+            return false;
+        }
+        int mask = slots.length - 1;
+        int index = mix(value) & mask;
+        while (slots[index] != 0) {
+            if (slots[index] == value) {
+                return true;
+            }
+            index = (index + 1) & mask;
+        }
+        return false;
+    }
+
+    boolean add(long value) {
+        if (value <= 0) {
+            throw new IllegalArgumentException("value must be positive");
+        }
+        if ((size + 1) * 4 > slots.length * 3) {
+            rehash(slots.length * 2);
+        }
+        int mask = slots.length - 1;
+        int index = mix(value) & mask;
+        while (slots[index] != 0) {
+            if (slots[index] == value) {
+                return false;
+            }
+            index = (index + 1) & mask;
+        }
+        slots[index] = value;
+        size++;
+        return true;
+    }
+
+    boolean remove(long value) {
+        if (value <= 0) {
+            return false;
+        }
+        int mask = slots.length - 1;
+        int index = mix(value) & mask;
+        while (slots[index] != 0) {
+            if (slots[index] == value) {
+                slots[index] = 0;
+                size--;
+                // 线性探测删除后，把同一探测链上后续元素重新放置
+                int next = (index + 1) & mask;
+                while (slots[next] != 0) {
+                    long moved = slots[next];
+                    slots[next] = 0;
+                    size--;
+                    add(moved);
+                    next = (next + 1) & mask;
+                }
+                return true;
+            }
+            index = (index + 1) & mask;
+        }
+        return false;
+    }
+
+    /**
+     * 两个集合元素完全相同。
+     */
+    boolean sameElements(LongHashSet other) {
+        if (other.size != size) {
+            return false;
+        }
+        for (long value : other.slots) {
+            if (value != 0 && !contains(value)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    void clear() {
+        Arrays.fill(slots, 0);
+        size = 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    private void rehash(int capacity) {
+        long[] old = slots;
+        slots = new long[capacity];
+        size = 0;
+        for (long value : old) {
+            if (value != 0) {
+                add(value);
+            }
+        }
+    }
+
+    private static int mix(long value) {
+        long h = value * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
@@ -48,5 +48,7 @@ public class UserPreferences {
 
     public void clear() {
         preferences.edit().remove(KEY_USER_JSON).apply();
+        VisitedIndex.getDefault().clear();
+        FavoriteStore.getDefault().clear();
     }
 }
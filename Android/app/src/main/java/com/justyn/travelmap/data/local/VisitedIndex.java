@@ -0,0 +1,85 @@
+package com.justyn.travelmap.data.local;
+
+import androidx.annotation.Nullable;
+
+import com.justyn.travelmap.model.VisitedRecord;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 当前用户“去过”记录的内存索引，按景点 id 做 O(1) 查找。
+ * <p>
+ * 值为 null 表示已确认未去过。拉取过完整列表后 {@code complete} 为 true，
+ * 此时不在索引中的景点也视为未去过；否则只有查询过的景点才有确定答案。
+ * {@link #invalidate} 过的景点在重新写入前一律回源查询。切换用户时整个索引重置。
+ */
+public final class VisitedIndex {
+
+    private static final VisitedIndex DEFAULT = new VisitedIndex();
+
+    private long userId = -1;
+    private boolean complete;
+    private final Map<Long, VisitedRecord> records = new HashMap<>();
+    private final Set<Long> invalidated = new HashSet<>();
+
+    public static VisitedIndex getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * 索引能否直接回答该景点的查询。
+     */
+    public synchronized boolean contains(long userId, long scenicId) {
+        return this.userId == userId && !invalidated.contains(scenicId)
+                && (complete || records.containsKey(scenicId));
+    }
+
+    @Nullable
+    public synchronized VisitedRecord get(long userId, long scenicId) {
+        return this.userId == userId ? records.get(scenicId) : null;
+    }
+
+    public synchronized void put(long userId, long scenicId, @Nullable VisitedRecord record) {
+        switchUser(userId);
+        records.put(scenicId, record);
+        invalidated.remove(scenicId);
+    }
+
+    /**
+     * 只让单个景点的答案失效，索引其余部分保持可用。
+     */
+    public synchronized void invalidate(long userId, long scenicId) {
+        if (this.userId == userId) {
+            records.remove(scenicId);
+            invalidated.add(scenicId);
+        }
+    }
+
+    /**
+     * 用完整列表替换索引。
+     */
+    public synchronized void replaceAll(long userId, Map<Long, VisitedRecord> all) {
+        switchUser(userId);
+        records.clear();
+        records.putAll(all);
+        invalidated.clear();
+        complete = true;
+    }
+
+    public synchronized void clear() {
+        userId = -1;
+        complete = false;
+        records.clear();
+        invalidated.clear();
+    }
+
+    private void switchUser(long userId) {
+        if (this.userId != userId) {
+            clear();
+            this.userId = userId;
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.justyn.travelmap.data.remote;
+
+import android.util.JsonReader;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+/**
+ * 基于 {@link JsonReader} 的 {@link JsonSource}。
+ */
+final class AndroidJsonSource implements JsonSource {
+
+    private final JsonReader reader;
+
+    AndroidJsonSource(JsonReader reader) {
+        this.reader = reader;
+    }
+
+    AndroidJsonSource(String json) {
+        this(new JsonReader(new StringReader(json)));
+    }
+
+    @Override
+    public Token peek() throws IOException {
+        switch (reader.peek()) {
+            case BEGIN_ARRAY:
+                return Token.BEGIN_ARRAY;
+            case END_ARRAY:
+                return Token.END_ARRAY;
+            case BEGIN_OBJECT:
+                return Token.BEGIN_OBJECT;
+            case END_OBJECT:
+                return Token.END_OBJECT;
+            case NAME:
+                return Token.NAME;
+            case STRING:
+                return Token.STRING;
+            case NUMBER:
+                return Token.NUMBER;
+            case BOOLEAN:
+                return Token.BOOLEAN;
+            case NULL:
+                return Token.NULL;
+            default:
+                return Token.END_DOCUMENT;
+        }
+    }
+
+    @Override
+    public void beginArray() throws IOException {
+        reader.beginArray();
+    }
+
+    @Override
+    public void endArray() throws IOException {
+        reader.endArray();
+    }
+
+    @Override
+    public void beginObject() throws IOException {
+        reader.beginObject();
+    }
+
+    @Override
+    public void endObject() throws IOException {
+        reader.endObject();
+    }
+
+    @Override
+    public boolean hasNext() throws IOException {
+        return reader.hasNext();
+    }
+
+    @Override
+    public String nextName() throws IOException {
+        return reader.nextName();
+    }
+
+    @Override
+    public String nextString() throws IOException {
+        return reader.nextString();
+    }
+
+    @Override
+    public boolean nextBoolean() throws IOException {
+        return reader.nextBoolean();
+    }
+
+    @Override
+    public void nextNull() throws IOException {
+        reader.nextNull();
+    }
+
+    @Override
+    public void skipValue() throws IOException {
+        reader.skipValue();
+    }
+}
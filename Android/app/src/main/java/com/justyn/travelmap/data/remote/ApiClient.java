@@ -1,142 +1,154 @@
 package com.justyn.travelmap.data.remote;
 
+import android.util.JsonReader;
+
+import androidx.annotation.Nullable;
+
 import com.justyn.travelmap.BuildConfig;
 
+import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
 
 import java.io.BufferedReader;
+import java.io.FilterReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
 import java.io.OutputStream;
+import java.io.Reader;
+import java.io.StringReader;
 import java.net.HttpURLConnection;
 import java.net.URL;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.StringJoiner;
+import java.util.TreeMap;
 
 /**
  * Minimal HTTP client for communicating with the TravelMap backend using HttpURLConnection.
+ * Connections are kept alive and shared through {@link ConnectionPool}.
  */
 public class ApiClient {
 
     private static final int TIMEOUT_MS = 10000;
 
+    private static final ResponseParser TREE_PARSER = reader -> {
+        StringBuilder builder = new StringBuilder();
+        char[] buffer = new char[2048];
+        int read;
+        while ((read = reader.read(buffer)) != -1) {
+            builder.append(buffer, 0, read);
+        }
+        return ApiResponse.fromJson(builder.toString());
+    };
+
+    private final ConnectionPool pool;
+    private final HttpCache cache;
+
+    public ApiClient() {
+        this(ConnectionPool.getDefault(), HttpCache.getDefault());
+    }
+
+    public ApiClient(ConnectionPool pool, HttpCache cache) {
+        this.pool = pool;
+        this.cache = cache;
+    }
+
     public ApiResponse get(String path) throws IOException, JSONException {
         return get(path, null);
     }
 
     public ApiResponse get(String path, Map<String, String> queryParams) throws IOException, JSONException {
-        HttpURLConnection connection = null;
-        try {
-            URL url = new URL(resolveUrl(path, queryParams));
-            connection = (HttpURLConnection) url.openConnection();
-            connection.setRequestMethod("GET");
-            connection.setConnectTimeout(TIMEOUT_MS);
-            connection.setReadTimeout(TIMEOUT_MS);
-            connection.setRequestProperty("Accept", "application/json");
-            connection.setDoInput(true);
-
-            int responseCode = connection.getResponseCode();
-            InputStream stream = responseCode >= HttpURLConnection.HTTP_BAD_REQUEST
-                    ? connection.getErrorStream()
-                    : connection.getInputStream();
-
-            if (stream == null) {
-                throw new IOException("服务器未返回数据");
-            }
-
-            String responseBody = readStream(stream);
-            return ApiResponse.fromJson(responseBody);
-        } finally {
-            if (connection != null) {
-                connection.disconnect();
-            }
-        }
+        return execute("GET", resolveUrl(path, queryParams), null);
     }
 
     public ApiResponse post(String path, JSONObject payload) throws IOException, JSONException {
-        HttpURLConnection connection = null;
-        try {
-            URL url = new URL(resolveUrl(path));
-            connection = (HttpURLConnection) url.openConnection();
-            connection.setRequestMethod("POST");
-            connection.setConnectTimeout(TIMEOUT_MS);
-            connection.setReadTimeout(TIMEOUT_MS);
-            connection.setRequestProperty("Content-Type", "application/json; charset=utf-8");
-            connection.setDoOutput(true);
-
-            if (payload != null) {
-                byte[] body = payload.toString().getBytes(StandardCharsets.UTF_8);
-                connection.setRequestProperty("Content-Length", String.valueOf(body.length));
-                try (OutputStream os = connection.getOutputStream()) {
-                    os.write(body);
-                }
-            }
-
-            int responseCode = connection.getResponseCode();
-            InputStream stream = responseCode >= HttpURLConnection.HTTP_BAD_REQUEST
-                    ? connection.getErrorStream()
-                    : connection.getInputStream();
-
-            if (stream == null) {
-                throw new IOException("服务器未返回数据");
-            }
-
-            String responseBody = readStream(stream);
-            return ApiResponse.fromJson(responseBody);
-        } finally {
-            if (connection != null) {
-                connection.disconnect();
-            }
-        }
+        return execute("POST", resolveUrl(path), payload);
     }
 
     public ApiResponse put(String path, JSONObject payload) throws IOException, JSONException {
-        HttpURLConnection connection = null;
-        try {
-            URL url = new URL(resolveUrl(path));
-            connection = (HttpURLConnection) url.openConnection();
-            connection.setRequestMethod("PUT");
-            connection.setConnectTimeout(TIMEOUT_MS);
-            connection.setReadTimeout(TIMEOUT_MS);
-            connection.setRequestProperty("Content-Type", "application/json; charset=utf-8");
-            connection.setDoOutput(true);
+        return execute("PUT", resolveUrl(path), payload);
+    }
 
-            if (payload != null) {
-                byte[] body = payload.toString().getBytes(StandardCharsets.UTF_8);
-                connection.setRequestProperty("Content-Length", String.valueOf(body.length));
-                try (OutputStream os = connection.getOutputStream()) {
-                    os.write(body);
-                }
-            }
+    public ApiResponse delete(String path, Map<String, String> queryParams) throws IOException, JSONException {
+        return delete(path, queryParams, null);
+    }
 
-            int responseCode = connection.getResponseCode();
-            InputStream stream = responseCode >= HttpURLConnection.HTTP_BAD_REQUEST
-                    ? connection.getErrorStream()
-                    : connection.getInputStream();
+    public ApiResponse delete(String path, JSONObject payload) throws IOException, JSONException {
+        return delete(path, null, payload);
+    }
 
-            if (stream == null) {
-                throw new IOException("服务器未返回数据");
-            }
+    /**
+     * 流式 GET：响应体边到达边由 {@code decoder} 映射为模型对象，结果放在 {@link ApiResponse#getData()}。
+     */
+    public ApiResponse getStreaming(String path, Map<String, String> queryParams, JsonDecoder<?> decoder)
+            throws IOException, JSONException {
+        return execute("GET", resolveUrl(path, queryParams), null,
+                reader -> ApiResponse.fromStream(new JsonReader(reader), decoder));
+    }
 
-            String responseBody = readStream(stream);
-            return ApiResponse.fromJson(responseBody);
-        } finally {
-            if (connection != null) {
-                connection.disconnect();
+    /**
+     * 把多个子请求打包成一次 {@code POST /api/batch}，按提交顺序返回各自的响应。
+     * 子请求失败不会影响其它子请求，调用方需逐个检查 {@link ApiResponse#isSuccess()}。
+     *
+     * @throws BatchUnavailableException 批量接口返回非 200 或响应无法解析（旧版后端没有该接口）
+     */
+    public List<ApiResponse> batch(List<BatchRequest> requests) throws IOException, JSONException {
+        JSONArray array = new JSONArray();
+        for (BatchRequest request : requests) {
+            array.put(request.toJson());
+        }
+        JSONObject payload = new JSONObject();
+        payload.put("requests", array);
+        ApiResponse response;
+        try {
+            response = post("/api/batch", payload);
+        } catch (JSONException e) {
+            // 旧版后端的 404 / 405 是 HTML 错误页
+            throw new BatchUnavailableException("批量响应无法解析：" + e.getMessage());
+        }
+        if (!response.isSuccess()) {
+            throw new BatchUnavailableException("批量接口不可用：" + response.getMessage());
+        }
+        Object data = response.getData();
+        if (!(data instanceof JSONArray) || ((JSONArray) data).length() != requests.size()) {
+            throw new BatchUnavailableException("批量响应数量不匹配");
+        }
+        JSONArray results = (JSONArray) data;
+        List<ApiResponse> responses = new ArrayList<>(results.length());
+        for (int i = 0; i < results.length(); i++) {
+            JSONObject result = results.optJSONObject(i);
+            JSONObject body = result != null ? result.optJSONObject("body") : null;
+            if (body == null) {
+                int status = result != null ? result.optInt("status", -1) : -1;
+                responses.add(new ApiResponse(status, "批量子请求失败", null));
+                continue;
             }
+            responses.add(new ApiResponse(body.optInt("code", -1),
+                    body.optString("msg", "未知错误"),
+                    body.isNull("data") ? null : body.opt("data")));
         }
+        return responses;
     }
 
-    public ApiResponse delete(String path, Map<String, String> queryParams) throws IOException, JSONException {
-        return delete(path, queryParams, null);
+    /**
+     * 通过 {@link BatchDispatcher} 发送的 GET：短窗口内的其它请求会与之合并为一次往返。
+     */
+    public ApiResponse getBatched(String path, Map<String, String> queryParams) throws IOException, JSONException {
+        return BatchDispatcher.getDefault().get(path, queryParams);
     }
 
-    public ApiResponse delete(String path, JSONObject payload) throws IOException, JSONException {
-        return delete(path, null, payload);
+    /**
+     * 请求的唯一标识：method + 完整 URL，query 参数按名称排序，参数顺序不同的相同请求得到同一个 key。
+     */
+    public static String requestKey(String method, String path, Map<String, String> queryParams) {
+        Map<String, String> sorted = queryParams == null ? null : new TreeMap<>(queryParams);
+        return method + " " + resolveUrl(path, sorted);
     }
 
     private static String resolveUrl(String path) {
@@ -179,6 +191,13 @@ public class ApiClient {
         }
     }
 
+    private static void drain(Reader reader) throws IOException {
+        char[] buffer = new char[512];
+        while (reader.read(buffer) != -1) {
+            // 读完剩余内容，连接才能回到 keep-alive 池
+        }
+    }
+
     private static String readStream(InputStream stream) throws IOException {
         StringBuilder builder = new StringBuilder();
         try (BufferedReader reader = new BufferedReader(new InputStreamReader(stream, StandardCharsets.UTF_8))) {
@@ -191,24 +210,68 @@ public class ApiClient {
     }
 
     private ApiResponse delete(String path, Map<String, String> queryParams, JSONObject payload) throws IOException, JSONException {
+        return execute("DELETE", resolveUrl(path, queryParams), payload);
+    }
+
+    private ApiResponse execute(String method, String urlString, JSONObject payload) throws IOException, JSONException {
+        return execute(method, urlString, payload, TREE_PARSER);
+    }
+
+    /**
+     * 所有请求的统一出口：通过共享连接池限流，并在读完响应后保留底层 socket 供下次复用。
+     * 仅在出现异常时才 disconnect，避免每次请求都重新握手。
+     * 目录类 GET 会携带缓存校验字段，命中 304 时直接返回本地缓存的响应体。
+     * 响应流直接交给 {@code parser}，流式解码时不会先拼出完整字符串；可缓存的响应同时复制一份
+     * （不超过缓存上限）存入 {@link HttpCache}。
+     */
+    private ApiResponse execute(String method, String urlString, JSONObject payload, ResponseParser parser)
+            throws IOException, JSONException {
+        URL url = new URL(urlString);
+        HttpCache.Entry cached = null;
+        boolean cacheable = cache != null && HttpCache.isCacheable(method, url.getPath(), url.getQuery());
+        if (cacheable) {
+            cached = cache.lookup(urlString);
+        }
+        ConnectionPool.Lease lease = acquireLease(url);
         HttpURLConnection connection = null;
+        boolean reusable = false;
         try {
-            URL url = new URL(resolveUrl(path, queryParams));
             connection = (HttpURLConnection) url.openConnection();
-            connection.setRequestMethod("DELETE");
+            connection.setRequestMethod(method);
             connection.setConnectTimeout(TIMEOUT_MS);
             connection.setReadTimeout(TIMEOUT_MS);
+            connection.setRequestProperty("Accept", "application/json");
+            connection.setRequestProperty("Connection", "keep-alive");
+            connection.setDoInput(true);
+            if (cached != null) {
+                if (cached.etag != null) {
+                    connection.setRequestProperty("If-None-Match", cached.etag);
+                }
+                if (cached.lastModified != null) {
+                    connection.setRequestProperty("If-Modified-Since", cached.lastModified);
+                }
+            }
+
             if (payload != null) {
                 connection.setRequestProperty("Content-Type", "application/json; charset=utf-8");
                 connection.setDoOutput(true);
                 byte[] body = payload.toString().getBytes(StandardCharsets.UTF_8);
-                connection.setRequestProperty("Content-Length", String.valueOf(body.length));
+                connection.setFixedLengthStreamingMode(body.length);
                 try (OutputStream os = connection.getOutputStream()) {
                     os.write(body);
                 }
             }
 
             int responseCode = connection.getResponseCode();
+            if (responseCode == HttpURLConnection.HTTP_NOT_MODIFIED && cached != null) {
+                InputStream empty = connection.getInputStream();
+                if (empty != null) {
+                    readStream(empty);
+                }
+                reusable = true;
+                cache.recordRevalidation(true);
+                return parser.parse(new StringReader(cached.body));
+            }
             InputStream stream = responseCode >= HttpURLConnection.HTTP_BAD_REQUEST
                     ? connection.getErrorStream()
                     : connection.getInputStream();
@@ -217,12 +280,126 @@ public class ApiClient {
                 throw new IOException("服务器未返回数据");
             }
 
-            String responseBody = readStream(stream);
-            return ApiResponse.fromJson(responseBody);
+            Reader source = new BufferedReader(new InputStreamReader(stream, StandardCharsets.UTF_8));
+            // 可缓存的 200 响应边解码边复制一份给缓存，超过缓存上限就放弃复制，不会先把整段响应体读成字符串
+            CappedCopyReader copy = null;
+            if (cacheable && responseCode == HttpURLConnection.HTTP_OK) {
+                copy = new CappedCopyReader(source, cache.getMaxChars());
+                source = copy;
+            }
+            ApiResponse response;
+            try (Reader reader = source) {
+                response = parser.parse(reader);
+                drain(reader);
+            }
+            reusable = true;
+            if (cacheable) {
+                if (cached != null && responseCode == HttpURLConnection.HTTP_OK) {
+                    cache.recordRevalidation(false);
+                }
+                String body = copy != null ? copy.getCopy() : null;
+                if (body != null) {
+                    cache.store(urlString, body,
+                            connection.getHeaderField("ETag"),
+                            connection.getHeaderField("Last-Modified"));
+                } else {
+                    cache.remove(urlString);
+                }
+            }
+            return response;
         } finally {
-            if (connection != null) {
+            if (connection != null && !reusable) {
                 connection.disconnect();
             }
+            pool.release(lease, reusable);
+        }
+    }
+
+    private ConnectionPool.Lease acquireLease(URL url) throws IOException {
+        try {
+            return pool.acquire(url.getAuthority());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("请求已取消");
+        }
+    }
+
+    /**
+     * 本实例所用连接池的统计（注入自定义连接池时返回该池的数据）。
+     */
+    public ConnectionPool.Stats getConnectionStats() {
+        return pool.getStats();
+    }
+
+    /**
+     * 本实例所用的响应缓存，未启用缓存时为 null。
+     */
+    @Nullable
+    public HttpCache getResponseCache() {
+        return cache;
+    }
+
+    private interface ResponseParser {
+        ApiResponse parse(Reader reader) throws IOException, JSONException;
+    }
+
+    /**
+     * 读取的同时把内容复制到缓冲区；累计超过 {@code maxChars} 时丢弃缓冲区并停止复制。
+     */
+    private static final class CappedCopyReader extends FilterReader {
+        private final int maxChars;
+        @Nullable
+        private StringBuilder copy = new StringBuilder();
+
+        CappedCopyReader(Reader in, int maxChars) {
+            super(in);
+            this.maxChars = maxChars;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int c = super.read();
+            if (c >= 0 && copy != null) {
+                if (copy.length() + 1 > maxChars) {
+                    copy = null;
+                } else {
+                    copy.append((char) c);
+                }
+            }
+            return c;
+        }
+
+        @Override
+        public int read(char[] buffer, int offset, int length) throws IOException {
+            int read = super.read(buffer, offset, length);
+            if (read > 0 && copy != null) {
+                if (copy.length() + read > maxChars) {
+                    copy = null;
+                } else {
+                    copy.append(buffer, offset, read);
+                }
+            }
+            return read;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            // 跳过的内容也要进副本，走 read
+            char[] buffer = new char[(int) Math.min(n, 512)];
+            long skipped = 0;
+            while (skipped < n) {
+                int read = read(buffer, 0, (int) Math.min(buffer.length, n - skipped));
+                if (read < 0) {
+                    break;
+                }
+                skipped += read;
+            }
+            return skipped;
+        }
+
+        @Nullable
+        String getCopy() {
+            return copy != null ? copy.toString() : null;
         }
     }
 }
@@ -0,0 +1,78 @@
+package com.justyn.travelmap.data.remote;
+
+import org.json.JSONException;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Repository 内部并发请求共用的有界线程池。
+ * <p>
+ * 线程数与 {@link ConnectionPool#DEFAULT_MAX_REQUESTS_PER_HOST} 一致，再多的线程也只会在连接许可上排队；
+ * 空闲线程 30 秒后回收，不常驻后台。
+ */
+public final class ApiExecutors {
+
+    private static final int MAX_THREADS = ConnectionPool.DEFAULT_MAX_REQUESTS_PER_HOST;
+    private static final long KEEP_ALIVE_SECONDS = 30L;
+
+    private static final ExecutorService IO = createIoExecutor();
+
+    private ApiExecutors() {
+    }
+
+    public static ExecutorService io() {
+        return IO;
+    }
+
+    /**
+     * 等待异步结果，并把包装异常还原为接口层的 IOException / JSONException。
+     * 等待方被中断时只取消尚未开始的任务：已在运行的任务占着共享的 io 线程，可能正服务于其他合并或批量的调用方，
+     * 中断它会让无关的请求一起失败。
+     */
+    public static <T> T await(Future<T> future) throws IOException, JSONException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(false);
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("请求已取消");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof JSONException) {
+                throw (JSONException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    private static ExecutorService createIoExecutor() {
+        AtomicInteger counter = new AtomicInteger();
+        ThreadFactory factory = runnable -> {
+            Thread thread = new Thread(runnable, "api-io-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(MAX_THREADS, MAX_THREADS,
+                KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), factory);
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+}
@@ -1,8 +1,13 @@
 package com.justyn.travelmap.data.remote;
 
+import android.util.JsonReader;
+import android.util.JsonToken;
+
 import org.json.JSONException;
 import org.json.JSONObject;
 
+import java.io.IOException;
+
 /**
  * Simple representation of backend responses following the unified structure in API_DOC.md.
  */
@@ -40,4 +45,41 @@ public class ApiResponse {
         Object data = jsonObject.has("data") ? jsonObject.get("data") : null;
         return new ApiResponse(code, message, data);
     }
+
+    /**
+     * 流式解析统一响应结构，{@code data} 交给 decoder 直接生成模型，不构建中间 JSON 树。
+     */
+    public static ApiResponse fromStream(JsonReader reader, JsonDecoder<?> decoder) throws IOException, JSONException {
+        int code = -1;
+        String message = "未知错误";
+        Object data = null;
+        try {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                String name = reader.nextName();
+                if (reader.peek() == JsonToken.NULL) {
+                    reader.nextNull();
+                    continue;
+                }
+                switch (name) {
+                    case "code":
+                        code = reader.nextInt();
+                        break;
+                    case "msg":
+                        message = reader.nextString();
+                        break;
+                    case "data":
+                        data = decoder.decode(reader);
+                        break;
+                    default:
+                        reader.skipValue();
+                        break;
+                }
+            }
+            reader.endObject();
+        } catch (IllegalStateException | NumberFormatException e) {
+            throw new JSONException("响应格式错误：" + e.getMessage());
+        }
+        return new ApiResponse(code, message, data);
+    }
 }
@@ -0,0 +1,218 @@
+package com.justyn.travelmap.data.remote;
+
+import androidx.annotation.Nullable;
+
+import org.json.JSONException;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 短时间窗口内的 GET 自动合并为一次 {@code /api/batch} 请求。
+ * <p>
+ * 第一个子请求到达后等待 {@link #DEFAULT_WINDOW_MS}，窗口内到达的其它请求一并发出；
+ * 达到 {@link #MAX_BATCH_SIZE} 时立即发送。窗口内只有一个请求时按普通 GET 发送，不额外包一层。
+ * 计时器线程只负责到点把批次交给 {@link ApiExecutors#io()}，网络请求在 io 线程上执行，
+ * 多个批次可以并行发出。调用方本身也可能是 io 线程，如果批次在窗口结束后迟迟没有被 io 线程取走，
+ * 等待中的调用方会自己发送该批次，避免 io 线程全部阻塞在等待上而死锁。
+ * <p>
+ * 服务端不支持批量接口（{@link BatchUnavailableException}）时，本批次的子请求逐个改发普通 GET，
+ * 之后本会话内不再合并，所有请求直接发送。网络错误不在此列，仍按整批失败处理。
+ */
+public final class BatchDispatcher {
+
+    public static final long DEFAULT_WINDOW_MS = 15L;
+    public static final int MAX_BATCH_SIZE = 20;
+
+    private static volatile BatchDispatcher defaultDispatcher;
+
+    private final ApiClient apiClient;
+    private final long windowMs;
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "api-batch-timer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private Batch open;
+    private volatile boolean batchUnavailable;
+
+    private final AtomicLong batchCount = new AtomicLong();
+    private final AtomicLong batchedRequestCount = new AtomicLong();
+    private final AtomicLong singleRequestCount = new AtomicLong();
+
+    public BatchDispatcher(ApiClient apiClient, long windowMs) {
+        this.apiClient = apiClient;
+        this.windowMs = windowMs;
+    }
+
+    public static BatchDispatcher getDefault() {
+        BatchDispatcher dispatcher = defaultDispatcher;
+        if (dispatcher == null) {
+            synchronized (BatchDispatcher.class) {
+                dispatcher = defaultDispatcher;
+                if (dispatcher == null) {
+                    dispatcher = new BatchDispatcher(new ApiClient(), DEFAULT_WINDOW_MS);
+                    defaultDispatcher = dispatcher;
+                }
+            }
+        }
+        return dispatcher;
+    }
+
+    /**
+     * 提交一个 GET 并阻塞等待结果；不能在主线程调用。
+     */
+    public ApiResponse get(String path, @Nullable Map<String, String> query) throws IOException, JSONException {
+        if (batchUnavailable) {
+            singleRequestCount.incrementAndGet();
+            return apiClient.get(path, query);
+        }
+        Pending request = new Pending(BatchRequest.get(path, query));
+        Batch batch;
+        boolean flushNow = false;
+        boolean schedule = false;
+        synchronized (this) {
+            if (open == null) {
+                open = new Batch();
+                schedule = true;
+            }
+            batch = open;
+            batch.items.add(request);
+            if (batch.items.size() >= MAX_BATCH_SIZE) {
+                open = null;
+                flushNow = true;
+            }
+        }
+        if (flushNow) {
+            ApiExecutors.io().execute(batch);
+        } else if (schedule) {
+            timer.schedule(() -> ApiExecutors.io().execute(batch), windowMs, TimeUnit.MILLISECONDS);
+        }
+        if (!awaitDone(request.future, windowMs * 2)) {
+            // io 线程都忙（可能都在等批量结果），由调用方自己发送；批次已被取走时这里什么也不做
+            batch.run();
+        }
+        return ApiExecutors.await(request.future);
+    }
+
+    private static boolean awaitDone(Future<?> future, long timeoutMs) {
+        try {
+            future.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            return false;
+        } catch (ExecutionException e) {
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return true;
+    }
+
+    private void send(List<Pending> batch) {
+        if (batch.size() == 1 || batchUnavailable) {
+            sendEach(batch);
+            return;
+        }
+        try {
+            List<BatchRequest> requests = new ArrayList<>(batch.size());
+            for (Pending item : batch) {
+                requests.add(item.request);
+            }
+            List<ApiResponse> responses = apiClient.batch(requests);
+            batchCount.incrementAndGet();
+            batchedRequestCount.addAndGet(batch.size());
+            for (int i = 0; i < batch.size(); i++) {
+                batch.get(i).future.complete(responses.get(i));
+            }
+        } catch (BatchUnavailableException e) {
+            batchUnavailable = true;
+            sendEach(batch);
+        } catch (Throwable t) {
+            for (Pending item : batch) {
+                item.future.completeExceptionally(t);
+            }
+        }
+    }
+
+    /**
+     * 逐个按普通 GET 发送，某个子请求失败只影响它自己的调用方。
+     */
+    private void sendEach(List<Pending> batch) {
+        for (Pending item : batch) {
+            singleRequestCount.incrementAndGet();
+            try {
+                item.future.complete(apiClient.get(item.request.getPath(), item.request.getQuery()));
+            } catch (Throwable t) {
+                item.future.completeExceptionally(t);
+            }
+        }
+    }
+
+    /**
+     * 是否已因服务端不支持批量接口而停止合并请求。
+     */
+    public boolean isBatchUnavailable() {
+        return batchUnavailable;
+    }
+
+    public long getBatchCount() {
+        return batchCount.get();
+    }
+
+    public long getBatchedRequestCount() {
+        return batchedRequestCount.get();
+    }
+
+    public long getSingleRequestCount() {
+        return singleRequestCount.get();
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.US, "batches=%d batchedRequests=%d singles=%d batchUnavailable=%b",
+                getBatchCount(), getBatchedRequestCount(), getSingleRequestCount(), isBatchUnavailable());
+    }
+
+    /**
+     * 一个窗口内收集到的子请求；io 线程与等待中的调用方谁先取走谁发送，只发送一次。
+     */
+    private final class Batch implements Runnable {
+        final List<Pending> items = new ArrayList<>();
+        private final AtomicBoolean claimed = new AtomicBoolean();
+
+        @Override
+        public void run() {
+            if (!claimed.compareAndSet(false, true)) {
+                return;
+            }
+            synchronized (BatchDispatcher.this) {
+                if (open == this) {
+                    open = null;
+                }
+            }
+            send(items);
+        }
+    }
+
+    private static final class Pending {
+        final BatchRequest request;
+        final CompletableFuture<ApiResponse> future = new CompletableFuture<>();
+
+        Pending(BatchRequest request) {
+            this.request = request;
+        }
+    }
+}
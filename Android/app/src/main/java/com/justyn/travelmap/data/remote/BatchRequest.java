@@ -0,0 +1,68 @@
+package com.justyn.travelmap.data.remote;
+
+import androidx.annotation.Nullable;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * {@code /api/batch} 中的单个子请求。
+ */
+public final class BatchRequest {
+
+    private final String method;
+    private final String path;
+    private final Map<String, String> query;
+    @Nullable
+    private final JSONObject body;
+
+    private BatchRequest(String method, String path, @Nullable Map<String, String> query, @Nullable JSONObject body) {
+        this.method = method;
+        this.path = path;
+        this.query = query == null ? Collections.emptyMap() : Collections.unmodifiableMap(new HashMap<>(query));
+        this.body = body;
+    }
+
+    public static BatchRequest get(String path, @Nullable Map<String, String> query) {
+        return new BatchRequest("GET", path, query, null);
+    }
+
+    public static BatchRequest post(String path, JSONObject body) {
+        return new BatchRequest("POST", path, null, body);
+    }
+
+    public String getMethod() {
+        return method;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public Map<String, String> getQuery() {
+        return query;
+    }
+
+    JSONObject toJson() throws JSONException {
+        JSONObject json = new JSONObject();
+        json.put("method", method);
+        json.put("path", path);
+        if (!query.isEmpty()) {
+            JSONObject queryJson = new JSONObject();
+            for (Map.Entry<String, String> entry : query.entrySet()) {
+                if (entry.getValue() != null && !entry.getValue().isEmpty()) {
+                    queryJson.put(entry.getKey(), entry.getValue());
+                }
+            }
+            json.put("query", queryJson);
+        }
+        if (body != null) {
+            json.put("body", body);
+        }
+        return json;
+    }
+}
@@ -0,0 +1,14 @@
+package com.justyn.travelmap.data.remote;
+
+import java.io.IOException;
+
+/**
+ * 服务端能连上但不支持 {@code /api/batch}：旧版后端返回 404 / 405，或响应不是约定的结构。
+ * 与网络错误区分开，{@link BatchDispatcher} 据此改为逐个发送普通 GET。
+ */
+public final class BatchUnavailableException extends IOException {
+
+    public BatchUnavailableException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,439 @@
+package com.justyn.travelmap.data.remote;
+
+import androidx.annotation.Nullable;
+
+import com.justyn.travelmap.data.remote.JsonSource.Token;
+import com.justyn.travelmap.model.FeedItem;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 景点 / 商品 / 订单的流式解码器，也是这些模型唯一的字段映射：列表、本地副本的行和详情接口都走这里。
+ * 解码方法只依赖 {@link JsonSource}，可以直接在 JVM 单测中运行；对外的 {@link JsonDecoder} 负责适配系统 JsonReader。
+ */
+public final class CatalogDecoders {
+
+    public static final JsonDecoder<List<FeedItem>> SCENIC_LIST =
+            reader -> readScenicArray(new AndroidJsonSource(reader));
+
+    public static final JsonDecoder<List<FeedItem>> ORDER_SUMMARY_LIST =
+            reader -> readOrderArray(new AndroidJsonSource(reader));
+
+    private CatalogDecoders() {
+    }
+
+    /**
+     * 分页接口（带 limit）的解码器：{@code {"items": [...], "next_cursor": "..."}}。
+     */
+    public static JsonDecoder<FeedPage> scenicPage() {
+        return reader -> readPage(new AndroidJsonSource(reader), null, false);
+    }
+
+    public static JsonDecoder<FeedPage> productPage(@Nullable String type) {
+        return reader -> readPage(new AndroidJsonSource(reader), type, true);
+    }
+
+    /**
+     * 地图 bbox 查询与附近查询的解码器：{@code {"items": [...], "truncated": false}}。
+     */
+    public static JsonDecoder<ScenicRegion> scenicRegion() {
+        return reader -> readRegion(new AndroidJsonSource(reader));
+    }
+
+    /**
+     * 单个景点的 JSON 文本（本地副本中的一行、详情接口的 data）映射为 {@link FeedItem}。
+     */
+    @Nullable
+    static FeedItem scenicFromJson(String json) throws IOException {
+        return readScenic(new AndroidJsonSource(json));
+    }
+
+    @Nullable
+    static FeedItem productFromJson(String json) throws IOException {
+        return readProduct(new AndroidJsonSource(json), null);
+    }
+
+    static ScenicRegion readRegion(JsonSource reader) throws IOException {
+        List<FeedItem> items = new ArrayList<>();
+        boolean truncated = false;
+        if (!beginObjectOrSkip(reader)) {
+            return new ScenicRegion(items, false);
+        }
+        while (reader.hasNext()) {
+            String field = reader.nextName();
+            if ("items".equals(field)) {
+                items = readScenicArray(reader);
+            } else if ("truncated".equals(field)) {
+                truncated = "true".equals(nextString(reader));
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return new ScenicRegion(items, truncated);
+    }
+
+    static FeedPage readPage(JsonSource reader, @Nullable String type, boolean product) throws IOException {
+        List<FeedItem> items = new ArrayList<>();
+        String nextCursor = null;
+        if (!beginObjectOrSkip(reader)) {
+            return new FeedPage(items, null);
+        }
+        while (reader.hasNext()) {
+            String field = reader.nextName();
+            if ("items".equals(field)) {
+                items = product ? readProductArray(reader, type) : readScenicArray(reader);
+            } else if ("next_cursor".equals(field)) {
+                nextCursor = nextString(reader);
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return new FeedPage(items, isEmpty(nextCursor) ? null : nextCursor);
+    }
+
+    static List<FeedItem> readScenicArray(JsonSource reader) throws IOException {
+        List<FeedItem> result = new ArrayList<>();
+        if (!beginArrayOrSkip(reader)) {
+            return result;
+        }
+        while (reader.hasNext()) {
+            FeedItem item = readScenic(reader);
+            if (item != null) {
+                result.add(item);
+            }
+        }
+        reader.endArray();
+        return result;
+    }
+
+    static FeedItem readScenic(JsonSource reader) throws IOException {
+        if (!beginObjectOrSkip(reader)) {
+            return null;
+        }
+        long id = 0;
+        String name = null;
+        String description = null;
+        String city = null;
+        String coverImage = null;
+        String address = null;
+        Double lat = null;
+        Double lng = null;
+        while (reader.hasNext()) {
+            String field = reader.nextName();
+            switch (field) {
+                case "id":
+                    id = nextLong(reader, 0);
+                    break;
+                case "name":
+                    name = nextString(reader);
+                    break;
+                case "description":
+                    description = nextString(reader);
+                    break;
+                case "city":
+                    city = nextString(reader);
+                    break;
+                case "cover_image":
+                    coverImage = nextString(reader);
+                    break;
+                case "address":
+                    address = nextString(reader);
+                    break;
+                case "latitude":
+                    lat = nextDouble(reader);
+                    break;
+                case "longitude":
+                    lng = nextDouble(reader);
+                    break;
+                default:
+                    reader.skipValue();
+                    break;
+            }
+        }
+        reader.endObject();
+        String resolvedDescription = description != null ? description
+                : (city != null ? city : "精彩旅程等你探索");
+        return new FeedItem(id,
+                name != null ? name : "未知景点",
+                resolvedDescription,
+                orEmpty(coverImage),
+                null,
+                orEmpty(city),
+                isEmpty(address) ? null : address,
+                lat, lng, null, null, null);
+    }
+
+    static List<FeedItem> readProductArray(JsonSource reader, @Nullable String type) throws IOException {
+        List<FeedItem> result = new ArrayList<>();
+        if (!beginArrayOrSkip(reader)) {
+            return result;
+        }
+        while (reader.hasNext()) {
+            FeedItem item = readProduct(reader, type);
+            if (item != null) {
+                result.add(item);
+            }
+        }
+        reader.endArray();
+        return result;
+    }
+
+    /**
+     * 读取单个商品；类型不匹配 {@code expectedType} 时返回 null。
+     */
+    static FeedItem readProduct(JsonSource reader, @Nullable String expectedType) throws IOException {
+        if (!beginObjectOrSkip(reader)) {
+            return null;
+        }
+        long id = 0;
+        String name = null;
+        String type = null;
+        String description = null;
+        String coverImage = null;
+        double price = Double.NaN;
+        String hotelAddress = null;
+        String address = null;
+        Integer stock = null;
+        while (reader.hasNext()) {
+            String field = reader.nextName();
+            switch (field) {
+                case "id":
+                    id = nextLong(reader, 0);
+                    break;
+                case "name":
+                    name = nextString(reader);
+                    break;
+                case "type":
+                    type = nextString(reader);
+                    break;
+                case "description":
+                    description = nextString(reader);
+                    break;
+                case "cover_image":
+                    coverImage = nextString(reader);
+                    break;
+                case "price":
+                    Double value = nextDouble(reader);
+                    price = value != null ? value : Double.NaN;
+                    break;
+                case "hotel_address":
+                    hotelAddress = nextString(reader);
+                    break;
+                case "address":
+                    address = nextString(reader);
+                    break;
+                case "stock":
+                    Double stockValue = nextDouble(reader);
+                    stock = stockValue != null ? stockValue.intValue() : null;
+                    break;
+                default:
+                    reader.skipValue();
+                    break;
+            }
+        }
+        reader.endObject();
+        if (expectedType != null && (type == null || !type.equalsIgnoreCase(expectedType))) {
+            return null;
+        }
+        String actualType = orEmpty(type);
+        String resolvedAddress = isEmpty(hotelAddress) ? address : hotelAddress;
+        return new FeedItem(id,
+                name != null ? name : "商品",
+                description != null ? description : String.format(Locale.getDefault(), "类型：%s", actualType),
+                orEmpty(coverImage),
+                formatPrice(price),
+                actualType,
+                isEmpty(resolvedAddress) ? null : resolvedAddress,
+                null, null, stock, null, null);
+    }
+
+    static List<FeedItem> readOrderArray(JsonSource reader) throws IOException {
+        List<FeedItem> result = new ArrayList<>();
+        if (!beginArrayOrSkip(reader)) {
+            return result;
+        }
+        int index = 0;
+        while (reader.hasNext()) {
+            FeedItem item = readOrderSummary(reader, index++);
+            if (item != null) {
+                result.add(item);
+            }
+        }
+        reader.endArray();
+        return result;
+    }
+
+    private static FeedItem readOrderSummary(JsonSource reader, int index) throws IOException {
+        if (!beginObjectOrSkip(reader)) {
+            return null;
+        }
+        long orderId = index;
+        String orderNo = null;
+        String status = null;
+        String orderType = null;
+        double totalPrice = Double.NaN;
+        String createTime = null;
+        String[] firstProduct = null;
+        while (reader.hasNext()) {
+            String field = reader.nextName();
+            switch (field) {
+                case "id":
+                    orderId = nextLong(reader, index);
+                    break;
+                case "order_no":
+                    orderNo = nextString(reader);
+                    break;
+                case "status":
+                    status = nextString(reader);
+                    break;
+                case "order_type":
+                    orderType = nextString(reader);
+                    break;
+                case "total_price":
+                    Double value = nextDouble(reader);
+                    totalPrice = value != null ? value : Double.NaN;
+                    break;
+                case "create_time":
+                    createTime = nextString(reader);
+                    break;
+                case "items":
+                    firstProduct = readFirstOrderProduct(reader);
+                    break;
+                default:
+                    reader.skipValue();
+                    break;
+            }
+        }
+        reader.endObject();
+        String title = orderNo != null ? orderNo : "订单";
+        String imageUrl = null;
+        if (firstProduct != null) {
+            title = firstProduct[0] != null ? firstProduct[0] : title;
+            imageUrl = orEmpty(firstProduct[1]);
+        }
+        String description = String.format(Locale.getDefault(), "%s · %s",
+                orderType != null ? orderType : "ORDER", orEmpty(status));
+        String priceLabel = Double.isNaN(totalPrice) ? null : String.format(Locale.getDefault(), "¥%.2f", totalPrice);
+        return new FeedItem(orderId, title, description, imageUrl, priceLabel,
+                orEmpty(createTime), null, null, null, null, null, null);
+    }
+
+    /**
+     * 只取订单第一项商品的名称与封面，其余子项直接跳过。
+     */
+    @Nullable
+    private static String[] readFirstOrderProduct(JsonSource reader) throws IOException {
+        if (!beginArrayOrSkip(reader)) {
+            return null;
+        }
+        String[] product = null;
+        boolean first = true;
+        while (reader.hasNext()) {
+            if (!first || reader.peek() != Token.BEGIN_OBJECT) {
+                reader.skipValue();
+                first = false;
+                continue;
+            }
+            first = false;
+            reader.beginObject();
+            while (reader.hasNext()) {
+                String field = reader.nextName();
+                if ("product".equals(field) && reader.peek() == Token.BEGIN_OBJECT) {
+                    product = new String[2];
+                    reader.beginObject();
+                    while (reader.hasNext()) {
+                        String productField = reader.nextName();
+                        if ("name".equals(productField)) {
+                            product[0] = nextString(reader);
+                        } else if ("cover_image".equals(productField)) {
+                            product[1] = nextString(reader);
+                        } else {
+                            reader.skipValue();
+                        }
+                    }
+                    reader.endObject();
+                } else {
+                    reader.skipValue();
+                }
+            }
+            reader.endObject();
+        }
+        reader.endArray();
+        return product;
+    }
+
+    static String formatPrice(double price) {
+        if (Double.isNaN(price)) {
+            return null;
+        }
+        return String.format(Locale.getDefault(), "¥%s",
+                price % 1 == 0 ? String.format(Locale.getDefault(), "%.0f", price)
+                        : String.format(Locale.getDefault(), "%.2f", price));
+    }
+
+    private static boolean beginArrayOrSkip(JsonSource reader) throws IOException {
+        if (reader.peek() != Token.BEGIN_ARRAY) {
+            reader.skipValue();
+            return false;
+        }
+        reader.beginArray();
+        return true;
+    }
+
+    private static boolean beginObjectOrSkip(JsonSource reader) throws IOException {
+        if (reader.peek() != Token.BEGIN_OBJECT) {
+            reader.skipValue();
+            return false;
+        }
+        reader.beginObject();
+        return true;
+    }
+
+    @Nullable
+    static String nextString(JsonSource reader) throws IOException {
+        Token token = reader.peek();
+        if (token == Token.NULL) {
+            reader.nextNull();
+            return null;
+        }
+        if (token == Token.BOOLEAN) {
+            return String.valueOf(reader.nextBoolean());
+        }
+        if (token == Token.BEGIN_OBJECT || token == Token.BEGIN_ARRAY) {
+            reader.skipValue();
+            return null;
+        }
+        return reader.nextString();
+    }
+
+    @Nullable
+    static Double nextDouble(JsonSource reader) throws IOException {
+        String raw = nextString(reader);
+        if (isEmpty(raw)) {
+            return null;
+        }
+        try {
+            return Double.parseDouble(raw);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    static long nextLong(JsonSource reader, long fallback) throws IOException {
+        Double value = nextDouble(reader);
+        return value != null ? value.longValue() : fallback;
+    }
+
+    private static boolean isEmpty(@Nullable String value) {
+        return value == null || value.isEmpty();
+    }
+
+    private static String orEmpty(@Nullable String value) {
+        return value != null ? value : "";
+    }
+}
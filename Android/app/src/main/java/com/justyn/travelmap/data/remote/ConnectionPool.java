@@ -0,0 +1,285 @@
+package com.justyn.travelmap.data.remote;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keep-alive connection pool shared by every {@link ApiClient}.
+ * <p>
+ * HttpURLConnection 底层已有按 host 复用 socket 的连接池，只要不调用 {@code disconnect()}
+ * 并完整读完响应流即可复用。本类负责：
+ * <ul>
+ *     <li>在首个请求之前通过系统属性配置底层池（最大空闲连接数、空闲淘汰时长）；</li>
+ *     <li>限制单个 host 的并发请求数，避免突发请求把空闲连接挤出池；</li>
+ *     <li>追踪每个 host 的空闲连接，估算复用次数并统计复用带来的延迟节省。</li>
+ * </ul>
+ */
+public final class ConnectionPool {
+
+    public static final int DEFAULT_MAX_IDLE_CONNECTIONS = 5;
+    public static final long DEFAULT_KEEP_ALIVE_MS = 5 * 60 * 1000L;
+    public static final int DEFAULT_MAX_REQUESTS_PER_HOST = 4;
+
+    private static volatile ConnectionPool defaultPool;
+
+    private final int maxIdleConnections;
+    private final long keepAliveMs;
+    private final int maxRequestsPerHost;
+    private final Map<String, HostState> hosts = new HashMap<>();
+    private int totalIdle;
+
+    private final AtomicLong requestCount = new AtomicLong();
+    private final AtomicLong reusedCount = new AtomicLong();
+    private final AtomicLong freshCount = new AtomicLong();
+    private final AtomicLong evictedCount = new AtomicLong();
+    private final AtomicLong reusedNanos = new AtomicLong();
+    private final AtomicLong freshNanos = new AtomicLong();
+
+    public ConnectionPool(int maxIdleConnections, long keepAliveMs, int maxRequestsPerHost) {
+        if (maxIdleConnections < 0 || keepAliveMs <= 0 || maxRequestsPerHost <= 0) {
+            throw new IllegalArgumentException("invalid connection pool config");
+        }
+        this.maxIdleConnections = maxIdleConnections;
+        this.keepAliveMs = keepAliveMs;
+        this.maxRequestsPerHost = maxRequestsPerHost;
+    }
+
+    /**
+     * 进程级共享连接池；首次调用时把配置写入 HttpURLConnection 读取的系统属性。
+     */
+    public static ConnectionPool getDefault() {
+        ConnectionPool pool = defaultPool;
+        if (pool == null) {
+            synchronized (ConnectionPool.class) {
+                pool = defaultPool;
+                if (pool == null) {
+                    pool = new ConnectionPool(DEFAULT_MAX_IDLE_CONNECTIONS,
+                            DEFAULT_KEEP_ALIVE_MS, DEFAULT_MAX_REQUESTS_PER_HOST);
+                    pool.applySystemProperties();
+                    defaultPool = pool;
+                }
+            }
+        }
+        return pool;
+    }
+
+    /**
+     * 替换默认连接池配置，需在发出第一个请求之前调用（底层池只在创建时读取系统属性）。
+     */
+    public static synchronized void configureDefault(int maxIdleConnections, long keepAliveMs, int maxRequestsPerHost) {
+        ConnectionPool pool = new ConnectionPool(maxIdleConnections, keepAliveMs, maxRequestsPerHost);
+        pool.applySystemProperties();
+        defaultPool = pool;
+    }
+
+    private void applySystemProperties() {
+        System.setProperty("http.keepAlive", maxIdleConnections > 0 ? "true" : "false");
+        System.setProperty("http.maxConnections", String.valueOf(Math.max(1, maxIdleConnections)));
+        System.setProperty("http.keepAliveDuration", String.valueOf(keepAliveMs));
+    }
+
+    /**
+     * 获取一个到 host 的请求许可；超过单 host 并发上限时阻塞等待。
+     */
+    Lease acquire(String host) throws InterruptedException {
+        HostState state;
+        synchronized (this) {
+            state = hosts.get(host);
+            if (state == null) {
+                state = new HostState(maxRequestsPerHost);
+                hosts.put(host, state);
+            }
+        }
+        state.permits.acquire();
+        boolean reused;
+        synchronized (this) {
+            evictExpiredLocked(System.nanoTime());
+            reused = state.idleCount > 0;
+            if (reused) {
+                state.idleCount--;
+                totalIdle--;
+            }
+        }
+        requestCount.incrementAndGet();
+        return new Lease(host, state, reused, System.nanoTime());
+    }
+
+    /**
+     * 归还许可。{@code reusable} 为 false 表示连接已断开（异常或调用了 disconnect），不能回到空闲池。
+     */
+    void release(Lease lease, boolean reusable) {
+        if (lease == null || lease.released) {
+            return;
+        }
+        lease.released = true;
+        long now = System.nanoTime();
+        long elapsed = now - lease.startNanos;
+        if (lease.reused) {
+            reusedCount.incrementAndGet();
+            reusedNanos.addAndGet(elapsed);
+        } else {
+            freshCount.incrementAndGet();
+            freshNanos.addAndGet(elapsed);
+        }
+        synchronized (this) {
+            if (reusable && maxIdleConnections > 0) {
+                evictExpiredLocked(now);
+                if (totalIdle >= maxIdleConnections) {
+                    evictOldestLocked();
+                }
+                lease.state.idleCount++;
+                lease.state.lastIdleNanos = now;
+                totalIdle++;
+            }
+        }
+        lease.state.permits.release();
+    }
+
+    /**
+     * 主动淘汰超过空闲时长的连接记录，返回淘汰数量。
+     */
+    public synchronized int evictIdle() {
+        return evictExpiredLocked(System.nanoTime());
+    }
+
+    private int evictExpiredLocked(long now) {
+        int evicted = 0;
+        long keepAliveNanos = TimeUnit.MILLISECONDS.toNanos(keepAliveMs);
+        for (HostState state : hosts.values()) {
+            if (state.idleCount > 0 && now - state.lastIdleNanos > keepAliveNanos) {
+                evicted += state.idleCount;
+                totalIdle -= state.idleCount;
+                state.idleCount = 0;
+            }
+        }
+        evictedCount.addAndGet(evicted);
+        return evicted;
+    }
+
+    private void evictOldestLocked() {
+        HostState oldest = null;
+        for (HostState state : hosts.values()) {
+            if (state.idleCount > 0 && (oldest == null || state.lastIdleNanos < oldest.lastIdleNanos)) {
+                oldest = state;
+            }
+        }
+        if (oldest != null) {
+            oldest.idleCount--;
+            totalIdle--;
+            evictedCount.incrementAndGet();
+        }
+    }
+
+    public int getMaxIdleConnections() {
+        return maxIdleConnections;
+    }
+
+    public long getKeepAliveMs() {
+        return keepAliveMs;
+    }
+
+    public int getMaxRequestsPerHost() {
+        return maxRequestsPerHost;
+    }
+
+    public synchronized int getIdleConnectionCount() {
+        return totalIdle;
+    }
+
+    public Stats getStats() {
+        return new Stats(requestCount.get(), reusedCount.get(), freshCount.get(), evictedCount.get(),
+                reusedNanos.get(), freshNanos.get());
+    }
+
+    static final class Lease {
+        final String host;
+        final HostState state;
+        final boolean reused;
+        final long startNanos;
+        boolean released;
+
+        Lease(String host, HostState state, boolean reused, long startNanos) {
+            this.host = host;
+            this.state = state;
+            this.reused = reused;
+            this.startNanos = startNanos;
+        }
+    }
+
+    private static final class HostState {
+        final Semaphore permits;
+        int idleCount;
+        long lastIdleNanos;
+
+        HostState(int maxRequests) {
+            this.permits = new Semaphore(maxRequests, true);
+        }
+    }
+
+    /**
+     * 连接复用统计快照。
+     */
+    public static final class Stats {
+        private final long requests;
+        private final long reused;
+        private final long fresh;
+        private final long evicted;
+        private final long reusedNanos;
+        private final long freshNanos;
+
+        Stats(long requests, long reused, long fresh, long evicted, long reusedNanos, long freshNanos) {
+            this.requests = requests;
+            this.reused = reused;
+            this.fresh = fresh;
+            this.evicted = evicted;
+            this.reusedNanos = reusedNanos;
+            this.freshNanos = freshNanos;
+        }
+
+        public long getRequests() {
+            return requests;
+        }
+
+        public long getReusedConnections() {
+            return reused;
+        }
+
+        public long getNewConnections() {
+            return fresh;
+        }
+
+        public long getEvictedConnections() {
+            return evicted;
+        }
+
+        public double getAverageReusedLatencyMs() {
+            return reused == 0 ? 0 : reusedNanos / 1_000_000.0 / reused;
+        }
+
+        public double getAverageNewLatencyMs() {
+            return fresh == 0 ? 0 : freshNanos / 1_000_000.0 / fresh;
+        }
+
+        /**
+         * 估算复用连接节省的总耗时：新建连接的平均耗时与复用连接平均耗时之差乘以复用次数。
+         */
+        public double getEstimatedSavedMs() {
+            if (reused == 0 || fresh == 0) {
+                return 0;
+            }
+            return Math.max(0, getAverageNewLatencyMs() - getAverageReusedLatencyMs()) * reused;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.US,
+                    "requests=%d reused=%d new=%d evicted=%d avgReused=%.1fms avgNew=%.1fms saved=%.0fms",
+                    requests, reused, fresh, evicted, getAverageReusedLatencyMs(), getAverageNewLatencyMs(),
+                    getEstimatedSavedMs());
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.justyn.travelmap.data.remote;
+
+import androidx.annotation.Nullable;
+
+import com.justyn.travelmap.model.FeedItem;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 分页列表中的一页：本页数据与下一页游标，游标为 null 表示已经到底。
+ */
+public final class FeedPage {
+
+    private final List<FeedItem> items;
+    @Nullable
+    private final String nextCursor;
+
+    public FeedPage(List<FeedItem> items, @Nullable String nextCursor) {
+        this.items = items != null ? Collections.unmodifiableList(items) : Collections.emptyList();
+        this.nextCursor = nextCursor;
+    }
+
+    public List<FeedItem> getItems() {
+        return items;
+    }
+
+    @Nullable
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public boolean hasMore() {
+        return nextCursor != null;
+    }
+}
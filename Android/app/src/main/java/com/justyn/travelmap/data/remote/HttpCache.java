@@ -0,0 +1,169 @@
+package com.justyn.travelmap.data.remote;
+
+import androidx.annotation.Nullable;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 基于 ETag / Last-Modified 的条件 GET 缓存。
+ * <p>
+ * 只对 {@link #CACHEABLE_PATHS} 中的目录类接口生效（不含带 {@code since} 的增量请求），且仅缓存带有校验字段的 200 响应；
+ * 再次请求时携带 If-None-Match / If-Modified-Since，服务端返回 304 时直接复用本地响应体。
+ * 按 URL 做 LRU 淘汰，总字符数不超过 {@link #DEFAULT_MAX_CHARS}。
+ */
+public final class HttpCache {
+
+    public static final int DEFAULT_MAX_CHARS = 2 * 1024 * 1024;
+
+    public static final Set<String> CACHEABLE_PATHS = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(
+            "/api/scenics",
+            "/api/scenics/map",
+            "/api/products"
+    )));
+
+    private static final HttpCache DEFAULT = new HttpCache(DEFAULT_MAX_CHARS);
+
+    private final int maxChars;
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private int currentChars;
+
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong revalidationCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+
+    public HttpCache(int maxChars) {
+        this.maxChars = maxChars;
+    }
+
+    public static HttpCache getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * 单个响应体超过该字符数时不缓存。
+     */
+    int getMaxChars() {
+        return maxChars;
+    }
+
+    /**
+     * 只缓存目录类 GET；带 {@code since} 的增量同步响应每次都不同，不缓存也不做条件请求。
+     */
+    public static boolean isCacheable(String method, String path, @Nullable String query) {
+        return "GET".equals(method) && path != null && CACHEABLE_PATHS.contains(path) && !hasParam(query, "since");
+    }
+
+    private static boolean hasParam(@Nullable String query, String name) {
+        if (query == null || query.isEmpty()) {
+            return false;
+        }
+        for (String pair : query.split("&")) {
+            int eq = pair.indexOf('=');
+            if ((eq < 0 ? pair : pair.substring(0, eq)).equals(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 查找缓存条目；没有条目时计为 miss。有条目时等条件请求真正返回后再由
+     * {@link #recordRevalidation(boolean)} 计数。
+     */
+    @Nullable
+    synchronized Entry lookup(String url) {
+        Entry entry = entries.get(url);
+        if (entry == null) {
+            missCount.incrementAndGet();
+        }
+        return entry;
+    }
+
+    /**
+     * 一次带校验字段的请求已经返回：304 计为命中（复用缓存的响应体），200 说明内容已变化。
+     */
+    void recordRevalidation(boolean notModified) {
+        revalidationCount.incrementAndGet();
+        if (notModified) {
+            hitCount.incrementAndGet();
+        }
+    }
+
+    synchronized void store(String url, String body, @Nullable String etag, @Nullable String lastModified) {
+        if (body == null || (etag == null && lastModified == null) || body.length() > maxChars) {
+            remove(url);
+            return;
+        }
+        Entry previous = entries.put(url, new Entry(body, etag, lastModified));
+        if (previous != null) {
+            currentChars -= previous.body.length();
+        }
+        currentChars += body.length();
+        trimToSize();
+    }
+
+    synchronized void remove(String url) {
+        Entry previous = entries.remove(url);
+        if (previous != null) {
+            currentChars -= previous.body.length();
+        }
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        currentChars = 0;
+    }
+
+    private void trimToSize() {
+        Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet().iterator();
+        while (currentChars > maxChars && iterator.hasNext()) {
+            Map.Entry<String, Entry> eldest = iterator.next();
+            currentChars -= eldest.getValue().body.length();
+            iterator.remove();
+        }
+    }
+
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    public long getRevalidationCount() {
+        return revalidationCount.get();
+    }
+
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.US, "hits=%d revalidations=%d misses=%d entries=%d",
+                getHitCount(), getRevalidationCount(), getMissCount(), size());
+    }
+
+    static final class Entry {
+        final String body;
+        @Nullable
+        final String etag;
+        @Nullable
+        final String lastModified;
+
+        Entry(String body, @Nullable String etag, @Nullable String lastModified) {
+            this.body = body;
+            this.etag = etag;
+            this.lastModified = lastModified;
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.justyn.travelmap.data.remote;
+
+import android.util.JsonReader;
+
+import java.io.IOException;
+
+/**
+ * 把响应中的 {@code data} 字段直接从 {@link JsonReader} 流式映射为模型对象。
+ * 调用时 reader 正位于 data 的值上（非 null），实现需恰好消费完这一个值。
+ */
+public interface JsonDecoder<T> {
+    T decode(JsonReader reader) throws IOException;
+}
@@ -0,0 +1,37 @@
+package com.justyn.travelmap.data.remote;
+
+import java.io.IOException;
+
+/**
+ * {@link CatalogDecoders} 读取 JSON 所需的最小流式接口，方法语义与 {@code android.util.JsonReader} 相同。
+ * 设备上由 {@link AndroidJsonSource} 适配系统实现；系统实现在 JVM 单测里不可用，
+ * 测试可以接入其它流式解析器，直接验证真实的字段映射。
+ */
+public interface JsonSource {
+
+    enum Token {
+        BEGIN_ARRAY, END_ARRAY, BEGIN_OBJECT, END_OBJECT, NAME, STRING, NUMBER, BOOLEAN, NULL, END_DOCUMENT
+    }
+
+    Token peek() throws IOException;
+
+    void beginArray() throws IOException;
+
+    void endArray() throws IOException;
+
+    void beginObject() throws IOException;
+
+    void endObject() throws IOException;
+
+    boolean hasNext() throws IOException;
+
+    String nextName() throws IOException;
+
+    String nextString() throws IOException;
+
+    boolean nextBoolean() throws IOException;
+
+    void nextNull() throws IOException;
+
+    void skipValue() throws IOException;
+}
@@ -0,0 +1,110 @@
+package com.justyn.travelmap.data.remote;
+
+import androidx.annotation.Nullable;
+
+import com.justyn.travelmap.model.FeedItem;
+
+import org.json.JSONException;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 按游标逐页加载列表，并限制常驻内存的条数。
+ * <p>
+ * 超过 {@code maxResident} 时从列表头部淘汰最早加载的数据，{@link #hasTrimmedHead()} 为 true
+ * 表示用户回到顶部时需要重新从第一页加载。加载方法会阻塞，需在后台线程调用。
+ */
+public final class PagedFeedLoader {
+
+    public static final int DEFAULT_PAGE_SIZE = 20;
+    public static final int DEFAULT_MAX_RESIDENT = 200;
+    /** 跨类型衔接时可能返回空页，连续空页超过该次数就视为到底，避免异常数据导致死循环。 */
+    private static final int MAX_EMPTY_PAGES = 4;
+
+    /**
+     * 一种列表的数据来源；{@code cursor} 为 null 表示第一页。
+     */
+    public interface PageSource {
+        FeedPage load(@Nullable String cursor, int limit) throws IOException, JSONException;
+    }
+
+    private final PageSource source;
+    private final int pageSize;
+    private final int maxResident;
+    private final List<FeedItem> resident = new ArrayList<>();
+    @Nullable
+    private String nextCursor;
+    private boolean exhausted;
+    private int trimmedCount;
+
+    public PagedFeedLoader(PageSource source) {
+        this(source, DEFAULT_PAGE_SIZE, DEFAULT_MAX_RESIDENT);
+    }
+
+    public PagedFeedLoader(PageSource source, int pageSize, int maxResident) {
+        this.source = source;
+        this.pageSize = Math.max(1, pageSize);
+        this.maxResident = Math.max(this.pageSize, maxResident);
+    }
+
+    /**
+     * 丢弃已加载的数据并重新加载第一页，返回当前常驻列表的快照。
+     */
+    public synchronized List<FeedItem> loadFirst() throws IOException, JSONException {
+        FeedPage page = source.load(null, pageSize);
+        resident.clear();
+        trimmedCount = 0;
+        if (append(page) == 0) {
+            loadUntilNonEmpty();
+        }
+        return snapshot();
+    }
+
+    /**
+     * 追加下一页；已经到底时直接返回当前快照。
+     */
+    public synchronized List<FeedItem> loadNext() throws IOException, JSONException {
+        loadUntilNonEmpty();
+        return snapshot();
+    }
+
+    public synchronized boolean hasMore() {
+        return !exhausted;
+    }
+
+    public synchronized boolean hasTrimmedHead() {
+        return trimmedCount > 0;
+    }
+
+    public synchronized List<FeedItem> snapshot() {
+        return Collections.unmodifiableList(new ArrayList<>(resident));
+    }
+
+    private void loadUntilNonEmpty() throws IOException, JSONException {
+        int emptyPages = 0;
+        while (!exhausted) {
+            if (append(source.load(nextCursor, pageSize)) > 0) {
+                return;
+            }
+            if (++emptyPages >= MAX_EMPTY_PAGES) {
+                exhausted = true;
+            }
+        }
+    }
+
+    private int append(FeedPage page) {
+        List<FeedItem> items = page.getItems();
+        resident.addAll(items);
+        nextCursor = page.getNextCursor();
+        exhausted = !page.hasMore();
+        int overflow = resident.size() - maxResident;
+        if (overflow > 0) {
+            resident.subList(0, overflow).clear();
+            trimmedCount += overflow;
+        }
+        return items.size();
+    }
+}
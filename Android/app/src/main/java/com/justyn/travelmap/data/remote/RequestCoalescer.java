@@ -0,0 +1,114 @@
+package com.justyn.travelmap.data.remote;
+
+import org.json.JSONException;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 相同请求的 single-flight 合并：同一时刻多个调用方请求相同 method + path + query 时，
+ * 只有第一个真正发起网络请求，其余调用方等待并共享同一个解析结果（或同一个异常）。
+ * <p>
+ * 共享结果会被多个线程同时读取，调用方不得修改返回的对象。
+ */
+public final class RequestCoalescer {
+
+    public interface Call<T> {
+        T execute() throws IOException, JSONException;
+    }
+
+    private static final RequestCoalescer DEFAULT = new RequestCoalescer();
+
+    private final Map<String, InFlight<?>> inFlight = new HashMap<>();
+    private final AtomicLong executedCount = new AtomicLong();
+    private final AtomicLong deduplicatedCount = new AtomicLong();
+
+    public static RequestCoalescer getDefault() {
+        return DEFAULT;
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> T execute(String key, Call<T> call) throws IOException, JSONException {
+        InFlight<T> flight;
+        boolean leader = false;
+        synchronized (this) {
+            flight = (InFlight<T>) inFlight.get(key);
+            if (flight == null) {
+                flight = new InFlight<>();
+                inFlight.put(key, flight);
+                leader = true;
+            }
+        }
+        if (!leader) {
+            deduplicatedCount.incrementAndGet();
+            return flight.await();
+        }
+        executedCount.incrementAndGet();
+        try {
+            T result = call.execute();
+            flight.complete(result, null);
+            return result;
+        } catch (Throwable t) {
+            // Error（如 OutOfMemoryError）也要唤醒等待中的调用方，否则它们会永远停在 await()
+            flight.complete(null, t);
+            throw t;
+        } finally {
+            synchronized (this) {
+                inFlight.remove(key);
+            }
+        }
+    }
+
+    public long getExecutedCount() {
+        return executedCount.get();
+    }
+
+    public long getDeduplicatedCount() {
+        return deduplicatedCount.get();
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.US, "executed=%d deduplicated=%d",
+                getExecutedCount(), getDeduplicatedCount());
+    }
+
+    private static final class InFlight<T> {
+        private final CountDownLatch latch = new CountDownLatch(1);
+        private T result;
+        private Throwable error;
+
+        void complete(T result, Throwable error) {
+            this.result = result;
+            this.error = error;
+            latch.countDown();
+        }
+
+        T await() throws IOException, JSONException {
+            try {
+                latch.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("请求已取消");
+            }
+            if (error instanceof IOException) {
+                throw (IOException) error;
+            }
+            if (error instanceof JSONException) {
+                throw (JSONException) error;
+            }
+            if (error instanceof RuntimeException) {
+                throw (RuntimeException) error;
+            }
+            if (error instanceof Error) {
+                throw (Error) error;
+            }
+            return result;
+        }
+    }
+}
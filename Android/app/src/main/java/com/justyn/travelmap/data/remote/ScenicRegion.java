@@ -0,0 +1,28 @@
+package com.justyn.travelmap.data.remote;
+
+import com.justyn.travelmap.model.FeedItem;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 地图按范围（bbox）或按半径（附近）查询的结果；{@link #isTruncated()} 为 true 表示范围内的景点超过服务端单次上限。
+ */
+public final class ScenicRegion {
+
+    private final List<FeedItem> items;
+    private final boolean truncated;
+
+    public ScenicRegion(List<FeedItem> items, boolean truncated) {
+        this.items = items != null ? Collections.unmodifiableList(items) : Collections.emptyList();
+        this.truncated = truncated;
+    }
+
+    public List<FeedItem> getItems() {
+        return items;
+    }
+
+    public boolean isTruncated() {
+        return truncated;
+    }
+}
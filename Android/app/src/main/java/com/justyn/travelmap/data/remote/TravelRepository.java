@@ -3,7 +3,9 @@ package com.justyn.travelmap.data.remote;
 import android.text.TextUtils;
 
 import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
 
+import com.justyn.travelmap.data.local.CatalogReplica;
 import com.justyn.travelmap.model.FeedItem;
 
 import org.json.JSONArray;
@@ -11,174 +13,473 @@ import org.json.JSONException;
 import org.json.JSONObject;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 /**
  * 聚合首页/商城/预订需要的远程数据访问。
  */
 public class TravelRepository {
 
+    /**
+     * 多类型商品并发拉取时的失败策略。
+     */
+    public enum FanOutPolicy {
+        /** 任一类型失败即取消其余尚未开始的请求并抛出异常。 */
+        FAIL_FAST,
+        /** 跳过失败的类型，只要有一个类型成功就返回已拿到的结果；全部失败才抛出异常。 */
+        BEST_EFFORT
+    }
+
+    public static final String ENTITY_SCENIC = "scenic";
+    public static final String ENTITY_PRODUCT = "product";
+
     private final ApiClient apiClient;
+    private final RequestCoalescer coalescer;
+    private final ExecutorService fanOutExecutor;
+    private volatile FanOutPolicy fanOutPolicy = FanOutPolicy.FAIL_FAST;
 
     public TravelRepository() {
         this(new ApiClient());
     }
 
     public TravelRepository(ApiClient apiClient) {
+        this(apiClient, RequestCoalescer.getDefault());
+    }
+
+    public TravelRepository(ApiClient apiClient, RequestCoalescer coalescer) {
+        this(apiClient, coalescer, ApiExecutors.io());
+    }
+
+    public TravelRepository(ApiClient apiClient, RequestCoalescer coalescer, ExecutorService fanOutExecutor) {
         this.apiClient = apiClient;
+        this.coalescer = coalescer;
+        this.fanOutExecutor = fanOutExecutor;
+    }
+
+    public void setFanOutPolicy(FanOutPolicy policy) {
+        this.fanOutPolicy = policy != null ? policy : FanOutPolicy.FAIL_FAST;
+    }
+
+    /**
+     * 以下读取方法都经过 {@link RequestCoalescer}：并发的相同请求共享同一次网络调用，
+     * 返回的列表为只读视图。
+     */
+    public List<FeedItem> fetchScenicMapPoints() throws IOException, JSONException {
+        return coalescer.execute(ApiClient.requestKey("GET", "/api/scenics/map", null), () -> {
+            ApiResponse response = apiClient.getStreaming("/api/scenics/map", null, CatalogDecoders.SCENIC_LIST);
+            ensureSuccess(response);
+            return asFeedList(response.getData());
+        });
+    }
+
+    /**
+     * 按范围查询地图落点：只返回落点需要的字段，坐标取 6 位小数（约 0.1 米），同一瓦片的请求地址保持一致，
+     * 可以命中条件 GET 缓存。{@code minLng > maxLng} 表示跨越 180° 经线。
+     */
+    public ScenicRegion fetchScenicsInBounds(double minLat, double minLng, double maxLat, double maxLng)
+            throws IOException, JSONException {
+        Map<String, String> queries = new HashMap<>();
+        queries.put("bbox", String.format(Locale.US, "%.6f,%.6f,%.6f,%.6f", minLat, minLng, maxLat, maxLng));
+        return coalescer.execute(ApiClient.requestKey("GET", "/api/scenics/map", queries), () -> {
+            ApiResponse response = apiClient.getStreaming("/api/scenics/map", queries, CatalogDecoders.scenicRegion());
+            ensureSuccess(response);
+            Object data = response.getData();
+            return data instanceof ScenicRegion ? (ScenicRegion) data : new ScenicRegion(null, false);
+        });
     }
 
-    public List<FeedItem> fetchScenicFeed(@Nullable String keyword) throws IOException, JSONException {
+    /**
+     * 查询 {@code radiusMeters} 米内的景点，由近到远最多 {@code limit} 条（服务端上限 100），走服务端 geohash 索引，
+     * 不需要先拉全部景点。{@link ScenicRegion#isTruncated()} 为 true 表示半径内还有更多景点。
+     */
+    public ScenicRegion fetchNearbyScenics(double latitude, double longitude, int radiusMeters, int limit)
+            throws IOException, JSONException {
         Map<String, String> queries = new HashMap<>();
-        if (keyword != null && !keyword.isEmpty()) {
-            queries.put("keyword", keyword);
-        }
-        ApiResponse response = apiClient.get("/api/scenics", queries);
-        ensureSuccess(response);
-        Object data = response.getData();
-        if (!(data instanceof JSONArray)) {
-            return new ArrayList<>();
+        queries.put("lat", String.format(Locale.US, "%.6f", latitude));
+        queries.put("lng", String.format(Locale.US, "%.6f", longitude));
+        queries.put("radius", String.valueOf(radiusMeters));
+        queries.put("limit", String.valueOf(limit));
+        return coalescer.execute(ApiClient.requestKey("GET", "/api/scenics/nearby", queries), () -> {
+            ApiResponse response = apiClient.getStreaming("/api/scenics/nearby", queries, CatalogDecoders.scenicRegion());
+            ensureSuccess(response);
+            Object data = response.getData();
+            return data instanceof ScenicRegion ? (ScenicRegion) data : new ScenicRegion(null, false);
+        });
+    }
+
+    /**
+     * 首页景点的分页来源：无关键字且提供了本地库时，第一页先做一次增量同步，再从本地副本按 id 分页；
+     * 否则直接请求服务端分页接口。
+     */
+    public PagedFeedLoader.PageSource scenicPages(@Nullable String keyword, @Nullable CatalogReplica store) {
+        if (TextUtils.isEmpty(keyword) && store != null) {
+            return (cursor, limit) -> {
+                if (cursor == null) {
+                    syncCatalog(store, ENTITY_SCENIC, "/api/scenics");
+                }
+                return loadLocalPage(store, ENTITY_SCENIC, null, cursor, limit);
+            };
         }
-        return parseScenicArray((JSONArray) data);
+        return (cursor, limit) -> fetchScenicPage(keyword, cursor, limit);
     }
 
-    public List<FeedItem> fetchScenicMapPoints() throws IOException, JSONException {
-        ApiResponse response = apiClient.get("/api/scenics/map");
-        ensureSuccess(response);
-        Object data = response.getData();
-        if (!(data instanceof JSONArray)) {
-            return new ArrayList<>();
+    /**
+     * 商品的分页来源，按 {@code types} 的顺序排列。本地副本与远程接口的选择规则同 {@link #scenicPages}：
+     * 本地副本逐个类型翻页（{@link #chainTypes}）；远程接口第一页并发请求每个类型（{@link #fanOutTypes}）。
+     */
+    public PagedFeedLoader.PageSource productPages(@Nullable String keyword, @Nullable CatalogReplica store,
+                                                   String... types) {
+        if (TextUtils.isEmpty(keyword) && store != null) {
+            PagedFeedLoader.PageSource local = chainTypes(types, (type, cursor, limit) ->
+                    loadLocalPage(store, ENTITY_PRODUCT, type.toUpperCase(Locale.ROOT), cursor, limit));
+            return (cursor, limit) -> {
+                if (cursor == null) {
+                    syncCatalog(store, ENTITY_PRODUCT, "/api/products");
+                }
+                return local.load(cursor, limit);
+            };
         }
-        return parseScenicArray((JSONArray) data);
+        return fanOutTypes(types, (type, cursor, limit) -> fetchProductPage(keyword, type, cursor, limit),
+                fanOutExecutor, fanOutPolicy);
     }
 
-    public List<FeedItem> fetchProductsByTypes(@Nullable String keyword, String... types)
+    public FeedPage fetchScenicPage(@Nullable String keyword, @Nullable String cursor, int limit)
             throws IOException, JSONException {
-        List<FeedItem> merged = new ArrayList<>();
-        if (types == null || types.length == 0) {
-            return merged;
-        }
-        for (String type : types) {
-            Map<String, String> queries = new HashMap<>();
-            if (keyword != null && !keyword.isEmpty()) {
-                queries.put("keyword", keyword);
-            }
-            queries.put("type", type);
-            ApiResponse response = apiClient.get("/api/products", queries);
+        Map<String, String> queries = pageQueries(keyword, cursor, limit);
+        return coalescer.execute(ApiClient.requestKey("GET", "/api/scenics", queries), () -> {
+            ApiResponse response = apiClient.getStreaming("/api/scenics", queries, CatalogDecoders.scenicPage());
             ensureSuccess(response);
-            Object data = response.getData();
-            if (!(data instanceof JSONArray)) {
-                continue;
+            return asFeedPage(response.getData());
+        });
+    }
+
+    public FeedPage fetchProductPage(@Nullable String keyword, String type, @Nullable String cursor, int limit)
+            throws IOException, JSONException {
+        Map<String, String> queries = pageQueries(keyword, cursor, limit);
+        queries.put("type", type);
+        return coalescer.execute(ApiClient.requestKey("GET", "/api/products", queries), () -> {
+            ApiResponse response = apiClient.getStreaming("/api/products", queries, CatalogDecoders.productPage(type));
+            ensureSuccess(response);
+            return asFeedPage(response.getData());
+        });
+    }
+
+    /**
+     * 单个类型的分页来源。
+     */
+    interface TypedPageSource {
+        FeedPage load(String type, @Nullable String cursor, int limit) throws IOException, JSONException;
+    }
+
+    /**
+     * 把多个类型串成一个分页来源，游标格式为 {@code <类型下标>:<该类型内的游标>}，
+     * 一个类型翻完后下一页从下一个类型的第一页开始。
+     */
+    @VisibleForTesting
+    static PagedFeedLoader.PageSource chainTypes(String[] types, TypedPageSource source) {
+        return (cursor, limit) -> {
+            if (types == null || types.length == 0) {
+                return new FeedPage(Collections.emptyList(), null);
             }
-            JSONArray array = (JSONArray) data;
-            for (int i = 0; i < array.length(); i++) {
-                JSONObject product = array.optJSONObject(i);
-                if (product == null) {
-                    continue;
+            int index = 0;
+            String inner = null;
+            if (cursor != null) {
+                int separator = cursor.indexOf(':');
+                try {
+                    index = Integer.parseInt(cursor.substring(0, Math.max(separator, 0)));
+                } catch (NumberFormatException e) {
+                    throw new IOException("分页游标无效：" + cursor);
                 }
-                String actualType = product.optString("type");
-                if (!typeMatches(actualType, type)) {
-                    continue;
-                }
-                FeedItem item = buildProductItem(product);
-                if (item != null) {
-                    merged.add(item);
+                if (index < 0 || index >= types.length) {
+                    throw new IOException("分页游标无效：" + cursor);
                 }
+                inner = separator + 1 < cursor.length() ? cursor.substring(separator + 1) : null;
             }
-        }
-        return merged;
+            FeedPage page = source.load(types[index], inner, limit);
+            String next;
+            if (page.hasMore()) {
+                next = index + ":" + page.getNextCursor();
+            } else {
+                next = index + 1 < types.length ? (index + 1) + ":" : null;
+            }
+            return new FeedPage(page.getItems(), next);
+        };
     }
 
-    public FeedItem fetchScenicDetail(long scenicId) throws IOException, JSONException {
-        ApiResponse response = apiClient.get("/api/scenics/" + scenicId);
-        ensureSuccess(response);
-        Object data = response.getData();
-        if (data instanceof JSONObject) {
-            return buildScenicItem((JSONObject) data);
+    /**
+     * 多类型的远程分页来源：第一页在 {@code executor} 上并发请求每个类型的第一页并按 {@code types} 的顺序合并，
+     * 耗时取最慢的一个类型而不是各类型之和；之后按类型顺序继续翻还有剩余的类型。
+     * 游标列出尚未翻完的类型，形如 {@code 0:12,2:40}（类型下标:该类型内的游标，按下标升序）。
+     * {@link FanOutPolicy#BEST_EFFORT} 时第一页失败的类型被跳过，之后也不再请求。
+     * 调用线程被中断时取消尚未开始的请求。
+     */
+    @VisibleForTesting
+    static PagedFeedLoader.PageSource fanOutTypes(String[] types, TypedPageSource source, ExecutorService executor,
+                                                  FanOutPolicy policy) {
+        return (cursor, limit) -> {
+            if (types == null || types.length == 0) {
+                return new FeedPage(Collections.emptyList(), null);
+            }
+            if (cursor == null) {
+                return loadFirstPages(types, source, executor, policy, limit);
+            }
+            List<int[]> indexes = new ArrayList<>();
+            List<String> cursors = new ArrayList<>();
+            parsePending(cursor, types.length, indexes, cursors);
+            int index = indexes.get(0)[0];
+            FeedPage page = source.load(types[index], cursors.get(0), limit);
+            if (page.hasMore()) {
+                cursors.set(0, page.getNextCursor());
+            } else {
+                indexes.remove(0);
+                cursors.remove(0);
+            }
+            return new FeedPage(page.getItems(), encodePending(indexes, cursors));
+        };
+    }
+
+    private static FeedPage loadFirstPages(String[] types, TypedPageSource source, ExecutorService executor,
+                                           FanOutPolicy policy, int limit) throws IOException, JSONException {
+        CompletionService<FeedPage> completion = new ExecutorCompletionService<>(executor);
+        Map<Future<FeedPage>, Integer> submitted = new HashMap<>();
+        for (int i = 0; i < types.length; i++) {
+            String type = types[i];
+            submitted.put(completion.submit(() -> source.load(type, null, limit)), i);
+        }
+        FeedPage[] pages = new FeedPage[types.length];
+        Throwable firstError = null;
+        int failed = 0;
+        try {
+            for (int done = 0; done < types.length; done++) {
+                Future<FeedPage> future = completion.take();
+                try {
+                    pages[submitted.get(future)] = future.get();
+                } catch (ExecutionException e) {
+                    failed++;
+                    if (firstError == null) {
+                        firstError = e.getCause() != null ? e.getCause() : e;
+                    }
+                    if (policy == FanOutPolicy.FAIL_FAST) {
+                        cancelAll(submitted.keySet());
+                        throw rethrow(firstError);
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            cancelAll(submitted.keySet());
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("请求已取消");
         }
-        return null;
+        if (failed == types.length) {
+            throw rethrow(firstError);
+        }
+        List<FeedItem> merged = new ArrayList<>();
+        List<int[]> indexes = new ArrayList<>();
+        List<String> cursors = new ArrayList<>();
+        for (int i = 0; i < types.length; i++) {
+            FeedPage page = pages[i];
+            if (page == null) {
+                continue;
+            }
+            merged.addAll(page.getItems());
+            if (page.hasMore()) {
+                indexes.add(new int[]{i});
+                cursors.add(page.getNextCursor());
+            }
+        }
+        return new FeedPage(merged, encodePending(indexes, cursors));
     }
 
-    public FeedItem fetchProductDetail(long productId) throws IOException, JSONException {
-        ApiResponse response = apiClient.get("/api/products/" + productId);
-        ensureSuccess(response);
-        Object data = response.getData();
-        if (data instanceof JSONObject) {
-            return buildProductItem((JSONObject) data);
+    private static void parsePending(String cursor, int typeCount, List<int[]> indexes, List<String> cursors)
+            throws IOException {
+        int previous = -1;
+        for (String entry : cursor.split(",", -1)) {
+            int separator = entry.indexOf(':');
+            int index;
+            try {
+                index = Integer.parseInt(entry.substring(0, Math.max(separator, 0)));
+            } catch (NumberFormatException e) {
+                throw new IOException("分页游标无效：" + cursor);
+            }
+            if (index <= previous || index >= typeCount || separator + 1 >= entry.length()) {
+                throw new IOException("分页游标无效：" + cursor);
+            }
+            indexes.add(new int[]{index});
+            cursors.add(entry.substring(separator + 1));
+            previous = index;
         }
-        return null;
     }
 
-    private String formatPrice(double price) {
-        if (Double.isNaN(price)) {
+    @Nullable
+    private static String encodePending(List<int[]> indexes, List<String> cursors) throws IOException {
+        if (indexes.isEmpty()) {
             return null;
         }
-        return String.format(Locale.getDefault(), "¥%s", price % 1 == 0 ? String.format(Locale.getDefault(), "%.0f", price) : String.format(Locale.getDefault(), "%.2f", price));
+        StringBuilder encoded = new StringBuilder();
+        for (int i = 0; i < indexes.size(); i++) {
+            String inner = cursors.get(i);
+            if (inner.indexOf(',') >= 0) {
+                throw new IOException("分页游标无效：" + inner);
+            }
+            if (i > 0) {
+                encoded.append(',');
+            }
+            encoded.append(indexes.get(i)[0]).append(':').append(inner);
+        }
+        return encoded.toString();
     }
 
-    private FeedItem buildScenicItem(JSONObject scenic) {
-        if (scenic == null) {
-            return null;
+    /**
+     * 从本地同步副本读一页，游标为上一页最后一条的 id，与服务端分页语义一致。
+     */
+    private static FeedPage loadLocalPage(CatalogReplica store, String entity, @Nullable String tag,
+                                          @Nullable String cursor, int limit) throws IOException {
+        long afterId = 0L;
+        if (cursor != null) {
+            try {
+                afterId = Long.parseLong(cursor);
+            } catch (NumberFormatException e) {
+                throw new IOException("分页游标无效：" + cursor);
+            }
         }
-        long id = scenic.optLong("id", 0);
-        String title = scenic.optString("name", "未知景点");
-        String description = scenic.optString("description", scenic.optString("city", "精彩旅程等你探索"));
-        String imageUrl = scenic.optString("cover_image");
-        String address = scenic.optString("address");
-        Double lat = (scenic.has("latitude") && !scenic.isNull("latitude"))
-                ? scenic.optDouble("latitude") : null;
-        Double lng = (scenic.has("longitude") && !scenic.isNull("longitude"))
-                ? scenic.optDouble("longitude") : null;
-        return new FeedItem(id, title, description, imageUrl, null,
-                scenic.optString("city"),
-                TextUtils.isEmpty(address) ? null : address,
-                lat, lng, null, null, null);
-    }
-
-    private List<FeedItem> parseScenicArray(JSONArray array) {
-        List<FeedItem> result = new ArrayList<>();
-        for (int i = 0; i < array.length(); i++) {
-            JSONObject scenic = array.optJSONObject(i);
-            FeedItem item = buildScenicItem(scenic);
+        List<String> rows = store.loadRows(entity, tag, afterId, limit + 1);
+        boolean hasMore = rows.size() > limit;
+        List<FeedItem> items = new ArrayList<>(Math.min(rows.size(), limit));
+        for (int i = 0; i < rows.size() && i < limit; i++) {
+            FeedItem item = ENTITY_SCENIC.equals(entity)
+                    ? CatalogDecoders.scenicFromJson(rows.get(i))
+                    : CatalogDecoders.productFromJson(rows.get(i));
             if (item != null) {
-                result.add(item);
+                items.add(item);
             }
         }
-        return result;
+        String next = hasMore && !items.isEmpty() ? String.valueOf(items.get(items.size() - 1).getId()) : null;
+        return new FeedPage(items, next);
+    }
+
+    private static Map<String, String> pageQueries(@Nullable String keyword, @Nullable String cursor, int limit) {
+        Map<String, String> queries = new HashMap<>();
+        if (keyword != null && !keyword.isEmpty()) {
+            queries.put("keyword", keyword);
+        }
+        queries.put("limit", String.valueOf(limit));
+        if (cursor != null) {
+            queries.put("cursor", cursor);
+        }
+        return queries;
+    }
+
+    private static FeedPage asFeedPage(Object data) {
+        if (data instanceof FeedPage) {
+            return (FeedPage) data;
+        }
+        return new FeedPage(Collections.emptyList(), null);
+    }
+
+    /**
+     * 拉取 {@code since} 之后的变更并在一个事务中写入副本；并发的同一实体同步共享一次请求。
+     */
+    @VisibleForTesting
+    void syncCatalog(CatalogReplica store, String entity, String path) throws IOException, JSONException {
+        coalescer.execute(ApiClient.requestKey("SYNC", path, null), () -> {
+            Map<String, String> queries = new HashMap<>();
+            queries.put("since", String.valueOf(store.getSyncVersion(entity)));
+            ApiResponse response = apiClient.get(path, queries);
+            ensureSuccess(response);
+            Object data = response.getData();
+            if (!(data instanceof JSONObject)) {
+                throw new IOException("增量同步返回格式错误");
+            }
+            JSONObject delta = (JSONObject) data;
+            JSONArray upsertArray = delta.optJSONArray("upserts");
+            JSONArray deleteArray = delta.optJSONArray("deletes");
+            List<CatalogReplica.Row> upserts = new ArrayList<>();
+            if (upsertArray != null) {
+                for (int i = 0; i < upsertArray.length(); i++) {
+                    JSONObject row = upsertArray.getJSONObject(i);
+                    String tag = ENTITY_PRODUCT.equals(entity) ? row.optString("type").toUpperCase(Locale.ROOT) : null;
+                    upserts.add(new CatalogReplica.Row(row.getLong("id"), tag, row.toString()));
+                }
+            }
+            long[] deletes = new long[deleteArray != null ? deleteArray.length() : 0];
+            for (int i = 0; i < deletes.length; i++) {
+                deletes[i] = deleteArray.getLong(i);
+            }
+            store.applyDelta(entity, delta.optBoolean("full"), upserts, deletes, delta.getLong("version"));
+            return null;
+        });
+    }
+
+    public FeedItem fetchScenicDetail(long scenicId) throws IOException, JSONException {
+        String path = "/api/scenics/" + scenicId;
+        return coalescer.execute(ApiClient.requestKey("GET", path, null), () -> {
+            ApiResponse response = apiClient.getBatched(path, null);
+            ensureSuccess(response);
+            Object data = response.getData();
+            if (data instanceof JSONObject) {
+                // 批量接口给的是 JSON 树；转回文本交给 CatalogDecoders，详情与列表共用同一份字段映射
+                return CatalogDecoders.scenicFromJson(data.toString());
+            }
+            return null;
+        });
     }
 
-    private FeedItem buildProductItem(JSONObject product) {
-        if (product == null) {
+    public FeedItem fetchProductDetail(long productId) throws IOException, JSONException {
+        String path = "/api/products/" + productId;
+        return coalescer.execute(ApiClient.requestKey("GET", path, null), () -> {
+            ApiResponse response = apiClient.getBatched(path, null);
+            ensureSuccess(response);
+            Object data = response.getData();
+            if (data instanceof JSONObject) {
+                return CatalogDecoders.productFromJson(data.toString());
+            }
             return null;
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<FeedItem> asFeedList(Object data) {
+        if (data instanceof List) {
+            return Collections.unmodifiableList((List<FeedItem>) data);
+        }
+        return Collections.emptyList();
+    }
+
+    /**
+     * 只取消排队中的任务，不中断已在运行的：它们跑在共享的 {@link ApiExecutors#io()} 线程上，
+     * 可能正是 {@link RequestCoalescer} 里其他调用方在等待的那次请求，中断会让无关的调用方一起失败。
+     */
+    private static void cancelAll(Iterable<? extends Future<?>> futures) {
+        for (Future<?> future : futures) {
+            future.cancel(false);
+        }
+    }
+
+    private static IOException rethrow(Throwable error) throws JSONException {
+        if (error instanceof IOException) {
+            return (IOException) error;
+        }
+        if (error instanceof JSONException) {
+            throw (JSONException) error;
+        }
+        if (error instanceof RuntimeException) {
+            throw (RuntimeException) error;
+        }
+        if (error instanceof Error) {
+            throw (Error) error;
         }
-        long id = product.optLong("id", 0);
-        String title = product.optString("name", "商品");
-        String actualType = product.optString("type");
-        String description = product.optString("description",
-                String.format(Locale.getDefault(), "类型：%s", actualType));
-        String imageUrl = product.optString("cover_image");
-        String priceLabel = formatPrice(product.optDouble("price", Double.NaN));
-        String address = product.optString("hotel_address", "");
-        if (TextUtils.isEmpty(address)) {
-            address = product.optString("address");
-        }
-        Integer stock = (product.has("stock") && !product.isNull("stock"))
-                ? product.optInt("stock") : null;
-        return new FeedItem(id, title, description, imageUrl, priceLabel, actualType,
-                TextUtils.isEmpty(address) ? null : address,
-                null, null,
-                stock, null, null);
-    }
-
-    private boolean typeMatches(String actualType, String expectedType) {
-        if (actualType == null || expectedType == null) {
-            return false;
-        }
-        return actualType.equalsIgnoreCase(expectedType);
+        return new IOException(error);
     }
 
     private void ensureSuccess(ApiResponse response) throws IOException {
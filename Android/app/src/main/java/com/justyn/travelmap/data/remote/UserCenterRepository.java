@@ -2,6 +2,8 @@ package com.justyn.travelmap.data.remote;
 
 import android.text.TextUtils;
 
+import com.justyn.travelmap.data.local.FavoriteStore;
+import com.justyn.travelmap.data.local.VisitedIndex;
 import com.justyn.travelmap.model.CartItem;
 import com.justyn.travelmap.model.FeedItem;
 import com.justyn.travelmap.model.OrderDetail;
@@ -25,13 +27,21 @@ import java.util.Map;
 public class UserCenterRepository {
 
     private final ApiClient apiClient;
+    private final VisitedIndex visitedIndex;
+    private final FavoriteStore favoriteStore;
 
     public UserCenterRepository() {
         this(new ApiClient());
     }
 
     public UserCenterRepository(ApiClient apiClient) {
+        this(apiClient, VisitedIndex.getDefault(), FavoriteStore.getDefault());
+    }
+
+    public UserCenterRepository(ApiClient apiClient, VisitedIndex visitedIndex, FavoriteStore favoriteStore) {
         this.apiClient = apiClient;
+        this.visitedIndex = visitedIndex;
+        this.favoriteStore = favoriteStore;
     }
 
     public JSONObject updateUserContact(long userId, String phone, String email) throws IOException, JSONException {
@@ -66,36 +76,14 @@ public class UserCenterRepository {
     public List<FeedItem> fetchOrders(long userId) throws IOException, JSONException {
         Map<String, String> params = new HashMap<>();
         params.put("user_id", String.valueOf(userId));
-        ApiResponse response = apiClient.get("/api/orders", params);
+        ApiResponse response = apiClient.getStreaming("/api/orders", params, CatalogDecoders.ORDER_SUMMARY_LIST);
         ensureSuccess(response);
         Object data = response.getData();
-        List<FeedItem> items = new ArrayList<>();
-        if (!(data instanceof JSONArray)) {
-            return items;
-        }
-        JSONArray orders = (JSONArray) data;
-        for (int i = 0; i < orders.length(); i++) {
-            JSONObject order = orders.optJSONObject(i);
-            if (order == null) {
-                continue;
-            }
-            long orderId = order.optLong("id", i);
-            JSONArray orderItems = order.optJSONArray("items");
-            JSONObject firstItem = orderItems != null && orderItems.length() > 0 ? orderItems.optJSONObject(0) : null;
-            JSONObject product = firstItem != null ? firstItem.optJSONObject("product") : null;
-            String title = order.optString("order_no", "订单");
-            if (product != null) {
-                title = product.optString("name", title);
-            }
-            String status = order.optString("status", "");
-            String description = String.format(Locale.getDefault(),
-                    "%s · %s", order.optString("order_type", "ORDER"), status);
-            String imageUrl = product != null ? product.optString("cover_image") : null;
-            double totalPrice = order.optDouble("total_price", Double.NaN);
-            String priceLabel = Double.isNaN(totalPrice) ? null : String.format(Locale.getDefault(), "¥%.2f", totalPrice);
-            items.add(new FeedItem(orderId, title, description, imageUrl, priceLabel,
-                    order.optString("create_time"), null, null, null, null, null, null));
+        if (!(data instanceof List)) {
+            return new ArrayList<>();
         }
+        @SuppressWarnings("unchecked")
+        List<FeedItem> items = (List<FeedItem>) data;
         return items;
     }
 
@@ -154,11 +142,16 @@ public class UserCenterRepository {
             return result;
         }
         JSONArray array = (JSONArray) data;
+        Map<Long, VisitedRecord> index = new HashMap<>();
         for (int i = 0; i < array.length(); i++) {
             JSONObject visited = array.optJSONObject(i);
             if (visited == null) {
                 continue;
             }
+            if (visited.has("scenic_id")) {
+                // 列表按 visit_date 倒序，同一景点保留最新的一条
+                index.putIfAbsent(visited.optLong("scenic_id"), buildVisitedRecord(visited));
+            }
             JSONObject scenic = visited.optJSONObject("scenic");
             if (scenic == null) {
                 continue;
@@ -180,6 +173,7 @@ public class UserCenterRepository {
             result.add(new FeedItem(scenicId, title, description, imageUrl, null,
                     scenic.optString("city"), address, lat, lng, null, visitTime, ratingLabel));
         }
+        visitedIndex.replaceAll(userId, index);
         return result;
     }
 
@@ -235,19 +229,58 @@ public class UserCenterRepository {
         ensureSuccess(response);
     }
 
+    /**
+     * 从 {@link FavoriteStore} 本地判断；本会话首次调用时先加载一次收藏 id 集合。
+     */
     public boolean isFavorite(long userId, long targetId, String targetType) throws IOException, JSONException {
+        ensureFavoritesLoaded(userId);
+        return favoriteStore.contains(userId, targetType, targetId);
+    }
+
+    public void ensureFavoritesLoaded(long userId) throws IOException, JSONException {
+        if (!favoriteStore.isLoaded(userId)) {
+            loadFavoriteIds(userId);
+        }
+    }
+
+    private void loadFavoriteIds(long userId) throws IOException, JSONException {
         Map<String, String> params = new HashMap<>();
         params.put("user_id", String.valueOf(userId));
-        params.put("target_id", String.valueOf(targetId));
-        params.put("target_type", targetType);
-        ApiResponse response = apiClient.get("/api/favorites/status", params);
-        ensureSuccess(response);
-        Object data = response.getData();
-        if (data instanceof JSONObject) {
-            JSONObject json = (JSONObject) data;
-            return json.optBoolean("favorited", false);
+        RequestCoalescer.getDefault().execute(ApiClient.requestKey("GET", "/api/favorites/ids", params), () -> {
+            int version = favoriteStore.getVersion();
+            ApiResponse response = apiClient.getBatched("/api/favorites/ids", params);
+            ensureSuccess(response);
+            Object data = response.getData();
+            JSONObject json = data instanceof JSONObject ? (JSONObject) data : new JSONObject();
+            favoriteStore.replaceAllIfUnchanged(userId, version,
+                    toLongArray(json.optJSONArray("scenic_ids")),
+                    toLongArray(json.optJSONArray("product_ids")));
+            return null;
+        });
+    }
+
+    /**
+     * 增删收藏后在后台重新拉取 id 集合，纠正乐观更新与服务端之间可能的偏差。
+     */
+    private void reconcileFavoritesAsync(long userId) {
+        ApiExecutors.io().execute(() -> {
+            try {
+                loadFavoriteIds(userId);
+            } catch (IOException | JSONException ignored) {
+                // 下次进入详情或刷新时会再次对齐
+            }
+        });
+    }
+
+    private static long[] toLongArray(JSONArray array) {
+        if (array == null) {
+            return new long[0];
         }
-        return false;
+        long[] result = new long[array.length()];
+        for (int i = 0; i < array.length(); i++) {
+            result[i] = array.optLong(i);
+        }
+        return result;
     }
 
     public void addFavorite(long userId, long targetId, String targetType) throws IOException, JSONException {
@@ -255,8 +288,17 @@ public class UserCenterRepository {
         payload.put("user_id", userId);
         payload.put("target_id", targetId);
         payload.put("target_type", targetType);
-        ApiResponse response = apiClient.post("/api/favorites", payload);
-        ensureSuccess(response);
+        boolean changed = favoriteStore.add(userId, targetType, targetId);
+        try {
+            ApiResponse response = apiClient.post("/api/favorites", payload);
+            ensureSuccess(response);
+        } catch (IOException | JSONException e) {
+            if (changed) {
+                favoriteStore.remove(userId, targetType, targetId);
+            }
+            throw e;
+        }
+        reconcileFavoritesAsync(userId);
     }
 
     public void removeFavorite(long userId, long targetId, String targetType) throws IOException, JSONException {
@@ -264,8 +306,17 @@ public class UserCenterRepository {
         payload.put("user_id", userId);
         payload.put("target_id", targetId);
         payload.put("target_type", targetType);
-        ApiResponse response = apiClient.delete("/api/favorites", payload);
-        ensureSuccess(response);
+        boolean changed = favoriteStore.remove(userId, targetType, targetId);
+        try {
+            ApiResponse response = apiClient.delete("/api/favorites", payload);
+            ensureSuccess(response);
+        } catch (IOException | JSONException e) {
+            if (changed) {
+                favoriteStore.add(userId, targetType, targetId);
+            }
+            throw e;
+        }
+        reconcileFavoritesAsync(userId);
     }
 
     public void addVisited(long userId, long scenicId, int rating) throws IOException, JSONException {
@@ -275,6 +326,14 @@ public class UserCenterRepository {
         payload.put("rating", rating);
         ApiResponse response = apiClient.post("/api/visited", payload);
         ensureSuccess(response);
+        Object data = response.getData();
+        JSONObject visited = data instanceof JSONObject ? ((JSONObject) data).optJSONObject("visited") : null;
+        if (visited != null) {
+            visitedIndex.put(userId, scenicId, buildVisitedRecord(visited));
+        } else {
+            // 响应中没有记录详情时，只让该景点下次查询回源
+            visitedIndex.invalidate(userId, scenicId);
+        }
     }
 
     public void removeVisited(long userId, long scenicId) throws IOException, JSONException {
@@ -283,30 +342,40 @@ public class UserCenterRepository {
         params.put("scenic_id", String.valueOf(scenicId));
         ApiResponse response = apiClient.delete("/api/visited", params);
         ensureSuccess(response);
+        // 服务端允许同一景点有多条记录而这里只删除其中一条，不能断定已经没有记录，下次查询回源
+        visitedIndex.invalidate(userId, scenicId);
     }
 
+    /**
+     * 优先从 {@link VisitedIndex} 本地回答；索引未覆盖时按 (user_id, scenic_id) 查询服务端并写回索引。
+     */
     public VisitedRecord getVisitedRecord(long userId, long scenicId) throws IOException, JSONException {
+        if (visitedIndex.contains(userId, scenicId)) {
+            return visitedIndex.get(userId, scenicId);
+        }
         Map<String, String> params = new HashMap<>();
         params.put("user_id", String.valueOf(userId));
-        ApiResponse response = apiClient.get("/api/visited", params);
+        params.put("scenic_id", String.valueOf(scenicId));
+        ApiResponse response = apiClient.getBatched("/api/visited/status", params);
         ensureSuccess(response);
         Object data = response.getData();
-        if (!(data instanceof JSONArray)) {
-            return null;
-        }
-        JSONArray array = (JSONArray) data;
-        for (int i = 0; i < array.length(); i++) {
-            JSONObject visited = array.optJSONObject(i);
-            if (visited == null) continue;
-            if (visited.optLong("scenic_id") == scenicId) {
-                return new VisitedRecord(
-                        visited.optLong("visited_id"),
-                        visited.optInt("rating", -1),
-                        visited.optString("visit_date")
-                );
+        VisitedRecord record = null;
+        if (data instanceof JSONObject) {
+            JSONObject visited = ((JSONObject) data).optJSONObject("record");
+            if (visited != null) {
+                record = buildVisitedRecord(visited);
             }
         }
-        return null;
+        visitedIndex.put(userId, scenicId, record);
+        return record;
+    }
+
+    private VisitedRecord buildVisitedRecord(JSONObject visited) {
+        return new VisitedRecord(
+                visited.optLong("visited_id"),
+                visited.optInt("rating", -1),
+                visited.optString("visit_date")
+        );
     }
 
     private List<FeedItem> parseFavoriteList(Object data, boolean isProduct) {
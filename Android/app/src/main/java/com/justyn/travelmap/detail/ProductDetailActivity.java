@@ -14,6 +14,7 @@ import com.google.android.material.progressindicator.CircularProgressIndicator;
 import com.justyn.travelmap.R;
 import com.justyn.travelmap.data.local.UserPreferences;
 import com.justyn.travelmap.data.local.UserProfile;
+import com.justyn.travelmap.data.remote.ApiExecutors;
 import com.justyn.travelmap.data.remote.TravelRepository;
 import com.justyn.travelmap.data.remote.UserCenterRepository;
 import com.justyn.travelmap.model.FeedItem;
@@ -23,6 +24,7 @@ import org.json.JSONException;
 import java.io.IOException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import com.facebook.shimmer.ShimmerFrameLayout;
 import com.justyn.travelmap.ui.common.ImageLoader;
@@ -102,8 +104,12 @@ public class ProductDetailActivity extends AppCompatActivity {
         setButtonsEnabled(false);
         executor.execute(() -> {
             try {
+                // 两个请求同时发出，由 BatchDispatcher 合并为一次往返
+                long userId = profile.getId();
+                Future<Boolean> favoriteFuture = ApiExecutors.io().submit(
+                        () -> userCenterRepository.isFavorite(userId, productId, "PRODUCT"));
                 FeedItem detail = travelRepository.fetchProductDetail(productId);
-                boolean favorited = userCenterRepository.isFavorite(profile.getId(), productId, "PRODUCT");
+                boolean favorited = ApiExecutors.await(favoriteFuture);
                 runOnUiThread(() -> {
                     product = detail;
                     isFavorited = favorited;
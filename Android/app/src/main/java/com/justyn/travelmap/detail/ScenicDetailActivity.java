@@ -1,7 +1,5 @@
 package com.justyn.travelmap.detail;
 
-import android.graphics.Bitmap;
-import android.graphics.drawable.Drawable;
 import android.os.Bundle;
 import android.view.View;
 import android.widget.TextView;
@@ -15,13 +13,11 @@ import androidx.appcompat.app.AppCompatActivity;
 import com.amap.api.maps.AMap;
 import com.amap.api.maps.CameraUpdateFactory;
 import com.amap.api.maps.MapView;
+import com.amap.api.maps.model.BitmapDescriptor;
 import com.amap.api.maps.model.LatLng;
 import com.amap.api.maps.model.Marker;
 import com.amap.api.maps.model.MarkerOptions;
-import com.bumptech.glide.Glide;
 import com.bumptech.glide.load.resource.drawable.DrawableTransitionOptions;
-import com.bumptech.glide.request.target.CustomTarget;
-import com.bumptech.glide.request.transition.Transition;
 import com.google.android.material.appbar.MaterialToolbar;
 import com.google.android.material.button.MaterialButton;
 import com.google.android.material.imageview.ShapeableImageView;
@@ -29,6 +25,7 @@ import com.google.android.material.progressindicator.CircularProgressIndicator;
 import com.justyn.travelmap.R;
 import com.justyn.travelmap.data.local.UserPreferences;
 import com.justyn.travelmap.data.local.UserProfile;
+import com.justyn.travelmap.data.remote.ApiExecutors;
 import com.justyn.travelmap.data.remote.TravelRepository;
 import com.justyn.travelmap.data.remote.UserCenterRepository;
 import com.justyn.travelmap.model.FeedItem;
@@ -41,6 +38,7 @@ import com.facebook.shimmer.ShimmerFrameLayout;
 import java.io.IOException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.json.JSONException;
 
@@ -65,7 +63,7 @@ public class ScenicDetailActivity extends AppCompatActivity {
     private MapView detailMapView;
     private AMap scenicMap;
     private Marker scenicMarker;
-    private CustomTarget<Bitmap> scenicMarkerTarget;
+    private MapMarkerRenderer.Request scenicMarkerLoad;
 
     private final ExecutorService executor = Executors.newSingleThreadExecutor();
     private final TravelRepository travelRepository = new TravelRepository();
@@ -132,9 +130,15 @@ public class ScenicDetailActivity extends AppCompatActivity {
         setButtonsEnabled(false);
         executor.execute(() -> {
             try {
+                // 三个请求同时发出，由 BatchDispatcher 合并为一次往返
+                long userId = profile.getId();
+                Future<Boolean> favoriteFuture = ApiExecutors.io().submit(
+                        () -> userCenterRepository.isFavorite(userId, scenicId, "SCENIC"));
+                Future<VisitedRecord> visitedFuture = ApiExecutors.io().submit(
+                        () -> userCenterRepository.getVisitedRecord(userId, scenicId));
                 FeedItem detail = travelRepository.fetchScenicDetail(scenicId);
-                boolean favorited = userCenterRepository.isFavorite(profile.getId(), scenicId, "SCENIC");
-                VisitedRecord record = userCenterRepository.getVisitedRecord(profile.getId(), scenicId);
+                boolean favorited = ApiExecutors.await(favoriteFuture);
+                VisitedRecord record = ApiExecutors.await(visitedFuture);
                 runOnUiThread(() -> {
                     currentScenic = detail;
                     isFavorited = favorited;
@@ -210,47 +214,37 @@ public class ScenicDetailActivity extends AppCompatActivity {
         if (scenicMarker != null) {
             scenicMarker.remove();
         }
+        BitmapDescriptor cached = MapMarkerRenderer.peek(this, detail.getTitle(), detail.getImageUrl());
         MarkerOptions options = new MarkerOptions()
                 .position(latLng)
                 .anchor(0.5f, 1f)
                 .title(detail.getTitle())
                 .snippet(detail.getAddress())
-                .icon(MapMarkerRenderer.create(this, detail.getTitle(), null));
+                .icon(cached != null ? cached : MapMarkerRenderer.placeholder(this, detail.getTitle()));
         scenicMarker = scenicMap.addMarker(options);
         scenicMap.moveCamera(CameraUpdateFactory.newLatLngZoom(latLng, 15f));
-        loadDetailMarkerIcon(detail);
+        if (cached == null) {
+            loadDetailMarkerIcon(detail);
+        }
     }
 
     private void loadDetailMarkerIcon(FeedItem detail) {
         if (scenicMarker == null) {
             return;
         }
-        if (scenicMarkerTarget != null) {
-            Glide.with(this).clear(scenicMarkerTarget);
-        }
-        scenicMarkerTarget = new CustomTarget<Bitmap>() {
-            @Override
-            public void onResourceReady(@NonNull Bitmap resource, @Nullable Transition<? super Bitmap> transition) {
-                if (scenicMarker != null) {
-                    scenicMarker.setIcon(MapMarkerRenderer.create(ScenicDetailActivity.this, detail.getTitle(), resource));
-                }
-            }
-
-            @Override
-            public void onLoadCleared(@Nullable Drawable placeholder) {
+        cancelMarkerLoad();
+        scenicMarkerLoad = MapMarkerRenderer.loadAsync(this, detail.getTitle(), detail.getImageUrl(), descriptor -> {
+            if (scenicMarker != null) {
+                scenicMarker.setIcon(descriptor);
             }
+        });
+    }
 
-            @Override
-            public void onLoadFailed(@Nullable Drawable errorDrawable) {
-                if (scenicMarker != null) {
-                    scenicMarker.setIcon(MapMarkerRenderer.create(ScenicDetailActivity.this, detail.getTitle(), null));
-                }
-            }
-        };
-        Glide.with(this)
-                .asBitmap()
-                .load(detail.getImageUrl())
-                .into(scenicMarkerTarget);
+    private void cancelMarkerLoad() {
+        if (scenicMarkerLoad != null) {
+            scenicMarkerLoad.cancel();
+            scenicMarkerLoad = null;
+        }
     }
 
     private void hideMapSection() {
@@ -264,10 +258,7 @@ public class ScenicDetailActivity extends AppCompatActivity {
             scenicMarker.remove();
             scenicMarker = null;
         }
-        if (scenicMarkerTarget != null) {
-            Glide.with(getApplicationContext()).clear(scenicMarkerTarget);
-            scenicMarkerTarget = null;
-        }
+        cancelMarkerLoad();
     }
 
     private void updateButtonStates() {
@@ -432,10 +423,7 @@ public class ScenicDetailActivity extends AppCompatActivity {
         if (detailMapView != null) {
             detailMapView.onDestroy();
         }
-        if (scenicMarkerTarget != null) {
-            Glide.with(getApplicationContext()).clear(scenicMarkerTarget);
-            scenicMarkerTarget = null;
-        }
+        cancelMarkerLoad();
         executor.shutdownNow();
     }
 }
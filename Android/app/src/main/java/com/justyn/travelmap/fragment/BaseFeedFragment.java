@@ -2,9 +2,12 @@ package com.justyn.travelmap.fragment;
 
 import android.content.Context;
 import android.content.Intent;
+import android.database.SQLException;
 import android.os.Bundle;
 import android.os.Handler;
 import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Log;
 import android.view.KeyEvent;
 import android.view.MotionEvent;
 import android.view.LayoutInflater;
@@ -24,11 +27,21 @@ import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 import androidx.swiperefreshlayout.widget.SwipeRefreshLayout;
 
+import com.bumptech.glide.Glide;
 import com.google.android.material.textfield.TextInputEditText;
 import com.google.android.material.textfield.TextInputLayout;
 import com.justyn.travelmap.R;
+import com.justyn.travelmap.data.local.CatalogStore;
+import com.justyn.travelmap.data.local.FavoriteStore;
+import com.justyn.travelmap.data.local.UserPreferences;
+import com.justyn.travelmap.data.local.UserProfile;
+import com.justyn.travelmap.data.remote.ApiExecutors;
+import com.justyn.travelmap.data.remote.PagedFeedLoader;
+import com.justyn.travelmap.data.remote.UserCenterRepository;
 import com.justyn.travelmap.model.FeedItem;
 import com.justyn.travelmap.ui.feed.FeedAdapter;
+import com.justyn.travelmap.ui.feed.FeedImagePreloader;
+import com.justyn.travelmap.ui.feed.FeedViewPool;
 import com.justyn.travelmap.detail.ProductDetailActivity;
 import com.justyn.travelmap.detail.ScenicDetailActivity;
 import com.facebook.shimmer.ShimmerFrameLayout;
@@ -46,6 +59,10 @@ import java.util.concurrent.Executors;
  */
 public abstract class BaseFeedFragment extends Fragment implements FeedAdapter.OnItemClickListener {
 
+    private static final String TAG = "BaseFeedFragment";
+    /** 距离列表底部还剩多少条时开始预取下一页。 */
+    private static final int PREFETCH_DISTANCE = 5;
+
     private View feedRoot;
     private View headerWrapper;
     private TextInputLayout tilSearch;
@@ -58,12 +75,30 @@ public abstract class BaseFeedFragment extends Fragment implements FeedAdapter.O
     private ShimmerFrameLayout skeletonLayout;
     private FeedAdapter feedAdapter;
     private RecyclerView recyclerView;
+    @Nullable
+    private FeedImagePreloader imagePreloader;
     private ExecutorService executorService;
     private Handler mainHandler;
     private String latestKeyword = "";
+    /**
+     * 已入队但尚未返回的加载所对应的关键字；相同关键字重复触发时不再排队新请求。
+     */
+    @Nullable
+    private String pendingKeyword;
     private long lastTapTimestamp = 0L;
     private static final long DOUBLE_TAP_INTERVAL_MS = 350L;
     private boolean skeletonVisible = false;
+    private final UserCenterRepository userCenterRepository = new UserCenterRepository();
+    @Nullable
+    private UserProfile profile;
+    private int favoriteVersion = -1;
+    private CatalogStore catalogStore;
+    /**
+     * 当前关键字对应的分页加载器，只在主线程读写；后台任务完成时据此判断结果是否已经过期。
+     */
+    @Nullable
+    private PagedFeedLoader pagedLoader;
+    private boolean loadingMore = false;
 
     @Nullable
     @Override
@@ -76,11 +111,33 @@ public abstract class BaseFeedFragment extends Fragment implements FeedAdapter.O
         super.onViewCreated(view, savedInstanceState);
         executorService = Executors.newSingleThreadExecutor();
         mainHandler = new Handler(Looper.getMainLooper());
+        profile = new UserPreferences(requireContext()).getUserProfile();
+        catalogStore = CatalogStore.getInstance(requireContext());
         bindViews(view);
         setupRecyclerView(view);
         bindActions();
         applyBannerContent();
         fetchFeed(false);
+        preloadFavorites();
+    }
+
+    @Override
+    public void onResume() {
+        super.onResume();
+        refreshFavoriteMarks();
+    }
+
+    @Override
+    public void onHiddenChanged(boolean hidden) {
+        super.onHiddenChanged(hidden);
+        if (!hidden) {
+            refreshFavoriteMarks();
+        } else {
+            FeedViewPool viewPool = getFeedViewPool();
+            if (viewPool != null) {
+                viewPool.logStats();
+            }
+        }
     }
 
     @Override
@@ -91,6 +148,17 @@ public abstract class BaseFeedFragment extends Fragment implements FeedAdapter.O
         }
         skeletonLayout = null;
         skeletonVisible = false;
+        pendingKeyword = null;
+        pagedLoader = null;
+        loadingMore = false;
+        FeedViewPool viewPool = getFeedViewPool();
+        if (viewPool != null && recyclerView != null) {
+            viewPool.detach(recyclerView);
+        }
+        if (imagePreloader != null && recyclerView != null) {
+            imagePreloader.detach(recyclerView);
+        }
+        imagePreloader = null;
         if (executorService != null && !executorService.isShutdown()) {
             executorService.shutdownNow();
         }
@@ -124,9 +192,63 @@ public abstract class BaseFeedFragment extends Fragment implements FeedAdapter.O
 
     private void setupRecyclerView(View root) {
         recyclerView = root.findViewById(R.id.rvFeed);
-        recyclerView.setLayoutManager(new LinearLayoutManager(requireContext()));
+        LinearLayoutManager layoutManager = new LinearLayoutManager(requireContext());
+        // 视图销毁时把卡片还给共享缓存池，供其它列表复用
+        layoutManager.setRecycleChildrenOnDetach(true);
+        recyclerView.setLayoutManager(layoutManager);
         feedAdapter = new FeedAdapter(this);
+        FeedViewPool viewPool = getFeedViewPool();
+        if (viewPool != null) {
+            viewPool.attach(recyclerView, feedAdapter, getClass().getSimpleName());
+        }
+        String favoriteType = getFavoriteTargetType();
+        if (favoriteType != null && profile != null) {
+            long userId = profile.getId();
+            FavoriteStore store = FavoriteStore.getDefault();
+            feedAdapter.setFavoriteLookup(item -> store.contains(userId, favoriteType, item.getId()));
+        }
         recyclerView.setAdapter(feedAdapter);
+        recyclerView.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(@NonNull RecyclerView rv, int dx, int dy) {
+                onFeedScrolled(dy);
+            }
+        });
+        imagePreloader = new FeedImagePreloader(requireContext(), Glide.with(this), feedAdapter,
+                FeedImagePreloader.DEFAULT_MAX_PRELOAD);
+        imagePreloader.attach(recyclerView);
+    }
+
+    /**
+     * 后台加载一次收藏集合，加载完成后刷新卡片上的收藏标记；失败时不打扰用户。
+     */
+    private void preloadFavorites() {
+        if (profile == null || getFavoriteTargetType() == null) {
+            return;
+        }
+        long userId = profile.getId();
+        ApiExecutors.io().execute(() -> {
+            try {
+                userCenterRepository.ensureFavoritesLoaded(userId);
+                mainHandler.post(this::refreshFavoriteMarks);
+            } catch (IOException | JSONException ignored) {
+                // 收藏标记只是辅助信息
+            }
+        });
+    }
+
+    /**
+     * 收藏集合有变化（例如在详情页收藏/取消）时重新绑定可见卡片。
+     */
+    private void refreshFavoriteMarks() {
+        if (feedAdapter == null) {
+            return;
+        }
+        int version = FavoriteStore.getDefault().getVersion();
+        if (version != favoriteVersion) {
+            favoriteVersion = version;
+            feedAdapter.notifyItemRangeChanged(0, feedAdapter.getItemCount());
+        }
     }
 
     private void bindActions() {
@@ -188,17 +310,102 @@ public abstract class BaseFeedFragment extends Fragment implements FeedAdapter.O
         if (executor == null) {
             return;
         }
+        String keyword = latestKeyword;
+        if (keyword.equals(pendingKeyword)) {
+            return;
+        }
+        pendingKeyword = keyword;
+        pagedLoader = null;
+        // 只缓存无关键字的默认列表；下拉刷新时用户明确要新数据，不再先展示缓存
+        String cacheKey = keyword.isEmpty() ? getCacheKey() : null;
+        CatalogStore store = cacheKey != null ? catalogStore : null;
+        long startNanos = SystemClock.elapsedRealtimeNanos();
+        executor.execute(() -> {
+            boolean showedCache = false;
+            if (store != null && !fromSwipeRefresh) {
+                List<FeedItem> cached = loadCachedFeed(store, cacheKey);
+                if (cached != null && !cached.isEmpty()) {
+                    showedCache = true;
+                    mainHandler.post(() -> {
+                        showSkeleton(false);
+                        updateList(cached);
+                        logTiming(cacheKey, "cache", startNanos, cached.size());
+                    });
+                }
+            }
+            boolean fromCache = showedCache;
+            try {
+                PagedFeedLoader loader = new PagedFeedLoader(createPageSource(keyword));
+                List<FeedItem> items = loader.loadFirst();
+                mainHandler.post(() -> {
+                    clearPending(keyword);
+                    pagedLoader = loader;
+                    loadingMore = false;
+                    updateList(items);
+                    finishLoading();
+                    logTiming(cacheKey, "network", startNanos, items.size());
+                });
+                if (store != null) {
+                    saveCachedFeed(store, cacheKey, items);
+                }
+            } catch (IOException | JSONException | SQLException e) {
+                mainHandler.post(() -> {
+                    clearPending(keyword);
+                    if (!fromCache) {
+                        updateList(new ArrayList<>());
+                    }
+                    finishLoading();
+                    Toast.makeText(requireContext(),
+                            getString(R.string.feed_loading_error, e.getMessage()),
+                            Toast.LENGTH_SHORT).show();
+                });
+            }
+        });
+    }
+
+    /**
+     * 滚动到距底部 {@link #PREFETCH_DISTANCE} 条以内时加载下一页；
+     * 头部数据已被淘汰且用户回到顶部时，重新从第一页加载。
+     */
+    private void onFeedScrolled(int dy) {
+        PagedFeedLoader loader = pagedLoader;
+        if (loader == null || loadingMore || recyclerView == null) {
+            return;
+        }
+        LinearLayoutManager layoutManager = (LinearLayoutManager) recyclerView.getLayoutManager();
+        if (layoutManager == null) {
+            return;
+        }
+        if (dy > 0 && loader.hasMore()
+                && layoutManager.findLastVisibleItemPosition() >= layoutManager.getItemCount() - 1 - PREFETCH_DISTANCE) {
+            loadPage(loader, false);
+        } else if (dy < 0 && loader.hasTrimmedHead() && layoutManager.findFirstVisibleItemPosition() == 0) {
+            loadPage(loader, true);
+        }
+    }
+
+    private void loadPage(PagedFeedLoader loader, boolean fromStart) {
+        ExecutorService executor = executorService;
+        if (executor == null) {
+            return;
+        }
+        loadingMore = true;
         executor.execute(() -> {
             try {
-                List<FeedItem> items = loadFeedItems(latestKeyword);
+                List<FeedItem> items = fromStart ? loader.loadFirst() : loader.loadNext();
                 mainHandler.post(() -> {
+                    if (loader != pagedLoader) {
+                        return;
+                    }
+                    loadingMore = false;
                     updateList(items);
-                    finishLoading(fromSwipeRefresh);
                 });
-            } catch (IOException | JSONException e) {
+            } catch (IOException | JSONException | SQLException e) {
                 mainHandler.post(() -> {
-                    updateList(new ArrayList<>());
-                    finishLoading(fromSwipeRefresh);
+                    if (loader != pagedLoader) {
+                        return;
+                    }
+                    loadingMore = false;
                     Toast.makeText(requireContext(),
                             getString(R.string.feed_loading_error, e.getMessage()),
                             Toast.LENGTH_SHORT).show();
@@ -207,8 +414,39 @@ public abstract class BaseFeedFragment extends Fragment implements FeedAdapter.O
         });
     }
 
+    @Nullable
+    private static List<FeedItem> loadCachedFeed(CatalogStore store, String cacheKey) {
+        try {
+            return store.load(cacheKey);
+        } catch (SQLException e) {
+            Log.w(TAG, "loadCachedFeed failed: " + cacheKey, e);
+            return null;
+        }
+    }
+
+    private static void saveCachedFeed(CatalogStore store, String cacheKey, List<FeedItem> items) {
+        try {
+            store.save(cacheKey, items);
+        } catch (SQLException e) {
+            Log.w(TAG, "saveCachedFeed failed: " + cacheKey, e);
+        }
+    }
+
+    /**
+     * 记录从发起加载到列表有内容的耗时，用于比较缓存与网络两条路径。
+     */
+    private static void logTiming(@Nullable String cacheKey, String source, long startNanos, int count) {
+        long elapsedMs = (SystemClock.elapsedRealtimeNanos() - startNanos) / 1_000_000L;
+        Log.i(TAG, "first items from " + source + ": key=" + cacheKey
+                + " items=" + count + " elapsed=" + elapsedMs + "ms");
+    }
+
     private void updateList(List<FeedItem> items) {
         if (feedAdapter != null) {
+            // 追加分页不影响已有行号；整体替换或头部被淘汰时，按旧行号提交的预加载作废
+            if (imagePreloader != null && !sameHead(feedAdapter.getCurrentList(), items)) {
+                imagePreloader.cancelAll();
+            }
             feedAdapter.submitList(items);
         }
         boolean isEmpty = items == null || items.isEmpty();
@@ -219,6 +457,24 @@ public abstract class BaseFeedFragment extends Fragment implements FeedAdapter.O
         }
     }
 
+    private static boolean sameHead(List<FeedItem> current, @Nullable List<FeedItem> items) {
+        if (current.isEmpty() || items == null || items.isEmpty()) {
+            return current.isEmpty() && (items == null || items.isEmpty());
+        }
+        return current.get(0).getId() == items.get(0).getId();
+    }
+
+    /**
+     * 按当前关键字重新加载第一页，例如子类切换了排序方式、{@link #createPageSource} 的结果会变化时。
+     */
+    protected void reloadFeed() {
+        if (!isAdded() || swipeRefreshLayout == null) {
+            return;
+        }
+        pendingKeyword = null;
+        fetchFeed(false);
+    }
+
     private String getQueryFromInput() {
         CharSequence text = etSearch.getText();
         return text != null ? text.toString().trim() : "";
@@ -246,7 +502,24 @@ public abstract class BaseFeedFragment extends Fragment implements FeedAdapter.O
         }
     }
 
-    protected abstract List<FeedItem> loadFeedItems(@Nullable String keyword) throws IOException, JSONException;
+    /**
+     * 当前关键字对应的分页来源，页面在后台线程加载。无关键字时子类可通过 {@link #getCatalogStore()}
+     * 走增量同步；本地库异常（{@link SQLException}）与网络错误一样提示给用户。
+     */
+    protected abstract PagedFeedLoader.PageSource createPageSource(@Nullable String keyword);
+
+    /**
+     * 宿主 Activity 提供的共享卡片缓存池；单独使用（宿主未实现 {@link FeedViewPool.Provider}）时为 null。
+     */
+    @Nullable
+    private FeedViewPool getFeedViewPool() {
+        return getActivity() instanceof FeedViewPool.Provider
+                ? ((FeedViewPool.Provider) getActivity()).getFeedViewPool() : null;
+    }
+
+    protected CatalogStore getCatalogStore() {
+        return catalogStore;
+    }
 
     protected String getBannerTitle() {
         return getString(R.string.feed_banner_title_home);
@@ -261,6 +534,23 @@ public abstract class BaseFeedFragment extends Fragment implements FeedAdapter.O
         return R.drawable.banner_placeholder;
     }
 
+    /**
+     * 卡片上显示收藏标记时对应的收藏类型（{@link FavoriteStore#TYPE_SCENIC} / {@link FavoriteStore#TYPE_PRODUCT}），
+     * 返回 null 表示不显示。
+     */
+    @Nullable
+    protected String getFavoriteTargetType() {
+        return null;
+    }
+
+    /**
+     * 本地快照的 key，返回 null 表示该列表不做本地缓存。
+     */
+    @Nullable
+    protected String getCacheKey() {
+        return null;
+    }
+
     protected String getEmptyMessage() {
         return getString(R.string.feed_empty_default);
     }
@@ -309,10 +599,20 @@ public abstract class BaseFeedFragment extends Fragment implements FeedAdapter.O
         }
     }
 
-    private void finishLoading(boolean fromSwipeRefresh) {
-        if (fromSwipeRefresh) {
+    private void clearPending(String keyword) {
+        if (keyword.equals(pendingKeyword)) {
+            pendingKeyword = null;
+        }
+    }
+
+    /**
+     * 被合并的刷新可能来自下拉或骨架屏任一入口，结束时两种加载态都要收起。
+     */
+    private void finishLoading() {
+        if (swipeRefreshLayout != null) {
             swipeRefreshLayout.setRefreshing(false);
-        } else {
+        }
+        if (skeletonVisible) {
             showSkeleton(false);
         }
     }
@@ -1,23 +1,79 @@
 package com.justyn.travelmap.fragment;
 
+import android.Manifest;
+import android.content.pm.PackageManager;
+import android.os.Bundle;
+import android.text.TextUtils;
+import android.util.Log;
+import android.view.View;
+import android.widget.Toast;
+
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
+import androidx.core.content.ContextCompat;
 
+import com.amap.api.location.AMapLocation;
+import com.amap.api.location.AMapLocationClient;
+import com.amap.api.location.AMapLocationClientOption;
+import com.google.android.material.chip.Chip;
 import com.justyn.travelmap.R;
+import com.justyn.travelmap.data.local.FavoriteStore;
+import com.justyn.travelmap.data.remote.PagedFeedLoader;
 import com.justyn.travelmap.data.remote.TravelRepository;
 import com.justyn.travelmap.model.FeedItem;
-
-import org.json.JSONException;
-
-import java.io.IOException;
-import java.util.List;
+import com.justyn.travelmap.ui.feed.NearbyScenicPages;
+import com.justyn.travelmap.ui.map.MapPrivacyHelper;
 
 /**
  * 首页：展示景点列表。
+ * <p>
+ * 勾选“附近”后单次定位，无关键字时按与当前位置的距离排序（{@link NearbyScenicPages}）；
+ * 输入关键字搜索时仍走普通搜索。
  */
 public class HomeFragment extends BaseFeedFragment {
 
+    private static final String TAG = "HomeFragment";
+    private static final int REQUEST_LOCATION_PERMISSION = 1002;
+
     private final TravelRepository travelRepository = new TravelRepository();
+    @Nullable
+    private Chip chipNearby;
+    @Nullable
+    private AMapLocationClient locationClient;
+    /** 附近排序的中心点 {纬度, 经度}；为 null 表示按默认顺序。在后台线程的 {@link #createPageSource} 中读取。 */
+    @Nullable
+    private volatile double[] nearbyOrigin;
+    /** 代码里回退勾选状态时不触发监听。 */
+    private boolean updatingChip;
+
+    @Override
+    public void onViewCreated(@NonNull View view, @Nullable Bundle savedInstanceState) {
+        super.onViewCreated(view, savedInstanceState);
+        chipNearby = view.findViewById(R.id.chipNearby);
+        if (chipNearby != null) {
+            chipNearby.setVisibility(View.VISIBLE);
+            chipNearby.setChecked(nearbyOrigin != null);
+            chipNearby.setOnCheckedChangeListener((button, checked) -> {
+                if (updatingChip) {
+                    return;
+                }
+                if (checked) {
+                    requestNearby();
+                } else {
+                    nearbyOrigin = null;
+                    stopLocation();
+                    reloadFeed();
+                }
+            });
+        }
+    }
+
+    @Override
+    public void onDestroyView() {
+        super.onDestroyView();
+        stopLocation();
+        chipNearby = null;
+    }
 
     @Override
     public void onFeedItemClicked(@NonNull FeedItem item) {
@@ -25,8 +81,98 @@ public class HomeFragment extends BaseFeedFragment {
     }
 
     @Override
-    protected List<FeedItem> loadFeedItems(@Nullable String keyword) throws IOException, JSONException {
-        return travelRepository.fetchScenicFeed(keyword);
+    protected PagedFeedLoader.PageSource createPageSource(@Nullable String keyword) {
+        double[] origin = nearbyOrigin;
+        if (origin != null && TextUtils.isEmpty(keyword)) {
+            return new NearbyScenicPages(travelRepository, origin[0], origin[1]);
+        }
+        return travelRepository.scenicPages(keyword, getCatalogStore());
+    }
+
+    private void requestNearby() {
+        boolean fineGranted = ContextCompat.checkSelfPermission(requireContext(), Manifest.permission.ACCESS_FINE_LOCATION) == PackageManager.PERMISSION_GRANTED;
+        boolean coarseGranted = ContextCompat.checkSelfPermission(requireContext(), Manifest.permission.ACCESS_COARSE_LOCATION) == PackageManager.PERMISSION_GRANTED;
+        if (fineGranted || coarseGranted) {
+            startLocation();
+        } else {
+            requestPermissions(new String[]{
+                    Manifest.permission.ACCESS_FINE_LOCATION,
+                    Manifest.permission.ACCESS_COARSE_LOCATION
+            }, REQUEST_LOCATION_PERMISSION);
+        }
+    }
+
+    @Override
+    public void onRequestPermissionsResult(int requestCode, @NonNull String[] permissions, @NonNull int[] grantResults) {
+        super.onRequestPermissionsResult(requestCode, permissions, grantResults);
+        if (requestCode != REQUEST_LOCATION_PERMISSION) {
+            return;
+        }
+        for (int result : grantResults) {
+            if (result == PackageManager.PERMISSION_GRANTED) {
+                startLocation();
+                return;
+            }
+        }
+        cancelNearby(getString(R.string.feed_nearby_permission_denied));
+    }
+
+    /**
+     * 单次定位，拿到位置后按距离重新加载列表。
+     */
+    private void startLocation() {
+        if (locationClient == null) {
+            MapPrivacyHelper.ensurePrivacyAgreement(requireContext());
+            try {
+                locationClient = new AMapLocationClient(requireContext().getApplicationContext());
+            } catch (Exception e) {
+                Log.e(TAG, "startLocation: create client failed", e);
+                cancelNearby(getString(R.string.feed_nearby_location_failed, e.getMessage()));
+                return;
+            }
+            AMapLocationClientOption option = new AMapLocationClientOption();
+            option.setLocationMode(AMapLocationClientOption.AMapLocationMode.Hight_Accuracy);
+            option.setOnceLocation(true);
+            option.setOnceLocationLatest(true);
+            option.setNeedAddress(false);
+            locationClient.setLocationOption(option);
+            locationClient.setLocationListener(this::onLocationChanged);
+        }
+        locationClient.startLocation();
+    }
+
+    private void stopLocation() {
+        if (locationClient != null) {
+            locationClient.stopLocation();
+            locationClient.onDestroy();
+            locationClient = null;
+        }
+    }
+
+    private void onLocationChanged(@Nullable AMapLocation location) {
+        if (!isAdded() || chipNearby == null || !chipNearby.isChecked()) {
+            return;
+        }
+        if (location == null || location.getErrorCode() != 0) {
+            String info = location != null ? location.getErrorInfo() : null;
+            Log.e(TAG, "onLocationChanged error: " + info);
+            cancelNearby(getString(R.string.feed_nearby_location_failed, info));
+            return;
+        }
+        nearbyOrigin = new double[]{location.getLatitude(), location.getLongitude()};
+        reloadFeed();
+    }
+
+    private void cancelNearby(String message) {
+        nearbyOrigin = null;
+        if (chipNearby != null) {
+            updatingChip = true;
+            chipNearby.setChecked(false);
+            updatingChip = false;
+        }
+        if (isAdded()) {
+            Toast.makeText(requireContext(), message, Toast.LENGTH_SHORT).show();
+        }
     }
 
     @Override
@@ -39,6 +185,17 @@ public class HomeFragment extends BaseFeedFragment {
         return getString(R.string.feed_banner_subtitle_home);
     }
 
+    @Override
+    protected String getCacheKey() {
+        // 附近排序依赖当前位置，不使用本地快照
+        return nearbyOrigin != null ? null : "scenics";
+    }
+
+    @Override
+    protected String getFavoriteTargetType() {
+        return FavoriteStore.TYPE_SCENIC;
+    }
+
     @Override
     protected String getEmptyMessage() {
         return getString(R.string.feed_empty_home);
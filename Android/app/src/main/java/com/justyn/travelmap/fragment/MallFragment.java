@@ -4,14 +4,11 @@ import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
 import com.justyn.travelmap.R;
+import com.justyn.travelmap.data.local.FavoriteStore;
+import com.justyn.travelmap.data.remote.PagedFeedLoader;
 import com.justyn.travelmap.data.remote.TravelRepository;
 import com.justyn.travelmap.model.FeedItem;
 
-import org.json.JSONException;
-
-import java.io.IOException;
-import java.util.List;
-
 /**
  * 商城：展示门票与旅行体验。
  */
@@ -25,8 +22,8 @@ public class MallFragment extends BaseFeedFragment {
     }
 
     @Override
-    protected List<FeedItem> loadFeedItems(@Nullable String keyword) throws IOException, JSONException {
-        return travelRepository.fetchProductsByTypes(keyword, "TICKET", "TRAVEL");
+    protected PagedFeedLoader.PageSource createPageSource(@Nullable String keyword) {
+        return travelRepository.productPages(keyword, getCatalogStore(), "TICKET", "TRAVEL");
     }
 
     @Override
@@ -39,6 +36,16 @@ public class MallFragment extends BaseFeedFragment {
         return getString(R.string.feed_banner_subtitle_mall);
     }
 
+    @Override
+    protected String getCacheKey() {
+        return "products:TICKET,TRAVEL";
+    }
+
+    @Override
+    protected String getFavoriteTargetType() {
+        return FavoriteStore.TYPE_PRODUCT;
+    }
+
     @Override
     protected String getEmptyMessage() {
         return getString(R.string.feed_empty_mall);
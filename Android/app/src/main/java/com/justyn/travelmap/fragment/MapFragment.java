@@ -3,11 +3,11 @@ package com.justyn.travelmap.fragment;
 import android.Manifest;
 import android.content.Intent;
 import android.content.pm.PackageManager;
-import android.graphics.Bitmap;
-import android.graphics.drawable.Drawable;
 import android.os.Bundle;
 import android.os.Handler;
 import android.os.Looper;
+import android.os.SystemClock;
+import android.text.TextUtils;
 import android.util.Log;
 import android.view.LayoutInflater;
 import android.view.View;
@@ -21,74 +21,105 @@ import androidx.fragment.app.Fragment;
 
 import com.amap.api.location.AMapLocation;
 import com.amap.api.location.AMapLocationClient;
-import com.amap.api.location.AMapLocationClientOption;
 import com.amap.api.location.AMapLocationListener;
 import com.amap.api.maps.AMap;
 import com.amap.api.maps.CameraUpdateFactory;
 import com.amap.api.maps.MapView;
+import com.amap.api.maps.model.BitmapDescriptor;
+import com.amap.api.maps.model.CameraPosition;
 import com.amap.api.maps.model.LatLng;
 import com.amap.api.maps.model.LatLngBounds;
 import com.amap.api.maps.model.Marker;
 import com.amap.api.maps.model.MarkerOptions;
 import com.amap.api.maps.model.MyLocationStyle;
-import com.bumptech.glide.Glide;
-import com.bumptech.glide.request.target.CustomTarget;
-import com.bumptech.glide.request.target.Target;
-import com.bumptech.glide.request.transition.Transition;
 import com.google.android.material.progressindicator.CircularProgressIndicator;
 import com.justyn.travelmap.R;
+import com.justyn.travelmap.data.remote.ScenicRegion;
 import com.justyn.travelmap.data.remote.TravelRepository;
 import com.justyn.travelmap.model.FeedItem;
+import com.justyn.travelmap.ui.feed.NearbyScenicPages;
 import com.justyn.travelmap.detail.ScenicDetailActivity;
+import com.justyn.travelmap.ui.map.AdaptiveLocationScheduler;
+import com.justyn.travelmap.ui.map.GridClusterer;
 import com.justyn.travelmap.ui.map.MapMarkerRenderer;
+import com.justyn.travelmap.ui.map.MapPerfMonitor;
 import com.justyn.travelmap.ui.map.MapPrivacyHelper;
+import com.justyn.travelmap.ui.map.MapTileCache;
+import com.justyn.travelmap.ui.map.MarkerDiff;
 
 import org.json.JSONException;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 
 /**
  * 地图页：展示景点坐标与实时定位。
+ * <p>
+ * 只加载可视范围附近的景点：按瓦片拉取并缓存（{@link MapTileCache}），镜头停止后在后台合并、
+ * 按屏幕网格聚合（{@link GridClusterer}）：多个景点的格子显示数量气泡，只有单个景点时才显示带缩略图的 Marker。
  */
 public class MapFragment extends Fragment implements AMapLocationListener {
 
     private static final int REQUEST_LOCATION_PERMISSION = 1001;
     private static final String TAG = "MapFragment";
+    /** 可视范围四周各扩展的比例，平移半屏以内不需要重新加载。 */
+    private static final double VIEWPORT_MARGIN = 0.5d;
+    /** 第一次定位后镜头要框住的附近景点：半径与条数。 */
+    private static final int LOCATION_NEARBY_RADIUS_METERS = 50_000;
+    private static final int LOCATION_NEARBY_LIMIT = 10;
+    /** 瓦片结果被截断时逐级拆成子瓦片请求，最多拆到这一级（约 600 米宽）。 */
+    private static final int MAX_SPLIT_LEVEL = MapTileCache.MAX_LEVEL + 4;
 
     private MapView mapView;
     private AMap aMap;
     private MyLocationStyle myLocationStyle;
     private AMapLocationClient locationClient;
-    private AMapLocationClientOption locationOption;
+    @Nullable
+    private AdaptiveLocationScheduler locationScheduler;
     private CircularProgressIndicator mapProgress;
 
     private final ExecutorService executor = Executors.newSingleThreadExecutor();
     private final Handler mainHandler = new Handler(Looper.getMainLooper());
     private final TravelRepository travelRepository = new TravelRepository();
-    private final List<Marker> scenicMarkers = new ArrayList<>();
-    private final List<Target<Bitmap>> markerTargets = new ArrayList<>();
+    /** 当前地图上的景点 / 聚合 Marker，按 {@link MarkerDiff#key} 索引，刷新时逐个比对复用。 */
+    private final Map<String, ScenicMarker> scenicMarkers = new HashMap<>();
 
     private LatLngBounds.Builder boundsBuilder;
     private LatLng lastBoundsLatLng;
     private int boundsPointCount = 0;
     private boolean hasFittedInitialBounds = false;
     private boolean hasFittedWithLocation = false;
+    private boolean nearbyFitRequested = false;
+
+    private final MapTileCache tileCache = new MapTileCache();
+    private final MapPerfMonitor perfMonitor = new MapPerfMonitor();
+    /** 每次提交范围加载任务加一（只在主线程修改），后台任务与回到主线程的结果据此判断是否过期。 */
+    private volatile int clusterGeneration = 0;
+    private int renderedZoomLevel = -1;
+    @Nullable
+    private Set<Long> renderedTiles;
+    private int clusterCellSizePx;
 
     @Nullable
     @Override
     public View onCreateView(@NonNull LayoutInflater inflater, @Nullable ViewGroup container, @Nullable Bundle savedInstanceState) {
         View view = inflater.inflate(R.layout.fragment_map, container, false);
+        clusterCellSizePx = getResources().getDimensionPixelSize(R.dimen.map_cluster_cell_size);
         mapView = view.findViewById(R.id.mapView);
         mapProgress = view.findViewById(R.id.mapProgress);
         MapPrivacyHelper.ensurePrivacyAgreement(requireContext());
         mapView.onCreate(savedInstanceState);
         initMap();
         initLocationClient();
-        loadScenicPoints();
         checkLocationPermission();
         return view;
     }
@@ -103,14 +134,17 @@ public class MapFragment extends Fragment implements AMapLocationListener {
         if (myLocationStyle == null) {
             myLocationStyle = new MyLocationStyle();
             myLocationStyle.myLocationType(MyLocationStyle.LOCATION_TYPE_LOCATION_ROTATE_NO_CENTER);
-            myLocationStyle.interval(10_000);
+            myLocationStyle.interval(AdaptiveLocationScheduler.BASE_INTERVAL_MS);
         }
         aMap.setMyLocationStyle(myLocationStyle);
         aMap.getUiSettings().setMyLocationButtonEnabled(true);
         aMap.getUiSettings().setZoomControlsEnabled(true);
         aMap.getUiSettings().setCompassEnabled(true);
         aMap.getUiSettings().setScaleControlsEnabled(true);
-        aMap.setOnMapLoadedListener(() -> fitCameraToBounds(false, false));
+        aMap.setOnMapLoadedListener(() -> {
+            refreshViewport();
+            fitCameraToBounds(false, false);
+        });
         aMap.setOnMarkerClickListener(marker -> {
             Object tag = marker.getObject();
             if (tag instanceof FeedItem) {
@@ -118,8 +152,22 @@ public class MapFragment extends Fragment implements AMapLocationListener {
                 openScenicDetail(scenic.getId());
                 return true;
             }
+            if (tag instanceof GridClusterer.Cluster) {
+                zoomIntoCluster((GridClusterer.Cluster<?>) tag);
+                return true;
+            }
             return false;
         });
+        aMap.setOnCameraChangeListener(new AMap.OnCameraChangeListener() {
+            @Override
+            public void onCameraChange(CameraPosition position) {
+            }
+
+            @Override
+            public void onCameraChangeFinish(CameraPosition position) {
+                refreshViewport();
+            }
+        });
     }
 
     private void initLocationClient() {
@@ -130,13 +178,19 @@ public class MapFragment extends Fragment implements AMapLocationListener {
             Toast.makeText(requireContext(), getString(R.string.map_location_failed, e.getMessage()), Toast.LENGTH_SHORT).show();
             return;
         }
-        locationOption = new AMapLocationClientOption();
-        locationOption.setLocationMode(AMapLocationClientOption.AMapLocationMode.Hight_Accuracy);
-        locationOption.setOnceLocation(false);
-        locationOption.setInterval(10_000);
-        locationOption.setNeedAddress(true);
-        locationClient.setLocationOption(locationOption);
-        locationClient.setLocationListener(this);
+        locationScheduler = new AdaptiveLocationScheduler(locationClient, this, this::applyLocationInterval);
+        locationScheduler.setVisible(!isHidden());
+    }
+
+    /**
+     * 地图蓝点的刷新间隔跟随定位间隔，静止或隐藏时不再按固定 10 秒刷新。
+     */
+    private void applyLocationInterval(long intervalMs) {
+        if (aMap == null || myLocationStyle == null) {
+            return;
+        }
+        myLocationStyle.interval(intervalMs);
+        aMap.setMyLocationStyle(myLocationStyle);
     }
 
     private void checkLocationPermission() {
@@ -165,44 +219,26 @@ public class MapFragment extends Fragment implements AMapLocationListener {
     }
 
     private void startLocation() {
-        if (locationClient != null) {
-            locationClient.startLocation();
+        if (locationScheduler != null) {
+            locationScheduler.start();
         }
     }
 
     private void stopLocation() {
-        if (locationClient != null) {
-            locationClient.stopLocation();
+        if (locationScheduler != null) {
+            locationScheduler.stop();
         }
     }
 
     private void destroyLocation() {
+        stopLocation();
+        locationScheduler = null;
         if (locationClient != null) {
             locationClient.onDestroy();
             locationClient = null;
         }
     }
 
-    private void loadScenicPoints() {
-        showMapLoading(true);
-        executor.execute(() -> {
-            try {
-                List<FeedItem> scenics = travelRepository.fetchScenicMapPoints();
-                mainHandler.post(() -> {
-                    showMapLoading(false);
-                    renderScenicMarkers(scenics);
-                });
-            } catch (IOException | JSONException e) {
-                mainHandler.post(() -> {
-                    showMapLoading(false);
-                    if (isAdded()) {
-                        Toast.makeText(requireContext(), getString(R.string.map_points_error, e.getMessage()), Toast.LENGTH_SHORT).show();
-                    }
-                });
-            }
-        });
-    }
-
     private void showMapLoading(boolean show) {
         if (mapProgress == null) {
             return;
@@ -210,93 +246,323 @@ public class MapFragment extends Fragment implements AMapLocationListener {
         mapProgress.setVisibility(show ? View.VISIBLE : View.GONE);
     }
 
-    private void renderScenicMarkers(@Nullable List<FeedItem> scenics) {
+    /**
+     * 镜头停止后按可视范围（四周各加半屏边距）计算需要的瓦片：缺失或过期的瓦片在后台逐块按 bbox 拉取，
+     * 再把这些瓦片中的景点聚合后更新 Marker，范围外的景点不创建 Marker。瓦片集合与缩放级别都没变时直接返回。
+     * 过期瓦片在重新校验期间继续用缓存显示，只有缺失瓦片时才显示加载进度。
+     */
+    private void refreshViewport() {
         if (aMap == null || !isAdded()) {
             return;
         }
-        clearScenicMarkers();
-        if (scenics == null || scenics.isEmpty()) {
-            Toast.makeText(requireContext(), R.string.map_points_empty, Toast.LENGTH_SHORT).show();
+        CameraPosition camera = aMap.getCameraPosition();
+        LatLngBounds visible = aMap.getProjection().getVisibleRegion().latLngBounds;
+        if (camera == null || visible == null) {
+            return;
+        }
+        float zoom = camera.zoom;
+        int zoomLevel = Math.round(zoom);
+        Set<Long> tiles = tilesForViewport(visible, MapTileCache.levelFor(zoom));
+        if (zoomLevel == renderedZoomLevel && tiles.equals(renderedTiles)) {
+            return;
+        }
+        renderedZoomLevel = zoomLevel;
+        renderedTiles = tiles;
+        int generation = ++clusterGeneration;
+        long now = SystemClock.elapsedRealtime();
+        List<Long> missing = new ArrayList<>();
+        boolean uncached = false;
+        for (Long tile : tiles) {
+            if (!tileCache.isFresh(tile, now)) {
+                missing.add(tile);
+                uncached |= !tileCache.contains(tile);
+            }
+        }
+        perfMonitor.beginPan();
+        if (uncached) {
+            showMapLoading(true);
+        }
+        int cellSizePx = clusterCellSizePx;
+        // 层级按取整后的缩放级别选择，与上面的跳过判断一致
+        MapMarkerRenderer.Detail detail = MapMarkerRenderer.Detail.forZoom(zoomLevel);
+        executor.execute(() -> {
+            Exception error = null;
+            int fetched = 0;
+            for (Long tile : missing) {
+                if (generation != clusterGeneration) {
+                    return;
+                }
+                try {
+                    tileCache.put(tile, fetchTile(tile), SystemClock.elapsedRealtime());
+                    fetched++;
+                } catch (IOException | JSONException e) {
+                    error = e;
+                    break;
+                }
+            }
+            List<FeedItem> scenics = tileCache.collect(tiles);
+            List<GridClusterer.Cluster<FeedItem>> clusters = new GridClusterer<>(scenics, NearbyScenicPages.SCENIC_POSITION)
+                    .cluster(zoom, cellSizePx);
+            Exception failure = error;
+            int fetchedTiles = fetched;
+            mainHandler.post(() -> {
+                if (generation != clusterGeneration || aMap == null || !isAdded()) {
+                    return;
+                }
+                showMapLoading(false);
+                showClusters(clusters, detail, zoomLevel);
+                perfMonitor.recordFetchedTiles(fetchedTiles);
+                perfMonitor.endPan(scenicMarkers.size());
+                if (failure != null) {
+                    // 下次镜头移动时重试缺失的瓦片
+                    renderedTiles = null;
+                    Toast.makeText(requireContext(), getString(R.string.map_points_error, failure.getMessage()), Toast.LENGTH_SHORT).show();
+                } else if (!hasFittedInitialBounds) {
+                    fitInitialBounds(scenics);
+                }
+            });
+        });
+    }
+
+    /**
+     * 拉取一块瓦片的全部景点。服务端单次最多返回 2000 条（按 id 排序），结果被截断时改为分别请求 4 块子瓦片并合并，
+     * 逐级拆分直到不再截断或到达 {@link #MAX_SPLIT_LEVEL}。
+     */
+    private List<FeedItem> fetchTile(long tile) throws IOException, JSONException {
+        double[] bounds = MapTileCache.bounds(tile);
+        ScenicRegion region = travelRepository.fetchScenicsInBounds(bounds[0], bounds[1], bounds[2], bounds[3]);
+        if (!region.isTruncated()) {
+            return region.getItems();
+        }
+        if (MapTileCache.level(tile) >= MAX_SPLIT_LEVEL) {
+            Log.w(TAG, "fetchTile: tile still truncated at level " + MAX_SPLIT_LEVEL);
+            return region.getItems();
+        }
+        // 子瓦片边界上的点可能被相邻两块同时返回，按 id 去重
+        Map<Long, FeedItem> merged = new LinkedHashMap<>();
+        for (long child : MapTileCache.children(tile)) {
+            for (FeedItem item : fetchTile(child)) {
+                merged.put(item.getId(), item);
+            }
+        }
+        return new ArrayList<>(merged.values());
+    }
+
+    private static Set<Long> tilesForViewport(LatLngBounds visible, int level) {
+        double south = visible.southwest.latitude;
+        double north = visible.northeast.latitude;
+        double west = visible.southwest.longitude;
+        double east = visible.northeast.longitude;
+        double lngSpan = east >= west ? east - west : east + 360d - west;
+        double latMargin = (north - south) * VIEWPORT_MARGIN;
+        double lngMargin = lngSpan * VIEWPORT_MARGIN;
+        double minLat = Math.max(-90d, south - latMargin);
+        double maxLat = Math.min(90d, north + latMargin);
+        if (lngSpan + lngMargin * 2 >= 360d) {
+            return MapTileCache.tilesCovering(minLat, -180d, maxLat, 180d, level);
+        }
+        double minLng = west - lngMargin < -180d ? west - lngMargin + 360d : west - lngMargin;
+        double maxLng = east + lngMargin > 180d ? east + lngMargin - 360d : east + lngMargin;
+        return MapTileCache.tilesCovering(minLat, minLng, maxLat, maxLng, level);
+    }
+
+    /**
+     * 首次拿到景点后把镜头调整到能看到全部已加载景点的范围；一个都没有时提示。
+     */
+    private void fitInitialBounds(List<FeedItem> scenics) {
+        if (scenics.isEmpty()) {
+            if (boundsPointCount == 0) {
+                Toast.makeText(requireContext(), R.string.map_points_empty, Toast.LENGTH_SHORT).show();
+            }
             return;
         }
         for (FeedItem scenic : scenics) {
-            addScenicMarker(scenic);
+            if (scenic.getLatitude() != null && scenic.getLongitude() != null) {
+                includeBounds(new LatLng(scenic.getLatitude(), scenic.getLongitude()));
+            }
         }
         fitCameraToBounds(false, false);
     }
 
-    private void clearScenicMarkers() {
-        for (Marker marker : scenicMarkers) {
-            marker.remove();
+    /**
+     * 按 key 比对新旧 Marker（{@link MarkerDiff}）：保留的 Marker 只更新变化的位置 / 图标，沿用已经加载好的缩略图图标；
+     * 细节层级变化（{@link MapMarkerRenderer.Detail}）时在这里一次性切换图标，镜头移动过程中不做。
+     */
+    private void showClusters(List<GridClusterer.Cluster<FeedItem>> clusters, MapMarkerRenderer.Detail detail,
+                              int zoomLevel) {
+        long startNanos = System.nanoTime();
+        MarkerDiff diff = MarkerDiff.apply(scenicMarkers, clusters, new MarkerDiff.Target<ScenicMarker>() {
+            @Override
+            public void update(@NonNull ScenicMarker marker, @NonNull GridClusterer.Cluster<FeedItem> cluster) {
+                if (cluster.isSingleton()) {
+                    updateScenicMarker(marker, cluster.getSingle(), detail);
+                } else {
+                    updateClusterMarker(marker, cluster);
+                }
+            }
+
+            @Nullable
+            @Override
+            public ScenicMarker create(@NonNull GridClusterer.Cluster<FeedItem> cluster) {
+                return cluster.isSingleton()
+                        ? addScenicMarker(cluster.getSingle(), detail)
+                        : addClusterMarker(cluster);
+            }
+
+            @Override
+            public void remove(@NonNull ScenicMarker marker) {
+                marker.remove();
+            }
+        });
+        perfMonitor.recordMarkerDiff(diff.getCreated(), diff.getReused(), diff.getRemoved());
+        perfMonitor.recordMarkerUpdate(zoomLevel, detail, System.nanoTime() - startNanos, iconBytes());
+    }
+
+    /**
+     * 地图上 Marker 图标位图的总字节数；共用的图标（圆点、相同数量的聚合气泡）只算一次。
+     */
+    private long iconBytes() {
+        Set<BitmapDescriptor> icons = Collections.newSetFromMap(new IdentityHashMap<>());
+        long bytes = 0;
+        for (ScenicMarker scenicMarker : scenicMarkers.values()) {
+            if (scenicMarker.icon != null && icons.add(scenicMarker.icon)) {
+                bytes += MapMarkerRenderer.byteCount(scenicMarker.icon);
+            }
         }
-        scenicMarkers.clear();
+        return bytes;
+    }
+
+    private void clearScenicMarkers() {
+        removeScenicMarkers();
+        perfMonitor.stop();
+        clusterGeneration++;
+        renderedZoomLevel = -1;
+        renderedTiles = null;
         boundsBuilder = null;
         boundsPointCount = 0;
         lastBoundsLatLng = null;
         hasFittedInitialBounds = false;
         hasFittedWithLocation = false;
-        for (Target<Bitmap> target : markerTargets) {
-            try {
-                Glide.with(this).clear(target);
-            } catch (IllegalStateException ignored) {
-            }
+        nearbyFitRequested = false;
+    }
+
+    private void removeScenicMarkers() {
+        for (ScenicMarker scenicMarker : scenicMarkers.values()) {
+            scenicMarker.remove();
         }
-        markerTargets.clear();
+        scenicMarkers.clear();
     }
 
-    private void addScenicMarker(FeedItem scenic) {
-        if (aMap == null || scenic == null) {
+    private ScenicMarker addClusterMarker(GridClusterer.Cluster<FeedItem> cluster) {
+        BitmapDescriptor icon = MapMarkerRenderer.createCluster(getContext(), cluster.size());
+        MarkerOptions options = new MarkerOptions()
+                .position(new LatLng(cluster.getLatitude(), cluster.getLongitude()))
+                .anchor(0.5f, 0.5f)
+                .icon(icon);
+        Marker marker = aMap.addMarker(options);
+        marker.setObject(cluster);
+        ScenicMarker scenicMarker = new ScenicMarker(marker);
+        scenicMarker.count = cluster.size();
+        scenicMarker.icon = icon;
+        return scenicMarker;
+    }
+
+    private void updateClusterMarker(ScenicMarker scenicMarker, GridClusterer.Cluster<FeedItem> cluster) {
+        scenicMarker.moveTo(cluster.getLatitude(), cluster.getLongitude());
+        if (scenicMarker.count != cluster.size()) {
+            scenicMarker.count = cluster.size();
+            scenicMarker.setIcon(MapMarkerRenderer.createCluster(getContext(), cluster.size()));
+        }
+        scenicMarker.marker.setObject(cluster);
+    }
+
+    /**
+     * 点击聚合气泡：放大到能看到其中所有景点的范围；景点坐标完全重合时直接放大两级。
+     */
+    private void zoomIntoCluster(GridClusterer.Cluster<?> cluster) {
+        if (aMap == null) {
             return;
         }
+        double[] bounds = cluster.getBounds();
+        LatLng center = new LatLng(cluster.getLatitude(), cluster.getLongitude());
+        if (bounds[0] == bounds[2] && bounds[1] == bounds[3]) {
+            aMap.animateCamera(CameraUpdateFactory.newLatLngZoom(center, aMap.getCameraPosition().zoom + 2f));
+            return;
+        }
+        LatLngBounds latLngBounds = new LatLngBounds(new LatLng(bounds[0], bounds[1]), new LatLng(bounds[2], bounds[3]));
+        aMap.animateCamera(CameraUpdateFactory.newLatLngBounds(latLngBounds, 120));
+    }
+
+    @Nullable
+    private ScenicMarker addScenicMarker(FeedItem scenic, MapMarkerRenderer.Detail detail) {
+        if (aMap == null || scenic == null) {
+            return null;
+        }
         Double lat = scenic.getLatitude();
         Double lng = scenic.getLongitude();
         if (lat == null || lng == null) {
-            return;
+            return null;
         }
         LatLng latLng = new LatLng(lat, lng);
         MarkerOptions options = new MarkerOptions()
                 .position(latLng)
-                .anchor(0.5f, 1f)
+                .anchor(0.5f, detail.anchorV())
                 .title(scenic.getTitle())
-                .snippet(scenic.getAddress())
-                .icon(MapMarkerRenderer.create(getContext(), scenic.getTitle(), null));
+                .snippet(scenic.getAddress());
         Marker marker = aMap.addMarker(options);
-        scenicMarkers.add(marker);
         marker.setObject(scenic);
-        includeBounds(latLng);
-        loadMarkerThumbnail(marker, scenic);
+        ScenicMarker scenicMarker = new ScenicMarker(marker);
+        applyScenicIcon(scenicMarker, scenic, detail);
+        return scenicMarker;
     }
 
-    private void loadMarkerThumbnail(Marker marker, FeedItem scenic) {
-        if (!isAdded() || marker == null) {
-            return;
+    /**
+     * 刷新已有的景点 Marker：坐标变了就移动，标题、封面或细节层级变了才重新渲染图标。
+     */
+    private void updateScenicMarker(ScenicMarker scenicMarker, FeedItem scenic, MapMarkerRenderer.Detail detail) {
+        scenicMarker.moveTo(scenic.getLatitude(), scenic.getLongitude());
+        Marker marker = scenicMarker.marker;
+        marker.setObject(scenic);
+        marker.setSnippet(scenic.getAddress());
+        if (scenicMarker.detail != detail
+                || !TextUtils.equals(scenicMarker.title, scenic.getTitle())
+                || !TextUtils.equals(scenicMarker.imageUrl, scenic.getImageUrl())) {
+            marker.setTitle(scenic.getTitle());
+            applyScenicIcon(scenicMarker, scenic, detail);
         }
-        CustomTarget<Bitmap> target = new CustomTarget<Bitmap>() {
-            @Override
-            public void onResourceReady(@NonNull Bitmap resource, @Nullable Transition<? super Bitmap> transition) {
-                if (!isAdded()) {
-                    return;
-                }
-                marker.setIcon(MapMarkerRenderer.create(getContext(), scenic.getTitle(), resource));
-            }
-
-            @Override
-            public void onLoadCleared(@Nullable Drawable placeholder) {
-            }
+    }
 
-            @Override
-            public void onLoadFailed(@Nullable Drawable errorDrawable) {
-                if (!isAdded()) {
-                    return;
-                }
-                marker.setIcon(MapMarkerRenderer.create(getContext(), scenic.getTitle(), null));
-            }
-        };
-        markerTargets.add(target);
-        Glide.with(this)
-                .asBitmap()
-                .load(scenic.getImageUrl())
-                .into(target);
+    /**
+     * 按细节层级设置图标：只有缩略图这一档才会下载图片，降级时取消未完成的下载。
+     */
+    private void applyScenicIcon(ScenicMarker scenicMarker, FeedItem scenic, MapMarkerRenderer.Detail detail) {
+        scenicMarker.cancelLoad();
+        if (scenicMarker.detail != detail) {
+            scenicMarker.marker.setAnchor(0.5f, detail.anchorV());
+        }
+        scenicMarker.detail = detail;
+        scenicMarker.title = scenic.getTitle();
+        scenicMarker.imageUrl = scenic.getImageUrl();
+        if (detail == MapMarkerRenderer.Detail.DOT) {
+            scenicMarker.setIcon(MapMarkerRenderer.dot(getContext()));
+            return;
+        }
+        if (detail == MapMarkerRenderer.Detail.TITLE) {
+            scenicMarker.setIcon(MapMarkerRenderer.titleOnly(getContext(), scenic.getTitle()));
+            return;
+        }
+        // 已渲染过的图标直接复用，不再经过占位图
+        BitmapDescriptor cached = MapMarkerRenderer.peek(getContext(), scenic.getTitle(), scenic.getImageUrl());
+        scenicMarker.setIcon(cached != null ? cached : MapMarkerRenderer.placeholder(getContext(), scenic.getTitle()));
+        if (cached == null && isAdded()) {
+            scenicMarker.load = MapMarkerRenderer.loadAsync(requireContext(), scenic.getTitle(),
+                    scenic.getImageUrl(), descriptor -> {
+                        if (!isAdded()) {
+                            return;
+                        }
+                        scenicMarker.setIcon(descriptor);
+                    });
+        }
     }
 
     private void includeBounds(LatLng latLng) {
@@ -344,6 +610,39 @@ public class MapFragment extends Fragment implements AMapLocationListener {
         });
     }
 
+    /**
+     * 第一次定位成功后查询附近的景点，把镜头调整到能同时看到当前位置与最近几个景点的范围；
+     * 附近没有景点或查询失败时退回到当前位置加已加载景点的范围。
+     */
+    private void fitCameraToNearby(LatLng here) {
+        executor.execute(() -> {
+            List<FeedItem> nearby = Collections.emptyList();
+            try {
+                nearby = travelRepository.fetchNearbyScenics(here.latitude, here.longitude,
+                        LOCATION_NEARBY_RADIUS_METERS, LOCATION_NEARBY_LIMIT).getItems();
+            } catch (IOException | JSONException e) {
+                Log.w(TAG, "fitCameraToNearby: nearby query failed", e);
+            }
+            List<FeedItem> result = nearby;
+            mainHandler.post(() -> {
+                if (aMap == null || !isAdded()) {
+                    return;
+                }
+                if (!result.isEmpty()) {
+                    boundsBuilder = null;
+                    boundsPointCount = 0;
+                    for (FeedItem scenic : result) {
+                        if (scenic.getLatitude() != null && scenic.getLongitude() != null) {
+                            includeBounds(new LatLng(scenic.getLatitude(), scenic.getLongitude()));
+                        }
+                    }
+                }
+                includeBounds(here);
+                fitCameraToBounds(true, true);
+            });
+        });
+    }
+
     @Override
     public void onRequestPermissionsResult(int requestCode, @NonNull String[] permissions, @NonNull int[] grantResults) {
         super.onRequestPermissionsResult(requestCode, permissions, grantResults);
@@ -367,8 +666,10 @@ public class MapFragment extends Fragment implements AMapLocationListener {
     @Override
     public void onLocationChanged(AMapLocation aMapLocation) {
         if (aMapLocation != null && aMapLocation.getErrorCode() == 0) {
-            includeBounds(new LatLng(aMapLocation.getLatitude(), aMapLocation.getLongitude()));
-            fitCameraToBounds(true, true);
+            if (!hasFittedWithLocation && !nearbyFitRequested) {
+                nearbyFitRequested = true;
+                fitCameraToNearby(new LatLng(aMapLocation.getLatitude(), aMapLocation.getLongitude()));
+            }
         } else if (aMapLocation != null && isAdded()) {
             Log.e(TAG, "onLocationChanged error: " + aMapLocation.getErrorCode() + ", info: " + aMapLocation.getErrorInfo());
             Toast.makeText(requireContext(), getString(R.string.map_location_failed, aMapLocation.getErrorInfo()), Toast.LENGTH_SHORT).show();
@@ -384,6 +685,17 @@ public class MapFragment extends Fragment implements AMapLocationListener {
         startLocation();
     }
 
+    /**
+     * MainActivity 切换 Tab 时只 hide / show，不走 onPause：隐藏期间定位降到低功耗模式。
+     */
+    @Override
+    public void onHiddenChanged(boolean hidden) {
+        super.onHiddenChanged(hidden);
+        if (locationScheduler != null) {
+            locationScheduler.setVisible(!hidden);
+        }
+    }
+
     @Override
     public void onPause() {
         super.onPause();
@@ -434,4 +746,49 @@ public class MapFragment extends Fragment implements AMapLocationListener {
         intent.putExtra(ScenicDetailActivity.EXTRA_SCENIC_ID, scenicId);
         startActivity(intent);
     }
+
+    /**
+     * 地图上的一个 Marker 及其渲染状态：景点的标题 / 封面地址与细节层级、聚合的数量、当前图标，
+     * 以及未完成的缩略图加载。
+     */
+    private static final class ScenicMarker {
+        final Marker marker;
+        String title;
+        String imageUrl;
+        MapMarkerRenderer.Detail detail;
+        int count;
+        BitmapDescriptor icon;
+        MapMarkerRenderer.Request load;
+
+        ScenicMarker(Marker marker) {
+            this.marker = marker;
+        }
+
+        void setIcon(BitmapDescriptor descriptor) {
+            icon = descriptor;
+            marker.setIcon(descriptor);
+        }
+
+        void moveTo(Double latitude, Double longitude) {
+            if (latitude == null || longitude == null) {
+                return;
+            }
+            LatLng current = marker.getPosition();
+            if (current == null || current.latitude != latitude || current.longitude != longitude) {
+                marker.setPosition(new LatLng(latitude, longitude));
+            }
+        }
+
+        void cancelLoad() {
+            if (load != null) {
+                load.cancel();
+                load = null;
+            }
+        }
+
+        void remove() {
+            cancelLoad();
+            marker.remove();
+        }
+    }
 }
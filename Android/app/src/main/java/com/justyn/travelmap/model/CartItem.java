@@ -1,5 +1,7 @@
 package com.justyn.travelmap.model;
 
+import java.util.Objects;
+
 public class CartItem {
     private final long cartId;
     private final int quantity;
@@ -28,4 +30,24 @@ public class CartItem {
     public double getUnitPrice() {
         return unitPrice;
     }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof CartItem)) {
+            return false;
+        }
+        CartItem other = (CartItem) o;
+        return cartId == other.cartId
+                && quantity == other.quantity
+                && Double.compare(unitPrice, other.unitPrice) == 0
+                && Objects.equals(product, other.product);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(cartId, quantity, product, unitPrice);
+    }
 }
@@ -1,7 +1,13 @@
 package com.justyn.travelmap.model;
 
+import java.util.Locale;
+import java.util.Objects;
+
 /**
  * 通用的 Feed 条目，供首页/商城/预订复用。
+ * <p>
+ * 不可变；{@link #equals(Object)} 比较全部字段，列表 diff 用它判断卡片内容是否需要重新绑定。
+ * 卡片上的展示文本在构造时（或首次绑定时）生成一次并缓存，滑动时绑定不再格式化字符串。
  */
 public class FeedItem {
     private final long id;
@@ -16,6 +22,13 @@ public class FeedItem {
     private final Integer stock;
     private final String visitTime;
     private final String ratingLabel;
+    private final String addressLabel;
+    private final String latLngLabel;
+    // 依赖资源里格式串的文本，首次绑定时生成；记录所用格式串，语言切换后会重新生成
+    private String stockLabel;
+    private String stockLabelFormat;
+    private String visitTimeLabel;
+    private String visitTimeLabelFormat;
 
     public FeedItem(long id, String title, String description, String imageUrl) {
         this(id, title, description, imageUrl, null, null, null, null, null, null, null, null);
@@ -45,6 +58,14 @@ public class FeedItem {
         this.stock = stock;
         this.visitTime = visitTime;
         this.ratingLabel = ratingLabel;
+        if (address != null && !address.isEmpty()) {
+            this.addressLabel = address;
+        } else {
+            this.addressLabel = extraInfo != null && !extraInfo.isEmpty() ? extraInfo : null;
+        }
+        this.latLngLabel = latitude != null && longitude != null
+                ? String.format(Locale.getDefault(), "%.4f, %.4f", latitude, longitude)
+                : null;
     }
 
     public long getId() {
@@ -94,4 +115,79 @@ public class FeedItem {
     public String getRatingLabel() {
         return ratingLabel;
     }
+
+    /**
+     * 卡片地址行：优先地址，其次附加信息（城市 / 类型），都没有时为 null。
+     */
+    public String getAddressLabel() {
+        return addressLabel;
+    }
+
+    /**
+     * 形如 "39.9163, 116.3972"，没有坐标时为 null。
+     */
+    public String getLatLngLabel() {
+        return latLngLabel;
+    }
+
+    /**
+     * 按 {@code format}（如 "库存：%1$d"）生成库存文本并缓存；没有库存信息时为 null。
+     */
+    public String getStockLabel(String format) {
+        if (stock == null || stock < 0) {
+            return null;
+        }
+        String label = stockLabel;
+        if (label == null || !format.equals(stockLabelFormat)) {
+            label = String.format(Locale.getDefault(), format, stock);
+            stockLabelFormat = format;
+            stockLabel = label;
+        }
+        return label;
+    }
+
+    /**
+     * 按 {@code format}（如 "拜访时间：%1$s"）生成拜访时间文本并缓存；没有拜访时间时为 null。
+     */
+    public String getVisitTimeLabel(String format) {
+        if (visitTime == null || visitTime.isEmpty()) {
+            return null;
+        }
+        String label = visitTimeLabel;
+        if (label == null || !format.equals(visitTimeLabelFormat)) {
+            label = String.format(Locale.getDefault(), format, visitTime);
+            visitTimeLabelFormat = format;
+            visitTimeLabel = label;
+        }
+        return label;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof FeedItem)) {
+            return false;
+        }
+        FeedItem other = (FeedItem) o;
+        return id == other.id
+                && Objects.equals(title, other.title)
+                && Objects.equals(description, other.description)
+                && Objects.equals(imageUrl, other.imageUrl)
+                && Objects.equals(priceLabel, other.priceLabel)
+                && Objects.equals(extraInfo, other.extraInfo)
+                && Objects.equals(address, other.address)
+                && Objects.equals(latitude, other.latitude)
+                && Objects.equals(longitude, other.longitude)
+                && Objects.equals(stock, other.stock)
+                && Objects.equals(visitTime, other.visitTime)
+                && Objects.equals(ratingLabel, other.ratingLabel);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id, title, description, imageUrl, priceLabel, extraInfo, address,
+                latitude, longitude, stock, visitTime, ratingLabel);
+    }
 }
@@ -1,5 +1,7 @@
 package com.justyn.travelmap.model;
 
+import java.util.Objects;
+
 public class OrderItemDetail {
     private final long orderItemId;
     private final int quantity;
@@ -34,4 +36,25 @@ public class OrderItemDetail {
     public long getScenicId() {
         return scenicId;
     }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof OrderItemDetail)) {
+            return false;
+        }
+        OrderItemDetail other = (OrderItemDetail) o;
+        return orderItemId == other.orderItemId
+                && quantity == other.quantity
+                && Double.compare(price, other.price) == 0
+                && scenicId == other.scenicId
+                && Objects.equals(product, other.product);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(orderItemId, quantity, price, product, scenicId);
+    }
 }
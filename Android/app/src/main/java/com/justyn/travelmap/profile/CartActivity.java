@@ -174,7 +174,7 @@ public class CartActivity extends AppCompatActivity implements CartAdapter.CartA
     }
 
     private void submitOrder() {
-        if (adapter.getItemCount() == 0) {
+        if (!hasCartItems()) {
             Toast.makeText(this, R.string.cart_empty, Toast.LENGTH_SHORT).show();
             return;
         }
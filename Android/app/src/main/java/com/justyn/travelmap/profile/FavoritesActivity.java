@@ -17,6 +17,7 @@ import androidx.swiperefreshlayout.widget.SwipeRefreshLayout;
 import com.google.android.material.appbar.MaterialToolbar;
 import com.google.android.material.button.MaterialButtonToggleGroup;
 import com.justyn.travelmap.R;
+import com.justyn.travelmap.data.local.FavoriteStore;
 import com.justyn.travelmap.data.local.UserPreferences;
 import com.justyn.travelmap.data.local.UserProfile;
 import com.justyn.travelmap.data.remote.UserCenterRepository;
@@ -29,7 +30,9 @@ import com.facebook.shimmer.ShimmerFrameLayout;
 import org.json.JSONException;
 
 import java.io.IOException;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 
@@ -49,6 +52,11 @@ public class FavoritesActivity extends AppCompatActivity implements FeedAdapter.
     private final Handler mainHandler = new Handler(Looper.getMainLooper());
     private final UserCenterRepository repository = new UserCenterRepository();
     private UserProfile profile;
+    /**
+     * 每个 tab 已加载的列表及加载时的 {@link FavoriteStore} 版本；版本未变时切换 tab 不再请求。
+     */
+    private final Map<FavoriteTab, List<FeedItem>> tabCache = new EnumMap<>(FavoriteTab.class);
+    private final Map<FavoriteTab, Integer> tabCacheVersion = new EnumMap<>(FavoriteTab.class);
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -95,20 +103,38 @@ public class FavoritesActivity extends AppCompatActivity implements FeedAdapter.
         });
     }
 
+    @Override
+    protected void onResume() {
+        super.onResume();
+        // 从详情页返回时若收藏有变化，重新加载当前 tab
+        Integer cachedVersion = tabCacheVersion.get(currentTab);
+        if (cachedVersion != null && cachedVersion != FavoriteStore.getDefault().getVersion()) {
+            loadFavorites(currentTab, false);
+        }
+    }
+
     private void loadFavorites(FavoriteTab tab, boolean fromSwipe) {
-        setLoading(fromSwipe, true);
         currentTab = tab;
+        List<FeedItem> cached = tabCache.get(tab);
+        Integer cachedVersion = tabCacheVersion.get(tab);
+        if (!fromSwipe && cached != null && cachedVersion != null
+                && cachedVersion == FavoriteStore.getDefault().getVersion()) {
+            showFavorites(tab, cached);
+            return;
+        }
+        setLoading(fromSwipe, true);
         executor.execute(() -> {
             try {
+                int version = FavoriteStore.getDefault().getVersion();
                 List<FeedItem> items = tab == FavoriteTab.PRODUCT
                         ? repository.fetchFavoriteProducts(profile.getId())
                         : repository.fetchFavoriteScenics(profile.getId());
                 mainHandler.post(() -> {
-                    adapter.submitList(items);
-                    tvEmpty.setVisibility(items == null || items.isEmpty() ? View.VISIBLE : View.GONE);
-                    tvEmpty.setText(tab == FavoriteTab.PRODUCT
-                            ? R.string.favorites_empty_products
-                            : R.string.favorites_empty_scenics);
+                    tabCache.put(tab, items);
+                    tabCacheVersion.put(tab, version);
+                    if (currentTab == tab) {
+                        showFavorites(tab, items);
+                    }
                     setLoading(fromSwipe, false);
                 });
             } catch (IOException | JSONException e) {
@@ -120,6 +146,14 @@ public class FavoritesActivity extends AppCompatActivity implements FeedAdapter.
         });
     }
 
+    private void showFavorites(FavoriteTab tab, List<FeedItem> items) {
+        adapter.submitList(items);
+        tvEmpty.setVisibility(items == null || items.isEmpty() ? View.VISIBLE : View.GONE);
+        tvEmpty.setText(tab == FavoriteTab.PRODUCT
+                ? R.string.favorites_empty_products
+                : R.string.favorites_empty_scenics);
+    }
+
     private void setLoading(boolean fromSwipe, boolean loading) {
         if (fromSwipe) {
             swipeRefreshLayout.setRefreshing(loading);
@@ -1,7 +1,5 @@
 package com.justyn.travelmap.profile;
 
-import android.graphics.Bitmap;
-import android.graphics.drawable.Drawable;
 import android.os.Bundle;
 import android.os.Handler;
 import android.os.Looper;
@@ -20,14 +18,11 @@ import androidx.recyclerview.widget.RecyclerView;
 import com.amap.api.maps.AMap;
 import com.amap.api.maps.CameraUpdateFactory;
 import com.amap.api.maps.MapView;
+import com.amap.api.maps.model.BitmapDescriptor;
 import com.amap.api.maps.model.LatLng;
 import com.amap.api.maps.model.LatLngBounds;
 import com.amap.api.maps.model.Marker;
 import com.amap.api.maps.model.MarkerOptions;
-import com.bumptech.glide.Glide;
-import com.bumptech.glide.request.target.CustomTarget;
-import com.bumptech.glide.request.target.Target;
-import com.bumptech.glide.request.transition.Transition;
 import com.google.android.material.appbar.MaterialToolbar;
 import com.google.android.material.progressindicator.CircularProgressIndicator;
 import com.justyn.travelmap.R;
@@ -79,7 +74,7 @@ public class OrderDetailActivity extends AppCompatActivity {
     private OrderItemAdapter orderItemAdapter;
 
     private final List<Marker> mapMarkers = new ArrayList<>();
-    private final List<Target<?>> markerTargets = new ArrayList<>();
+    private final List<MapMarkerRenderer.Request> markerLoads = new ArrayList<>();
     private LatLngBounds.Builder boundsBuilder;
     private int boundsCount = 0;
     private LatLng lastMarkerLatLng;
@@ -231,12 +226,13 @@ public class OrderDetailActivity extends AppCompatActivity {
             return;
         }
         LatLng latLng = new LatLng(lat, lng);
+        BitmapDescriptor cached = MapMarkerRenderer.peek(this, title, imageUrl);
         MarkerOptions options = new MarkerOptions()
                 .position(latLng)
                 .anchor(0.5f, 1f)
                 .title(title)
                 .snippet(address)
-                .icon(MapMarkerRenderer.create(this, title, null));
+                .icon(cached != null ? cached : MapMarkerRenderer.placeholder(this, title));
         Marker marker = orderMap.addMarker(options);
         mapMarkers.add(marker);
         if (boundsBuilder == null) {
@@ -245,33 +241,16 @@ public class OrderDetailActivity extends AppCompatActivity {
         boundsBuilder.include(latLng);
         boundsCount++;
         lastMarkerLatLng = latLng;
-        loadMarkerIcon(marker, title, imageUrl);
+        if (cached == null) {
+            loadMarkerIcon(marker, title, imageUrl);
+        }
     }
 
     private void loadMarkerIcon(Marker marker, String title, @Nullable String imageUrl) {
-        if (imageUrl == null || imageUrl.isEmpty()) {
-            return;
+        MapMarkerRenderer.Request load = MapMarkerRenderer.loadAsync(this, title, imageUrl, marker::setIcon);
+        if (load != null) {
+            markerLoads.add(load);
         }
-        CustomTarget<Bitmap> target = new CustomTarget<Bitmap>() {
-            @Override
-            public void onResourceReady(@NonNull Bitmap resource, @Nullable Transition<? super Bitmap> transition) {
-                marker.setIcon(MapMarkerRenderer.create(OrderDetailActivity.this, title, resource));
-            }
-
-            @Override
-            public void onLoadCleared(@Nullable Drawable placeholder) {
-            }
-
-            @Override
-            public void onLoadFailed(@Nullable Drawable errorDrawable) {
-                marker.setIcon(MapMarkerRenderer.create(OrderDetailActivity.this, title, null));
-            }
-        };
-        markerTargets.add(target);
-        Glide.with(this)
-                .asBitmap()
-                .load(imageUrl)
-                .into(target);
     }
 
     private void fetchMissingLocations(List<OrderItemDetail> items) {
@@ -341,10 +320,10 @@ public class OrderDetailActivity extends AppCompatActivity {
         boundsBuilder = null;
         boundsCount = 0;
         lastMarkerLatLng = null;
-        for (Target<?> target : markerTargets) {
-            Glide.with(this).clear(target);
+        for (MapMarkerRenderer.Request load : markerLoads) {
+            load.cancel();
         }
-        markerTargets.clear();
+        markerLoads.clear();
     }
 
     private static class MarkerPayload {
@@ -7,6 +7,9 @@ import android.widget.ImageView;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.recyclerview.widget.AsyncListDiffer;
+import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.google.android.material.button.MaterialButton;
@@ -15,7 +18,6 @@ import com.justyn.travelmap.model.CartItem;
 import com.justyn.travelmap.model.FeedItem;
 import com.justyn.travelmap.ui.common.ImageLoader;
 
-import java.util.ArrayList;
 import java.util.List;
 
 public class CartAdapter extends RecyclerView.Adapter<CartAdapter.CartViewHolder> {
@@ -26,20 +28,31 @@ public class CartAdapter extends RecyclerView.Adapter<CartAdapter.CartViewHolder
         void onItemDeleted(@NonNull CartItem item);
     }
 
+    private static final DiffUtil.ItemCallback<CartItem> DIFF_CALLBACK = new DiffUtil.ItemCallback<CartItem>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull CartItem oldItem, @NonNull CartItem newItem) {
+            return oldItem.getCartId() == newItem.getCartId();
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull CartItem oldItem, @NonNull CartItem newItem) {
+            return oldItem.equals(newItem);
+        }
+    };
+
     private final CartActionListener listener;
-    private List<CartItem> items = new ArrayList<>();
+    private final AsyncListDiffer<CartItem> differ = new AsyncListDiffer<>(this, DIFF_CALLBACK);
 
     public CartAdapter(CartActionListener listener) {
         this.listener = listener;
+        setHasStableIds(true);
     }
 
-    public void submitList(List<CartItem> newItems) {
-        if (newItems == null) {
-            items = new ArrayList<>();
-        } else {
-            items = new ArrayList<>(newItems);
-        }
-        notifyDataSetChanged();
+    /**
+     * 后台 diff 后按差异刷新，修改数量时只重绑对应的那一行。
+     */
+    public void submitList(@Nullable List<CartItem> newItems) {
+        differ.submitList(newItems);
     }
 
     @NonNull
@@ -51,12 +64,17 @@ public class CartAdapter extends RecyclerView.Adapter<CartAdapter.CartViewHolder
 
     @Override
     public void onBindViewHolder(@NonNull CartViewHolder holder, int position) {
-        holder.bind(items.get(position), listener);
+        holder.bind(differ.getCurrentList().get(position), listener);
+    }
+
+    @Override
+    public long getItemId(int position) {
+        return differ.getCurrentList().get(position).getCartId();
     }
 
     @Override
     public int getItemCount() {
-        return items.size();
+        return differ.getCurrentList().size();
     }
 
     static class CartViewHolder extends RecyclerView.ViewHolder {
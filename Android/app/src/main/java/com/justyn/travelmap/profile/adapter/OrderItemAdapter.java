@@ -7,6 +7,9 @@ import android.widget.ImageView;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.recyclerview.widget.AsyncListDiffer;
+import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.justyn.travelmap.R;
@@ -14,20 +17,31 @@ import com.justyn.travelmap.model.FeedItem;
 import com.justyn.travelmap.model.OrderItemDetail;
 import com.justyn.travelmap.ui.common.ImageLoader;
 
-import java.util.ArrayList;
 import java.util.List;
 
 public class OrderItemAdapter extends RecyclerView.Adapter<OrderItemAdapter.OrderItemViewHolder> {
 
-    private List<OrderItemDetail> items = new ArrayList<>();
+    private static final DiffUtil.ItemCallback<OrderItemDetail> DIFF_CALLBACK =
+            new DiffUtil.ItemCallback<OrderItemDetail>() {
+                @Override
+                public boolean areItemsTheSame(@NonNull OrderItemDetail oldItem, @NonNull OrderItemDetail newItem) {
+                    return oldItem.getOrderItemId() == newItem.getOrderItemId();
+                }
 
-    public void submitList(List<OrderItemDetail> newItems) {
-        if (newItems == null) {
-            items = new ArrayList<>();
-        } else {
-            items = new ArrayList<>(newItems);
-        }
-        notifyDataSetChanged();
+                @Override
+                public boolean areContentsTheSame(@NonNull OrderItemDetail oldItem, @NonNull OrderItemDetail newItem) {
+                    return oldItem.equals(newItem);
+                }
+            };
+
+    private final AsyncListDiffer<OrderItemDetail> differ = new AsyncListDiffer<>(this, DIFF_CALLBACK);
+
+    public OrderItemAdapter() {
+        setHasStableIds(true);
+    }
+
+    public void submitList(@Nullable List<OrderItemDetail> newItems) {
+        differ.submitList(newItems);
     }
 
     @NonNull
@@ -39,12 +53,17 @@ public class OrderItemAdapter extends RecyclerView.Adapter<OrderItemAdapter.Orde
 
     @Override
     public void onBindViewHolder(@NonNull OrderItemViewHolder holder, int position) {
-        holder.bind(items.get(position));
+        holder.bind(differ.getCurrentList().get(position));
+    }
+
+    @Override
+    public long getItemId(int position) {
+        return differ.getCurrentList().get(position).getOrderItemId();
     }
 
     @Override
     public int getItemCount() {
-        return items.size();
+        return differ.getCurrentList().size();
     }
 
     static class OrderItemViewHolder extends RecyclerView.ViewHolder {
@@ -0,0 +1,106 @@
+package com.justyn.travelmap.ui.common;
+
+import android.graphics.Bitmap;
+import android.graphics.drawable.BitmapDrawable;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.bumptech.glide.load.DataSource;
+import com.bumptech.glide.load.engine.GlideException;
+import com.bumptech.glide.request.RequestListener;
+import com.bumptech.glide.request.target.Target;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Glide 全局请求监听：按 {@link DataSource} 统计内存缓存 / 磁盘缓存命中与网络拉取次数，
+ * 并把真正解码出来的 Bitmap 交给 {@link ThumbnailResolver#recordDecoded} 记账。
+ * 由 {@link TravelGlideModule} 注册，所有 Glide 请求（列表封面、详情大图、地图 Marker）都会经过这里。
+ */
+public final class ImageCacheStats implements RequestListener<Object> {
+
+    private static final String TAG = "ImageCacheStats";
+    private static final int LOG_EVERY = 100;
+
+    private static final ImageCacheStats INSTANCE = new ImageCacheStats();
+
+    private final AtomicLong memoryHits = new AtomicLong();
+    private final AtomicLong diskHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+
+    private ImageCacheStats() {
+    }
+
+    public static ImageCacheStats getInstance() {
+        return INSTANCE;
+    }
+
+    @Override
+    public boolean onLoadFailed(@Nullable GlideException e, @Nullable Object model,
+                                @NonNull Target<Object> target, boolean isFirstResource) {
+        failures.incrementAndGet();
+        return false;
+    }
+
+    @Override
+    public boolean onResourceReady(@NonNull Object resource, @NonNull Object model, Target<Object> target,
+                                   @NonNull DataSource dataSource, boolean isFirstResource) {
+        switch (dataSource) {
+            case MEMORY_CACHE:
+                memoryHits.incrementAndGet();
+                break;
+            case DATA_DISK_CACHE:
+            case RESOURCE_DISK_CACHE:
+                diskHits.incrementAndGet();
+                recordDecoded(resource);
+                break;
+            default:
+                misses.incrementAndGet();
+                recordDecoded(resource);
+                break;
+        }
+        if (getRequestCount() % LOG_EVERY == 0) {
+            log();
+        }
+        return false;
+    }
+
+    public long getMemoryHits() {
+        return memoryHits.get();
+    }
+
+    public long getDiskHits() {
+        return diskHits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getFailures() {
+        return failures.get();
+    }
+
+    public long getRequestCount() {
+        return memoryHits.get() + diskHits.get() + misses.get();
+    }
+
+    public void log() {
+        long total = getRequestCount();
+        long hits = memoryHits.get() + diskHits.get();
+        Log.i(TAG, "memoryHits=" + memoryHits.get() + " diskHits=" + diskHits.get()
+                + " misses=" + misses.get() + " failures=" + failures.get()
+                + " hitRate=" + (total == 0 ? 0 : hits * 100 / total) + "%");
+    }
+
+    private static void recordDecoded(Object resource) {
+        if (resource instanceof Bitmap) {
+            ThumbnailResolver.recordDecoded((Bitmap) resource);
+        } else if (resource instanceof BitmapDrawable) {
+            ThumbnailResolver.recordDecoded(((BitmapDrawable) resource).getBitmap());
+        }
+    }
+}
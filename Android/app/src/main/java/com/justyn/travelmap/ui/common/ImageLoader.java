@@ -1,20 +1,49 @@
 package com.justyn.travelmap.ui.common;
 
+import android.graphics.drawable.Drawable;
 import android.widget.ImageView;
 
 import androidx.annotation.Nullable;
 
 import com.bumptech.glide.Glide;
+import com.bumptech.glide.RequestBuilder;
+import com.bumptech.glide.RequestManager;
+import com.bumptech.glide.load.DecodeFormat;
 import com.bumptech.glide.load.engine.DiskCacheStrategy;
+import com.bumptech.glide.request.RequestOptions;
 import com.facebook.shimmer.Shimmer;
 import com.facebook.shimmer.ShimmerDrawable;
 import com.justyn.travelmap.R;
 
 /**
- * 统一的图片加载器，提供骨架占位。
+ * 统一的图片加载器，提供骨架占位；按 ImageView 的宽度通过 {@link ThumbnailResolver} 请求缩略图，
+ * 缩略图档位按 RGB_565 解码，详情大图保持 ARGB_8888。
+ * <p>
+ * 骨架动画参数全局共用一份；占位 Drawable 不能在多个 View 之间共享（各自有尺寸和动画回调），
+ * 因此每个 ImageView 创建一次后挂在 tag 上复用，列表滑动时重新绑定不再分配。
  */
 public final class ImageLoader {
 
+    private static final Shimmer PLACEHOLDER_SHIMMER = new Shimmer.ColorHighlightBuilder()
+            .setBaseColor(0xFFE0E0E0)
+            .setBaseAlpha(1f)
+            .setHighlightColor(0xFFF5F5F5)
+            .setHighlightAlpha(1f)
+            .setDropoff(50f)
+            .build();
+
+    /**
+     * 列表封面、地图 Marker 等缩略图：小尺寸下 RGB_565 与 ARGB_8888 肉眼差别不大，解码内存减半。
+     * 服务端缩略图统一为 JPEG，没有透明通道。
+     */
+    private static final RequestOptions THUMBNAIL_OPTIONS = RequestOptions
+            .formatOf(DecodeFormat.PREFER_RGB_565)
+            .diskCacheStrategy(DiskCacheStrategy.AUTOMATIC)
+            .lock();
+    private static final RequestOptions FULL_OPTIONS = RequestOptions
+            .diskCacheStrategyOf(DiskCacheStrategy.AUTOMATIC)
+            .lock();
+
     private ImageLoader() {
     }
 
@@ -22,22 +51,48 @@ public final class ImageLoader {
         if (imageView == null) {
             return;
         }
-        Shimmer shimmer = new Shimmer.ColorHighlightBuilder()
-                .setBaseColor(0xFFE0E0E0)
-                .setBaseAlpha(1f)
-                .setHighlightColor(0xFFF5F5F5)
-                .setHighlightAlpha(1f)
-                .setDropoff(50f)
-                .build();
-        ShimmerDrawable shimmerDrawable = new ShimmerDrawable();
-        shimmerDrawable.setShimmer(shimmer);
-
-        Glide.with(imageView.getContext())
-                .load(url)
-                .placeholder(shimmerDrawable)
+        request(Glide.with(imageView.getContext()), url, ThumbnailResolver.targetWidth(imageView))
+                .placeholder(placeholderFor(imageView))
                 .error(R.drawable.ic_image_placeholder)
-                .centerCrop()
-                .diskCacheStrategy(DiskCacheStrategy.AUTOMATIC)
                 .into(imageView);
     }
+
+    /**
+     * {@link #load} 使用的请求（地址、解码格式、裁剪方式）；预加载时用同样的请求和尺寸，才能命中同一个内存缓存键。
+     * 缩略图地址加载失败（如服务端未安装 Pillow 返回 501）时改为加载原图。
+     */
+    public static RequestBuilder<Drawable> request(RequestManager requestManager, @Nullable String url, int targetWidth) {
+        RequestOptions options = ThumbnailResolver.isThumbnailWidth(targetWidth) ? THUMBNAIL_OPTIONS : FULL_OPTIONS;
+        String resolved = ThumbnailResolver.resolve(url, targetWidth);
+        RequestBuilder<Drawable> builder = requestManager
+                .load(resolved)
+                .apply(options)
+                .centerCrop();
+        if (resolved != null && !resolved.equals(url)) {
+            builder = builder.error(requestManager
+                    .load(url)
+                    .apply(options)
+                    .centerCrop()
+                    .error(R.drawable.ic_image_placeholder));
+        }
+        return builder;
+    }
+
+    /**
+     * 地图 Marker 等直接取 Bitmap 的缩略图请求使用的选项。
+     */
+    public static RequestOptions thumbnailOptions() {
+        return THUMBNAIL_OPTIONS;
+    }
+
+    private static ShimmerDrawable placeholderFor(ImageView imageView) {
+        Object tag = imageView.getTag(R.id.tag_image_placeholder);
+        if (tag instanceof ShimmerDrawable) {
+            return (ShimmerDrawable) tag;
+        }
+        ShimmerDrawable drawable = new ShimmerDrawable();
+        drawable.setShimmer(PLACEHOLDER_SHIMMER);
+        imageView.setTag(R.id.tag_image_placeholder, drawable);
+        return drawable;
+    }
 }
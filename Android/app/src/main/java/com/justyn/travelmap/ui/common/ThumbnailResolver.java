@@ -0,0 +1,128 @@
+package com.justyn.travelmap.ui.common;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.text.TextUtils;
+import android.util.Log;
+import android.util.LruCache;
+import android.view.ViewGroup;
+import android.widget.ImageView;
+
+import androidx.annotation.Nullable;
+
+import com.justyn.travelmap.BuildConfig;
+import com.justyn.travelmap.R;
+
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 按目标 View 的像素宽度选择图片变体：把原图地址改写成服务端 {@code /img?src=...&w=...} 缩略图地址，
+ * 宽度向上取整到与服务端一致的档位，同一张图在不同列表里命中同一份缓存。
+ * <p>
+ * 缩略图档位（不超过 {@link #THUMBNAIL_MAX_WIDTH}）共享一个缓存键空间：同一张图已经按更大的缩略图档位请求过时
+ * （例如列表封面），地图 Marker 等更小的请求直接复用那个地址，由 Glide 从磁盘缓存读取后本地缩小，不再单独下载。
+ * <p>
+ * 同时统计解码后的 Bitmap 字节数，便于与服务端 {@code /api/img/stats} 的节省量对照。
+ */
+public final class ThumbnailResolver {
+
+    private static final String TAG = "ThumbnailResolver";
+    /** 与服务端 IMG_WIDTH_BUCKETS 保持一致。 */
+    private static final int[] WIDTH_BUCKETS = {64, 128, 256, 512, 1024};
+    /** 不超过该宽度的档位视为缩略图：按 RGB_565 解码，并在各处共享同一份缓存。 */
+    public static final int THUMBNAIL_MAX_WIDTH = 512;
+    private static final int LOG_EVERY = 50;
+    /** 记住最近请求过的原图及其最大缩略图档位。 */
+    private static final int SHARED_BUCKET_ENTRIES = 512;
+
+    private static final LruCache<String, Integer> sharedBuckets = new LruCache<>(SHARED_BUCKET_ENTRIES);
+
+    private static final AtomicLong resolvedCount = new AtomicLong();
+    private static final AtomicLong decodedCount = new AtomicLong();
+    private static final AtomicLong decodedBytes = new AtomicLong();
+
+    private ThumbnailResolver() {
+    }
+
+    /**
+     * 返回适合 {@code targetWidthPx} 的图片地址；地址为空、宽度未知或已经是缩略图地址时原样返回。
+     */
+    @Nullable
+    public static String resolve(@Nullable String url, int targetWidthPx) {
+        if (TextUtils.isEmpty(url) || targetWidthPx <= 0) {
+            return url;
+        }
+        if (!url.startsWith("http://") && !url.startsWith("https://") && !url.startsWith("/static/")) {
+            return url;
+        }
+        String prefix = BuildConfig.API_BASE_URL + "/img?";
+        if (url.startsWith(prefix)) {
+            return url;
+        }
+        resolvedCount.incrementAndGet();
+        int width = sharedWidth(url, snapWidth(targetWidthPx));
+        return prefix + "src=" + URLEncoder.encode(url, StandardCharsets.UTF_8) + "&w=" + width;
+    }
+
+    public static boolean isThumbnailWidth(int widthPx) {
+        return snapWidth(widthPx) <= THUMBNAIL_MAX_WIDTH;
+    }
+
+    /**
+     * 缩略图档位取该原图已请求过的最大缩略图档位，使不同尺寸的请求落到同一个地址上。
+     */
+    private static int sharedWidth(String url, int bucket) {
+        if (bucket > THUMBNAIL_MAX_WIDTH) {
+            return bucket;
+        }
+        synchronized (sharedBuckets) {
+            Integer known = sharedBuckets.get(url);
+            if (known != null && known >= bucket) {
+                return known;
+            }
+            sharedBuckets.put(url, bucket);
+            return bucket;
+        }
+    }
+
+    /**
+     * 目标宽度：已经布局过取实际宽度，否则取布局参数中的固定宽度，都没有时按屏幕宽度。
+     */
+    public static int targetWidth(ImageView view) {
+        if (view.getWidth() > 0) {
+            return view.getWidth();
+        }
+        ViewGroup.LayoutParams params = view.getLayoutParams();
+        if (params != null && params.width > 0) {
+            return params.width;
+        }
+        return view.getResources().getDisplayMetrics().widthPixels;
+    }
+
+    public static int markerImageSize(Context context) {
+        return context.getResources().getDimensionPixelSize(R.dimen.map_marker_image_size);
+    }
+
+    static int snapWidth(int widthPx) {
+        for (int bucket : WIDTH_BUCKETS) {
+            if (widthPx <= bucket) {
+                return bucket;
+            }
+        }
+        return WIDTH_BUCKETS[WIDTH_BUCKETS.length - 1];
+    }
+
+    public static void recordDecoded(@Nullable Bitmap bitmap) {
+        if (bitmap == null) {
+            return;
+        }
+        long count = decodedCount.incrementAndGet();
+        long bytes = decodedBytes.addAndGet(bitmap.getAllocationByteCount());
+        if (count % LOG_EVERY == 0) {
+            Log.i(TAG, "resolved=" + resolvedCount.get() + " decoded=" + count
+                    + " decodedBytes=" + bytes + " avg=" + (bytes / count));
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.justyn.travelmap.ui.common;
+
+import android.app.ActivityManager;
+import android.content.Context;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import com.bumptech.glide.GlideBuilder;
+import com.bumptech.glide.annotation.GlideModule;
+import com.bumptech.glide.load.DecodeFormat;
+import com.bumptech.glide.load.engine.bitmap_recycle.LruBitmapPool;
+import com.bumptech.glide.load.engine.cache.InternalCacheDiskCacheFactory;
+import com.bumptech.glide.load.engine.cache.LruResourceCache;
+import com.bumptech.glide.load.engine.cache.MemorySizeCalculator;
+import com.bumptech.glide.module.AppGlideModule;
+import com.bumptech.glide.request.RequestOptions;
+
+/**
+ * 全局 Glide 配置：按设备内存档位设置内存缓存、Bitmap 池与磁盘缓存大小，并注册 {@link ImageCacheStats}。
+ * <p>
+ * 内存档位取 {@link ActivityManager#getMemoryClass()}（单进程堆上限）：
+ * 低内存设备或堆 &lt; 192MB 为 LOW，&lt; 384MB 为 NORMAL，其余为 HIGH。LOW 档默认按 RGB_565 解码。
+ */
+@GlideModule
+public final class TravelGlideModule extends AppGlideModule {
+
+    private static final String TAG = "TravelGlideModule";
+    private static final String DISK_CACHE_DIR = "image_cache";
+    private static final long MB = 1024L * 1024L;
+
+    enum MemoryTier {
+        /** 内存缓存屏数、Bitmap 池屏数、磁盘缓存字节数。 */
+        LOW(1.5f, 2f, 64 * MB),
+        NORMAL(2f, 3f, 128 * MB),
+        HIGH(3f, 4f, 256 * MB);
+
+        final float memoryCacheScreens;
+        final float bitmapPoolScreens;
+        final long diskCacheBytes;
+
+        MemoryTier(float memoryCacheScreens, float bitmapPoolScreens, long diskCacheBytes) {
+            this.memoryCacheScreens = memoryCacheScreens;
+            this.bitmapPoolScreens = bitmapPoolScreens;
+            this.diskCacheBytes = diskCacheBytes;
+        }
+    }
+
+    @Override
+    public void applyOptions(@NonNull Context context, @NonNull GlideBuilder builder) {
+        MemoryTier tier = resolveTier(context);
+        MemorySizeCalculator calculator = new MemorySizeCalculator.Builder(context)
+                .setMemoryCacheScreens(tier.memoryCacheScreens)
+                .setBitmapPoolScreens(tier.bitmapPoolScreens)
+                .build();
+        builder.setMemoryCache(new LruResourceCache(calculator.getMemoryCacheSize()));
+        builder.setBitmapPool(new LruBitmapPool(calculator.getBitmapPoolSize()));
+        builder.setDiskCache(new InternalCacheDiskCacheFactory(context, DISK_CACHE_DIR, tier.diskCacheBytes));
+        if (tier == MemoryTier.LOW) {
+            builder.setDefaultRequestOptions(RequestOptions.formatOf(DecodeFormat.PREFER_RGB_565));
+        }
+        builder.addGlobalRequestListener(ImageCacheStats.getInstance());
+        Log.i(TAG, "tier=" + tier
+                + " memoryCache=" + calculator.getMemoryCacheSize() / MB + "MB"
+                + " bitmapPool=" + calculator.getBitmapPoolSize() / MB + "MB"
+                + " diskCache=" + tier.diskCacheBytes / MB + "MB");
+    }
+
+    @Override
+    public boolean isManifestParsingEnabled() {
+        return false;
+    }
+
+    static MemoryTier resolveTier(Context context) {
+        ActivityManager activityManager = context.getSystemService(ActivityManager.class);
+        if (activityManager == null || activityManager.isLowRamDevice()) {
+            return MemoryTier.LOW;
+        }
+        int memoryClass = activityManager.getMemoryClass();
+        if (memoryClass < 192) {
+            return MemoryTier.LOW;
+        }
+        return memoryClass < 384 ? MemoryTier.NORMAL : MemoryTier.HIGH;
+    }
+}
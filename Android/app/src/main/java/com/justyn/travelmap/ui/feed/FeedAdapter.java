@@ -1,5 +1,7 @@
 package com.justyn.travelmap.ui.feed;
 
+import android.os.SystemClock;
+import android.util.Log;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
@@ -7,136 +9,202 @@ import android.widget.ImageView;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.recyclerview.widget.AsyncListDiffer;
+import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.justyn.travelmap.R;
 import com.justyn.travelmap.model.FeedItem;
 import com.justyn.travelmap.ui.common.ImageLoader;
 
-import java.util.ArrayList;
 import java.util.List;
-import java.util.Locale;
 
 public class FeedAdapter extends RecyclerView.Adapter<FeedAdapter.FeedViewHolder> {
 
+    private static final String TAG = "FeedAdapter";
+
+    /** 卡片的 view type；共享 {@link FeedViewPool} 时各列表必须使用同一个值。 */
+    public static final int VIEW_TYPE_CARD = 0;
+
+    /**
+     * 同一 id 视为同一条目，内容比较依赖 {@link FeedItem#equals(Object)}。
+     */
+    public static final DiffUtil.ItemCallback<FeedItem> DIFF_CALLBACK = new DiffUtil.ItemCallback<FeedItem>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull FeedItem oldItem, @NonNull FeedItem newItem) {
+            return oldItem.getId() == newItem.getId();
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull FeedItem oldItem, @NonNull FeedItem newItem) {
+            return oldItem.equals(newItem);
+        }
+    };
+
     public interface OnItemClickListener {
         void onFeedItemClicked(@NonNull FeedItem item);
     }
 
+    /**
+     * 卡片上的收藏标记查询，需在主线程快速返回（本地集合查找，不访问网络）。
+     */
+    public interface FavoriteLookup {
+        boolean isFavorite(@NonNull FeedItem item);
+    }
+
+    /**
+     * 每次在 {@link #onCreateViewHolder} 中 inflate 卡片后回调耗时，用于统计各列表的 inflate 开销。
+     */
+    public interface InflateListener {
+        void onInflated(long elapsedNanos);
+    }
+
     private final OnItemClickListener listener;
-    private List<FeedItem> items = new ArrayList<>();
+    private final AsyncListDiffer<FeedItem> differ = new AsyncListDiffer<>(this, DIFF_CALLBACK);
+    @Nullable
+    private FavoriteLookup favoriteLookup;
+    @Nullable
+    private InflateListener inflateListener;
 
     public FeedAdapter(OnItemClickListener listener) {
         this.listener = listener;
+        setHasStableIds(true);
     }
 
-    public void submitList(List<FeedItem> newItems) {
-        if (newItems == null) {
-            this.items = new ArrayList<>();
-        } else {
-            this.items = new ArrayList<>(newItems);
-        }
-        notifyDataSetChanged();
+    public void setFavoriteLookup(@Nullable FavoriteLookup favoriteLookup) {
+        this.favoriteLookup = favoriteLookup;
+    }
+
+    public void setInflateListener(@Nullable InflateListener inflateListener) {
+        this.inflateListener = inflateListener;
+    }
+
+    /**
+     * 在后台线程与当前列表做 diff，完成后只刷新有变化的条目；连续提交时以最后一次为准。
+     */
+    public void submitList(@Nullable List<FeedItem> newItems) {
+        long startNanos = SystemClock.elapsedRealtimeNanos();
+        int oldSize = differ.getCurrentList().size();
+        differ.submitList(newItems, () -> {
+            if (Log.isLoggable(TAG, Log.DEBUG)) {
+                long elapsedUs = (SystemClock.elapsedRealtimeNanos() - startNanos) / 1_000L;
+                Log.d(TAG, "diff " + oldSize + " -> " + differ.getCurrentList().size()
+                        + " items in " + elapsedUs + "us");
+            }
+        });
+    }
+
+    public List<FeedItem> getCurrentList() {
+        return differ.getCurrentList();
     }
 
     @NonNull
     @Override
     public FeedViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        long startNanos = SystemClock.elapsedRealtimeNanos();
         View view = LayoutInflater.from(parent.getContext()).inflate(R.layout.item_feed_card, parent, false);
-        return new FeedViewHolder(view);
+        FeedViewHolder holder = new FeedViewHolder(view);
+        if (inflateListener != null) {
+            inflateListener.onInflated(SystemClock.elapsedRealtimeNanos() - startNanos);
+        }
+        return holder;
     }
 
     @Override
     public void onBindViewHolder(@NonNull FeedViewHolder holder, int position) {
-        FeedItem item = items.get(position);
-        holder.bind(item);
+        holder.bind(differ.getCurrentList().get(position), favoriteLookup);
+    }
+
+    @Override
+    public int getItemViewType(int position) {
+        return VIEW_TYPE_CARD;
+    }
+
+    @Override
+    public long getItemId(int position) {
+        return differ.getCurrentList().get(position).getId();
     }
 
     @Override
     public int getItemCount() {
-        return items.size();
+        return differ.getCurrentList().size();
     }
 
-    class FeedViewHolder extends RecyclerView.ViewHolder {
+    /**
+     * 不持有外部 adapter 的引用，从共享缓存池取出后可以被任一 {@link FeedAdapter} 绑定；
+     * 点击监听只在创建时设置一次，点击时按当前绑定的 adapter 和位置取条目。
+     */
+    static class FeedViewHolder extends RecyclerView.ViewHolder implements FeedCardBinder.Card {
         private final ImageView ivCover;
         private final TextView tvTitle;
         private final TextView tvDesc;
-        private final TextView tvAddress;
-        private final TextView tvLatLng;
-        private final TextView tvStock;
-        private final TextView tvVisitTime;
-        private final TextView tvRating;
-        private final TextView tvPrice;
+        /** 按 {@link FeedCardBinder} 的 SLOT_* 下标排列的可选文本。 */
+        private final TextView[] optionalTexts = new TextView[FeedCardBinder.SLOT_COUNT];
+        private final ImageView ivFavorite;
+        private final String stockFormat;
+        private final String visitTimeFormat;
 
         FeedViewHolder(@NonNull View itemView) {
             super(itemView);
             ivCover = itemView.findViewById(R.id.ivCover);
             tvTitle = itemView.findViewById(R.id.tvTitle);
             tvDesc = itemView.findViewById(R.id.tvDesc);
-            tvAddress = itemView.findViewById(R.id.tvAddress);
-            tvLatLng = itemView.findViewById(R.id.tvLatLng);
-            tvStock = itemView.findViewById(R.id.tvStock);
-            tvVisitTime = itemView.findViewById(R.id.tvVisitTime);
-            tvRating = itemView.findViewById(R.id.tvRating);
-            tvPrice = itemView.findViewById(R.id.tvPrice);
+            optionalTexts[FeedCardBinder.SLOT_ADDRESS] = itemView.findViewById(R.id.tvAddress);
+            optionalTexts[FeedCardBinder.SLOT_LAT_LNG] = itemView.findViewById(R.id.tvLatLng);
+            optionalTexts[FeedCardBinder.SLOT_STOCK] = itemView.findViewById(R.id.tvStock);
+            optionalTexts[FeedCardBinder.SLOT_VISIT_TIME] = itemView.findViewById(R.id.tvVisitTime);
+            optionalTexts[FeedCardBinder.SLOT_RATING] = itemView.findViewById(R.id.tvRating);
+            optionalTexts[FeedCardBinder.SLOT_PRICE] = itemView.findViewById(R.id.tvPrice);
+            ivFavorite = itemView.findViewById(R.id.ivFavorite);
+            stockFormat = itemView.getContext().getString(R.string.feed_stock_label);
+            visitTimeFormat = itemView.getContext().getString(R.string.feed_visit_time_label);
+            itemView.setOnClickListener(v -> {
+                int position = getBindingAdapterPosition();
+                if (position == RecyclerView.NO_POSITION || !(getBindingAdapter() instanceof FeedAdapter)) {
+                    return;
+                }
+                FeedAdapter adapter = (FeedAdapter) getBindingAdapter();
+                if (adapter.listener != null) {
+                    adapter.listener.onFeedItemClicked(adapter.getCurrentList().get(position));
+                }
+            });
         }
 
-        void bind(FeedItem item) {
-            tvTitle.setText(item.getTitle());
-            String description = item.getDescription();
-            tvDesc.setText(description != null ? description : "");
-            if (item.getAddress() != null && !item.getAddress().isEmpty()) {
-                tvAddress.setVisibility(View.VISIBLE);
-                tvAddress.setText(item.getAddress());
-            } else if (item.getExtraInfo() != null && !item.getExtraInfo().isEmpty()) {
-                tvAddress.setVisibility(View.VISIBLE);
-                tvAddress.setText(item.getExtraInfo());
-            } else {
-                tvAddress.setVisibility(View.GONE);
-            }
+        void bind(FeedItem item, @Nullable FavoriteLookup favoriteLookup) {
+            FeedCardBinder.bind(this, item, stockFormat, visitTimeFormat,
+                    favoriteLookup != null && favoriteLookup.isFavorite(item));
+        }
 
-            Double lat = item.getLatitude();
-            Double lng = item.getLongitude();
-            if (lat != null && lng != null) {
-                tvLatLng.setVisibility(View.VISIBLE);
-                tvLatLng.setText(String.format(Locale.getDefault(), "%.4f, %.4f", lat, lng));
-            } else {
-                tvLatLng.setVisibility(View.GONE);
-            }
-            Integer stock = item.getStock();
-            if (stock != null && stock >= 0) {
-                tvStock.setVisibility(View.VISIBLE);
-                tvStock.setText(itemView.getContext().getString(R.string.feed_stock_label, stock));
-            } else {
-                tvStock.setVisibility(View.GONE);
-            }
-            if (item.getVisitTime() != null && !item.getVisitTime().isEmpty()) {
-                tvVisitTime.setVisibility(View.VISIBLE);
-                tvVisitTime.setText(
-                        itemView.getContext().getString(R.string.feed_visit_time_label, item.getVisitTime()));
-            } else {
-                tvVisitTime.setVisibility(View.GONE);
-            }
-            if (item.getRatingLabel() != null && !item.getRatingLabel().isEmpty()) {
-                tvRating.setVisibility(View.VISIBLE);
-                tvRating.setText(item.getRatingLabel());
-            } else {
-                tvRating.setVisibility(View.GONE);
-            }
-            String priceLabel = item.getPriceLabel();
-            if (priceLabel == null || priceLabel.isEmpty()) {
-                tvPrice.setVisibility(View.GONE);
+        @Override
+        public void setTitle(String title) {
+            tvTitle.setText(title);
+        }
+
+        @Override
+        public void setDescription(String description) {
+            tvDesc.setText(description);
+        }
+
+        @Override
+        public void setOptionalText(int slot, @Nullable String text) {
+            TextView view = optionalTexts[slot];
+            if (text == null || text.isEmpty()) {
+                view.setVisibility(View.GONE);
             } else {
-                tvPrice.setVisibility(View.VISIBLE);
-                tvPrice.setText(priceLabel);
+                view.setVisibility(View.VISIBLE);
+                view.setText(text);
             }
-            ImageLoader.load(ivCover, item.getImageUrl());
-            itemView.setOnClickListener(v -> {
-                if (listener != null) {
-                    listener.onFeedItemClicked(item);
-                }
-            });
         }
 
+        @Override
+        public void setFavorite(boolean favorite) {
+            ivFavorite.setVisibility(favorite ? View.VISIBLE : View.GONE);
+        }
+
+        @Override
+        public void setImage(@Nullable String imageUrl) {
+            ImageLoader.load(ivCover, imageUrl);
+        }
     }
 }
@@ -0,0 +1,52 @@
+package com.justyn.travelmap.ui.feed;
+
+import androidx.annotation.Nullable;
+
+import com.justyn.travelmap.model.FeedItem;
+
+/**
+ * 卡片绑定时的取值逻辑：只读 {@link FeedItem} 上预先算好或已缓存的文本，写入 {@link Card}。
+ * 不依赖 View，JVM 单测可以接入假的 Card 统计每次绑定的分配量。
+ */
+final class FeedCardBinder {
+
+    static final int SLOT_ADDRESS = 0;
+    static final int SLOT_LAT_LNG = 1;
+    static final int SLOT_STOCK = 2;
+    static final int SLOT_VISIT_TIME = 3;
+    static final int SLOT_RATING = 4;
+    static final int SLOT_PRICE = 5;
+    static final int SLOT_COUNT = 6;
+
+    /**
+     * 卡片上的各个视图；可选文本为 null 或空串时隐藏对应视图。
+     */
+    interface Card {
+        void setTitle(String title);
+
+        void setDescription(String description);
+
+        void setOptionalText(int slot, @Nullable String text);
+
+        void setFavorite(boolean favorite);
+
+        void setImage(@Nullable String imageUrl);
+    }
+
+    private FeedCardBinder() {
+    }
+
+    static void bind(Card card, FeedItem item, String stockFormat, String visitTimeFormat, boolean favorite) {
+        card.setTitle(item.getTitle());
+        String description = item.getDescription();
+        card.setDescription(description != null ? description : "");
+        card.setOptionalText(SLOT_ADDRESS, item.getAddressLabel());
+        card.setOptionalText(SLOT_LAT_LNG, item.getLatLngLabel());
+        card.setOptionalText(SLOT_STOCK, item.getStockLabel(stockFormat));
+        card.setOptionalText(SLOT_VISIT_TIME, item.getVisitTimeLabel(visitTimeFormat));
+        card.setOptionalText(SLOT_RATING, item.getRatingLabel());
+        card.setOptionalText(SLOT_PRICE, item.getPriceLabel());
+        card.setFavorite(favorite);
+        card.setImage(item.getImageUrl());
+    }
+}
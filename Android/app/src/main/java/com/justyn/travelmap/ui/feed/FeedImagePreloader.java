@@ -0,0 +1,202 @@
+package com.justyn.travelmap.ui.feed;
+
+import android.content.Context;
+import android.graphics.drawable.Drawable;
+import android.net.ConnectivityManager;
+import android.net.Network;
+import android.net.NetworkCapabilities;
+import android.text.TextUtils;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.bumptech.glide.RequestManager;
+import com.bumptech.glide.request.target.CustomTarget;
+import com.bumptech.glide.request.transition.Transition;
+import com.justyn.travelmap.R;
+import com.justyn.travelmap.model.FeedItem;
+import com.justyn.travelmap.ui.common.ImageLoader;
+
+import java.util.List;
+
+/**
+ * 按滚动方向预加载即将出现的 {@code maxPreload} 张卡片封面。
+ * <p>
+ * 请求与 {@link ImageLoader#load} 完全一致（同一地址、解码格式和封面尺寸），卡片绑定时直接命中内存缓存，
+ * 或并入仍在进行中的同一个加载。预加载目标固定 {@code maxPreload} 个循环使用：
+ * 目标被复用、对应行已滚出预加载范围或滚动方向反转时取消原请求。按流量计费的网络下不预加载。
+ * 只能在主线程使用。
+ */
+public final class FeedImagePreloader extends RecyclerView.OnScrollListener {
+
+    public static final int DEFAULT_MAX_PRELOAD = 6;
+
+    private final RequestManager requestManager;
+    private final FeedAdapter adapter;
+    private final ConnectivityManager connectivityManager;
+    private final PreloadTarget[] targets;
+    private final int coverWidth;
+    private final int coverHeight;
+    private int nextTarget;
+    /** 已提交预加载的范围 [preloadedStart, preloadedEnd)，避免同一行重复请求。 */
+    private int preloadedStart = -1;
+    private int preloadedEnd = -1;
+    private boolean scrollingDown = true;
+    private volatile boolean metered;
+    @Nullable
+    private ConnectivityManager.NetworkCallback networkCallback;
+
+    public FeedImagePreloader(@NonNull Context context, @NonNull RequestManager requestManager,
+                              @NonNull FeedAdapter adapter, int maxPreload) {
+        this.requestManager = requestManager;
+        this.adapter = adapter;
+        this.connectivityManager = context.getSystemService(ConnectivityManager.class);
+        this.coverWidth = context.getResources().getDimensionPixelSize(R.dimen.feed_cover_width);
+        this.coverHeight = context.getResources().getDimensionPixelSize(R.dimen.feed_cover_height);
+        this.targets = new PreloadTarget[Math.max(1, maxPreload)];
+        for (int i = 0; i < targets.length; i++) {
+            targets[i] = new PreloadTarget(coverWidth, coverHeight);
+        }
+    }
+
+    public void attach(@NonNull RecyclerView recyclerView) {
+        recyclerView.addOnScrollListener(this);
+        if (connectivityManager != null && networkCallback == null) {
+            metered = connectivityManager.isActiveNetworkMetered();
+            networkCallback = new ConnectivityManager.NetworkCallback() {
+                @Override
+                public void onCapabilitiesChanged(@NonNull Network network, @NonNull NetworkCapabilities capabilities) {
+                    metered = !capabilities.hasCapability(NetworkCapabilities.NET_CAPABILITY_NOT_METERED);
+                }
+            };
+            connectivityManager.registerDefaultNetworkCallback(networkCallback);
+        }
+    }
+
+    public void detach(@NonNull RecyclerView recyclerView) {
+        recyclerView.removeOnScrollListener(this);
+        if (connectivityManager != null && networkCallback != null) {
+            connectivityManager.unregisterNetworkCallback(networkCallback);
+        }
+        networkCallback = null;
+        cancelAll();
+    }
+
+    @Override
+    public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+        if (dy == 0) {
+            return;
+        }
+        if (!(recyclerView.getLayoutManager() instanceof LinearLayoutManager)) {
+            return;
+        }
+        LinearLayoutManager layoutManager = (LinearLayoutManager) recyclerView.getLayoutManager();
+        int first = layoutManager.findFirstVisibleItemPosition();
+        int last = layoutManager.findLastVisibleItemPosition();
+        if (first == RecyclerView.NO_POSITION || last == RecyclerView.NO_POSITION) {
+            return;
+        }
+        boolean down = dy > 0;
+        if (down != scrollingDown) {
+            scrollingDown = down;
+            cancelAll();
+        }
+        if (metered) {
+            cancelAll();
+            return;
+        }
+        cancelScrolledPast(first, last);
+        List<FeedItem> items = adapter.getCurrentList();
+        if (down) {
+            preload(items, last + 1, Math.min(items.size(), last + 1 + targets.length));
+        } else {
+            preload(items, Math.max(0, first - targets.length), first);
+        }
+    }
+
+    /**
+     * 提交 [start, end) 中尚未预加载过的行；向上滚动时从靠近屏幕的一端开始。
+     */
+    private void preload(List<FeedItem> items, int start, int end) {
+        if (start >= end) {
+            return;
+        }
+        boolean fresh = preloadedStart < 0;
+        if (scrollingDown) {
+            int from = fresh ? start : Math.max(start, Math.min(end, preloadedEnd));
+            for (int position = from; position < end; position++) {
+                preloadAt(items, position);
+            }
+        } else {
+            int to = fresh ? end : Math.min(end, Math.max(start, preloadedStart));
+            for (int position = to - 1; position >= start; position--) {
+                preloadAt(items, position);
+            }
+        }
+        preloadedStart = start;
+        preloadedEnd = end;
+    }
+
+    private void preloadAt(List<FeedItem> items, int position) {
+        String url = items.get(position).getImageUrl();
+        if (TextUtils.isEmpty(url)) {
+            return;
+        }
+        PreloadTarget target = targets[nextTarget];
+        nextTarget = (nextTarget + 1) % targets.length;
+        target.position = position;
+        // 目标上还有未完成的预加载时，into 会先取消它
+        ImageLoader.request(requestManager, url, coverWidth).into(target);
+    }
+
+    /**
+     * 已经出现在屏幕上或滚到身后的行不再需要预加载：上屏的行由卡片自己的请求接管。
+     */
+    private void cancelScrolledPast(int first, int last) {
+        for (PreloadTarget target : targets) {
+            int position = target.position;
+            if (position == RecyclerView.NO_POSITION) {
+                continue;
+            }
+            if (scrollingDown ? position <= last : position >= first) {
+                clear(target);
+            }
+        }
+    }
+
+    /**
+     * 取消所有预加载；列表内容被整体替换或头部被淘汰（行号整体移动）时调用。
+     */
+    public void cancelAll() {
+        for (PreloadTarget target : targets) {
+            if (target.position != RecyclerView.NO_POSITION) {
+                clear(target);
+            }
+        }
+        preloadedStart = -1;
+        preloadedEnd = -1;
+    }
+
+    private void clear(PreloadTarget target) {
+        target.position = RecyclerView.NO_POSITION;
+        requestManager.clear(target);
+    }
+
+    private static final class PreloadTarget extends CustomTarget<Drawable> {
+        int position = RecyclerView.NO_POSITION;
+
+        PreloadTarget(int width, int height) {
+            super(width, height);
+        }
+
+        @Override
+        public void onResourceReady(@NonNull Drawable resource, @Nullable Transition<? super Drawable> transition) {
+        }
+
+        @Override
+        public void onLoadCleared(@Nullable Drawable placeholder) {
+        }
+    }
+}
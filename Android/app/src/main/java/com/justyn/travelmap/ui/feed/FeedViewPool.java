@@ -0,0 +1,150 @@
+package com.justyn.travelmap.ui.feed;
+
+import android.os.Looper;
+import android.os.MessageQueue;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.recyclerview.widget.RecyclerView;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 首页 / 商城 / 预订三个列表共享的卡片缓存池，由宿主 Activity 持有。
+ * <p>
+ * 列表挂载后，利用主线程空闲时间逐个预先 inflate 卡片把缓存池补到预热数量（每次空闲只做一个，不阻塞交互），
+ * 切换到其它列表时首屏可以直接复用。同时按列表统计 inflate 次数与耗时，预热的卡片记在 {@link #TAG_PREWARM} 下。
+ * 只能在主线程使用。
+ */
+public final class FeedViewPool {
+
+    /**
+     * 由持有缓存池的 Activity 实现，Fragment 通过它取得共享实例。
+     */
+    public interface Provider {
+        @NonNull
+        FeedViewPool getFeedViewPool();
+    }
+
+    public static final int DEFAULT_WARM_POOL_SIZE = 6;
+    public static final String TAG_PREWARM = "prewarm";
+    private static final String TAG = "FeedViewPool";
+    /** RecycledViewPool 每种 view type 的默认上限。 */
+    private static final int DEFAULT_MAX_RECYCLED = 5;
+
+    private final RecyclerView.RecycledViewPool pool = new RecyclerView.RecycledViewPool();
+    private final Map<String, InflateStats> stats = new LinkedHashMap<>();
+    private final int warmPoolSize;
+    @Nullable
+    private MessageQueue.IdleHandler prewarmHandler;
+    @Nullable
+    private RecyclerView prewarmParent;
+
+    public FeedViewPool() {
+        this(DEFAULT_WARM_POOL_SIZE);
+    }
+
+    public FeedViewPool(int warmPoolSize) {
+        this.warmPoolSize = Math.max(0, warmPoolSize);
+        // 三个列表共用，上限至少要能放下预热的数量，否则多出来的会被直接丢弃
+        pool.setMaxRecycledViews(FeedAdapter.VIEW_TYPE_CARD,
+                Math.max(DEFAULT_MAX_RECYCLED, this.warmPoolSize * 2));
+    }
+
+    /**
+     * 让列表使用共享缓存池并记录 inflate 统计；需在 {@link RecyclerView#setAdapter} 之前调用。
+     */
+    public void attach(@NonNull RecyclerView recyclerView, @NonNull FeedAdapter adapter, @NonNull String tag) {
+        recyclerView.setRecycledViewPool(pool);
+        InflateStats tabStats = statsFor(tag);
+        adapter.setInflateListener(tabStats::record);
+        if (prewarmHandler == null) {
+            schedulePrewarm(recyclerView, adapter, tabStats);
+        }
+    }
+
+    /**
+     * 列表销毁时调用；如果预热正借用它作为父布局，则停止预热。
+     */
+    public void detach(@NonNull RecyclerView recyclerView) {
+        if (recyclerView == prewarmParent) {
+            cancelPrewarm();
+        }
+    }
+
+    public void clear() {
+        cancelPrewarm();
+        pool.clear();
+    }
+
+    public void logStats() {
+        StringBuilder builder = new StringBuilder("inflate stats:");
+        for (Map.Entry<String, InflateStats> entry : stats.entrySet()) {
+            InflateStats value = entry.getValue();
+            builder.append(' ').append(entry.getKey())
+                    .append("={count=").append(value.count)
+                    .append(", total=").append(value.totalNanos / 1_000_000L).append("ms}");
+        }
+        builder.append(" pooled=").append(pool.getRecycledViewCount(FeedAdapter.VIEW_TYPE_CARD));
+        Log.i(TAG, builder.toString());
+    }
+
+    /**
+     * 缓存池不足 {@code warmPoolSize} 时在空闲时补足；每个列表挂载时都会检查一次。
+     */
+    private void schedulePrewarm(RecyclerView parent, FeedAdapter adapter, InflateStats tabStats) {
+        if (warmPoolSize == 0) {
+            return;
+        }
+        prewarmParent = parent;
+        InflateStats prewarmStats = statsFor(TAG_PREWARM);
+        prewarmHandler = () -> {
+            if (prewarmParent == null || pool.getRecycledViewCount(FeedAdapter.VIEW_TYPE_CARD) >= warmPoolSize) {
+                finishPrewarm();
+                return false;
+            }
+            // 预热的卡片记在 prewarm 下，不算进借用的列表
+            adapter.setInflateListener(prewarmStats::record);
+            RecyclerView.ViewHolder holder = adapter.createViewHolder(prewarmParent, FeedAdapter.VIEW_TYPE_CARD);
+            adapter.setInflateListener(tabStats::record);
+            pool.putRecycledView(holder);
+            return true;
+        };
+        Looper.myQueue().addIdleHandler(prewarmHandler);
+    }
+
+    private void finishPrewarm() {
+        prewarmHandler = null;
+        prewarmParent = null;
+        logStats();
+    }
+
+    private void cancelPrewarm() {
+        if (prewarmHandler != null) {
+            Looper.myQueue().removeIdleHandler(prewarmHandler);
+        }
+        prewarmHandler = null;
+        prewarmParent = null;
+    }
+
+    private InflateStats statsFor(String tag) {
+        InflateStats value = stats.get(tag);
+        if (value == null) {
+            value = new InflateStats();
+            stats.put(tag, value);
+        }
+        return value;
+    }
+
+    private static final class InflateStats {
+        int count;
+        long totalNanos;
+
+        void record(long elapsedNanos) {
+            count++;
+            totalNanos += elapsedNanos;
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.justyn.travelmap.ui.feed;
+
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.justyn.travelmap.data.remote.FeedPage;
+import com.justyn.travelmap.data.remote.PagedFeedLoader;
+import com.justyn.travelmap.data.remote.ScenicRegion;
+import com.justyn.travelmap.data.remote.TravelRepository;
+import com.justyn.travelmap.model.FeedItem;
+import com.justyn.travelmap.ui.map.GridClusterer;
+import com.justyn.travelmap.ui.map.SpatialIndex;
+
+import org.json.JSONException;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 首页“附近”排序的分页来源：按与 {@code origin} 的距离由近到远翻页，游标是已返回的条数。
+ * <p>
+ * {@link #NEARBY_RADIUS_METERS} 米内、前 {@link #SERVER_MAX_RESULTS} 条走服务端附近查询
+ * （{@link TravelRepository#fetchNearbyScenics}，每页取最近的 {@code offset + limit} 个再截掉已返回的部分）。
+ * 半径内的景点取完、超过服务端上限或服务端没有该接口时，改为拉取全部景点落点
+ * （{@link TravelRepository#fetchScenicMapPoints()}，走条件 GET 缓存）并建 {@link SpatialIndex} 继续翻页，
+ * 两边都按距离排序，前面的页不会变；落点列表没变时复用上次的索引。加载方法会阻塞，需在后台线程调用。
+ */
+public final class NearbyScenicPages implements PagedFeedLoader.PageSource {
+
+    private static final String TAG = "NearbyScenicPages";
+    private static final int NEARBY_RADIUS_METERS = 50_000;
+    /** 服务端附近查询单次最多返回的条数。 */
+    private static final int SERVER_MAX_RESULTS = 100;
+
+    /** 景点坐标读取：没有坐标的景点不参与聚合与附近排序。 */
+    public static final GridClusterer.PositionReader<FeedItem> SCENIC_POSITION = new GridClusterer.PositionReader<FeedItem>() {
+        @Override
+        public double latitude(@NonNull FeedItem item) {
+            return item.getLatitude() != null ? item.getLatitude() : Double.NaN;
+        }
+
+        @Override
+        public double longitude(@NonNull FeedItem item) {
+            return item.getLongitude() != null ? item.getLongitude() : Double.NaN;
+        }
+    };
+
+    private static final Object INDEX_LOCK = new Object();
+    @Nullable
+    private static List<FeedItem> indexedPoints;
+    @Nullable
+    private static SpatialIndex<FeedItem> cachedIndex;
+
+    private final TravelRepository repository;
+    private final double latitude;
+    private final double longitude;
+    @Nullable
+    private volatile SpatialIndex<FeedItem> index;
+
+    public NearbyScenicPages(@NonNull TravelRepository repository, double latitude, double longitude) {
+        this.repository = repository;
+        this.latitude = latitude;
+        this.longitude = longitude;
+    }
+
+    @Override
+    public FeedPage load(@Nullable String cursor, int limit) throws IOException, JSONException {
+        int offset = 0;
+        if (cursor != null) {
+            try {
+                offset = Integer.parseInt(cursor);
+            } catch (NumberFormatException e) {
+                throw new IOException("分页游标无效：" + cursor);
+            }
+        }
+        // 第一页重新走服务端；之后一旦切到本地索引就一直用它
+        SpatialIndex<FeedItem> current = cursor == null ? null : index;
+        if (current == null && offset + limit <= SERVER_MAX_RESULTS) {
+            FeedPage page = loadFromServer(offset, limit);
+            if (page != null) {
+                return page;
+            }
+        }
+        if (current == null) {
+            current = indexFor(repository.fetchScenicMapPoints());
+            index = current;
+        }
+        long startNanos = SystemClock.elapsedRealtimeNanos();
+        List<FeedItem> nearest = current.nearest(latitude, longitude, offset + limit);
+        long elapsedMicros = (SystemClock.elapsedRealtimeNanos() - startNanos) / 1_000L;
+        Log.d(TAG, "nearest k=" + (offset + limit) + " of " + current.size() + " in " + elapsedMicros + "us");
+        List<FeedItem> page = new ArrayList<>(nearest.subList(Math.min(offset, nearest.size()), nearest.size()));
+        int end = offset + limit;
+        return new FeedPage(page, end < current.size() ? String.valueOf(end) : null);
+    }
+
+    /**
+     * 半径内凑不满这一页（或接口不可用）时返回 null，由本地索引接着排。
+     */
+    @Nullable
+    private FeedPage loadFromServer(int offset, int limit) throws JSONException {
+        int end = offset + limit;
+        ScenicRegion region;
+        long startNanos = SystemClock.elapsedRealtimeNanos();
+        try {
+            region = repository.fetchNearbyScenics(latitude, longitude, NEARBY_RADIUS_METERS, end);
+        } catch (IOException e) {
+            Log.w(TAG, "nearby endpoint failed, falling back to local index", e);
+            return null;
+        }
+        List<FeedItem> nearest = region.getItems();
+        Log.d(TAG, "server nearby k=" + end + " returned=" + nearest.size() + " truncated=" + region.isTruncated()
+                + " in " + (SystemClock.elapsedRealtimeNanos() - startNanos) / 1_000_000L + "ms");
+        if (nearest.size() < end) {
+            return null;
+        }
+        List<FeedItem> page = new ArrayList<>(nearest.subList(offset, end));
+        return new FeedPage(page, String.valueOf(end));
+    }
+
+    private static SpatialIndex<FeedItem> indexFor(List<FeedItem> points) {
+        synchronized (INDEX_LOCK) {
+            if (points != indexedPoints || cachedIndex == null) {
+                long startNanos = SystemClock.elapsedRealtimeNanos();
+                cachedIndex = new SpatialIndex<>(points, SCENIC_POSITION);
+                indexedPoints = points;
+                Log.i(TAG, "index built: points=" + cachedIndex.size() + " elapsed="
+                        + (SystemClock.elapsedRealtimeNanos() - startNanos) / 1_000_000L + "ms");
+            }
+            return cachedIndex;
+        }
+    }
+}
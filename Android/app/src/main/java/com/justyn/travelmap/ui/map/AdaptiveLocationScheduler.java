@@ -0,0 +1,212 @@
+package com.justyn.travelmap.ui.map;
+
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.amap.api.location.AMapLocation;
+import com.amap.api.location.AMapLocationClient;
+import com.amap.api.location.AMapLocationClientOption;
+import com.amap.api.location.AMapLocationListener;
+
+/**
+ * 按用户是否在移动、地图页是否可见调整定位频率与模式：
+ * <ul>
+ *     <li>可见且在移动：高精度模式，{@link #BASE_INTERVAL_MS} 一次；</li>
+ *     <li>连续 {@link #STATIONARY_FIXES} 次定位都在原地：间隔逐次翻倍，最长 {@link #MAX_STATIONARY_INTERVAL_MS}；</li>
+ *     <li>地图页被隐藏（切到其它 Tab）：低功耗模式，{@link #HIDDEN_INTERVAL_MS} 一次；</li>
+ *     <li>再次检测到移动或页面重新可见时立即回到高精度、基础间隔。</li>
+ * </ul>
+ * 每分钟输出一次定位次数与本分钟内处于高精度模式的时长（tag {@value #TAG}）。只能在主线程使用。
+ */
+public final class AdaptiveLocationScheduler implements AMapLocationListener {
+
+    /**
+     * 定位间隔变化时回调，用于同步地图蓝点的刷新间隔。
+     */
+    public interface IntervalListener {
+        void onIntervalChanged(long intervalMs);
+    }
+
+    private static final String TAG = "LocationScheduler";
+    public static final long BASE_INTERVAL_MS = 10_000L;
+    private static final long MAX_STATIONARY_INTERVAL_MS = 60_000L;
+    private static final long HIDDEN_INTERVAL_MS = 5 * 60_000L;
+    /** 连续多少次原地定位后开始放宽间隔。 */
+    private static final int STATIONARY_FIXES = 3;
+    /** 两次定位相距小于该距离（或定位精度，取较大者）且速度很低时视为原地。 */
+    private static final double STATIONARY_METERS = 25d;
+    private static final float STATIONARY_SPEED_MPS = 0.5f;
+    private static final long REPORT_WINDOW_MS = 60_000L;
+
+    private final AMapLocationClient client;
+    private final AMapLocationListener delegate;
+    @Nullable
+    private final IntervalListener intervalListener;
+    private final AMapLocationClientOption option = new AMapLocationClientOption();
+
+    private boolean started;
+    private boolean visible = true;
+    private long intervalMs = BASE_INTERVAL_MS;
+    private AMapLocationClientOption.AMapLocationMode mode = AMapLocationClientOption.AMapLocationMode.Hight_Accuracy;
+    @Nullable
+    private AMapLocation lastFix;
+    private int stationaryCount;
+
+    private long windowStartMs;
+    private int windowFixes;
+    private long highAccuracyMs;
+    /** 当前这段高精度模式的起点；不在高精度模式或未启动时为 0。 */
+    private long highAccuracySinceMs;
+
+    public AdaptiveLocationScheduler(@NonNull AMapLocationClient client, @NonNull AMapLocationListener delegate,
+                                     @Nullable IntervalListener intervalListener) {
+        this.client = client;
+        this.delegate = delegate;
+        this.intervalListener = intervalListener;
+        option.setNeedAddress(false);
+        option.setOnceLocation(false);
+        applyOption();
+        client.setLocationListener(this);
+    }
+
+    public void start() {
+        if (started) {
+            return;
+        }
+        started = true;
+        windowStartMs = SystemClock.elapsedRealtime();
+        windowFixes = 0;
+        highAccuracyMs = 0;
+        markHighAccuracy();
+        client.startLocation();
+    }
+
+    public void stop() {
+        if (!started) {
+            return;
+        }
+        client.stopLocation();
+        report(SystemClock.elapsedRealtime());
+        started = false;
+        highAccuracySinceMs = 0;
+    }
+
+    /**
+     * 地图页显示 / 隐藏：隐藏时降到低功耗模式，显示时立即回到高精度并重新判断是否静止。
+     */
+    public void setVisible(boolean visible) {
+        if (this.visible == visible) {
+            return;
+        }
+        this.visible = visible;
+        stationaryCount = 0;
+        reschedule(visible ? BASE_INTERVAL_MS : HIDDEN_INTERVAL_MS);
+    }
+
+    public long getIntervalMs() {
+        return intervalMs;
+    }
+
+    @Override
+    public void onLocationChanged(AMapLocation location) {
+        if (location != null && location.getErrorCode() == 0) {
+            onFix(location);
+        }
+        delegate.onLocationChanged(location);
+    }
+
+    private void onFix(AMapLocation location) {
+        long now = SystemClock.elapsedRealtime();
+        windowFixes++;
+        if (now - windowStartMs >= REPORT_WINDOW_MS) {
+            report(now);
+        }
+        AMapLocation previous = lastFix;
+        lastFix = location;
+        if (previous == null || !visible) {
+            return;
+        }
+        if (isStationary(previous, location)) {
+            stationaryCount++;
+            if (stationaryCount >= STATIONARY_FIXES && intervalMs < MAX_STATIONARY_INTERVAL_MS) {
+                reschedule(Math.min(MAX_STATIONARY_INTERVAL_MS, intervalMs * 2));
+            }
+        } else {
+            stationaryCount = 0;
+            if (intervalMs != BASE_INTERVAL_MS) {
+                reschedule(BASE_INTERVAL_MS);
+            }
+        }
+    }
+
+    private static boolean isStationary(AMapLocation previous, AMapLocation current) {
+        double moved = SpatialIndex.distanceMeters(previous.getLatitude(), previous.getLongitude(),
+                current.getLatitude(), current.getLongitude());
+        double tolerance = Math.max(STATIONARY_METERS, Math.max(previous.getAccuracy(), current.getAccuracy()));
+        return moved <= tolerance && (!current.hasSpeed() || current.getSpeed() < STATIONARY_SPEED_MPS);
+    }
+
+    /**
+     * 可见时始终用高精度模式、只调间隔；隐藏时换低功耗模式。SDK 需要重启定位新参数才生效。
+     */
+    private void reschedule(long newIntervalMs) {
+        AMapLocationClientOption.AMapLocationMode newMode = visible
+                ? AMapLocationClientOption.AMapLocationMode.Hight_Accuracy
+                : AMapLocationClientOption.AMapLocationMode.Battery_Saving;
+        if (newIntervalMs == intervalMs && newMode == mode) {
+            return;
+        }
+        long now = SystemClock.elapsedRealtime();
+        if (newMode != mode) {
+            if (mode == AMapLocationClientOption.AMapLocationMode.Hight_Accuracy) {
+                addHighAccuracyTime(now);
+            }
+            mode = newMode;
+            markHighAccuracy();
+        }
+        intervalMs = newIntervalMs;
+        applyOption();
+        Log.i(TAG, "reschedule: mode=" + mode + " interval=" + intervalMs + "ms visible=" + visible
+                + " stationaryFixes=" + stationaryCount);
+        if (started) {
+            client.stopLocation();
+            client.startLocation();
+        }
+        if (intervalListener != null) {
+            intervalListener.onIntervalChanged(intervalMs);
+        }
+    }
+
+    private void applyOption() {
+        option.setLocationMode(mode);
+        option.setInterval(intervalMs);
+        client.setLocationOption(option);
+    }
+
+    private void markHighAccuracy() {
+        highAccuracySinceMs = started && mode == AMapLocationClientOption.AMapLocationMode.Hight_Accuracy
+                ? SystemClock.elapsedRealtime() : 0;
+    }
+
+    private void addHighAccuracyTime(long now) {
+        if (highAccuracySinceMs > 0) {
+            highAccuracyMs += now - highAccuracySinceMs;
+            highAccuracySinceMs = now;
+        }
+    }
+
+    private void report(long now) {
+        addHighAccuracyTime(now);
+        long windowMs = Math.max(1L, now - windowStartMs);
+        Log.i(TAG, "fixes=" + windowFixes + " in " + windowMs / 1000 + "s"
+                + " (" + windowFixes * 60_000L / windowMs + "/min)"
+                + " highAccuracy=" + highAccuracyMs / 1000 + "s"
+                + " mode=" + mode + " interval=" + intervalMs + "ms");
+        windowStartMs = now;
+        windowFixes = 0;
+        highAccuracyMs = 0;
+    }
+}
@@ -0,0 +1,234 @@
+package com.justyn.travelmap.ui.map;
+
+import androidx.annotation.NonNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 基于网格的点聚合：把坐标投影到 Web 墨卡托平面，按当前缩放级别下 {@code cellSizePx} 像素见方的格子分组，
+ * 同一格内的点合并为一个 {@link Cluster}，位置取格内各点的平均值。
+ * <p>
+ * 构造时一次性完成投影并保存为只读数组，之后 {@link #cluster} 只做整数运算和一次哈希分组，
+ * 可在后台线程反复调用（实例不可变，线程安全）。不依赖地图 SDK，坐标均为 WGS/GCJ 经纬度原值。
+ */
+public final class GridClusterer<T> {
+
+    /**
+     * 从元素中读取经纬度；返回 NaN 表示没有坐标，该元素不参与聚合。
+     */
+    public interface PositionReader<T> {
+        double latitude(@NonNull T item);
+
+        double longitude(@NonNull T item);
+    }
+
+    /** 高德 / Web 墨卡托瓦片边长。 */
+    private static final double TILE_SIZE = 256d;
+    /** 墨卡托投影的纬度上限，超出部分夹到边界。 */
+    private static final double MAX_LATITUDE = 85.05112878;
+
+    private final List<T> items;
+    private final double[] latitudes;
+    private final double[] longitudes;
+    /** 归一化到 [0, 1) 的墨卡托平面坐标。 */
+    private final double[] worldX;
+    private final double[] worldY;
+    private final int size;
+
+    public GridClusterer(@NonNull List<T> source, @NonNull PositionReader<T> reader) {
+        List<T> kept = new ArrayList<>(source.size());
+        double[] lat = new double[source.size()];
+        double[] lng = new double[source.size()];
+        int count = 0;
+        for (T item : source) {
+            if (item == null) {
+                continue;
+            }
+            double itemLat = reader.latitude(item);
+            double itemLng = reader.longitude(item);
+            if (Double.isNaN(itemLat) || Double.isNaN(itemLng)) {
+                continue;
+            }
+            kept.add(item);
+            lat[count] = itemLat;
+            lng[count] = itemLng;
+            count++;
+        }
+        this.items = Collections.unmodifiableList(kept);
+        this.size = count;
+        this.latitudes = Arrays.copyOf(lat, count);
+        this.longitudes = Arrays.copyOf(lng, count);
+        this.worldX = new double[count];
+        this.worldY = new double[count];
+        for (int i = 0; i < count; i++) {
+            worldX[i] = projectX(longitudes[i]);
+            worldY[i] = projectY(latitudes[i]);
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 按 {@code zoom}（取整）分组。同一缩放级别与格子大小下结果确定，格子编号可作为聚合的稳定 key。
+     */
+    @NonNull
+    public List<Cluster<T>> cluster(float zoom, int cellSizePx) {
+        if (size == 0) {
+            return Collections.emptyList();
+        }
+        int level = Math.max(0, Math.round(zoom));
+        double cellsPerWorld = Math.max(1d, TILE_SIZE * Math.pow(2, level) / Math.max(1, cellSizePx));
+        int tableSize = Integer.highestOneBit(Math.max(4, size * 2 - 1)) << 1;
+        long[] keys = new long[tableSize];
+        int[] slots = new int[tableSize];
+        Arrays.fill(slots, -1);
+        // 每个格子的累计量，按首次出现顺序编号
+        int[] counts = new int[size];
+        double[] sumLat = new double[size];
+        double[] sumLng = new double[size];
+        int[] firstMember = new int[size];
+        int[] nextMember = new int[size];
+        int[] lastMember = new int[size];
+        int cellCount = 0;
+        int mask = tableSize - 1;
+        for (int i = 0; i < size; i++) {
+            long cellX = (long) (worldX[i] * cellsPerWorld);
+            long cellY = (long) (worldY[i] * cellsPerWorld);
+            long key = (cellX << 32) ^ cellY;
+            int slot = mix(key) & mask;
+            while (slots[slot] >= 0 && keys[slot] != key) {
+                slot = (slot + 1) & mask;
+            }
+            int cell = slots[slot];
+            if (cell < 0) {
+                cell = cellCount++;
+                slots[slot] = cell;
+                keys[slot] = key;
+                firstMember[cell] = i;
+            } else {
+                nextMember[lastMember[cell]] = i;
+            }
+            lastMember[cell] = i;
+            nextMember[i] = -1;
+            counts[cell]++;
+            sumLat[cell] += latitudes[i];
+            sumLng[cell] += longitudes[i];
+        }
+        long[] cellKeys = new long[cellCount];
+        for (int slot = 0; slot < tableSize; slot++) {
+            if (slots[slot] >= 0) {
+                cellKeys[slots[slot]] = keys[slot];
+            }
+        }
+        List<Cluster<T>> result = new ArrayList<>(cellCount);
+        for (int cell = 0; cell < cellCount; cell++) {
+            int count = counts[cell];
+            int[] members = new int[count];
+            int member = firstMember[cell];
+            for (int m = 0; m < count; m++) {
+                members[m] = member;
+                member = nextMember[member];
+            }
+            result.add(new Cluster<>(this, level, cellKeys[cell], sumLat[cell] / count, sumLng[cell] / count, members));
+        }
+        return result;
+    }
+
+    static double projectX(double longitude) {
+        return (longitude + 180d) / 360d;
+    }
+
+    static double projectY(double latitude) {
+        double clamped = Math.max(-MAX_LATITUDE, Math.min(MAX_LATITUDE, latitude));
+        double sin = Math.sin(Math.toRadians(clamped));
+        return 0.5d - Math.log((1d + sin) / (1d - sin)) / (4d * Math.PI);
+    }
+
+    private static int mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    /**
+     * 一个聚合结果：格子内只有一个点时 {@link #isSingleton()} 为 true，可直接取 {@link #getSingle()}。
+     */
+    public static final class Cluster<T> {
+        private final GridClusterer<T> owner;
+        private final int zoomLevel;
+        private final long cellKey;
+        private final double latitude;
+        private final double longitude;
+        private final int[] members;
+
+        Cluster(GridClusterer<T> owner, int zoomLevel, long cellKey, double latitude, double longitude, int[] members) {
+            this.owner = owner;
+            this.zoomLevel = zoomLevel;
+            this.cellKey = cellKey;
+            this.latitude = latitude;
+            this.longitude = longitude;
+            this.members = members;
+        }
+
+        public int getZoomLevel() {
+            return zoomLevel;
+        }
+
+        /** 格子编号，同一缩放级别下同一位置的聚合 key 相同。 */
+        public long getCellKey() {
+            return cellKey;
+        }
+
+        public double getLatitude() {
+            return latitude;
+        }
+
+        public double getLongitude() {
+            return longitude;
+        }
+
+        public int size() {
+            return members.length;
+        }
+
+        public boolean isSingleton() {
+            return members.length == 1;
+        }
+
+        @NonNull
+        public T getSingle() {
+            return owner.items.get(members[0]);
+        }
+
+        @NonNull
+        public List<T> getItems() {
+            List<T> result = new ArrayList<>(members.length);
+            for (int member : members) {
+                result.add(owner.items.get(member));
+            }
+            return result;
+        }
+
+        /**
+         * 聚合内各点的外接范围：{minLat, minLng, maxLat, maxLng}，用于点击后放大到该范围。
+         */
+        @NonNull
+        public double[] getBounds() {
+            double minLat = Double.MAX_VALUE;
+            double minLng = Double.MAX_VALUE;
+            double maxLat = -Double.MAX_VALUE;
+            double maxLng = -Double.MAX_VALUE;
+            for (int member : members) {
+                minLat = Math.min(minLat, owner.latitudes[member]);
+                maxLat = Math.max(maxLat, owner.latitudes[member]);
+                minLng = Math.min(minLng, owner.longitudes[member]);
+                maxLng = Math.max(maxLng, owner.longitudes[member]);
+            }
+            return new double[]{minLat, minLng, maxLat, maxLng};
+        }
+    }
+}
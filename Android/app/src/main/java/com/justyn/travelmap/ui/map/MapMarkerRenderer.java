@@ -3,41 +3,310 @@ package com.justyn.travelmap.ui.map;
 import android.content.Context;
 import android.graphics.Bitmap;
 import android.graphics.Canvas;
+import android.os.Handler;
+import android.os.Looper;
+import android.text.TextUtils;
+import android.util.Log;
+import android.util.LruCache;
+import android.view.ContextThemeWrapper;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.widget.ImageView;
 import android.widget.TextView;
 
+import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
 import com.amap.api.maps.model.BitmapDescriptor;
 import com.amap.api.maps.model.BitmapDescriptorFactory;
+import com.bumptech.glide.Glide;
+import com.bumptech.glide.request.FutureTarget;
 import com.justyn.travelmap.R;
+import com.justyn.travelmap.ui.common.ImageLoader;
+import com.justyn.travelmap.ui.common.ThumbnailResolver;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * 将自定义布局渲染为高德地图可用的 Marker 图标。
+ * <p>
+ * 渲染结果按 (标题, 图片地址, 屏幕密度) 缓存在按字节计量的 LRU 中，重新加载 Marker 时直接复用；
+ * 布局只 inflate 一次作为模板，渲染时加锁复用。带缩略图的图标通过 {@link #loadAsync} 在后台线程
+ * 完成图片加载与渲染，主线程只负责 {@code setIcon}。
+ * <p>
+ * 单个景点按缩放级别分三档显示（{@link Detail}）：国家 / 省级只画圆点，城市级只显示标题，
+ * 放大到街区级才显示缩略图，缩略图也只在这一档才下载。
  */
 public final class MapMarkerRenderer {
 
+    /**
+     * 单个景点 Marker 的细节层级。
+     */
+    public enum Detail {
+        /** 国家 / 省级：所有景点共用一个圆点图标。 */
+        DOT,
+        /** 城市级：只有标题。 */
+        TITLE,
+        /** 街区级：缩略图加标题。 */
+        THUMBNAIL;
+
+        /** 低于该缩放级别只显示圆点。 */
+        public static final float TITLE_MIN_ZOOM = 9f;
+        /** 达到该缩放级别才显示缩略图。 */
+        public static final float THUMBNAIL_MIN_ZOOM = 13f;
+
+        @NonNull
+        public static Detail forZoom(float zoom) {
+            if (zoom < TITLE_MIN_ZOOM) {
+                return DOT;
+            }
+            return zoom < THUMBNAIL_MIN_ZOOM ? TITLE : THUMBNAIL;
+        }
+
+        /** 图标锚点的纵向比例：圆点以中心对准坐标，其余以底边对准。 */
+        public float anchorV() {
+            return this == DOT ? 0.5f : 1f;
+        }
+    }
+
+    /**
+     * 后台渲染完成后在主线程回调。
+     */
+    public interface Callback {
+        void onRendered(@NonNull BitmapDescriptor descriptor);
+    }
+
+    private static final String TAG = "MapMarkerRenderer";
+    private static final int LOAD_THREADS = 3;
+    private static final long LOAD_TIMEOUT_SECONDS = 15L;
+    private static final int LOG_EVERY = 50;
+    /** 图标缓存上限：堆上限的 1/32，最多 8MB。 */
+    private static final int MAX_CACHE_BYTES = (int) Math.min(8L * 1024 * 1024, Runtime.getRuntime().maxMemory() / 32);
+
+    private static final LruCache<String, Rendered> CACHE = new LruCache<String, Rendered>(MAX_CACHE_BYTES) {
+        @Override
+        protected int sizeOf(String key, Rendered value) {
+            return value.bytes;
+        }
+    };
+    private static final ExecutorService LOADER = Executors.newFixedThreadPool(LOAD_THREADS);
+    private static final Handler MAIN = new Handler(Looper.getMainLooper());
+    private static final AtomicLong hits = new AtomicLong();
+    private static final AtomicLong misses = new AtomicLong();
+
+    /** 模板视图在多个线程间共用，读写都需持有该锁。 */
+    private static final Object TEMPLATE_LOCK = new Object();
+    private static View markerTemplate;
+    private static TextView titleTemplate;
+    private static TextView clusterTemplate;
+    private static View dotTemplate;
+    private static int templateDensity;
+
     private MapMarkerRenderer() {
     }
 
-    public static BitmapDescriptor create(Context context, @Nullable String title, @Nullable Bitmap coverBitmap) {
+    /**
+     * 没有缩略图的占位图标，按标题缓存。
+     */
+    public static BitmapDescriptor placeholder(Context context, @Nullable String title) {
         if (context == null) {
             return BitmapDescriptorFactory.defaultMarker();
         }
-        LayoutInflater inflater = LayoutInflater.from(context);
-        View markerView = inflater.inflate(R.layout.view_map_marker, null);
-        TextView tvTitle = markerView.findViewById(R.id.tvMarkerTitle);
-        ImageView ivCover = markerView.findViewById(R.id.ivMarkerImage);
-        tvTitle.setText(title == null || title.isEmpty()
-                ? context.getString(R.string.map_marker_default_title)
-                : title);
-        if (coverBitmap != null) {
-            ivCover.setImageBitmap(coverBitmap);
-        } else {
-            ivCover.setImageResource(R.drawable.ic_image_placeholder);
+        String key = key(context, "marker", title, null);
+        BitmapDescriptor cached = lookup(key);
+        if (cached != null) {
+            return cached;
+        }
+        return renderMarker(context.getApplicationContext(), key, title, null);
+    }
+
+    /**
+     * 低缩放级别下的圆点，所有景点共用同一个图标。
+     */
+    public static BitmapDescriptor dot(Context context) {
+        if (context == null) {
+            return BitmapDescriptorFactory.defaultMarker();
+        }
+        String key = key(context, "dot", null, null);
+        BitmapDescriptor cached = lookup(key);
+        if (cached != null) {
+            return cached;
+        }
+        Bitmap bitmap;
+        synchronized (TEMPLATE_LOCK) {
+            ensureTemplates(context.getApplicationContext());
+            bitmap = draw(dotTemplate);
+        }
+        return store(key, bitmap);
+    }
+
+    /**
+     * 城市级只显示标题的图标，按标题缓存。
+     */
+    public static BitmapDescriptor titleOnly(Context context, @Nullable String title) {
+        if (context == null) {
+            return BitmapDescriptorFactory.defaultMarker();
+        }
+        String key = key(context, "title", title, null);
+        BitmapDescriptor cached = lookup(key);
+        if (cached != null) {
+            return cached;
+        }
+        Context appContext = context.getApplicationContext();
+        Bitmap bitmap;
+        synchronized (TEMPLATE_LOCK) {
+            ensureTemplates(appContext);
+            titleTemplate.setText(displayTitle(appContext, title));
+            bitmap = draw(titleTemplate);
+        }
+        return store(key, bitmap);
+    }
+
+    /**
+     * 已经缓存的缩略图图标；没有时返回 null，需要调用 {@link #loadAsync}。
+     * 未命中不计入统计：调用方随后的 {@link #loadAsync} 会再查一次并计数。
+     */
+    @Nullable
+    public static BitmapDescriptor peek(Context context, @Nullable String title, @Nullable String imageUrl) {
+        if (context == null || TextUtils.isEmpty(imageUrl)) {
+            return null;
+        }
+        return lookup(key(context, "marker", title, imageUrl), false);
+    }
+
+    /**
+     * 在后台加载缩略图并渲染图标，完成后在主线程回调；图片加载失败时回调占位图标。
+     * 已缓存时同步回调并返回 null。
+     */
+    @Nullable
+    public static Request loadAsync(Context context, @Nullable String title, @Nullable String imageUrl,
+                                    @NonNull Callback callback) {
+        if (context == null || TextUtils.isEmpty(imageUrl)) {
+            return null;
+        }
+        Context appContext = context.getApplicationContext();
+        String key = key(appContext, "marker", title, imageUrl);
+        BitmapDescriptor cached = lookup(key);
+        if (cached != null) {
+            callback.onRendered(cached);
+            return null;
+        }
+        int size = ThumbnailResolver.markerImageSize(appContext);
+        String url = ThumbnailResolver.resolve(imageUrl, size);
+        Request request = new Request();
+        request.future = LOADER.submit(() -> {
+            FutureTarget<Bitmap> target = Glide.with(appContext)
+                    .asBitmap()
+                    .load(url)
+                    .apply(ImageLoader.thumbnailOptions())
+                    .submit(size, size);
+            BitmapDescriptor descriptor;
+            try {
+                descriptor = renderMarker(appContext, key, title, target.get(LOAD_TIMEOUT_SECONDS, TimeUnit.SECONDS));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (ExecutionException | TimeoutException e) {
+                Log.w(TAG, "loadAsync: " + url, e);
+                descriptor = placeholder(appContext, title);
+            } finally {
+                Glide.with(appContext).clear(target);
+            }
+            BitmapDescriptor result = descriptor;
+            MAIN.post(() -> {
+                if (!request.cancelled) {
+                    callback.onRendered(result);
+                }
+            });
+        });
+        return request;
+    }
+
+    /**
+     * 聚合气泡：圆形背景上显示景点数量，超过 999 显示 "999+"。按显示文本缓存。
+     */
+    public static BitmapDescriptor createCluster(Context context, int count) {
+        if (context == null) {
+            return BitmapDescriptorFactory.defaultMarker();
+        }
+        String label = count > 999
+                ? context.getString(R.string.map_cluster_count_overflow)
+                : context.getString(R.string.map_cluster_count, count);
+        String key = key(context, "cluster", label, null);
+        BitmapDescriptor cached = lookup(key);
+        if (cached != null) {
+            return cached;
+        }
+        Bitmap bitmap;
+        synchronized (TEMPLATE_LOCK) {
+            ensureTemplates(context.getApplicationContext());
+            clusterTemplate.setText(label);
+            bitmap = draw(clusterTemplate);
         }
+        return store(key, bitmap);
+    }
+
+    /**
+     * 图标位图占用的字节数，用于统计地图上 Marker 图标的内存。
+     */
+    public static int byteCount(@Nullable BitmapDescriptor descriptor) {
+        Bitmap bitmap = descriptor != null ? descriptor.getBitmap() : null;
+        return bitmap != null ? bitmap.getAllocationByteCount() : 0;
+    }
+
+    public static void logStats() {
+        long hitCount = hits.get();
+        long total = hitCount + misses.get();
+        Log.i(TAG, "hits=" + hitCount + " misses=" + misses.get()
+                + " hitRate=" + (total == 0 ? 0 : hitCount * 100 / total) + "%"
+                + " entries=" + CACHE.snapshot().size()
+                + " bytes=" + CACHE.size() + "/" + CACHE.maxSize());
+    }
+
+    private static BitmapDescriptor renderMarker(Context appContext, String key, @Nullable String title,
+                                                 @Nullable Bitmap coverBitmap) {
+        Bitmap bitmap;
+        synchronized (TEMPLATE_LOCK) {
+            ensureTemplates(appContext);
+            TextView tvTitle = markerTemplate.findViewById(R.id.tvMarkerTitle);
+            ImageView ivCover = markerTemplate.findViewById(R.id.ivMarkerImage);
+            tvTitle.setText(displayTitle(appContext, title));
+            if (coverBitmap != null) {
+                ivCover.setImageBitmap(coverBitmap);
+            } else {
+                ivCover.setImageResource(R.drawable.ic_image_placeholder);
+            }
+            bitmap = draw(markerTemplate);
+            // 不让模板继续引用 Glide 的 Bitmap，之后它会被回收复用
+            ivCover.setImageDrawable(null);
+        }
+        return store(key, bitmap);
+    }
+
+    private static void ensureTemplates(Context appContext) {
+        int density = appContext.getResources().getDisplayMetrics().densityDpi;
+        if (markerTemplate != null && templateDensity == density) {
+            return;
+        }
+        LayoutInflater inflater = LayoutInflater.from(new ContextThemeWrapper(appContext, R.style.Theme_TravelMap));
+        markerTemplate = inflater.inflate(R.layout.view_map_marker, null);
+        titleTemplate = (TextView) inflater.inflate(R.layout.view_map_marker_title, null);
+        clusterTemplate = (TextView) inflater.inflate(R.layout.view_map_cluster, null);
+        dotTemplate = inflater.inflate(R.layout.view_map_dot, null);
+        templateDensity = density;
+    }
+
+    private static String displayTitle(Context context, @Nullable String title) {
+        return title == null || title.isEmpty() ? context.getString(R.string.map_marker_default_title) : title;
+    }
+
+    private static Bitmap draw(View markerView) {
         int widthSpec = View.MeasureSpec.makeMeasureSpec(0, View.MeasureSpec.UNSPECIFIED);
         int heightSpec = View.MeasureSpec.makeMeasureSpec(0, View.MeasureSpec.UNSPECIFIED);
         markerView.measure(widthSpec, heightSpec);
@@ -47,6 +316,68 @@ public final class MapMarkerRenderer {
         Bitmap bitmap = Bitmap.createBitmap(measuredWidth, measuredHeight, Bitmap.Config.ARGB_8888);
         Canvas canvas = new Canvas(bitmap);
         markerView.draw(canvas);
-        return BitmapDescriptorFactory.fromBitmap(bitmap);
+        return bitmap;
+    }
+
+    private static String key(Context context, String kind, @Nullable String text, @Nullable String imageUrl) {
+        return kind + '\u0000' + (text != null ? text : "") + '\u0000' + (imageUrl != null ? imageUrl : "")
+                + '\u0000' + context.getResources().getDisplayMetrics().densityDpi;
+    }
+
+    @Nullable
+    private static BitmapDescriptor lookup(String key) {
+        return lookup(key, true);
+    }
+
+    /**
+     * 查缓存并计入命中率；{@code countMiss} 为 false 时只统计命中，未命中由之后的加载再计一次。
+     */
+    @Nullable
+    private static BitmapDescriptor lookup(String key, boolean countMiss) {
+        Rendered rendered = CACHE.get(key);
+        long count;
+        if (rendered != null) {
+            count = hits.incrementAndGet() + misses.get();
+        } else if (countMiss) {
+            count = misses.incrementAndGet() + hits.get();
+        } else {
+            return null;
+        }
+        if (count % LOG_EVERY == 0) {
+            logStats();
+        }
+        return rendered != null ? rendered.descriptor : null;
+    }
+
+    private static BitmapDescriptor store(String key, Bitmap bitmap) {
+        BitmapDescriptor descriptor = BitmapDescriptorFactory.fromBitmap(bitmap);
+        // 淘汰时不 recycle：已经设置到 Marker 上的图标可能仍在使用
+        CACHE.put(key, new Rendered(descriptor, bitmap.getAllocationByteCount()));
+        return descriptor;
+    }
+
+    /**
+     * 一次 {@link #loadAsync} 请求；Marker 移除时调用 {@link #cancel()}，之后不会再回调。
+     */
+    public static final class Request {
+        volatile boolean cancelled;
+        Future<?> future;
+
+        public void cancel() {
+            cancelled = true;
+            if (future != null) {
+                future.cancel(true);
+            }
+        }
+    }
+
+    private static final class Rendered {
+        final BitmapDescriptor descriptor;
+        final int bytes;
+
+        Rendered(BitmapDescriptor descriptor, int bytes) {
+            this.descriptor = descriptor;
+            this.bytes = bytes;
+        }
     }
 }
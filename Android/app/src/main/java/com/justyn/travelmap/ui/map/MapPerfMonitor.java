@@ -0,0 +1,154 @@
+package com.justyn.travelmap.ui.map;
+
+import android.net.TrafficStats;
+import android.os.Process;
+import android.util.Log;
+import android.view.Choreographer;
+
+/**
+ * 地图每次平移 / 缩放的开销统计，输出到 logcat（tag {@value #TAG}）：
+ * <ul>
+ *     <li>常驻 Marker 数量，以及本次比对新建、复用、移除的 Marker 数；</li>
+ *     <li>缩放级别与细节层级、Marker 增删更新耗时、地图上图标位图的总字节数；</li>
+ *     <li>本次拉取的瓦片数与本进程收到的字节数（{@link TrafficStats}，包含缩略图下载）；</li>
+ *     <li>Marker 更新后 {@link #FRAME_WINDOW_MS} 毫秒内的帧间隔：平均、最大与超过 1.5 帧的次数。</li>
+ * </ul>
+ * 另外按缩放级别累计 Marker 更新耗时与图标字节数，{@link #stop()} 时输出各级别的平均值。
+ * 只能在主线程使用。
+ */
+public final class MapPerfMonitor implements Choreographer.FrameCallback {
+
+    private static final String TAG = "MapPerf";
+    private static final long FRAME_WINDOW_MS = 1000L;
+    private static final long JANK_THRESHOLD_NANOS = 25_000_000L;
+    private static final int MAX_ZOOM_LEVEL = 20;
+
+    private int panCount;
+    private long panStartBytes;
+    private int fetchedTiles;
+    private int markers;
+    private int markersCreated;
+    private int markersReused;
+    private int markersRemoved;
+    private int zoomLevel;
+    private MapMarkerRenderer.Detail detail;
+    private long updateNanos;
+    private long iconBytes;
+    /** 按缩放级别累计的更新次数、更新耗时与图标字节数。 */
+    private final int[] levelUpdates = new int[MAX_ZOOM_LEVEL + 1];
+    private final long[] levelUpdateNanos = new long[MAX_ZOOM_LEVEL + 1];
+    private final long[] levelIconBytes = new long[MAX_ZOOM_LEVEL + 1];
+    private boolean sampling;
+    private long windowEndNanos;
+    private long lastFrameNanos;
+    private int frames;
+    private long totalFrameNanos;
+    private long maxFrameNanos;
+    private int jankFrames;
+
+    public void beginPan() {
+        panStartBytes = receivedBytes();
+        fetchedTiles = 0;
+        markersCreated = 0;
+        markersReused = 0;
+        markersRemoved = 0;
+    }
+
+    public void recordFetchedTiles(int count) {
+        fetchedTiles += count;
+    }
+
+    public void recordMarkerDiff(int created, int reused, int removed) {
+        markersCreated += created;
+        markersReused += reused;
+        markersRemoved += removed;
+    }
+
+    /**
+     * 一次 Marker 比对更新（增、删、换图标）的耗时，以及更新后地图上图标位图的总字节数。
+     */
+    public void recordMarkerUpdate(int zoom, MapMarkerRenderer.Detail markerDetail, long nanos, long bytes) {
+        zoomLevel = zoom;
+        detail = markerDetail;
+        updateNanos = nanos;
+        iconBytes = bytes;
+        int level = Math.max(0, Math.min(MAX_ZOOM_LEVEL, zoom));
+        levelUpdates[level]++;
+        levelUpdateNanos[level] += nanos;
+        levelIconBytes[level] += bytes;
+    }
+
+    /**
+     * Marker 已经更新：开始采样帧间隔，采样结束时输出本次统计。
+     */
+    public void endPan(int residentMarkers) {
+        markers = residentMarkers;
+        panCount++;
+        frames = 0;
+        totalFrameNanos = 0;
+        maxFrameNanos = 0;
+        jankFrames = 0;
+        lastFrameNanos = 0;
+        windowEndNanos = System.nanoTime() + FRAME_WINDOW_MS * 1_000_000L;
+        if (!sampling) {
+            sampling = true;
+            Choreographer.getInstance().postFrameCallback(this);
+        }
+    }
+
+    public void stop() {
+        if (sampling) {
+            Choreographer.getInstance().removeFrameCallback(this);
+            sampling = false;
+        }
+        for (int level = 0; level <= MAX_ZOOM_LEVEL; level++) {
+            int updates = levelUpdates[level];
+            if (updates == 0) {
+                continue;
+            }
+            Log.i(TAG, "zoom=" + level + " detail=" + MapMarkerRenderer.Detail.forZoom(level)
+                    + " updates=" + updates
+                    + " avgUpdate=" + levelUpdateNanos[level] / updates / 1_000_000f + "ms"
+                    + " avgIconBytes=" + levelIconBytes[level] / updates);
+            levelUpdates[level] = 0;
+            levelUpdateNanos[level] = 0;
+            levelIconBytes[level] = 0;
+        }
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        if (lastFrameNanos != 0) {
+            long interval = frameTimeNanos - lastFrameNanos;
+            frames++;
+            totalFrameNanos += interval;
+            maxFrameNanos = Math.max(maxFrameNanos, interval);
+            if (interval > JANK_THRESHOLD_NANOS) {
+                jankFrames++;
+            }
+        }
+        lastFrameNanos = frameTimeNanos;
+        if (frameTimeNanos < windowEndNanos) {
+            Choreographer.getInstance().postFrameCallback(this);
+            return;
+        }
+        sampling = false;
+        long bytes = Math.max(0L, receivedBytes() - panStartBytes);
+        Log.i(TAG, "pan#" + panCount + " markers=" + markers
+                + " created=" + markersCreated + " reused=" + markersReused + " removed=" + markersRemoved
+                + " zoom=" + zoomLevel + " detail=" + detail
+                + " update=" + updateNanos / 1_000_000f + "ms"
+                + " iconBytes=" + iconBytes
+                + " tilesFetched=" + fetchedTiles
+                + " bytes=" + bytes
+                + " frames=" + frames
+                + " avgFrame=" + (frames == 0 ? 0 : totalFrameNanos / frames / 1_000_000f) + "ms"
+                + " maxFrame=" + maxFrameNanos / 1_000_000f + "ms"
+                + " jank=" + jankFrames);
+    }
+
+    private static long receivedBytes() {
+        long bytes = TrafficStats.getUidRxBytes(Process.myUid());
+        return bytes == TrafficStats.UNSUPPORTED ? 0L : bytes;
+    }
+}
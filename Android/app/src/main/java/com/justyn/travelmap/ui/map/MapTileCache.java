@@ -0,0 +1,166 @@
+package com.justyn.travelmap.ui.map;
+
+import androidx.annotation.NonNull;
+
+import com.justyn.travelmap.model.FeedItem;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 按 Web 墨卡托瓦片缓存已经拉取过的地图落点。
+ * <p>
+ * 瓦片级别随镜头缩放级别变化（{@link #levelFor}），一屏加边距通常只覆盖几块瓦片；
+ * 每块瓦片对应一次 bbox 请求，拉取过的瓦片按 LRU 保留 {@link #MAX_TILES} 块。平移回来时先用缓存显示，
+ * 超过 {@link #TTL_MS} 的瓦片再请求一次：请求地址不变，由条件 GET 用 ETag 校验，未变化时只返回 304。
+ * 瓦片 key 把级别与行列号编码进一个 long。线程安全。
+ */
+public final class MapTileCache {
+
+    public static final int MIN_LEVEL = 2;
+    public static final int MAX_LEVEL = 12;
+    /** 瓦片级别比镜头缩放级别低两级：一块瓦片约为一屏的 4 倍宽。 */
+    private static final int LEVEL_OFFSET = 2;
+    private static final int MAX_TILES = 64;
+    /** 瓦片拉取后视为最新的时长，超过后进入视野时重新校验。 */
+    public static final long TTL_MS = 5 * 60 * 1000L;
+
+    private final LinkedHashMap<Long, Entry> tiles = new LinkedHashMap<Long, Entry>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+            return size() > MAX_TILES;
+        }
+    };
+
+    public static int levelFor(float zoom) {
+        return Math.max(MIN_LEVEL, Math.min(MAX_LEVEL, Math.round(zoom) - LEVEL_OFFSET));
+    }
+
+    /**
+     * 覆盖给定范围的所有瓦片；范围跨越 180° 经线（{@code minLng > maxLng}）时分成两段。
+     */
+    @NonNull
+    public static Set<Long> tilesCovering(double minLat, double minLng, double maxLat, double maxLng, int level) {
+        Set<Long> result = new LinkedHashSet<>();
+        if (minLng > maxLng) {
+            addTiles(result, minLat, minLng, maxLat, 180d, level);
+            addTiles(result, minLat, -180d, maxLat, maxLng, level);
+        } else {
+            addTiles(result, minLat, minLng, maxLat, maxLng, level);
+        }
+        return result;
+    }
+
+    private static void addTiles(Set<Long> out, double minLat, double minLng, double maxLat, double maxLng, int level) {
+        int count = 1 << level;
+        int minX = tileIndex(GridClusterer.projectX(minLng), count);
+        int maxX = tileIndex(GridClusterer.projectX(maxLng), count);
+        // 墨卡托平面 y 轴向下：纬度越大 y 越小
+        int minY = tileIndex(GridClusterer.projectY(maxLat), count);
+        int maxY = tileIndex(GridClusterer.projectY(minLat), count);
+        for (int x = minX; x <= maxX; x++) {
+            for (int y = minY; y <= maxY; y++) {
+                out.add(key(level, x, y));
+            }
+        }
+    }
+
+    private static int tileIndex(double world, int count) {
+        return Math.max(0, Math.min(count - 1, (int) Math.floor(world * count)));
+    }
+
+    static long key(int level, int x, int y) {
+        return ((long) level << 58) | ((long) x << 29) | y;
+    }
+
+    public static int level(long tile) {
+        return (int) (tile >>> 58);
+    }
+
+    /**
+     * 下一级的 4 块子瓦片，合起来正好覆盖本瓦片；单块瓦片的结果被服务端截断时按子瓦片分别请求。
+     */
+    @NonNull
+    public static long[] children(long tile) {
+        int level = level(tile) + 1;
+        int x = (int) ((tile >>> 29) & 0x1FFFFFFFL) * 2;
+        int y = (int) (tile & 0x1FFFFFFFL) * 2;
+        return new long[]{key(level, x, y), key(level, x + 1, y), key(level, x, y + 1), key(level, x + 1, y + 1)};
+    }
+
+    /**
+     * 瓦片的经纬度范围：{minLat, minLng, maxLat, maxLng}。
+     */
+    @NonNull
+    public static double[] bounds(long tile) {
+        int level = level(tile);
+        int x = (int) ((tile >>> 29) & 0x1FFFFFFFL);
+        int y = (int) (tile & 0x1FFFFFFFL);
+        double count = 1 << level;
+        double minLng = x / count * 360d - 180d;
+        double maxLng = (x + 1) / count * 360d - 180d;
+        double maxLat = tileLatitude(y / count);
+        double minLat = tileLatitude((y + 1) / count);
+        return new double[]{minLat, minLng, maxLat, maxLng};
+    }
+
+    private static double tileLatitude(double worldY) {
+        return Math.toDegrees(Math.atan(Math.sinh(Math.PI * (1d - 2d * worldY))));
+    }
+
+    public synchronized boolean contains(long tile) {
+        return tiles.containsKey(tile);
+    }
+
+    /**
+     * 已缓存且距拉取不超过 {@link #TTL_MS}；{@code nowMs} 与 {@link #put} 使用同一时钟。
+     */
+    public synchronized boolean isFresh(long tile, long nowMs) {
+        Entry entry = tiles.get(tile);
+        return entry != null && nowMs - entry.fetchedAtMs < TTL_MS;
+    }
+
+    public synchronized void put(long tile, @NonNull List<FeedItem> items, long nowMs) {
+        tiles.put(tile, new Entry(items, nowMs));
+    }
+
+    /**
+     * 合并给定瓦片中已缓存的落点，按 id 去重（瓦片边界上的点可能被相邻瓦片同时返回）。
+     */
+    @NonNull
+    public synchronized List<FeedItem> collect(@NonNull Set<Long> keys) {
+        Map<Long, FeedItem> merged = new LinkedHashMap<>();
+        for (Long key : keys) {
+            Entry entry = tiles.get(key);
+            if (entry == null) {
+                continue;
+            }
+            for (FeedItem item : entry.items) {
+                merged.put(item.getId(), item);
+            }
+        }
+        return new ArrayList<>(merged.values());
+    }
+
+    public synchronized int size() {
+        return tiles.size();
+    }
+
+    public synchronized void clear() {
+        tiles.clear();
+    }
+
+    private static final class Entry {
+        final List<FeedItem> items;
+        final long fetchedAtMs;
+
+        Entry(List<FeedItem> items, long fetchedAtMs) {
+            this.items = items;
+            this.fetchedAtMs = fetchedAtMs;
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.justyn.travelmap.ui.map;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.justyn.travelmap.model.FeedItem;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 按 key 比对新旧 Marker：仍在的保留并交给 {@link Target#update} 更新，新出现的创建，消失的移除。
+ * 单个景点按 id 标识，聚合按缩放级别与格子编号标识（{@link #key}）：同一级别下镜头平移、
+ * 瓦片重新校验后内容不变时，Marker 全部复用。不依赖地图 SDK，只能在调用方所在的线程使用。
+ */
+public final class MarkerDiff {
+
+    /**
+     * 地图上 Marker 的增删改；{@link #create} 返回 null 表示没有创建成功，不计入结果。
+     */
+    public interface Target<M> {
+        void update(@NonNull M marker, @NonNull GridClusterer.Cluster<FeedItem> cluster);
+
+        @Nullable
+        M create(@NonNull GridClusterer.Cluster<FeedItem> cluster);
+
+        void remove(@NonNull M marker);
+    }
+
+    private final int created;
+    private final int reused;
+    private final int removed;
+
+    private MarkerDiff(int created, int reused, int removed) {
+        this.created = created;
+        this.reused = reused;
+        this.removed = removed;
+    }
+
+    /**
+     * 用 {@code clusters} 更新 {@code markers}（原地修改，按 {@link #key} 索引），返回新建、复用、移除的数量。
+     */
+    @NonNull
+    public static <M> MarkerDiff apply(@NonNull Map<String, M> markers,
+                                       @NonNull List<GridClusterer.Cluster<FeedItem>> clusters,
+                                       @NonNull Target<M> target) {
+        int created = 0;
+        int reused = 0;
+        Map<String, M> previous = new HashMap<>(markers);
+        markers.clear();
+        for (GridClusterer.Cluster<FeedItem> cluster : clusters) {
+            String key = key(cluster);
+            M existing = previous.remove(key);
+            if (existing != null) {
+                target.update(existing, cluster);
+                markers.put(key, existing);
+                reused++;
+                continue;
+            }
+            M added = target.create(cluster);
+            if (added != null) {
+                markers.put(key, added);
+                created++;
+            }
+        }
+        for (M stale : previous.values()) {
+            target.remove(stale);
+        }
+        return new MarkerDiff(created, reused, previous.size());
+    }
+
+    @NonNull
+    public static String key(@NonNull GridClusterer.Cluster<FeedItem> cluster) {
+        if (cluster.isSingleton()) {
+            return "s:" + cluster.getSingle().getId();
+        }
+        return "c:" + cluster.getZoomLevel() + ":" + cluster.getCellKey();
+    }
+
+    public int getCreated() {
+        return created;
+    }
+
+    public int getReused() {
+        return reused;
+    }
+
+    public int getRemoved() {
+        return removed;
+    }
+}
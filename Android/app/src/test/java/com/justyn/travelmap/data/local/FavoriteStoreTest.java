@@ -0,0 +1,100 @@
+package com.justyn.travelmap.data.local;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * (targetType, targetId) 打包成一个 long 后的语义：两种类型的同一 id 互不干扰，
+ * 非法 id 不入集合，切换用户与服务端对齐时的版本号规则。
+ */
+public class FavoriteStoreTest {
+
+    private static final long USER = 7L;
+
+    @Test
+    public void sameIdOfDifferentTypesAreDistinctKeys() {
+        FavoriteStore store = new FavoriteStore();
+        assertTrue(store.add(USER, FavoriteStore.TYPE_SCENIC, 5));
+        assertTrue(store.contains(USER, FavoriteStore.TYPE_SCENIC, 5));
+        assertFalse(store.contains(USER, FavoriteStore.TYPE_PRODUCT, 5));
+
+        assertTrue(store.add(USER, FavoriteStore.TYPE_PRODUCT, 5));
+        assertEquals(2, store.size());
+        assertTrue(store.remove(USER, FavoriteStore.TYPE_SCENIC, 5));
+        assertFalse(store.contains(USER, FavoriteStore.TYPE_SCENIC, 5));
+        assertTrue(store.contains(USER, FavoriteStore.TYPE_PRODUCT, 5));
+    }
+
+    @Test
+    public void packedKeysNeverCollideAcrossTypes() {
+        FavoriteStore store = new FavoriteStore();
+        for (long id = 1; id <= 2_000; id++) {
+            store.add(USER, FavoriteStore.TYPE_SCENIC, id);
+            if (id % 3 == 0) {
+                store.add(USER, FavoriteStore.TYPE_PRODUCT, id);
+            }
+        }
+        assertEquals(2_000 + 666, store.size());
+        for (long id = 1; id <= 2_000; id++) {
+            assertTrue(store.contains(USER, FavoriteStore.TYPE_SCENIC, id));
+            assertEquals(id % 3 == 0, store.contains(USER, FavoriteStore.TYPE_PRODUCT, id));
+        }
+    }
+
+    @Test
+    public void typeIsCaseInsensitiveAndUnknownTypesCountAsScenic() {
+        FavoriteStore store = new FavoriteStore();
+        store.add(USER, "product", 9);
+        assertTrue(store.contains(USER, FavoriteStore.TYPE_PRODUCT, 9));
+        store.add(USER, "UNKNOWN", 9);
+        assertTrue(store.contains(USER, FavoriteStore.TYPE_SCENIC, 9));
+    }
+
+    @Test
+    public void idsThatCannotBePackedAreRejected() {
+        FavoriteStore store = new FavoriteStore();
+        assertFalse(store.add(USER, FavoriteStore.TYPE_SCENIC, 0));
+        assertFalse(store.add(USER, FavoriteStore.TYPE_PRODUCT, -3));
+        // 左移一位后溢出为负数
+        assertFalse(store.add(USER, FavoriteStore.TYPE_SCENIC, 1L << 62));
+        assertFalse(store.contains(USER, FavoriteStore.TYPE_SCENIC, 1L << 62));
+        // 最大可存的 id
+        long max = (1L << 62) - 1;
+        assertTrue(store.add(USER, FavoriteStore.TYPE_PRODUCT, max));
+        assertTrue(store.contains(USER, FavoriteStore.TYPE_PRODUCT, max));
+        assertFalse(store.contains(USER, FavoriteStore.TYPE_SCENIC, max));
+        assertEquals(1, store.size());
+    }
+
+    @Test
+    public void entriesBelongToOneUser() {
+        FavoriteStore store = new FavoriteStore();
+        store.add(USER, FavoriteStore.TYPE_SCENIC, 1);
+        assertFalse(store.contains(USER + 1, FavoriteStore.TYPE_SCENIC, 1));
+        assertFalse(store.remove(USER + 1, FavoriteStore.TYPE_SCENIC, 1));
+        store.add(USER + 1, FavoriteStore.TYPE_SCENIC, 2);
+        assertFalse(store.contains(USER, FavoriteStore.TYPE_SCENIC, 1));
+        assertEquals(1, store.size());
+    }
+
+    @Test
+    public void serverSnapshotIsDroppedWhenLocalEditsHappenedMeanwhile() {
+        FavoriteStore store = new FavoriteStore();
+        assertTrue(store.replaceAllIfUnchanged(USER, store.getVersion(), new long[]{1, 2}, new long[]{2}));
+        assertTrue(store.isLoaded(USER));
+        assertEquals(3, store.size());
+
+        int version = store.getVersion();
+        store.add(USER, FavoriteStore.TYPE_SCENIC, 3);
+        assertFalse(store.replaceAllIfUnchanged(USER, version, new long[]{1}, new long[0]));
+        assertTrue(store.contains(USER, FavoriteStore.TYPE_SCENIC, 3));
+
+        // 内容相同的快照不改变版本号，界面不必刷新
+        version = store.getVersion();
+        assertTrue(store.replaceAllIfUnchanged(USER, version, new long[]{3, 2, 1}, new long[]{2}));
+        assertEquals(version, store.getVersion());
+    }
+}
@@ -0,0 +1,135 @@
+package com.justyn.travelmap.data.local;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * {@link LongHashSet} 与 {@code HashSet<Long>} 对拍：扩容前后的增删查，以及线性探测链中间的删除。
+ */
+public class LongHashSetTest {
+
+    @Test
+    public void addRemoveContainsAcrossResize() {
+        LongHashSet set = new LongHashSet();
+        for (long value = 1; value <= 10_000; value++) {
+            assertTrue(set.add(value * 7));
+            assertFalse(set.add(value * 7));
+            assertEquals(value, set.size());
+            // 每次扩容后之前写入的元素都还能找到
+            assertTrue(set.contains(7));
+            assertTrue(set.contains(value * 7));
+        }
+        for (long value = 1; value <= 10_000; value += 2) {
+            assertTrue(set.remove(value * 7));
+            assertFalse(set.remove(value * 7));
+        }
+        assertEquals(5_000, set.size());
+        for (long value = 1; value <= 10_000; value++) {
+            assertEquals(value % 2 == 0, set.contains(value * 7));
+            assertFalse(set.contains(value * 7 + 1));
+        }
+    }
+
+    @Test
+    public void randomOperationsMatchHashSet() {
+        Random random = new Random(42);
+        LongHashSet set = new LongHashSet();
+        Set<Long> expected = new HashSet<>();
+        for (int i = 0; i < 200_000; i++) {
+            // 值域较小，让插入、重复插入、删除都频繁出现；偶尔混入很大的 id
+            long value = random.nextInt(20) == 0 ? Long.MAX_VALUE - random.nextInt(64) : 1 + random.nextInt(4_096);
+            switch (random.nextInt(3)) {
+                case 0:
+                    assertEquals(expected.add(value), set.add(value));
+                    break;
+                case 1:
+                    assertEquals(expected.remove(value), set.remove(value));
+                    break;
+                default:
+                    assertEquals(expected.contains(value), set.contains(value));
+                    break;
+            }
+            assertEquals(expected.size(), set.size());
+        }
+        for (long value : expected) {
+            assertTrue(set.contains(value));
+        }
+    }
+
+    /**
+     * 16 个槽放 11 个元素（不触发扩容），探测链必然存在；逐个删除链上每个位置的元素，
+     * 其余元素都必须仍可查到，删掉的元素可以重新加入。
+     */
+    @Test
+    public void removeInsideCollisionChainKeepsOtherEntriesReachable() {
+        Random random = new Random(7);
+        for (int trial = 0; trial < 200; trial++) {
+            List<Long> values = new ArrayList<>();
+            while (values.size() < 11) {
+                long value = 1 + random.nextInt(1_000_000);
+                if (!values.contains(value)) {
+                    values.add(value);
+                }
+            }
+            for (long removed : values) {
+                LongHashSet set = new LongHashSet();
+                for (long value : values) {
+                    set.add(value);
+                }
+                assertTrue(set.remove(removed));
+                assertEquals(values.size() - 1, set.size());
+                for (long value : values) {
+                    assertEquals(value != removed, set.contains(value));
+                }
+                assertTrue(set.add(removed));
+                for (long value : values) {
+                    assertTrue(set.contains(value));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void nonPositiveValuesAreRejected() {
+        LongHashSet set = new LongHashSet();
+        assertThrows(IllegalArgumentException.class, () -> set.add(0));
+        assertThrows(IllegalArgumentException.class, () -> set.add(-5));
+        assertFalse(set.contains(0));
+        assertFalse(set.remove(0));
+        assertFalse(set.remove(-5));
+        assertEquals(0, set.size());
+    }
+
+    @Test
+    public void sameElementsIgnoresInsertionOrderAndCapacity() {
+        LongHashSet small = new LongHashSet();
+        LongHashSet grown = new LongHashSet();
+        for (long value = 1; value <= 100; value++) {
+            grown.add(value);
+        }
+        for (long value = 100; value > 10; value--) {
+            grown.remove(value);
+        }
+        for (long value = 10; value >= 1; value--) {
+            small.add(value);
+        }
+        assertTrue(small.sameElements(grown));
+        assertTrue(grown.sameElements(small));
+        grown.remove(3);
+        grown.add(11);
+        assertFalse(small.sameElements(grown));
+        grown.clear();
+        assertEquals(0, grown.size());
+        assertFalse(grown.contains(1));
+    }
+}
@@ -0,0 +1,174 @@
+package com.justyn.travelmap.data.remote;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * {@link BatchDispatcher} 的降级：批量接口返回非 200 或格式不对时，本批子请求逐个改发普通 GET，
+ * 之后本会话不再合并；网络错误仍让整批失败，且不影响之后继续合并。
+ */
+public class BatchDispatcherTest {
+
+    private static final long WINDOW_MS = 300L;
+    private static final int CALLERS = 3;
+
+    @Test
+    public void notFoundFallsBackToPlainGetsAndStopsBatching() throws Exception {
+        FakeClient client = new FakeClient(() -> new ApiResponse(404, "Not Found", null));
+        BatchDispatcher dispatcher = new BatchDispatcher(client, WINDOW_MS);
+
+        assertEachCallerGetsItsOwnResponse(concurrentGets(dispatcher, "a"), "a");
+        assertEquals(1, client.batchPosts.get());
+        assertEquals(CALLERS, client.plainGets.get());
+        assertTrue(dispatcher.isBatchUnavailable());
+
+        assertEachCallerGetsItsOwnResponse(concurrentGets(dispatcher, "b"), "b");
+        assertEquals("batching stays off for the session", 1, client.batchPosts.get());
+        assertEquals(CALLERS * 2, client.plainGets.get());
+        assertEquals(0, dispatcher.getBatchCount());
+    }
+
+    @Test
+    public void malformedBatchResponseFallsBackToPlainGets() throws Exception {
+        FakeClient client = new FakeClient(() -> new ApiResponse(200, "OK", new JSONArray()));
+        BatchDispatcher dispatcher = new BatchDispatcher(client, WINDOW_MS);
+
+        assertEachCallerGetsItsOwnResponse(concurrentGets(dispatcher, "a"), "a");
+        assertEquals(1, client.batchPosts.get());
+        assertEquals(CALLERS, client.plainGets.get());
+        assertTrue(dispatcher.isBatchUnavailable());
+    }
+
+    @Test
+    public void networkErrorFailsTheBatchButKeepsBatching() throws Exception {
+        AtomicInteger attempts = new AtomicInteger();
+        FakeClient client = new FakeClient(() -> {
+            if (attempts.getAndIncrement() == 0) {
+                throw new IOException("connection reset");
+            }
+            return null;
+        });
+        BatchDispatcher dispatcher = new BatchDispatcher(client, WINDOW_MS);
+
+        for (Future<ApiResponse> future : concurrentGets(dispatcher, "a")) {
+            try {
+                future.get();
+                fail("expected the batch to fail");
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof IOException);
+            }
+        }
+        assertEquals(0, client.plainGets.get());
+        assertFalse(dispatcher.isBatchUnavailable());
+
+        assertEachCallerGetsItsOwnResponse(concurrentGets(dispatcher, "b"), "b");
+        assertEquals(2, client.batchPosts.get());
+        assertEquals(0, client.plainGets.get());
+        assertEquals(1, dispatcher.getBatchCount());
+    }
+
+    private static void assertEachCallerGetsItsOwnResponse(List<Future<ApiResponse>> futures, String prefix)
+            throws Exception {
+        for (int i = 0; i < futures.size(); i++) {
+            ApiResponse response = futures.get(i).get();
+            assertTrue(response.isSuccess());
+            assertEquals("/api/" + prefix + "/" + i, response.getData());
+        }
+    }
+
+    /**
+     * 几个调用方同时发起 GET，落在同一个合并窗口内。
+     */
+    private static List<Future<ApiResponse>> concurrentGets(BatchDispatcher dispatcher, String prefix)
+            throws InterruptedException {
+        ExecutorService callers = Executors.newFixedThreadPool(CALLERS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<ApiResponse>> futures = new ArrayList<>();
+        try {
+            for (int i = 0; i < CALLERS; i++) {
+                String path = "/api/" + prefix + "/" + i;
+                futures.add(callers.submit(() -> {
+                    start.await();
+                    return dispatcher.get(path, null);
+                }));
+            }
+            start.countDown();
+            for (Future<ApiResponse> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException ignored) {
+                    // 由调用方检查
+                }
+            }
+        } finally {
+            callers.shutdown();
+        }
+        return futures;
+    }
+
+    private interface BatchReply {
+        ApiResponse reply() throws IOException;
+    }
+
+    /**
+     * {@code /api/batch} 的响应由 {@link BatchReply} 决定（返回 null 表示正常处理）；
+     * 普通 GET 以路径作为 data 返回。
+     */
+    private static final class FakeClient extends ApiClient {
+        final AtomicInteger batchPosts = new AtomicInteger();
+        final AtomicInteger plainGets = new AtomicInteger();
+        private final BatchReply batchReply;
+
+        FakeClient(BatchReply batchReply) {
+            this.batchReply = batchReply;
+        }
+
+        @Override
+        public ApiResponse post(String path, JSONObject payload) throws IOException {
+            assertEquals("/api/batch", path);
+            batchPosts.incrementAndGet();
+            ApiResponse reply = batchReply.reply();
+            if (reply != null) {
+                return reply;
+            }
+            JSONArray requests = payload.optJSONArray("requests");
+            JSONArray results = new JSONArray();
+            for (int i = 0; i < requests.length(); i++) {
+                JSONObject body = new JSONObject();
+                try {
+                    body.put("code", 200);
+                    body.put("msg", "OK");
+                    body.put("data", requests.getJSONObject(i).getString("path"));
+                    results.put(new JSONObject().put("status", 200).put("body", body));
+                } catch (JSONException e) {
+                    throw new IOException(e);
+                }
+            }
+            return new ApiResponse(200, "OK", results);
+        }
+
+        @Override
+        public ApiResponse get(String path, Map<String, String> queryParams) {
+            plainGets.incrementAndGet();
+            return new ApiResponse(200, "OK", path);
+        }
+    }
+}
@@ -0,0 +1,262 @@
+package com.justyn.travelmap.data.remote;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.google.gson.stream.JsonReader;
+import com.justyn.travelmap.model.FeedItem;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * 景点列表三种解码路径在 1k / 10k / 50k 条时的耗时与分配量：
+ * <ul>
+ *     <li>tree：旧做法，响应体读成字符串，建 org.json 树后再遍历成 {@link FeedItem}；</li>
+ *     <li>buffered：响应体读成字符串后再交给 {@link CatalogDecoders}（可缓存接口原来的做法）；</li>
+ *     <li>stream：直接从字节流交给 {@link CatalogDecoders}（{@link ApiClient#getStreaming} 现在的做法）。</li>
+ * </ul>
+ * 后两条路径跑的是真实的 {@link CatalogDecoders}，经 {@link GsonJsonSource} 接到 gson 的流式解析器上，
+ * 并断言结果与 tree 路径逐条相同。“分配”是当前线程在一次解码中分配的总字节数，
+ * “峰值”是解码期间各堆内存池峰值之和减去解码前（GC 后）的已用堆，包含尚未回收的临时对象。
+ */
+public class CatalogDecodeBenchmarkTest {
+
+    private static final int[] SIZES = {1_000, 10_000, 50_000};
+    private static final int ROUNDS = 3;
+
+    @Test
+    public void streamDecodeAllocatesLessThanTreeDecode() throws Exception {
+        for (int size : SIZES) {
+            byte[] body = catalogJson(size, new Random(size));
+            List<FeedItem> expected = decodeTree(body);
+            assertEquals(size, expected.size());
+            assertEquals(expected, decodeBuffered(body));
+            assertEquals(expected, decodeStream(body));
+
+            Result tree = measure(() -> decodeTree(body));
+            Result buffered = measure(() -> decodeBuffered(body));
+            Result stream = measure(() -> decodeStream(body));
+            System.out.println(String.format(Locale.US,
+                    "scenics=%d body=%dKB tree: %.1fms %dKB | buffered: %.1fms %dKB | stream: %.1fms %dKB"
+                            + " | peak tree=%dKB buffered=%dKB stream=%dKB",
+                    size, body.length / 1024,
+                    tree.millis, tree.allocatedBytes / 1024,
+                    buffered.millis, buffered.allocatedBytes / 1024,
+                    stream.millis, stream.allocatedBytes / 1024,
+                    peakHeap(() -> decodeTree(body)) / 1024,
+                    peakHeap(() -> decodeBuffered(body)) / 1024,
+                    peakHeap(() -> decodeStream(body)) / 1024));
+            if (tree.allocatedBytes > 0) {
+                assertTrue("stream should allocate less than tree at " + size,
+                        stream.allocatedBytes < tree.allocatedBytes);
+                assertTrue("stream should allocate less than buffered at " + size,
+                        stream.allocatedBytes < buffered.allocatedBytes);
+            }
+        }
+    }
+
+    private interface Decode {
+        List<FeedItem> run() throws Exception;
+    }
+
+    private static final class Result {
+        final double millis;
+        final long allocatedBytes;
+
+        Result(double millis, long allocatedBytes) {
+            this.millis = millis;
+            this.allocatedBytes = allocatedBytes;
+        }
+    }
+
+    /**
+     * 预热一轮后取 {@link #ROUNDS} 轮的最小耗时与最小分配量。
+     */
+    private static Result measure(Decode decode) throws Exception {
+        decode.run();
+        double bestMillis = Double.MAX_VALUE;
+        long bestBytes = Long.MAX_VALUE;
+        for (int i = 0; i < ROUNDS; i++) {
+            long startBytes = allocatedBytes();
+            long startNanos = System.nanoTime();
+            decode.run();
+            bestMillis = Math.min(bestMillis, (System.nanoTime() - startNanos) / 1e6);
+            bestBytes = Math.min(bestBytes, allocatedBytes() - startBytes);
+        }
+        return new Result(bestMillis, Math.max(0, bestBytes));
+    }
+
+    /**
+     * HotSpot 提供按线程统计的分配字节数；其它 JVM 上返回 -1，测试只输出耗时。
+     */
+    private static long allocatedBytes() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) bean).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return -1;
+    }
+
+    /**
+     * 解码期间的堆峰值：GC 后重置各堆内存池的峰值，解码结束时取峰值之和减去起点。
+     * 各池峰值不一定出现在同一时刻，结果偏大，只用于三条路径之间的比较。
+     */
+    private static long peakHeap(Decode decode) throws Exception {
+        List<MemoryPoolMXBean> pools = new ArrayList<>();
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP && pool.isValid()) {
+                pools.add(pool);
+            }
+        }
+        long before = usedHeap();
+        for (MemoryPoolMXBean pool : pools) {
+            pool.resetPeakUsage();
+        }
+        List<FeedItem> items = decode.run();
+        long peak = 0;
+        for (MemoryPoolMXBean pool : pools) {
+            peak += pool.getPeakUsage().getUsed();
+        }
+        if (items.isEmpty()) {
+            throw new IllegalStateException();
+        }
+        return Math.max(0, peak - before);
+    }
+
+    /**
+     * 几次 GC 后的已用堆。
+     */
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        long used = Long.MAX_VALUE;
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            used = Math.min(used, runtime.totalMemory() - runtime.freeMemory());
+        }
+        return used;
+    }
+
+    private static List<FeedItem> decodeTree(byte[] body) throws Exception {
+        return walkTree(new JSONObject(readBody(body)).getJSONArray("data"));
+    }
+
+    private static List<FeedItem> decodeBuffered(byte[] body) throws IOException {
+        return decodeReader(new StringReader(readBody(body)));
+    }
+
+    private static List<FeedItem> decodeStream(byte[] body) throws IOException {
+        return decodeReader(new BufferedReader(
+                new InputStreamReader(new ByteArrayInputStream(body), StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * 与 user-003 之前 ApiClient.readStream 相同：整段响应体读成字符串。
+     */
+    private static String readBody(byte[] body) throws IOException {
+        StringBuilder builder = new StringBuilder();
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(new ByteArrayInputStream(body), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                builder.append(line);
+            }
+        }
+        return builder.toString();
+    }
+
+    private static List<FeedItem> walkTree(JSONArray array) throws Exception {
+        List<FeedItem> result = new ArrayList<>(array.length());
+        for (int i = 0; i < array.length(); i++) {
+            JSONObject row = array.getJSONObject(i);
+            String description = row.isNull("description") ? null : row.optString("description");
+            String city = row.isNull("city") ? null : row.optString("city");
+            String address = row.isNull("address") ? null : row.optString("address");
+            result.add(scenic(row.optLong("id"),
+                    row.isNull("name") ? null : row.optString("name"),
+                    description, city,
+                    row.isNull("cover_image") ? null : row.optString("cover_image"),
+                    address,
+                    row.isNull("latitude") ? null : row.optDouble("latitude"),
+                    row.isNull("longitude") ? null : row.optDouble("longitude")));
+        }
+        return result;
+    }
+
+    /**
+     * 统一响应结构由测试自己跳过，{@code data} 交给 {@link CatalogDecoders#SCENIC_LIST} 背后的同一个方法。
+     */
+    private static List<FeedItem> decodeReader(Reader source) throws IOException {
+        List<FeedItem> result = null;
+        try (JsonReader reader = new JsonReader(source)) {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                if ("data".equals(reader.nextName())) {
+                    result = CatalogDecoders.readScenicArray(new GsonJsonSource(reader));
+                } else {
+                    reader.skipValue();
+                }
+            }
+            reader.endObject();
+        }
+        return result != null ? result : new ArrayList<>();
+    }
+
+    /**
+     * tree 路径的对照映射，按 org.json 的 null 语义逐字段取值，结果应与 {@link CatalogDecoders} 一致。
+     */
+    private static FeedItem scenic(long id, String name, String description, String city, String coverImage,
+                                   String address, Double lat, Double lng) {
+        return new FeedItem(id,
+                name != null ? name : "未知景点",
+                description != null ? description : (city != null ? city : "精彩旅程等你探索"),
+                coverImage != null ? coverImage : "",
+                null,
+                city != null ? city : "",
+                address == null || address.isEmpty() ? null : address,
+                lat, lng, null, null, null);
+    }
+
+    /**
+     * 与 /api/scenics 相同的字段，描述长度与真实数据相近。
+     */
+    private static byte[] catalogJson(int size, Random random) {
+        String[] cities = {"北京", "上海", "杭州", "成都", "西安", "广州"};
+        StringBuilder builder = new StringBuilder(size * 400);
+        builder.append("{\"code\":200,\"msg\":\"OK\",\"data\":[");
+        for (int i = 1; i <= size; i++) {
+            if (i > 1) {
+                builder.append(',');
+            }
+            String city = cities[random.nextInt(cities.length)];
+            builder.append("{\"id\":").append(i)
+                    .append(",\"name\":\"景点").append(i).append('"')
+                    .append(",\"city\":\"").append(city).append('"')
+                    .append(",\"cover_image\":\"https://img.example.com/scenic/").append(i).append(".jpg\"")
+                    .append(",\"description\":\"").append(city).append("的热门景点，")
+                    .append("四季风景各异，适合家庭出游与摄影，建议游玩半天到一天。").append('"')
+                    .append(",\"address\":\"").append(city).append("市某区某路").append(i).append("号\"")
+                    .append(",\"latitude\":").append(String.format(Locale.US, "%.6f", 18 + random.nextDouble() * 23))
+                    .append(",\"longitude\":").append(String.format(Locale.US, "%.6f", 100 + random.nextDouble() * 22))
+                    .append(",\"audio_url\":null}");
+        }
+        builder.append("]}");
+        return builder.toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
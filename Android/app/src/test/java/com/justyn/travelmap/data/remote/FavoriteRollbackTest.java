@@ -0,0 +1,121 @@
+package com.justyn.travelmap.data.remote;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import com.justyn.travelmap.data.local.FavoriteStore;
+import com.justyn.travelmap.data.local.VisitedIndex;
+
+import org.json.JSONObject;
+import org.junit.Test;
+
+import java.io.IOException;
+
+/**
+ * {@link UserCenterRepository} 收藏 / 取消收藏先乐观更新 {@link FavoriteStore}，
+ * 服务端调用失败（网络异常或非 200）时撤销这次修改，且不动调用前就已存在的状态。
+ */
+public class FavoriteRollbackTest {
+
+    private static final long USER = 3L;
+
+    @Test
+    public void failedAddIsRolledBack() {
+        FavoriteStore store = new FavoriteStore();
+        FailingClient client = new FailingClient(store, FavoriteStore.TYPE_SCENIC, 10, true);
+        UserCenterRepository repository = new UserCenterRepository(client, new VisitedIndex(), store);
+
+        assertThrows(IOException.class, () -> repository.addFavorite(USER, 10, FavoriteStore.TYPE_SCENIC));
+        assertTrue("optimistic add should be visible while the request runs", client.sawFavorite);
+        assertFalse(store.contains(USER, FavoriteStore.TYPE_SCENIC, 10));
+        assertEquals(0, store.size());
+    }
+
+    @Test
+    public void rejectedAddIsRolledBack() {
+        FavoriteStore store = new FavoriteStore();
+        FailingClient client = new FailingClient(store, FavoriteStore.TYPE_PRODUCT, 10, false);
+        UserCenterRepository repository = new UserCenterRepository(client, new VisitedIndex(), store);
+
+        assertThrows(IOException.class, () -> repository.addFavorite(USER, 10, FavoriteStore.TYPE_PRODUCT));
+        assertTrue(client.sawFavorite);
+        assertFalse(store.contains(USER, FavoriteStore.TYPE_PRODUCT, 10));
+    }
+
+    @Test
+    public void failedAddKeepsAnExistingFavorite() {
+        FavoriteStore store = new FavoriteStore();
+        store.add(USER, FavoriteStore.TYPE_SCENIC, 10);
+        UserCenterRepository repository = new UserCenterRepository(
+                new FailingClient(store, FavoriteStore.TYPE_SCENIC, 10, true), new VisitedIndex(), store);
+
+        assertThrows(IOException.class, () -> repository.addFavorite(USER, 10, FavoriteStore.TYPE_SCENIC));
+        assertTrue(store.contains(USER, FavoriteStore.TYPE_SCENIC, 10));
+    }
+
+    @Test
+    public void failedRemoveIsRolledBack() {
+        FavoriteStore store = new FavoriteStore();
+        store.add(USER, FavoriteStore.TYPE_PRODUCT, 10);
+        store.add(USER, FavoriteStore.TYPE_SCENIC, 10);
+        FailingClient client = new FailingClient(store, FavoriteStore.TYPE_PRODUCT, 10, true);
+        UserCenterRepository repository = new UserCenterRepository(client, new VisitedIndex(), store);
+
+        assertThrows(IOException.class, () -> repository.removeFavorite(USER, 10, FavoriteStore.TYPE_PRODUCT));
+        assertFalse("optimistic remove should be visible while the request runs", client.sawFavorite);
+        assertTrue(store.contains(USER, FavoriteStore.TYPE_PRODUCT, 10));
+        assertTrue(store.contains(USER, FavoriteStore.TYPE_SCENIC, 10));
+        assertEquals(2, store.size());
+    }
+
+    @Test
+    public void failedRemoveDoesNotResurrectAMissingFavorite() {
+        FavoriteStore store = new FavoriteStore();
+        store.add(USER, FavoriteStore.TYPE_SCENIC, 11);
+        UserCenterRepository repository = new UserCenterRepository(
+                new FailingClient(store, FavoriteStore.TYPE_SCENIC, 10, false), new VisitedIndex(), store);
+
+        assertThrows(IOException.class, () -> repository.removeFavorite(USER, 10, FavoriteStore.TYPE_SCENIC));
+        assertFalse(store.contains(USER, FavoriteStore.TYPE_SCENIC, 10));
+        assertEquals(1, store.size());
+    }
+
+    /**
+     * 收藏接口总是失败：{@code throwing} 为 true 时抛网络异常，否则返回非 200；
+     * 同时记录请求发出时本地是否已经是乐观更新后的状态。
+     */
+    private static final class FailingClient extends ApiClient {
+        private final FavoriteStore store;
+        private final String type;
+        private final long targetId;
+        private final boolean throwing;
+        boolean sawFavorite;
+
+        FailingClient(FavoriteStore store, String type, long targetId, boolean throwing) {
+            this.store = store;
+            this.type = type;
+            this.targetId = targetId;
+            this.throwing = throwing;
+        }
+
+        @Override
+        public ApiResponse post(String path, JSONObject payload) throws IOException {
+            return fail();
+        }
+
+        @Override
+        public ApiResponse delete(String path, JSONObject payload) throws IOException {
+            return fail();
+        }
+
+        private ApiResponse fail() throws IOException {
+            sawFavorite = store.contains(USER, type, targetId);
+            if (throwing) {
+                throw new IOException("connection reset");
+            }
+            return new ApiResponse(500, "服务器错误", null);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.justyn.travelmap.data.remote;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.IOException;
+
+/**
+ * 用 gson 的 {@link JsonReader} 实现 {@link JsonSource}，让 {@link CatalogDecoders} 在 JVM 上运行。
+ */
+final class GsonJsonSource implements JsonSource {
+
+    private static final Token[] TOKENS = new Token[JsonToken.values().length];
+
+    static {
+        for (JsonToken token : JsonToken.values()) {
+            TOKENS[token.ordinal()] = Token.valueOf(token.name());
+        }
+    }
+
+    private final JsonReader reader;
+
+    GsonJsonSource(JsonReader reader) {
+        this.reader = reader;
+    }
+
+    @Override
+    public Token peek() throws IOException {
+        return TOKENS[reader.peek().ordinal()];
+    }
+
+    @Override
+    public void beginArray() throws IOException {
+        reader.beginArray();
+    }
+
+    @Override
+    public void endArray() throws IOException {
+        reader.endArray();
+    }
+
+    @Override
+    public void beginObject() throws IOException {
+        reader.beginObject();
+    }
+
+    @Override
+    public void endObject() throws IOException {
+        reader.endObject();
+    }
+
+    @Override
+    public boolean hasNext() throws IOException {
+        return reader.hasNext();
+    }
+
+    @Override
+    public String nextName() throws IOException {
+        return reader.nextName();
+    }
+
+    @Override
+    public String nextString() throws IOException {
+        return reader.nextString();
+    }
+
+    @Override
+    public boolean nextBoolean() throws IOException {
+        return reader.nextBoolean();
+    }
+
+    @Override
+    public void nextNull() throws IOException {
+        reader.nextNull();
+    }
+
+    @Override
+    public void skipValue() throws IOException {
+        reader.skipValue();
+    }
+}
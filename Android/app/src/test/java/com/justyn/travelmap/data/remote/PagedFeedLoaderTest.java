@@ -0,0 +1,418 @@
+package com.justyn.travelmap.data.remote;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import androidx.annotation.Nullable;
+
+import com.justyn.travelmap.data.local.CatalogReplica;
+import com.justyn.travelmap.model.FeedItem;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link PagedFeedLoader} 的淘汰与空页保护、多类型游标 {@code <类型下标>:<类型内游标>}、
+ * 远程多类型第一页的并发请求，以及增量同步中 tombstone 的应用。
+ */
+public class PagedFeedLoaderTest {
+
+    @Test
+    public void loadsPagesInOrderUntilExhausted() throws Exception {
+        PagedFeedLoader loader = new PagedFeedLoader(idPages(1, 5), 2, 10);
+        assertEquals(ids(1, 2), idsOf(loader.loadFirst()));
+        assertEquals(ids(1, 4), idsOf(loader.loadNext()));
+        assertTrue(loader.hasMore());
+        assertEquals(ids(1, 5), idsOf(loader.loadNext()));
+        assertFalse(loader.hasMore());
+        assertEquals(ids(1, 5), idsOf(loader.loadNext()));
+        assertFalse(loader.hasTrimmedHead());
+    }
+
+    @Test
+    public void evictsOldestItemsBeyondMaxResident() throws Exception {
+        PagedFeedLoader loader = new PagedFeedLoader(idPages(1, 10), 2, 4);
+        loader.loadFirst();
+        loader.loadNext();
+        assertFalse(loader.hasTrimmedHead());
+        assertEquals(ids(3, 6), idsOf(loader.loadNext()));
+        assertTrue(loader.hasTrimmedHead());
+        assertEquals(ids(5, 8), idsOf(loader.loadNext()));
+
+        // 回到顶部重新加载第一页后淘汰标记清零
+        assertEquals(ids(1, 2), idsOf(loader.loadFirst()));
+        assertFalse(loader.hasTrimmedHead());
+        assertTrue(loader.hasMore());
+    }
+
+    @Test
+    public void maxResidentIsAtLeastOnePage() throws Exception {
+        PagedFeedLoader loader = new PagedFeedLoader(idPages(1, 10), 3, 1);
+        assertEquals(ids(1, 3), idsOf(loader.loadFirst()));
+        assertEquals(ids(4, 6), idsOf(loader.loadNext()));
+        assertTrue(loader.hasTrimmedHead());
+    }
+
+    @Test
+    public void skipsEmptyPagesUntilItemsArrive() throws Exception {
+        List<String> cursors = new ArrayList<>();
+        PagedFeedLoader.PageSource source = (cursor, limit) -> {
+            cursors.add(cursor);
+            int calls = cursors.size();
+            if (calls == 1) {
+                return new FeedPage(items(1, 2), "a");
+            }
+            if (calls < 4) {
+                return new FeedPage(Collections.emptyList(), "empty" + calls);
+            }
+            return new FeedPage(items(3, 3), null);
+        };
+        PagedFeedLoader loader = new PagedFeedLoader(source, 2, 10);
+        loader.loadFirst();
+        assertEquals(ids(1, 3), idsOf(loader.loadNext()));
+        assertEquals(Arrays.asList(null, "a", "empty2", "empty3"), cursors);
+        assertFalse(loader.hasMore());
+    }
+
+    @Test
+    public void stopsAfterMaxEmptyPages() throws Exception {
+        int[] calls = {0};
+        PagedFeedLoader.PageSource source = (cursor, limit) -> {
+            calls[0]++;
+            // 异常数据：永远返回空页但游标不为空
+            return new FeedPage(Collections.emptyList(), "again");
+        };
+        PagedFeedLoader loader = new PagedFeedLoader(source, 2, 10);
+        assertTrue(loader.loadFirst().isEmpty());
+        assertFalse(loader.hasMore());
+        // 第一页 + 连续 4 个空页后视为到底
+        assertEquals(5, calls[0]);
+        loader.loadNext();
+        assertEquals(5, calls[0]);
+    }
+
+    @Test
+    public void chainedCursorWalksTypesInOrder() throws Exception {
+        Map<String, List<FeedItem>> byType = new HashMap<>();
+        byType.put("TICKET", items(1, 3));
+        byType.put("HOTEL", Collections.emptyList());
+        byType.put("TRAVEL", items(10, 11));
+        List<String> calls = new ArrayList<>();
+        PagedFeedLoader.PageSource chained = TravelRepository.chainTypes(
+                new String[]{"TICKET", "HOTEL", "TRAVEL"}, (type, cursor, limit) -> {
+                    calls.add(type + "@" + cursor);
+                    return idPage(byType.get(type), cursor, limit);
+                });
+
+        FeedPage page = chained.load(null, 2);
+        assertEquals(ids(1, 2), idsOf(page.getItems()));
+        assertEquals("0:2", page.getNextCursor());
+
+        page = chained.load(page.getNextCursor(), 2);
+        assertEquals(ids(3, 3), idsOf(page.getItems()));
+        // 类型翻完后从下一个类型的第一页开始，类型内游标为空
+        assertEquals("1:", page.getNextCursor());
+
+        page = chained.load(page.getNextCursor(), 2);
+        assertTrue(page.getItems().isEmpty());
+        assertEquals("2:", page.getNextCursor());
+
+        page = chained.load(page.getNextCursor(), 2);
+        assertEquals(ids(10, 11), idsOf(page.getItems()));
+        assertNull(page.getNextCursor());
+        assertEquals(Arrays.asList("TICKET@null", "TICKET@2", "HOTEL@null", "TRAVEL@null"), calls);
+    }
+
+    @Test
+    public void chainedCursorThroughLoaderSkipsEmptyType() throws Exception {
+        Map<String, List<FeedItem>> byType = new HashMap<>();
+        byType.put("TICKET", items(1, 2));
+        byType.put("HOTEL", Collections.emptyList());
+        byType.put("TRAVEL", items(10, 12));
+        PagedFeedLoader loader = new PagedFeedLoader(TravelRepository.chainTypes(
+                new String[]{"TICKET", "HOTEL", "TRAVEL"},
+                (type, cursor, limit) -> idPage(byType.get(type), cursor, limit)), 2, 10);
+        assertEquals(ids(1, 2), idsOf(loader.loadFirst()));
+        List<Long> expected = new ArrayList<>(ids(1, 2));
+        expected.addAll(ids(10, 11));
+        assertEquals(expected, idsOf(loader.loadNext()));
+        expected.add(12L);
+        assertEquals(expected, idsOf(loader.loadNext()));
+        assertFalse(loader.hasMore());
+    }
+
+    @Test
+    public void chainedCursorRejectsMalformedCursors() {
+        PagedFeedLoader.PageSource chained = TravelRepository.chainTypes(new String[]{"TICKET", "HOTEL"},
+                (type, cursor, limit) -> new FeedPage(Collections.emptyList(), null));
+        for (String cursor : new String[]{"2:", "-1:5", "x:5", "5", ""}) {
+            assertThrows(cursor, IOException.class, () -> chained.load(cursor, 2));
+        }
+    }
+
+    @Test
+    public void fanOutRequestsFirstPagesConcurrentlyThenChainsCursors() throws Exception {
+        Map<String, List<FeedItem>> byType = new HashMap<>();
+        byType.put("TICKET", items(1, 3));
+        byType.put("HOTEL", items(5, 6));
+        byType.put("TRAVEL", items(10, 12));
+        // 三个类型的第一页都在途时才放行：顺序执行会在这里超时
+        CountDownLatch inFlight = new CountDownLatch(3);
+        List<String> calls = Collections.synchronizedList(new ArrayList<>());
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            PagedFeedLoader.PageSource source = TravelRepository.fanOutTypes(
+                    new String[]{"TICKET", "HOTEL", "TRAVEL"}, (type, cursor, limit) -> {
+                        calls.add(type + "@" + cursor);
+                        if (cursor == null) {
+                            inFlight.countDown();
+                            try {
+                                if (!inFlight.await(5, TimeUnit.SECONDS)) {
+                                    throw new IOException("first pages were not requested concurrently");
+                                }
+                            } catch (InterruptedException e) {
+                                throw new IOException(e);
+                            }
+                        }
+                        return idPage(byType.get(type), cursor, limit);
+                    }, executor, TravelRepository.FanOutPolicy.FAIL_FAST);
+
+            FeedPage page = source.load(null, 2);
+            List<Long> expected = new ArrayList<>(ids(1, 2));
+            expected.addAll(ids(5, 6));
+            expected.addAll(ids(10, 11));
+            assertEquals(expected, idsOf(page.getItems()));
+            assertEquals("0:2,2:11", page.getNextCursor());
+
+            page = source.load(page.getNextCursor(), 2);
+            assertEquals(ids(3, 3), idsOf(page.getItems()));
+            assertEquals("2:11", page.getNextCursor());
+
+            page = source.load(page.getNextCursor(), 2);
+            assertEquals(ids(12, 12), idsOf(page.getItems()));
+            assertNull(page.getNextCursor());
+            assertEquals(Arrays.asList("TICKET@2", "TRAVEL@11"), calls.subList(3, calls.size()));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void fanOutPolicyDecidesWhetherOneFailedTypeFailsThePage() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            TravelRepository.TypedPageSource flaky = (type, cursor, limit) -> {
+                if ("HOTEL".equals(type)) {
+                    throw new IOException("hotel down");
+                }
+                return idPage(items(1, 3), cursor, limit);
+            };
+            String[] types = {"TICKET", "HOTEL"};
+            FeedPage page = TravelRepository.fanOutTypes(types, flaky, executor,
+                    TravelRepository.FanOutPolicy.BEST_EFFORT).load(null, 2);
+            assertEquals(ids(1, 2), idsOf(page.getItems()));
+            // 失败的类型不再出现在游标里
+            assertEquals("0:2", page.getNextCursor());
+
+            assertThrows(IOException.class, () -> TravelRepository.fanOutTypes(types, flaky, executor,
+                    TravelRepository.FanOutPolicy.FAIL_FAST).load(null, 2));
+            assertThrows(IOException.class, () -> TravelRepository.fanOutTypes(new String[]{"HOTEL", "HOTEL"},
+                    flaky, executor, TravelRepository.FanOutPolicy.BEST_EFFORT).load(null, 2));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void fanOutRejectsMalformedCursors() {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            PagedFeedLoader.PageSource source = TravelRepository.fanOutTypes(new String[]{"TICKET", "HOTEL"},
+                    (type, cursor, limit) -> new FeedPage(Collections.emptyList(), null), executor,
+                    TravelRepository.FanOutPolicy.FAIL_FAST);
+            for (String cursor : new String[]{"2:5", "-1:5", "x:5", "0:", "1:5,0:3", "0:5,0:6", "5", ""}) {
+                assertThrows(cursor, IOException.class, () -> source.load(cursor, 2));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void syncAppliesUpsertsAndTombstones() throws Exception {
+        List<JSONObject> deltas = new ArrayList<>();
+        List<Map<String, String>> queries = new ArrayList<>();
+        ApiClient client = new ApiClient() {
+            @Override
+            public ApiResponse get(String path, Map<String, String> queryParams) {
+                queries.add(new HashMap<>(queryParams));
+                return new ApiResponse(200, "OK", deltas.remove(0));
+            }
+        };
+        TravelRepository repository = new TravelRepository(client, new RequestCoalescer());
+        MemoryReplica replica = new MemoryReplica();
+
+        deltas.add(delta(5, true, new long[]{1, 2, 3, 4}, new long[0]));
+        repository.syncCatalog(replica, TravelRepository.ENTITY_PRODUCT, "/api/products");
+        assertEquals("0", queries.get(0).get("since"));
+        assertEquals(ids(1, 4), new ArrayList<>(replica.rows.keySet()));
+        assertEquals("HOTEL", replica.tags.get(2L));
+
+        // 2 被修改、3 被删除、99 本地从未同步过
+        deltas.add(delta(8, false, new long[]{2}, new long[]{3, 99}));
+        repository.syncCatalog(replica, TravelRepository.ENTITY_PRODUCT, "/api/products");
+        assertEquals("5", queries.get(1).get("since"));
+        assertEquals(Arrays.asList(1L, 2L, 4L), new ArrayList<>(replica.rows.keySet()));
+        assertEquals(8, new JSONObject(replica.rows.get(2L)).getInt("revision"));
+        assertEquals(8L, replica.getSyncVersion(TravelRepository.ENTITY_PRODUCT));
+
+        // 全量结果先清空副本，之前的行即使不在 deletes 里也不会残留
+        deltas.add(delta(9, true, new long[]{4, 5}, new long[0]));
+        repository.syncCatalog(replica, TravelRepository.ENTITY_PRODUCT, "/api/products");
+        assertEquals("8", queries.get(2).get("since"));
+        assertEquals(Arrays.asList(4L, 5L), new ArrayList<>(replica.rows.keySet()));
+        assertEquals(Arrays.asList(4L), rowIds(replica.loadRows(TravelRepository.ENTITY_PRODUCT, "HOTEL", 0, 10)));
+        assertEquals(Arrays.asList(5L), rowIds(replica.loadRows(TravelRepository.ENTITY_PRODUCT, "TICKET", 0, 10)));
+    }
+
+    /**
+     * 与 CatalogStore 的 SQL 语义一致的内存副本：先按 full 清空，再写 upserts，最后删除 tombstone。
+     */
+    private static final class MemoryReplica implements CatalogReplica {
+        final TreeMap<Long, String> rows = new TreeMap<>();
+        final Map<Long, String> tags = new HashMap<>();
+        private final Map<String, Long> versions = new HashMap<>();
+
+        @Override
+        public long getSyncVersion(String entity) {
+            Long version = versions.get(entity);
+            return version != null ? version : 0L;
+        }
+
+        @Override
+        public void applyDelta(String entity, boolean full, List<Row> upserts, long[] deletes, long version) {
+            if (full) {
+                rows.clear();
+                tags.clear();
+            }
+            for (Row row : upserts) {
+                rows.put(row.getId(), row.getJson());
+                tags.put(row.getId(), row.getTag());
+            }
+            for (long id : deletes) {
+                rows.remove(id);
+                tags.remove(id);
+            }
+            versions.put(entity, version);
+        }
+
+        @Override
+        public List<String> loadRows(String entity, @Nullable String tag, long afterId, int limit) {
+            List<String> result = new ArrayList<>();
+            for (Map.Entry<Long, String> entry : rows.tailMap(afterId, false).entrySet()) {
+                if (result.size() >= limit) {
+                    break;
+                }
+                if (tag == null || tag.equals(tags.get(entry.getKey()))) {
+                    result.add(entry.getValue());
+                }
+            }
+            return result;
+        }
+    }
+
+    private static JSONObject delta(long version, boolean full, long[] upserts, long[] deletes) throws Exception {
+        JSONArray rows = new JSONArray();
+        for (long id : upserts) {
+            rows.put(new JSONObject()
+                    .put("id", id)
+                    .put("type", id % 2 == 0 ? "hotel" : "ticket")
+                    .put("revision", version));
+        }
+        JSONArray tombstones = new JSONArray();
+        for (long id : deletes) {
+            tombstones.put(id);
+        }
+        return new JSONObject()
+                .put("version", version)
+                .put("full", full)
+                .put("upserts", rows)
+                .put("deletes", tombstones);
+    }
+
+    private static List<Long> rowIds(List<String> rows) throws Exception {
+        List<Long> result = new ArrayList<>(rows.size());
+        for (String json : rows) {
+            result.add(new JSONObject(json).getLong("id"));
+        }
+        return result;
+    }
+
+    /**
+     * 以 id 为游标的数据源，与服务端 {@code cursor=<上一页最后一条 id>} 的语义一致。
+     */
+    private static PagedFeedLoader.PageSource idPages(long first, long last) {
+        List<FeedItem> all = items(first, last);
+        return (cursor, limit) -> idPage(all, cursor, limit);
+    }
+
+    private static FeedPage idPage(List<FeedItem> all, @Nullable String cursor, int limit) {
+        long afterId = cursor != null ? Long.parseLong(cursor) : Long.MIN_VALUE;
+        List<FeedItem> page = new ArrayList<>();
+        boolean more = false;
+        for (FeedItem item : all) {
+            if (item.getId() <= afterId) {
+                continue;
+            }
+            if (page.size() == limit) {
+                more = true;
+                break;
+            }
+            page.add(item);
+        }
+        String next = more ? String.valueOf(page.get(page.size() - 1).getId()) : null;
+        return new FeedPage(page, next);
+    }
+
+    private static List<FeedItem> items(long first, long last) {
+        List<FeedItem> result = new ArrayList<>();
+        for (long id = first; id <= last; id++) {
+            result.add(new FeedItem(id, "item" + id, "", "", null, "", null,
+                    null, null, null, null, null));
+        }
+        return result;
+    }
+
+    private static List<Long> ids(long first, long last) {
+        List<Long> result = new ArrayList<>();
+        for (long id = first; id <= last; id++) {
+            result.add(id);
+        }
+        return result;
+    }
+
+    private static List<Long> idsOf(List<FeedItem> items) {
+        List<Long> result = new ArrayList<>(items.size());
+        for (FeedItem item : items) {
+            result.add(item.getId());
+        }
+        return result;
+    }
+}
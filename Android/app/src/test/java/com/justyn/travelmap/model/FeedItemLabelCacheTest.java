@@ -0,0 +1,75 @@
+package com.justyn.travelmap.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+
+/**
+ * 卡片展示文本的缓存：重复绑定返回同一个 String 实例，格式串变化（如切换语言）后重新生成。
+ */
+public class FeedItemLabelCacheTest {
+
+    private static final String STOCK_ZH = "库存：%1$d";
+    private static final String STOCK_EN = "Stock: %1$d";
+    private static final String VISIT_ZH = "拜访时间：%1$s";
+    private static final String VISIT_EN = "Visited: %1$s";
+
+    @Test
+    public void constructorLabelsAreComputedOnce() {
+        FeedItem item = item(12, "2024-05-01");
+        assertEquals("西湖区", item.getAddressLabel());
+        assertSame(item.getLatLngLabel(), item.getLatLngLabel());
+    }
+
+    @Test
+    public void stockLabelIsReusedAcrossBinds() {
+        FeedItem item = item(12, null);
+        String first = item.getStockLabel(STOCK_ZH);
+        assertEquals("库存：12", first);
+        for (int i = 0; i < 3; i++) {
+            // 资源里取出的格式串每次可能是新实例，内容相同即可命中缓存
+            assertSame(first, item.getStockLabel(new String(STOCK_ZH)));
+        }
+    }
+
+    @Test
+    public void stockLabelIsRebuiltWhenFormatChanges() {
+        FeedItem item = item(12, null);
+        String zh = item.getStockLabel(STOCK_ZH);
+        String en = item.getStockLabel(STOCK_EN);
+        assertEquals("Stock: 12", en);
+        assertSame(en, item.getStockLabel(STOCK_EN));
+        String zhAgain = item.getStockLabel(STOCK_ZH);
+        assertEquals(zh, zhAgain);
+        assertNotSame(en, zhAgain);
+    }
+
+    @Test
+    public void visitTimeLabelIsReusedAndRebuiltOnFormatChange() {
+        FeedItem item = item(null, "2024-05-01");
+        String first = item.getVisitTimeLabel(VISIT_ZH);
+        assertEquals("拜访时间：2024-05-01", first);
+        assertSame(first, item.getVisitTimeLabel(VISIT_ZH));
+        assertEquals("Visited: 2024-05-01", item.getVisitTimeLabel(VISIT_EN));
+        assertSame(item.getVisitTimeLabel(VISIT_EN), item.getVisitTimeLabel(VISIT_EN));
+    }
+
+    @Test
+    public void missingValuesHaveNoLabel() {
+        FeedItem item = item(null, null);
+        assertNull(item.getStockLabel(STOCK_ZH));
+        assertNull(item.getVisitTimeLabel(VISIT_ZH));
+        assertNull(item(-1, "").getStockLabel(STOCK_ZH));
+        assertNull(item(-1, "").getVisitTimeLabel(VISIT_ZH));
+        assertNull(new FeedItem(1L, "t", "d", "i").getAddressLabel());
+        assertNull(new FeedItem(1L, "t", "d", "i").getLatLngLabel());
+    }
+
+    private static FeedItem item(Integer stock, String visitTime) {
+        return new FeedItem(1L, "西湖", "desc", "img", null, "杭州", "西湖区", 30.25, 120.15, stock,
+                visitTime, null);
+    }
+}
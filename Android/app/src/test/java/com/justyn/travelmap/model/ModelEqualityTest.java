@@ -0,0 +1,100 @@
+package com.justyn.travelmap.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+import org.junit.Test;
+
+/**
+ * 列表 diff 依赖的 equals / hashCode：字段相同的不同实例相等，任一字段不同即不相等，
+ * 缓存的展示文本不参与比较。
+ */
+public class ModelEqualityTest {
+
+    @Test
+    public void feedItemEqualWhenAllFieldsEqual() {
+        FeedItem a = feed(1L);
+        FeedItem b = feed(1L);
+        assertEquals(a, b);
+        assertEquals(a.hashCode(), b.hashCode());
+
+        // 只在一侧生成过缓存文本，仍然相等
+        a.getStockLabel("库存：%1$d");
+        a.getVisitTimeLabel("拜访时间：%1$s");
+        assertEquals(a, b);
+        assertEquals(a.hashCode(), b.hashCode());
+    }
+
+    @Test
+    public void feedItemDiffersOnEveryField() {
+        FeedItem base = feed(1L);
+        FeedItem[] variants = {
+                new FeedItem(2L, "西湖", "desc", "img", "¥10", "杭州", "addr", 30.25, 120.15, 5, "2024-05-01", "评分：5/5"),
+                new FeedItem(1L, "灵隐寺", "desc", "img", "¥10", "杭州", "addr", 30.25, 120.15, 5, "2024-05-01", "评分：5/5"),
+                new FeedItem(1L, "西湖", "other", "img", "¥10", "杭州", "addr", 30.25, 120.15, 5, "2024-05-01", "评分：5/5"),
+                new FeedItem(1L, "西湖", "desc", "img2", "¥10", "杭州", "addr", 30.25, 120.15, 5, "2024-05-01", "评分：5/5"),
+                new FeedItem(1L, "西湖", "desc", "img", "¥11", "杭州", "addr", 30.25, 120.15, 5, "2024-05-01", "评分：5/5"),
+                new FeedItem(1L, "西湖", "desc", "img", "¥10", "苏州", "addr", 30.25, 120.15, 5, "2024-05-01", "评分：5/5"),
+                new FeedItem(1L, "西湖", "desc", "img", "¥10", "杭州", null, 30.25, 120.15, 5, "2024-05-01", "评分：5/5"),
+                new FeedItem(1L, "西湖", "desc", "img", "¥10", "杭州", "addr", 30.26, 120.15, 5, "2024-05-01", "评分：5/5"),
+                new FeedItem(1L, "西湖", "desc", "img", "¥10", "杭州", "addr", 30.25, null, 5, "2024-05-01", "评分：5/5"),
+                new FeedItem(1L, "西湖", "desc", "img", "¥10", "杭州", "addr", 30.25, 120.15, 4, "2024-05-01", "评分：5/5"),
+                new FeedItem(1L, "西湖", "desc", "img", "¥10", "杭州", "addr", 30.25, 120.15, 5, "2024-05-02", "评分：5/5"),
+                new FeedItem(1L, "西湖", "desc", "img", "¥10", "杭州", "addr", 30.25, 120.15, 5, "2024-05-01", null),
+        };
+        for (FeedItem variant : variants) {
+            assertNotEquals(base, variant);
+            assertNotEquals(variant, base);
+        }
+        assertNotEquals(base, null);
+        assertNotEquals(base, "西湖");
+    }
+
+    @Test
+    public void feedItemWithNullFields() {
+        FeedItem a = new FeedItem(3L, null, null, null);
+        FeedItem b = new FeedItem(3L, null, null, null);
+        assertEquals(a, b);
+        assertEquals(a.hashCode(), b.hashCode());
+        assertNotEquals(a, new FeedItem(3L, "", null, null));
+    }
+
+    @Test
+    public void cartItemComparesQuantityPriceAndProduct() {
+        CartItem a = new CartItem(7L, 2, feed(1L), 99.5);
+        CartItem b = new CartItem(7L, 2, feed(1L), 99.5);
+        assertEquals(a, b);
+        assertEquals(a.hashCode(), b.hashCode());
+        assertNotEquals(a, new CartItem(8L, 2, feed(1L), 99.5));
+        assertNotEquals(a, new CartItem(7L, 3, feed(1L), 99.5));
+        assertNotEquals(a, new CartItem(7L, 2, feed(2L), 99.5));
+        assertNotEquals(a, new CartItem(7L, 2, feed(1L), 99.0));
+        assertNotEquals(a, new CartItem(7L, 2, null, 99.5));
+        assertEquals(new CartItem(7L, 2, null, 99.5), new CartItem(7L, 2, null, 99.5));
+    }
+
+    @Test
+    public void orderItemDetailComparesAllFields() {
+        OrderItemDetail a = new OrderItemDetail(5L, 1, 120.0, feed(1L), 9L);
+        OrderItemDetail b = new OrderItemDetail(5L, 1, 120.0, feed(1L), 9L);
+        assertEquals(a, b);
+        assertEquals(a.hashCode(), b.hashCode());
+        assertNotEquals(a, new OrderItemDetail(6L, 1, 120.0, feed(1L), 9L));
+        assertNotEquals(a, new OrderItemDetail(5L, 2, 120.0, feed(1L), 9L));
+        assertNotEquals(a, new OrderItemDetail(5L, 1, 121.0, feed(1L), 9L));
+        assertNotEquals(a, new OrderItemDetail(5L, 1, 120.0, feed(2L), 9L));
+        assertNotEquals(a, new OrderItemDetail(5L, 1, 120.0, feed(1L), 10L));
+    }
+
+    @Test
+    public void priceComparisonTreatsNaNAsEqual() {
+        // Double.compare：NaN 与自身相等，0.0 与 -0.0 不等，保证 equals 与 hashCode 一致
+        assertEquals(new CartItem(1L, 1, null, Double.NaN), new CartItem(1L, 1, null, Double.NaN));
+        assertNotEquals(new CartItem(1L, 1, null, 0.0), new CartItem(1L, 1, null, -0.0));
+    }
+
+    private static FeedItem feed(long id) {
+        return new FeedItem(id, "西湖", "desc", "img", "¥10", "杭州", "addr", 30.25, 120.15, 5,
+                "2024-05-01", "评分：5/5");
+    }
+}
@@ -0,0 +1,148 @@
+package com.justyn.travelmap.ui.feed;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import androidx.annotation.Nullable;
+
+import com.justyn.travelmap.model.FeedItem;
+
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 10k 条 {@link FeedItem} 经 {@link FeedCardBinder} 绑定到假的卡片：首次绑定会格式化库存 / 拜访时间文本，
+ * 预热之后的重复绑定（列表来回滑动）每次的分配量应接近 0。分配量取当前线程分配的字节数，
+ * 与 CatalogDecodeBenchmarkTest 相同；非 HotSpot JVM 上只校验绑定结果。
+ */
+public class FeedCardBindAllocationTest {
+
+    private static final int SIZE = 10_000;
+    private static final int WARMUP_ROUNDS = 20;
+    private static final int ROUNDS = 5;
+    private static final String STOCK_FORMAT = "库存：%1$d";
+    private static final String VISIT_TIME_FORMAT = "拜访时间：%1$s";
+
+    @Test
+    public void rebindAfterWarmupAllocatesAlmostNothing() {
+        List<FeedItem> items = feed(SIZE);
+        RecordingCard card = new RecordingCard();
+
+        long firstBind = allocatedBytes();
+        bindAll(card, items);
+        firstBind = allocatedBytes() - firstBind;
+
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            bindAll(card, items);
+        }
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < ROUNDS; i++) {
+            long start = allocatedBytes();
+            bindAll(card, items);
+            best = Math.min(best, allocatedBytes() - start);
+        }
+        System.out.println(String.format(Locale.US,
+                "binds=%d first pass: %.1f B/bind | after warmup: %.3f B/bind",
+                SIZE, firstBind / (double) SIZE, best / (double) SIZE));
+
+        // 每 5 条有 4 条带库存或拜访时间，每条可选文本都有内容
+        assertEquals(SIZE * 4L / 5, card.stockOrVisitShown);
+        if (firstBind < 0) {
+            return;
+        }
+        assertTrue("first bind should format the cached labels", firstBind > SIZE);
+        assertTrue("rebinding " + SIZE + " items allocated " + best + " bytes", best < SIZE);
+    }
+
+    /**
+     * 统计一轮绑定中显示了库存或拜访时间的卡片数，只在第一轮计数。
+     */
+    private static void bindAll(RecordingCard card, List<FeedItem> items) {
+        card.counting = card.rounds++ == 0;
+        for (int i = 0, size = items.size(); i < size; i++) {
+            FeedItem item = items.get(i);
+            FeedCardBinder.bind(card, item, STOCK_FORMAT, VISIT_TIME_FORMAT, (item.getId() & 1) == 0);
+        }
+    }
+
+    private static long allocatedBytes() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) bean).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return -1;
+    }
+
+    /**
+     * 首页景点、商城商品、已拜访记录三种卡片轮流出现，覆盖所有可选文本。
+     */
+    private static List<FeedItem> feed(int size) {
+        List<FeedItem> items = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            long id = i + 1;
+            switch (i % 5) {
+                case 0:
+                    items.add(new FeedItem(id, "景点" + id, "描述" + id, "https://img.example.com/" + id + ".jpg",
+                            null, "杭州", "西湖区" + id, 30.25 + i * 1e-4, 120.15, null, null, "4.8"));
+                    break;
+                case 1:
+                case 2:
+                    items.add(new FeedItem(id, "商品" + id, null, "https://img.example.com/p" + id + ".jpg",
+                            "¥" + (100 + i), "HOTEL", null, null, null, 10 + i, null, null));
+                    break;
+                default:
+                    items.add(new FeedItem(id, "拜访" + id, "描述" + id, "", null, "杭州", null,
+                            30.25, 120.15, null, "2024-05-" + (10 + i % 20), null));
+                    break;
+            }
+        }
+        return items;
+    }
+
+    /**
+     * 只保留最后一次写入的引用，不拷贝、不拼接，自身不产生分配。
+     */
+    private static final class RecordingCard implements FeedCardBinder.Card {
+        final String[] optional = new String[FeedCardBinder.SLOT_COUNT];
+        String title;
+        String description;
+        String imageUrl;
+        boolean favorite;
+        int rounds;
+        boolean counting;
+        long stockOrVisitShown;
+
+        @Override
+        public void setTitle(String title) {
+            this.title = title;
+        }
+
+        @Override
+        public void setDescription(String description) {
+            this.description = description;
+        }
+
+        @Override
+        public void setOptionalText(int slot, @Nullable String text) {
+            optional[slot] = text;
+            if (counting && text != null
+                    && (slot == FeedCardBinder.SLOT_STOCK || slot == FeedCardBinder.SLOT_VISIT_TIME)) {
+                stockOrVisitShown++;
+            }
+        }
+
+        @Override
+        public void setFavorite(boolean favorite) {
+            this.favorite = favorite;
+        }
+
+        @Override
+        public void setImage(@Nullable String imageUrl) {
+            this.imageUrl = imageUrl;
+        }
+    }
+}
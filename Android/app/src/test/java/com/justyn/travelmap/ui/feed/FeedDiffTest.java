@@ -0,0 +1,140 @@
+package com.justyn.travelmap.ui.feed;
+
+import static org.junit.Assert.assertEquals;
+
+import androidx.annotation.Nullable;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.ListUpdateCallback;
+
+import com.justyn.travelmap.model.FeedItem;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 5000 条 {@link FeedItem} 用 {@link FeedAdapter#DIFF_CALLBACK} 做 diff：
+ * 重新解码得到的相同内容不产生任何更新，增删改只产生对应数量的通知。
+ */
+public class FeedDiffTest {
+
+    private static final int SIZE = 5_000;
+
+    @Test
+    public void refetchedEqualListProducesNoUpdates() {
+        List<FeedItem> oldList = feed(SIZE, 0);
+        List<FeedItem> newList = feed(SIZE, 0);
+        Counts counts = diff(oldList, newList);
+        assertEquals(0, counts.inserted);
+        assertEquals(0, counts.removed);
+        assertEquals(0, counts.changed);
+        assertEquals(0, counts.moved);
+    }
+
+    @Test
+    public void insertsRemovesAndChangesAreReportedExactly() {
+        List<FeedItem> oldList = feed(SIZE, 0);
+        List<FeedItem> newList = new ArrayList<>(SIZE);
+        int removed = 0;
+        int inserted = 0;
+        int changed = 0;
+        for (int i = 0; i < SIZE; i++) {
+            FeedItem item = oldList.get(i);
+            if (i % 50 == 0) {
+                removed++;
+                newList.add(item(100_000 + i, 0));
+                inserted++;
+                continue;
+            }
+            if (i % 25 == 1) {
+                // 同一 id，价格变化
+                newList.add(item(item.getId(), 1));
+                changed++;
+                continue;
+            }
+            newList.add(item(item.getId(), 0));
+        }
+        long start = System.nanoTime();
+        Counts counts = diff(oldList, newList);
+        System.out.println(String.format(Locale.US, "diff %d items: %.1fms", SIZE, (System.nanoTime() - start) / 1e6));
+        assertEquals(removed, counts.removed);
+        assertEquals(inserted, counts.inserted);
+        assertEquals(changed, counts.changed);
+        assertEquals(0, counts.moved);
+    }
+
+    private static Counts diff(List<FeedItem> oldList, List<FeedItem> newList) {
+        DiffUtil.DiffResult result = DiffUtil.calculateDiff(new DiffUtil.Callback() {
+            @Override
+            public int getOldListSize() {
+                return oldList.size();
+            }
+
+            @Override
+            public int getNewListSize() {
+                return newList.size();
+            }
+
+            @Override
+            public boolean areItemsTheSame(int oldItemPosition, int newItemPosition) {
+                return FeedAdapter.DIFF_CALLBACK.areItemsTheSame(oldList.get(oldItemPosition),
+                        newList.get(newItemPosition));
+            }
+
+            @Override
+            public boolean areContentsTheSame(int oldItemPosition, int newItemPosition) {
+                return FeedAdapter.DIFF_CALLBACK.areContentsTheSame(oldList.get(oldItemPosition),
+                        newList.get(newItemPosition));
+            }
+        }, false);
+        Counts counts = new Counts();
+        result.dispatchUpdatesTo(counts);
+        return counts;
+    }
+
+    private static final class Counts implements ListUpdateCallback {
+        int inserted;
+        int removed;
+        int changed;
+        int moved;
+
+        @Override
+        public void onInserted(int position, int count) {
+            inserted += count;
+        }
+
+        @Override
+        public void onRemoved(int position, int count) {
+            removed += count;
+        }
+
+        @Override
+        public void onMoved(int fromPosition, int toPosition) {
+            moved++;
+        }
+
+        @Override
+        public void onChanged(int position, int count, @Nullable Object payload) {
+            changed += count;
+        }
+    }
+
+    private static List<FeedItem> feed(int size, int revision) {
+        List<FeedItem> items = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            items.add(item(i + 1, revision));
+        }
+        return items;
+    }
+
+    /**
+     * 每次都新建实例，模拟重新请求后解码出的列表。
+     */
+    private static FeedItem item(long id, int revision) {
+        return new FeedItem(id, "景点" + id, "描述" + id, "https://img.example.com/" + id + ".jpg",
+                "¥" + (100 + revision), "杭州", "西湖区" + id + "号", 30.0 + id * 1e-4, 120.0 + id * 1e-4,
+                (int) (id % 7), null, null);
+    }
+}
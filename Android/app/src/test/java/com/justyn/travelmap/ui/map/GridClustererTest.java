@@ -0,0 +1,229 @@
+package com.justyn.travelmap.ui.map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import androidx.annotation.NonNull;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * {@link GridClusterer} 与逐点计算格子编号的暴力分组对照：各缩放级别下聚合数量一致、
+ * 每个点恰好属于一个聚合且与格内其它点同格、中心为成员平均值；另给出 10 万点的耗时。
+ */
+public class GridClustererTest {
+
+    /** 72dp 在 xxhdpi 下的像素数，与地图页一致。 */
+    private static final int CELL_PX = 216;
+    private static final float[] ZOOMS = {3f, 6f, 9f, 12f, 15f, 18f};
+
+    @Test
+    public void clusterCountsMatchBruteForceAtSeveralZooms() {
+        List<Point> points = points(20_000, new Random(7));
+        GridClusterer<Point> clusterer = new GridClusterer<>(points, Point.READER);
+        assertEquals(points.size(), clusterer.size());
+        int previous = 0;
+        for (float zoom : ZOOMS) {
+            List<GridClusterer.Cluster<Point>> clusters = clusterer.cluster(zoom, CELL_PX);
+            Map<Long, List<Point>> expected = bruteForce(points, Math.round(zoom), CELL_PX);
+            assertEquals("clusters at z" + zoom, expected.size(), clusters.size());
+            assertConserved(points, clusters, Math.round(zoom));
+            // 放大后格子变小，聚合只会变多
+            assertTrue(clusters.size() >= previous);
+            previous = clusters.size();
+        }
+    }
+
+    @Test
+    public void membersOfEachClusterMatchBruteForceCells() {
+        List<Point> points = points(5_000, new Random(11));
+        GridClusterer<Point> clusterer = new GridClusterer<>(points, Point.READER);
+        for (float zoom : ZOOMS) {
+            int level = Math.round(zoom);
+            Map<Long, List<Point>> expected = bruteForce(points, level, CELL_PX);
+            Set<Set<Point>> expectedGroups = new HashSet<>();
+            for (List<Point> group : expected.values()) {
+                expectedGroups.add(identitySet(group));
+            }
+            Set<Set<Point>> actualGroups = new HashSet<>();
+            for (GridClusterer.Cluster<Point> cluster : clusterer.cluster(zoom, CELL_PX)) {
+                actualGroups.add(identitySet(cluster.getItems()));
+            }
+            assertEquals("groups at z" + zoom, expectedGroups, actualGroups);
+        }
+    }
+
+    @Test
+    public void skipsItemsWithoutCoordinatesAndKeepsDuplicatesTogether() {
+        List<Point> points = new ArrayList<>();
+        points.add(new Point(30.0, 120.0));
+        points.add(new Point(30.0, 120.0));
+        points.add(new Point(Double.NaN, 120.0));
+        points.add(null);
+        points.add(new Point(-33.9, 151.2));
+        GridClusterer<Point> clusterer = new GridClusterer<>(points, Point.READER);
+        assertEquals(3, clusterer.size());
+        List<GridClusterer.Cluster<Point>> clusters = clusterer.cluster(20f, CELL_PX);
+        assertEquals(2, clusters.size());
+        int total = 0;
+        for (GridClusterer.Cluster<Point> cluster : clusters) {
+            total += cluster.size();
+            assertEquals(cluster.size() == 1, cluster.isSingleton());
+        }
+        assertEquals(3, total);
+        assertTrue(new GridClusterer<>(new ArrayList<Point>(), Point.READER).cluster(10f, CELL_PX).isEmpty());
+    }
+
+    @Test
+    public void clusterKeysAreStableAcrossRuns() {
+        List<Point> points = points(2_000, new Random(3));
+        GridClusterer<Point> clusterer = new GridClusterer<>(points, Point.READER);
+        Set<Long> first = new HashSet<>();
+        for (GridClusterer.Cluster<Point> cluster : clusterer.cluster(9f, CELL_PX)) {
+            first.add(cluster.getCellKey());
+        }
+        List<Point> shuffled = new ArrayList<>(points);
+        java.util.Collections.shuffle(shuffled, new Random(5));
+        Set<Long> second = new HashSet<>();
+        for (GridClusterer.Cluster<Point> cluster : new GridClusterer<>(shuffled, Point.READER).cluster(9f, CELL_PX)) {
+            second.add(cluster.getCellKey());
+        }
+        assertEquals(first, second);
+    }
+
+    @Test
+    public void benchmark100k() {
+        List<Point> points = points(100_000, new Random(42));
+        long start = System.nanoTime();
+        GridClusterer<Point> clusterer = new GridClusterer<>(points, Point.READER);
+        double buildMs = (System.nanoTime() - start) / 1e6;
+        StringBuilder report = new StringBuilder(String.format(Locale.US,
+                "GridClusterer 100k points: projection %.1fms", buildMs));
+        for (float zoom : ZOOMS) {
+            // 预热一次再取 3 次中的最小值
+            clusterer.cluster(zoom, CELL_PX);
+            double best = Double.MAX_VALUE;
+            int clusters = 0;
+            for (int round = 0; round < 3; round++) {
+                long t = System.nanoTime();
+                clusters = clusterer.cluster(zoom, CELL_PX).size();
+                best = Math.min(best, (System.nanoTime() - t) / 1e6);
+            }
+            report.append(String.format(Locale.US, " | z%.0f %d clusters %.1fms", zoom, clusters, best));
+            assertConserved(points, clusterer.cluster(zoom, CELL_PX), Math.round(zoom));
+        }
+        System.out.println(report);
+    }
+
+    private static void assertConserved(List<Point> points, List<GridClusterer.Cluster<Point>> clusters, int level) {
+        Map<Point, Long> seen = new IdentityHashMap<>();
+        for (GridClusterer.Cluster<Point> cluster : clusters) {
+            assertEquals(level, cluster.getZoomLevel());
+            double sumLat = 0;
+            double sumLng = 0;
+            Long cell = null;
+            for (Point point : cluster.getItems()) {
+                assertEquals("point in two clusters", null, seen.put(point, cluster.getCellKey()));
+                long pointCell = cellKey(point, level, CELL_PX);
+                if (cell == null) {
+                    cell = pointCell;
+                }
+                assertEquals("members share one cell", (long) cell, pointCell);
+                sumLat += point.lat;
+                sumLng += point.lng;
+            }
+            assertEquals(sumLat / cluster.size(), cluster.getLatitude(), 1e-9);
+            assertEquals(sumLng / cluster.size(), cluster.getLongitude(), 1e-9);
+            double[] bounds = cluster.getBounds();
+            // 平均值的舍入误差可能让重合坐标的中心偏出外接范围一个 ulp
+            assertTrue(bounds[0] - 1e-9 <= cluster.getLatitude() && cluster.getLatitude() <= bounds[2] + 1e-9);
+            assertTrue(bounds[1] - 1e-9 <= cluster.getLongitude() && cluster.getLongitude() <= bounds[3] + 1e-9);
+        }
+        assertEquals("every point clustered exactly once", points.size(), seen.size());
+    }
+
+    /**
+     * 逐点计算格子编号后分组；纬度投影用 ln(tan(π/4 + φ/2)) 形式，与实现中的写法独立。
+     */
+    private static Map<Long, List<Point>> bruteForce(List<Point> points, int level, int cellPx) {
+        Map<Long, List<Point>> cells = new HashMap<>();
+        for (Point point : points) {
+            cells.computeIfAbsent(cellKey(point, level, cellPx), key -> new ArrayList<>()).add(point);
+        }
+        return cells;
+    }
+
+    private static long cellKey(Point point, int level, int cellPx) {
+        double cellsPerWorld = Math.max(1d, 256d * Math.pow(2, level) / cellPx);
+        double lat = Math.max(-85.05112878, Math.min(85.05112878, point.lat));
+        double x = (point.lng + 180d) / 360d;
+        double y = 0.5d - Math.log(Math.tan(Math.PI / 4 + Math.toRadians(lat) / 2)) / (2 * Math.PI);
+        long cellX = (long) Math.floor(x * cellsPerWorld);
+        long cellY = (long) Math.floor(y * cellsPerWorld);
+        return (cellX << 32) ^ cellY;
+    }
+
+    private static Set<Point> identitySet(List<Point> points) {
+        Set<Point> set = java.util.Collections.newSetFromMap(new IdentityHashMap<>());
+        set.addAll(points);
+        return set;
+    }
+
+    /**
+     * 与地图页相近的分布：一半集中在几个城市周边，其余散布在中国东部，另有 5% 完全重合的坐标。
+     */
+    private static List<Point> points(int count, Random random) {
+        double[][] cities = {{39.90, 116.40}, {31.23, 121.47}, {30.27, 120.15}, {30.57, 104.07}, {22.54, 114.06}};
+        List<Point> points = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            if (i > 0 && random.nextInt(20) == 0) {
+                Point copy = points.get(random.nextInt(points.size()));
+                points.add(new Point(copy.lat, copy.lng));
+            } else if (random.nextBoolean()) {
+                double[] city = cities[random.nextInt(cities.length)];
+                points.add(new Point(city[0] + random.nextGaussian() * 0.2, city[1] + random.nextGaussian() * 0.2));
+            } else {
+                points.add(new Point(18 + random.nextDouble() * 23, 100 + random.nextDouble() * 22));
+            }
+        }
+        return points;
+    }
+
+    private static final class Point {
+        static final GridClusterer.PositionReader<Point> READER = new GridClusterer.PositionReader<Point>() {
+            @Override
+            public double latitude(@NonNull Point item) {
+                return item.lat;
+            }
+
+            @Override
+            public double longitude(@NonNull Point item) {
+                return item.lng;
+            }
+        };
+
+        final double lat;
+        final double lng;
+
+        Point(double lat, double lng) {
+            this.lat = lat;
+            this.lng = lng;
+        }
+
+        @Override
+        public String toString() {
+            return Arrays.toString(new double[]{lat, lng});
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.justyn.travelmap.ui.map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.justyn.travelmap.model.FeedItem;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 瓦片过期判断与截断时使用的子瓦片拆分。
+ */
+public class MapTileCacheTest {
+
+    @Test
+    public void tileIsStaleAfterTtl() {
+        MapTileCache cache = new MapTileCache();
+        long tile = MapTileCache.key(8, 214, 107);
+        assertFalse(cache.isFresh(tile, 0L));
+        cache.put(tile, Collections.singletonList(item(1L)), 1_000L);
+        assertTrue(cache.isFresh(tile, 1_000L + MapTileCache.TTL_MS - 1));
+        assertFalse(cache.isFresh(tile, 1_000L + MapTileCache.TTL_MS));
+        // 过期的瓦片仍然可以先用来显示
+        assertTrue(cache.contains(tile));
+        assertEquals(1, cache.collect(Collections.singleton(tile)).size());
+
+        cache.put(tile, Arrays.asList(item(1L), item(2L)), 1_000L + MapTileCache.TTL_MS);
+        assertTrue(cache.isFresh(tile, 1_000L + MapTileCache.TTL_MS));
+        assertEquals(2, cache.collect(Collections.singleton(tile)).size());
+    }
+
+    @Test
+    public void childrenExactlyCoverParent() {
+        long tile = MapTileCache.key(9, 428, 213);
+        double[] parent = MapTileCache.bounds(tile);
+        long[] children = MapTileCache.children(tile);
+        assertEquals(4, children.length);
+        double minLat = 90d;
+        double minLng = 180d;
+        double maxLat = -90d;
+        double maxLng = -180d;
+        Set<Long> distinct = new HashSet<>();
+        for (long child : children) {
+            assertEquals(10, MapTileCache.level(child));
+            assertTrue(distinct.add(child));
+            double[] b = MapTileCache.bounds(child);
+            minLat = Math.min(minLat, b[0]);
+            minLng = Math.min(minLng, b[1]);
+            maxLat = Math.max(maxLat, b[2]);
+            maxLng = Math.max(maxLng, b[3]);
+            // 子瓦片中心落在父瓦片内，且按同级别计算正好是它自己
+            double lat = (b[0] + b[2]) / 2;
+            double lng = (b[1] + b[3]) / 2;
+            assertEquals(Collections.singleton(child), MapTileCache.tilesCovering(lat, lng, lat, lng, 10));
+        }
+        assertEquals(parent[0], minLat, 1e-9);
+        assertEquals(parent[1], minLng, 1e-9);
+        assertEquals(parent[2], maxLat, 1e-9);
+        assertEquals(parent[3], maxLng, 1e-9);
+    }
+
+    @Test
+    public void collectDedupesItemsOnTileEdges() {
+        MapTileCache cache = new MapTileCache();
+        long a = MapTileCache.key(5, 26, 13);
+        long b = MapTileCache.key(5, 27, 13);
+        cache.put(a, Arrays.asList(item(1L), item(2L)), 0L);
+        cache.put(b, Arrays.asList(item(2L), item(3L)), 0L);
+        List<FeedItem> merged = cache.collect(new HashSet<>(Arrays.asList(a, b)));
+        assertEquals(3, merged.size());
+    }
+
+    private static FeedItem item(long id) {
+        return new FeedItem(id, "景点" + id, null, null);
+    }
+}
@@ -0,0 +1,195 @@
+package com.justyn.travelmap.ui.map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.justyn.travelmap.model.FeedItem;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * 两次聚合结果之间的 Marker 比对：新建、复用、移除的数量与按 key 求集合差的结果一致，
+ * 瓦片重新校验得到相同内容时全部复用。
+ */
+public class MarkerDiffTest {
+
+    private static final int CELL_PX = 216;
+    private static final GridClusterer.PositionReader<FeedItem> POSITION = new GridClusterer.PositionReader<FeedItem>() {
+        @Override
+        public double latitude(@NonNull FeedItem item) {
+            return item.getLatitude() != null ? item.getLatitude() : Double.NaN;
+        }
+
+        @Override
+        public double longitude(@NonNull FeedItem item) {
+            return item.getLongitude() != null ? item.getLongitude() : Double.NaN;
+        }
+    };
+
+    @Test
+    public void panAcrossSingletonsCreatesReusesAndRemoves() {
+        // 相距约 1 公里，z18 下每个景点单独一个 Marker
+        List<FeedItem> first = new ArrayList<>();
+        List<FeedItem> second = new ArrayList<>();
+        for (long id = 1; id <= 15; id++) {
+            FeedItem item = item(id, 30.0 + id * 0.01, 120.0);
+            if (id <= 10) {
+                first.add(item);
+            }
+            if (id > 5) {
+                second.add(item(id, 30.0 + id * 0.01, 120.0));
+            }
+        }
+        Recorder recorder = new Recorder();
+        Map<String, Object> markers = new HashMap<>();
+        MarkerDiff initial = MarkerDiff.apply(markers, cluster(first, 18f), recorder);
+        assertCounts(initial, 10, 0, 0);
+        Map<String, Object> before = new HashMap<>(markers);
+
+        MarkerDiff pan = MarkerDiff.apply(markers, cluster(second, 18f), recorder);
+        assertCounts(pan, 5, 5, 5);
+        assertEquals(10, markers.size());
+        assertEquals(5, recorder.updated);
+        assertEquals(5, recorder.removed.size());
+        for (long id = 6; id <= 10; id++) {
+            assertSame("reused marker keeps its instance", before.get("s:" + id), markers.get("s:" + id));
+        }
+        for (long id = 1; id <= 5; id++) {
+            assertTrue(recorder.removed.contains(before.get("s:" + id)));
+        }
+    }
+
+    @Test
+    public void revalidatedTileWithSameContentReusesEverything() {
+        List<FeedItem> scenics = scenics(3_000, new Random(21));
+        Map<String, Object> markers = new HashMap<>();
+        Recorder recorder = new Recorder();
+        int count = MarkerDiff.apply(markers, cluster(scenics, 11f), recorder).getCreated();
+        // 重新解码得到的新实例，内容相同
+        List<FeedItem> refetched = new ArrayList<>();
+        for (FeedItem item : scenics) {
+            refetched.add(item(item.getId(), item.getLatitude(), item.getLongitude()));
+        }
+        assertCounts(MarkerDiff.apply(markers, cluster(refetched, 11f), recorder), 0, count, 0);
+        assertEquals(count, markers.size());
+    }
+
+    @Test
+    public void countsMatchKeySetDifferenceAcrossTwoClusterSets() {
+        Random random = new Random(8);
+        List<FeedItem> scenics = scenics(5_000, random);
+        List<FeedItem> first = new ArrayList<>();
+        List<FeedItem> second = new ArrayList<>();
+        for (FeedItem item : scenics) {
+            int bucket = random.nextInt(3);
+            if (bucket != 1) {
+                first.add(item);
+            }
+            if (bucket != 2) {
+                second.add(item);
+            }
+        }
+        for (float zoom : new float[]{8f, 12f, 16f}) {
+            List<GridClusterer.Cluster<FeedItem>> a = cluster(first, zoom);
+            List<GridClusterer.Cluster<FeedItem>> b = cluster(second, zoom);
+            Set<String> keysA = keys(a);
+            Set<String> keysB = keys(b);
+            Set<String> kept = new HashSet<>(keysA);
+            kept.retainAll(keysB);
+
+            Map<String, Object> markers = new HashMap<>();
+            Recorder recorder = new Recorder();
+            MarkerDiff.apply(markers, a, recorder);
+            MarkerDiff diff = MarkerDiff.apply(markers, b, recorder);
+            assertCounts(diff, keysB.size() - kept.size(), kept.size(), keysA.size() - kept.size());
+            assertEquals(keysB, markers.keySet());
+        }
+    }
+
+    @Test
+    public void zoomChangeRecreatesClustersButKeepsSingletons() {
+        List<FeedItem> scenics = new ArrayList<>();
+        // 一个远离其它点的单独景点，加上一组挤在一起的景点
+        scenics.add(item(1L, 45.0, 90.0));
+        for (long id = 2; id <= 20; id++) {
+            scenics.add(item(id, 30.0 + id * 1e-4, 120.0));
+        }
+        Map<String, Object> markers = new HashMap<>();
+        Recorder recorder = new Recorder();
+        assertCounts(MarkerDiff.apply(markers, cluster(scenics, 10f), recorder), 2, 0, 0);
+        assertCounts(MarkerDiff.apply(markers, cluster(scenics, 11f), recorder), 1, 1, 1);
+    }
+
+    @Test
+    public void failedCreateIsNotCounted() {
+        Recorder recorder = new Recorder();
+        recorder.failCreate = true;
+        Map<String, Object> markers = new HashMap<>();
+        assertCounts(MarkerDiff.apply(markers, cluster(scenics(50, new Random(1)), 18f), recorder), 0, 0, 0);
+        assertTrue(markers.isEmpty());
+    }
+
+    private static void assertCounts(MarkerDiff diff, int created, int reused, int removed) {
+        assertEquals("created", created, diff.getCreated());
+        assertEquals("reused", reused, diff.getReused());
+        assertEquals("removed", removed, diff.getRemoved());
+    }
+
+    private static List<GridClusterer.Cluster<FeedItem>> cluster(List<FeedItem> items, float zoom) {
+        return new GridClusterer<>(items, POSITION).cluster(zoom, CELL_PX);
+    }
+
+    private static Set<String> keys(List<GridClusterer.Cluster<FeedItem>> clusters) {
+        Set<String> keys = new HashSet<>();
+        for (GridClusterer.Cluster<FeedItem> cluster : clusters) {
+            assertTrue("keys are unique", keys.add(MarkerDiff.key(cluster)));
+        }
+        return keys;
+    }
+
+    private static List<FeedItem> scenics(int count, Random random) {
+        List<FeedItem> items = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            items.add(item(i + 1, 29.5 + random.nextDouble() * 2, 119.5 + random.nextDouble() * 2));
+        }
+        return items;
+    }
+
+    private static FeedItem item(long id, double lat, double lng) {
+        return new FeedItem(id, "景点" + id, null, null, null, null, null, lat, lng, null, null, null);
+    }
+
+    private static final class Recorder implements MarkerDiff.Target<Object> {
+        boolean failCreate;
+        int updated;
+        final List<Object> removed = new ArrayList<>();
+
+        @Override
+        public void update(@NonNull Object marker, @NonNull GridClusterer.Cluster<FeedItem> cluster) {
+            updated++;
+        }
+
+        @Nullable
+        @Override
+        public Object create(@NonNull GridClusterer.Cluster<FeedItem> cluster) {
+            return failCreate ? null : new Object();
+        }
+
+        @Override
+        public void remove(@NonNull Object marker) {
+            removed.add(marker);
+        }
+    }
+}
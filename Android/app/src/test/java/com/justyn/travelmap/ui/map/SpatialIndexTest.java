@@ -0,0 +1,317 @@
+package com.justyn.travelmap.ui.map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import androidx.annotation.NonNull;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * {@link SpatialIndex} 与逐个计算大圆距离的暴力扫描对照：k 近邻的顺序、半径边界、180° 经线两侧、
+ * 重合坐标、k 超过元素数；另给出 10 万点时近邻 / 半径查询与线性扫描的耗时（类注释中的数字出自这里）。
+ */
+public class SpatialIndexTest {
+
+    /** 距离比较的容差（米）：单位向量弦长与半正矢公式的舍入差远小于此值。 */
+    private static final double EPSILON_METERS = 1e-3;
+
+    @Test
+    public void nearestMatchesBruteForceOrder() {
+        Random random = new Random(17);
+        List<Point> points = points(20_000, random);
+        SpatialIndex<Point> index = new SpatialIndex<>(points, Point.READER);
+        assertEquals(points.size(), index.size());
+        for (int round = 0; round < 200; round++) {
+            double lat = 18 + random.nextDouble() * 23;
+            double lng = 100 + random.nextDouble() * 22;
+            int k = 1 + random.nextInt(50);
+            assertSameDistances(bruteNearest(points, lat, lng, k), index.nearest(lat, lng, k), lat, lng);
+        }
+    }
+
+    @Test
+    public void radiusMatchesBruteForce() {
+        Random random = new Random(23);
+        List<Point> points = points(20_000, random);
+        SpatialIndex<Point> index = new SpatialIndex<>(points, Point.READER);
+        for (int round = 0; round < 200; round++) {
+            double lat = 18 + random.nextDouble() * 23;
+            double lng = 100 + random.nextDouble() * 22;
+            double radius = 1_000 + random.nextDouble() * 100_000;
+            List<Point> expected = bruteRadius(points, lat, lng, radius);
+            List<Point> actual = index.withinRadius(lat, lng, radius);
+            assertSameDistances(expected, actual, lat, lng);
+            assertEquals(identities(expected), identities(actual));
+        }
+    }
+
+    @Test
+    public void radiusBoundaryIsInclusive() {
+        double lat = 30.0;
+        double lng = 120.0;
+        double radius = 20_000;
+        List<Point> points = new ArrayList<>();
+        Point inside = destination(lat, lng, 45, radius - 0.5);
+        Point outside = destination(lat, lng, 135, radius + 0.5);
+        points.add(inside);
+        points.add(outside);
+        points.add(new Point(lat, lng));
+        SpatialIndex<Point> index = new SpatialIndex<>(points, Point.READER);
+        List<Point> found = index.withinRadius(lat, lng, radius);
+        assertEquals(2, found.size());
+        assertTrue(found.get(0).lat == lat && found.get(0).lng == lng);
+        assertTrue(found.get(1) == inside);
+        // 恰好等于两点距离的半径包含该点
+        double exact = SpatialIndex.distanceMeters(lat, lng, outside.lat, outside.lng);
+        assertEquals(3, index.withinRadius(lat, lng, exact + EPSILON_METERS).size());
+        assertEquals(1, index.withinRadius(lat, lng, 0).size());
+        assertTrue(index.withinRadius(lat, lng, -1).isEmpty());
+    }
+
+    @Test
+    public void searchesAcrossTheAntimeridian() {
+        List<Point> points = new ArrayList<>();
+        Point east = new Point(-16.0, 179.98);
+        Point west = new Point(-16.0, -179.98);
+        Point far = new Point(-16.0, 178.5);
+        points.add(far);
+        points.add(west);
+        points.add(east);
+        SpatialIndex<Point> index = new SpatialIndex<>(points, Point.READER);
+        // 从经线西侧查询，东侧 -179.98 只有约 2 公里，比同侧的 178.5 近得多
+        List<Point> nearest = index.nearest(-16.0, 179.99, 2);
+        assertTrue(nearest.get(0) == east);
+        assertTrue(nearest.get(1) == west);
+        List<Point> within = index.withinRadius(-16.0, -179.995, 5_000);
+        assertEquals(new HashSet<>(Arrays.asList(east, west)), identities(within));
+        Random random = new Random(31);
+        List<Point> pacific = new ArrayList<>();
+        for (int i = 0; i < 5_000; i++) {
+            double lngValue = 175 + random.nextDouble() * 10;
+            pacific.add(new Point(-20 + random.nextDouble() * 8, lngValue > 180 ? lngValue - 360 : lngValue));
+        }
+        SpatialIndex<Point> pacificIndex = new SpatialIndex<>(pacific, Point.READER);
+        for (double queryLng : new double[]{179.9, -179.9, 180.0, -180.0}) {
+            assertSameDistances(bruteNearest(pacific, -16, queryLng, 30), pacificIndex.nearest(-16, queryLng, 30),
+                    -16, queryLng);
+            assertEquals(identities(bruteRadius(pacific, -16, queryLng, 50_000)),
+                    identities(pacificIndex.withinRadius(-16, queryLng, 50_000)));
+        }
+    }
+
+    @Test
+    public void duplicateCoordinatesAreAllReturned() {
+        List<Point> points = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            points.add(new Point(30.25, 120.15));
+        }
+        points.add(new Point(30.26, 120.15));
+        points.add(null);
+        points.add(new Point(Double.NaN, 120.15));
+        SpatialIndex<Point> index = new SpatialIndex<>(points, Point.READER);
+        assertEquals(501, index.size());
+        assertEquals(500, index.withinRadius(30.25, 120.15, 0).size());
+        assertEquals(500, identities(index.withinRadius(30.25, 120.15, 10)).size());
+        List<Point> nearest = index.nearest(30.25, 120.15, 501);
+        assertEquals(501, identities(nearest).size());
+        assertEquals(30.26, nearest.get(500).lat, 0);
+        List<Point> ten = index.nearest(30.252, 120.15, 10);
+        for (Point point : ten) {
+            assertEquals(30.25, point.lat, 0);
+        }
+    }
+
+    @Test
+    public void kLargerThanSizeReturnsEverythingSorted() {
+        List<Point> points = points(37, new Random(5));
+        SpatialIndex<Point> index = new SpatialIndex<>(points, Point.READER);
+        List<Point> all = index.nearest(31.0, 121.0, 1_000);
+        assertEquals(37, all.size());
+        assertSameDistances(bruteNearest(points, 31.0, 121.0, 37), all, 31.0, 121.0);
+        assertTrue(index.nearest(31.0, 121.0, 0).isEmpty());
+        SpatialIndex<Point> empty = new SpatialIndex<>(Collections.<Point>emptyList(), Point.READER);
+        assertTrue(empty.nearest(31.0, 121.0, 5).isEmpty());
+        assertTrue(empty.withinRadius(31.0, 121.0, 1_000).isEmpty());
+    }
+
+    @Test
+    public void benchmark100k() {
+        Random random = new Random(42);
+        List<Point> points = points(100_000, random);
+        long start = System.nanoTime();
+        SpatialIndex<Point> index = new SpatialIndex<>(points, Point.READER);
+        double buildMs = (System.nanoTime() - start) / 1e6;
+        int queries = 2_000;
+        double[][] origins = new double[queries][];
+        for (int i = 0; i < queries; i++) {
+            origins[i] = new double[]{18 + random.nextDouble() * 23, 100 + random.nextDouble() * 22};
+        }
+        long sink = 0;
+        // 预热后取 3 轮中的最小值
+        double nearestUs = Double.MAX_VALUE;
+        double radiusUs = Double.MAX_VALUE;
+        for (int round = 0; round < 4; round++) {
+            long t = System.nanoTime();
+            for (double[] origin : origins) {
+                sink += index.nearest(origin[0], origin[1], 20).size();
+            }
+            double perQuery = (System.nanoTime() - t) / 1e3 / queries;
+            t = System.nanoTime();
+            for (double[] origin : origins) {
+                sink += index.withinRadius(origin[0], origin[1], 20_000).size();
+            }
+            double perRadius = (System.nanoTime() - t) / 1e3 / queries;
+            if (round > 0) {
+                nearestUs = Math.min(nearestUs, perQuery);
+                radiusUs = Math.min(radiusUs, perRadius);
+            }
+        }
+        double scanMs = Double.MAX_VALUE;
+        for (int round = 0; round < 4; round++) {
+            long t = System.nanoTime();
+            for (int i = 0; i < 10; i++) {
+                sink += scanNearest(points, origins[i][0], origins[i][1], 20).length;
+            }
+            if (round > 0) {
+                scanMs = Math.min(scanMs, (System.nanoTime() - t) / 1e6 / 10);
+            }
+        }
+        System.out.println(String.format(Locale.US,
+                "SpatialIndex 100k points: build %.1fms | nearest k=20 %.1fus | radius 20km %.1fus | linear scan %.1fms (%d)",
+                buildMs, nearestUs, radiusUs, scanMs, sink));
+        // 只断言数量级，避免机器差异导致不稳定
+        assertTrue(nearestUs * 100 < scanMs * 1_000);
+        assertTrue(radiusUs * 100 < scanMs * 1_000);
+    }
+
+    private static void assertSameDistances(List<Point> expected, List<Point> actual, double lat, double lng) {
+        assertEquals(expected.size(), actual.size());
+        double previous = 0;
+        for (int i = 0; i < expected.size(); i++) {
+            double want = distance(expected.get(i), lat, lng);
+            double got = distance(actual.get(i), lat, lng);
+            assertEquals("distance #" + i, want, got, EPSILON_METERS);
+            assertTrue("sorted by distance", got >= previous - EPSILON_METERS);
+            previous = got;
+        }
+    }
+
+    private static List<Point> bruteNearest(List<Point> points, double lat, double lng, int k) {
+        List<Point> sorted = new ArrayList<>(points);
+        sorted.sort(Comparator.comparingDouble(point -> distance(point, lat, lng)));
+        return sorted.subList(0, Math.min(k, sorted.size()));
+    }
+
+    /**
+     * 线性扫描：逐个计算距离，用插入排序维护前 k 个；只用于对比耗时，不排序整个列表。
+     */
+    private static double[] scanNearest(List<Point> points, double lat, double lng, int k) {
+        double[] best = new double[k];
+        Arrays.fill(best, Double.MAX_VALUE);
+        for (Point point : points) {
+            double d = distance(point, lat, lng);
+            if (d >= best[k - 1]) {
+                continue;
+            }
+            int i = k - 1;
+            while (i > 0 && best[i - 1] > d) {
+                best[i] = best[i - 1];
+                i--;
+            }
+            best[i] = d;
+        }
+        return best;
+    }
+
+    private static List<Point> bruteRadius(List<Point> points, double lat, double lng, double radius) {
+        List<Point> found = new ArrayList<>();
+        for (Point point : points) {
+            if (distance(point, lat, lng) <= radius) {
+                found.add(point);
+            }
+        }
+        found.sort(Comparator.comparingDouble(point -> distance(point, lat, lng)));
+        return found;
+    }
+
+    private static double distance(Point point, double lat, double lng) {
+        return SpatialIndex.distanceMeters(lat, lng, point.lat, point.lng);
+    }
+
+    private static Set<Point> identities(List<Point> points) {
+        Set<Point> set = Collections.newSetFromMap(new java.util.IdentityHashMap<>());
+        set.addAll(points);
+        return set;
+    }
+
+    /**
+     * 从 (lat, lng) 沿方位角 {@code bearing} 走 {@code meters} 米到达的点（球面正解）。
+     */
+    private static Point destination(double lat, double lng, double bearing, double meters) {
+        double angle = meters / SpatialIndex.EARTH_RADIUS_METERS;
+        double phi1 = Math.toRadians(lat);
+        double theta = Math.toRadians(bearing);
+        double phi2 = Math.asin(Math.sin(phi1) * Math.cos(angle) + Math.cos(phi1) * Math.sin(angle) * Math.cos(theta));
+        double lambda2 = Math.toRadians(lng) + Math.atan2(Math.sin(theta) * Math.sin(angle) * Math.cos(phi1),
+                Math.cos(angle) - Math.sin(phi1) * Math.sin(phi2));
+        return new Point(Math.toDegrees(phi2), Math.toDegrees(lambda2));
+    }
+
+    /**
+     * 与 {@link GridClustererTest} 相同的分布：一半集中在几个城市周边，其余散布在中国东部，另有 5% 完全重合的坐标。
+     */
+    private static List<Point> points(int count, Random random) {
+        double[][] cities = {{39.90, 116.40}, {31.23, 121.47}, {30.27, 120.15}, {30.57, 104.07}, {22.54, 114.06}};
+        List<Point> points = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            if (i > 0 && random.nextInt(20) == 0) {
+                Point copy = points.get(random.nextInt(points.size()));
+                points.add(new Point(copy.lat, copy.lng));
+            } else if (random.nextBoolean()) {
+                double[] city = cities[random.nextInt(cities.length)];
+                points.add(new Point(city[0] + random.nextGaussian() * 0.2, city[1] + random.nextGaussian() * 0.2));
+            } else {
+                points.add(new Point(18 + random.nextDouble() * 23, 100 + random.nextDouble() * 22));
+            }
+        }
+        return points;
+    }
+
+    private static final class Point {
+        static final GridClusterer.PositionReader<Point> READER = new GridClusterer.PositionReader<Point>() {
+            @Override
+            public double latitude(@NonNull Point item) {
+                return item.lat;
+            }
+
+            @Override
+            public double longitude(@NonNull Point item) {
+                return item.lng;
+            }
+        };
+
+        final double lat;
+        final double lng;
+
+        Point(double lat, double lng) {
+            this.lat = lat;
+            this.lng = lng;
+        }
+
+        @Override
+        public String toString() {
+            return Arrays.toString(new double[]{lat, lng});
+        }
+    }
+}
@@ -26,19 +26,34 @@ import os
 import sqlite3
 import uuid
 import hashlib
+import json
+import math
+import tempfile
+import threading
 from datetime import datetime
 from functools import lru_cache
-from urllib.parse import quote_plus
+from urllib.parse import quote_plus, urlparse
+from urllib.request import HTTPRedirectHandler, Request, build_opener
 
-from flask import Flask, jsonify, request, g, render_template, send_from_directory, abort, url_for
+from flask import Flask, jsonify, request, g, render_template, send_from_directory, send_file, abort, url_for
+from werkzeug.exceptions import HTTPException
 from werkzeug.security import generate_password_hash, check_password_hash
 
+from catalog_sync import catalog_delta, ensure_catalog_change, paged_rows
+
+try:
+    from PIL import Image  # 缩略图依赖 Pillow；未安装时 /img 返回 501，客户端改用原图
+except ImportError:
+    Image = None
+
 # -------------------- 基础配置 --------------------
 # BASE_DIR: 当前后端根目录；DB_PATH 指向已存在的 SQLite 数据库文件（不是 schema，而是数据文件）。
 # 如果你后续要根据 schema 初始化一个新的库，可写一个 init_db 脚本：读取 schema.sql -> 新建 travel.db。
 BASE_DIR = os.path.dirname(os.path.abspath(__file__))
 # 修改数据库文件名后缀为 .db（真实 SQLite 文件），避免把建表脚本 .sql 当数据库用
 DB_PATH = os.path.join(BASE_DIR, 'db', 'TravelMap.db')  # 已存在的 SQLite 数据库
+# 允许通过环境变量指向其它库文件（例如 nearby_load_test.py 在临时副本上补充数据）
+DB_PATH = os.environ.get('TRAVELMAP_DB_PATH') or DB_PATH
 DOC_DIR = os.path.join(BASE_DIR, 'doc')
 GITHUB_URL = 'https://github.com/Justtyn/TravelMap'
 APK_FILENAME = 'TravleMap.apk'
@@ -223,6 +238,109 @@ API_SECTIONS = [
 
 
 # 新增：启动前确保关键业务表存在（特别是 visited / cart_item，防止旧库缺表导致接口报错）
+# 附近景点：scenic_geohash 表保存每个景点坐标的 geohash（按前缀范围查询走索引），
+# 由 scenic 表上的触发器在增删改时同步维护（与 catalog_change 一样，直接改库也会生效），读请求不写库。
+GEOHASH_BASE32 = '0123456789bcdefghjkmnpqrstuvwxyz'
+GEOHASH_PRECISION = 9  # 约 4.8m x 4.8m
+# 9 位 geohash 共 45 位：经度 23 位、纬度 22 位，从经度开始交替
+GEOHASH_LNG_BITS = (GEOHASH_PRECISION * 5 + 1) // 2
+GEOHASH_LAT_BITS = GEOHASH_PRECISION * 5 // 2
+METERS_PER_DEGREE = 111320.0
+
+
+def geohash_encode(lat, lng, precision=GEOHASH_PRECISION):
+    """
+    标准 geohash 编码：经纬度各自换算成整数格号，按经度、纬度交替取位，每 5 位转成一个 base32 字符。
+    与触发器使用的 SQL 表达式（geohash_sql）算法相同，两边结果逐位一致。
+    """
+    lng_cell = min(int((lng + 180.0) / 360.0 * (1 << GEOHASH_LNG_BITS)), (1 << GEOHASH_LNG_BITS) - 1)
+    lat_cell = min(int((lat + 90.0) / 180.0 * (1 << GEOHASH_LAT_BITS)), (1 << GEOHASH_LAT_BITS) - 1)
+    chars = []
+    for k in range(precision):
+        index = 0
+        for position in range(5 * k, 5 * k + 5):
+            is_lng, bit = geohash_bit_source(position)
+            index = (index << 1) | (((lng_cell if is_lng else lat_cell) >> bit) & 1)
+        chars.append(GEOHASH_BASE32[index])
+    return ''.join(chars)
+
+
+def geohash_bit_source(position):
+    """geohash 从最高位数起第 position 位的来源：(是否取自经度格号, 在格号中的位序)。"""
+    if position % 2 == 0:
+        return True, GEOHASH_LNG_BITS - 1 - position // 2
+    return False, GEOHASH_LAT_BITS - 1 - position // 2
+
+
+def geohash_sql(lat, lng):
+    """
+    计算 9 位 geohash 的 SQL 表达式，只用算术、位运算与 substr（触发器里不能调用 Python 函数，
+    直接改库时也没有注册自定义函数）。lat / lng 为列表达式，例如 NEW.latitude。
+    """
+    lng_cell = f'MIN(CAST(({lng} + 180.0) / 360.0 * {1 << GEOHASH_LNG_BITS}.0 AS INTEGER), {(1 << GEOHASH_LNG_BITS) - 1})'
+    lat_cell = f'MIN(CAST(({lat} + 90.0) / 180.0 * {1 << GEOHASH_LAT_BITS}.0 AS INTEGER), {(1 << GEOHASH_LAT_BITS) - 1})'
+    chars = []
+    for k in range(GEOHASH_PRECISION):
+        terms = []
+        for j, position in enumerate(range(5 * k, 5 * k + 5)):
+            is_lng, bit = geohash_bit_source(position)
+            # SQLite 中 << >> & | 优先级相同、从左到右结合，每一项都要加括号
+            terms.append(f'(((({lng_cell if is_lng else lat_cell}) >> {bit}) & 1) << {4 - j})')
+        chars.append(f"substr('{GEOHASH_BASE32}', ({' | '.join(terms)}) + 1, 1)")
+    return ' || '.join(chars)
+
+
+def geohash_cell_size(precision):
+    """precision 位 geohash 单元格的 (纬度跨度, 经度跨度)，单位度。"""
+    total_bits = precision * 5
+    return 180.0 / (1 << (total_bits // 2)), 360.0 / (1 << ((total_bits + 1) // 2))
+
+
+def valid_lat_lng(lat, lng):
+    return lat is not None and lng is not None and -90 <= lat <= 90 and -180 <= lng <= 180
+
+
+# 与 valid_lat_lng 相同的坐标条件：坐标缺失或越界的景点不建 geohash
+GEOHASH_VALID_SQL = '{p}latitude BETWEEN -90 AND 90 AND {p}longitude BETWEEN -180 AND 180'
+
+
+def ensure_scenic_geohash(cur):
+    """
+    建立 scenic 增删改时同步 scenic_geohash 的触发器。触发器不存在或其中的表达式与当前的 geohash_encode 不一致时
+    重建触发器并整表重算一次（补上触发器建立之前写入的景点）；否则什么都不做，启动时不重复扫描全表。
+    """
+    upsert = (f'INSERT OR REPLACE INTO scenic_geohash (scenic_id, geohash) '
+              f'SELECT NEW.id, {geohash_sql("NEW.latitude", "NEW.longitude")} '
+              f'WHERE {GEOHASH_VALID_SQL.format(p="NEW.")};')
+    triggers = {
+        'trg_scenic_geohash_insert': f'''CREATE TRIGGER trg_scenic_geohash_insert AFTER INSERT ON scenic
+                    BEGIN
+                        {upsert}
+                    END''',
+        'trg_scenic_geohash_update': f'''CREATE TRIGGER trg_scenic_geohash_update AFTER UPDATE OF id, latitude, longitude ON scenic
+                    BEGIN
+                        DELETE FROM scenic_geohash WHERE scenic_id = OLD.id;
+                        {upsert}
+                    END''',
+        'trg_scenic_geohash_delete': '''CREATE TRIGGER trg_scenic_geohash_delete AFTER DELETE ON scenic
+                   BEGIN
+                       DELETE FROM scenic_geohash WHERE scenic_id = OLD.id;
+                   END''',
+    }
+    existing = dict(cur.execute("SELECT name, sql FROM sqlite_master WHERE type = 'trigger' "
+                                "AND name LIKE 'trg_scenic_geohash_%'").fetchall())
+    if existing == triggers:
+        return
+    for name in existing:
+        cur.execute(f'DROP TRIGGER IF EXISTS {name}')
+    for sql in triggers.values():
+        cur.execute(sql)
+    cur.execute('DELETE FROM scenic_geohash')
+    cur.execute(f'''INSERT INTO scenic_geohash (scenic_id, geohash)
+                    SELECT id, {geohash_sql('latitude', 'longitude')} FROM scenic
+                    WHERE {GEOHASH_VALID_SQL.format(p='')}''')
+
+
 def ensure_schema():
     conn = sqlite3.connect(DB_PATH)
     conn.execute('PRAGMA foreign_keys = ON;')
@@ -238,6 +356,8 @@ def ensure_schema():
                        FOREIGN KEY (user_id) REFERENCES user (id),
                        FOREIGN KEY (scenic_id) REFERENCES scenic (id)
                    );''')
+    # 详情页按 (user_id, scenic_id) 查询去过记录
+    cur.execute('CREATE INDEX IF NOT EXISTS idx_visited_user_scenic ON visited (user_id, scenic_id);')
     # cart_item 购物车
     cur.execute('''CREATE TABLE IF NOT EXISTS cart_item
                    (
@@ -259,6 +379,8 @@ def ensure_schema():
                        create_time TEXT,
                        FOREIGN KEY (user_id) REFERENCES user (id)
                    );''')
+    # 收藏按用户整体拉取 / 按目标查询
+    cur.execute('CREATE INDEX IF NOT EXISTS idx_favorite_user_target ON favorite (user_id, target_type, target_id);')
     # trip_plan（已有时跳过）
     cur.execute('''CREATE TABLE IF NOT EXISTS trip_plan
                    (
@@ -272,6 +394,20 @@ def ensure_schema():
                        create_time TEXT,
                        FOREIGN KEY (user_id) REFERENCES user (id)
                    );''')
+    # catalog_change 目录变更日志与触发器（见 catalog_sync）
+    ensure_catalog_change(cur)
+    # 地图按可视范围（bbox）查询景点
+    cur.execute('CREATE INDEX IF NOT EXISTS idx_scenic_lat_lng ON scenic (latitude, longitude);')
+    # 附近景点：geohash 前缀范围查询
+    cur.execute('''CREATE TABLE IF NOT EXISTS scenic_geohash
+                   (
+                       scenic_id INTEGER PRIMARY KEY,
+                       geohash   TEXT NOT NULL
+                   );''')
+    cur.execute('CREATE INDEX IF NOT EXISTS idx_scenic_geohash ON scenic_geohash (geohash);')
+    # 旧版本在读请求里按变更日志同步 geohash，留下的状态表已不再使用
+    cur.execute('DROP TABLE IF EXISTS scenic_geohash_state')
+    ensure_scenic_geohash(cur)
     conn.commit()
     conn.close()
 
@@ -308,6 +444,8 @@ app.teardown_appcontext(close_db)
 
 # -------------------- 通用工具函数 --------------------
 # json_response: 统一封装返回结构；http_status 与 code 区分，前端可统一按 code 判断业务成功与否。
+# conditional_json_response: 为景点/商品列表生成 ETag，支持条件 GET（304 Not Modified）。
+# catalog_delta / paged_rows: 增量同步与 keyset 分页，实现在 catalog_sync.py（不依赖 Flask）。
 # get_json: 简化 request.get_json() 的空值处理，避免 None。
 def json_response(code=200, msg='OK', data=None, http_status=None):
     body = {
@@ -320,6 +458,49 @@ def json_response(code=200, msg='OK', data=None, http_status=None):
     return jsonify(body), http_status
 
 
+def conditional_json_response(data):
+    """目录类接口：附带 ETag，客户端带 If-None-Match 且未变化时返回 304 空响应体。"""
+    response, _ = json_response(200, 'OK', data)
+    response.add_etag()
+    response.headers['Cache-Control'] = 'no-cache'
+    return response.make_conditional(request)
+
+
+def parse_since_param():
+    """增量同步参数 since；未传或非法时返回 None（走普通全量列表）。"""
+    raw = request.args.get('since', '').strip()
+    if not raw:
+        return None
+    try:
+        return max(0, int(raw))
+    except ValueError:
+        return None
+
+
+# 列表分页：limit 默认不分页，传入后按 id 做 keyset 分页
+PAGE_MAX_LIMIT = 100
+
+
+def parse_page_params():
+    """
+    解析 limit / cursor：
+    - 未传 limit 时返回 (None, None)，接口保持原来的全量数组；
+    - cursor 为上一页返回的 next_cursor（即上一页最后一条的 id），非法时视为从头开始。
+    """
+    raw_limit = request.args.get('limit', '').strip()
+    if not raw_limit:
+        return None, None
+    try:
+        limit = min(max(int(raw_limit), 1), PAGE_MAX_LIMIT)
+    except ValueError:
+        return None, None
+    try:
+        cursor = max(0, int(request.args.get('cursor', '').strip() or 0))
+    except ValueError:
+        cursor = 0
+    return limit, cursor
+
+
 def get_json():
     if not request.is_json:
         return {}
@@ -834,10 +1015,11 @@ def update_user_contact(user_id):
 
 
 # =====================================================
-# 二、景点模块 scenic（列表 / 搜索 / 详情 / 地图）
+# 二、景点模块 scenic（列表 / 搜索 / 详情 / 地图 / 附近）
 # =====================================================
 # 支持 keyword 模糊匹配 name + description，city 精确匹配；默认返回全部匹配结果。
-# 地图接口返回精简字段用于前端标点。
+# 带 since 参数时进入增量同步模式，返回 catalog_delta 结构（见 API_DOC）。
+# 地图接口返回精简字段用于前端标点；附近接口按 geohash 前缀取候选，再按距离排序。
 
 
 @app.route('/api/scenics', methods=['GET'])
@@ -846,6 +1028,11 @@ def scenic_list():
     city = request.args.get('city', '').strip()
 
     db = get_db()
+    since = parse_since_param()
+    if since is not None:
+        # 增量模式针对整张表，忽略 keyword / city 过滤
+        return json_response(200, 'OK', catalog_delta(db, 'scenic', since))
+
     sql = 'SELECT * FROM scenic WHERE 1=1'
     params = []
 
@@ -857,10 +1044,14 @@ def scenic_list():
         sql += ' AND city = ?'
         params.append(city)
 
+    limit, cursor = parse_page_params()
+    if limit is not None:
+        return conditional_json_response(paged_rows(db, sql, params, limit, cursor))
+
     sql += ' ORDER BY id ASC'
     cur = db.execute(sql, params)
     rows = [dict(r) for r in cur.fetchall()]
-    return json_response(200, 'OK', rows)
+    return conditional_json_response(rows)
 
 
 @app.route('/api/scenics/<int:sid>', methods=['GET'])
@@ -873,12 +1064,155 @@ def scenic_detail(sid):
     return json_response(200, 'OK', dict(row))
 
 
+# 地图 bbox 查询：只返回落点需要的字段，单次最多 MAP_BBOX_MAX_ROWS 条
+MAP_BBOX_COLUMNS = 'id, name, city, cover_image, address, latitude, longitude'
+MAP_BBOX_MAX_ROWS = 2000
+
+
+def parse_bbox_param():
+    """
+    解析 bbox=minLat,minLng,maxLat,maxLng；未传返回 None，格式错误抛 ValueError。
+    minLng > maxLng 表示跨越 180° 经线。
+    """
+    raw = request.args.get('bbox', '').strip()
+    if not raw:
+        return None
+    parts = [float(p) for p in raw.split(',')]
+    if len(parts) != 4:
+        raise ValueError('bbox')
+    min_lat, min_lng, max_lat, max_lng = parts
+    if min_lat > max_lat or not (-90 <= min_lat <= 90 and -90 <= max_lat <= 90):
+        raise ValueError('bbox')
+    if not (-180 <= min_lng <= 180 and -180 <= max_lng <= 180):
+        raise ValueError('bbox')
+    return min_lat, min_lng, max_lat, max_lng
+
+
 @app.route('/api/scenics/map', methods=['GET'])
 def scenic_map():
     db = get_db()
-    cur = db.execute('SELECT * FROM scenic')
-    rows = [dict(r) for r in cur.fetchall()]
-    return json_response(200, 'OK', rows)
+    try:
+        bbox = parse_bbox_param()
+    except ValueError:
+        return json_response(400, 'bbox 格式应为 minLat,minLng,maxLat,maxLng', None, 400)
+    if bbox is None:
+        cur = db.execute('SELECT * FROM scenic')
+        rows = [dict(r) for r in cur.fetchall()]
+        return conditional_json_response(rows)
+
+    min_lat, min_lng, max_lat, max_lng = bbox
+    sql = f'SELECT {MAP_BBOX_COLUMNS} FROM scenic WHERE latitude BETWEEN ? AND ?'
+    params = [min_lat, max_lat]
+    if min_lng <= max_lng:
+        sql += ' AND longitude BETWEEN ? AND ?'
+        params.extend([min_lng, max_lng])
+    else:
+        sql += ' AND (longitude >= ? OR longitude <= ?)'
+        params.extend([min_lng, max_lng])
+    sql += ' ORDER BY id LIMIT ?'
+    params.append(MAP_BBOX_MAX_ROWS + 1)
+    rows = [dict(r) for r in db.execute(sql, params).fetchall()]
+    truncated = len(rows) > MAP_BBOX_MAX_ROWS
+    return conditional_json_response({'items': rows[:MAP_BBOX_MAX_ROWS], 'truncated': truncated})
+
+
+# 附近查询：radius 单位米，默认 5km，最大 200km；limit 默认 20，最大 PAGE_MAX_LIMIT
+NEARBY_DEFAULT_RADIUS = 5000
+NEARBY_MAX_RADIUS = 200000
+NEARBY_DEFAULT_LIMIT = 20
+# 单次查询最多覆盖的 geohash 单元格数：越多候选越贴近圆、但 SQL 里的区间条件越多
+NEARBY_MAX_CELLS = 32
+EARTH_RADIUS_METERS = 6371008.8
+
+
+def distance_meters(lat1, lng1, lat2, lng2):
+    """haversine 球面距离（米）。"""
+    phi1 = math.radians(lat1)
+    phi2 = math.radians(lat2)
+    d_phi = phi2 - phi1
+    d_lambda = math.radians(lng2 - lng1)
+    a = math.sin(d_phi / 2) ** 2 + math.cos(phi1) * math.cos(phi2) * math.sin(d_lambda / 2) ** 2
+    return 2 * EARTH_RADIUS_METERS * math.asin(min(1.0, math.sqrt(a)))
+
+
+def nearby_geohash_prefixes(lat, lng, radius):
+    """
+    用 geohash 单元格覆盖以 (lat, lng) 为圆心、radius 为半径的圆的外接矩形：
+    选覆盖格数不超过 NEARBY_MAX_CELLS 的最长精度，返回这些格的前缀。
+    矩形跨越整圈经度（极地附近）且 1 位精度也超出格数上限时返回 None（全表扫描）。
+    """
+    lat_delta = radius / METERS_PER_DEGREE
+    min_lat = max(-90.0, lat - lat_delta)
+    max_lat = min(90.0, lat + lat_delta)
+    # 圆最靠近极点处的经线间距最窄，按该纬度换算经度跨度
+    edge_cos = math.cos(math.radians(max(abs(min_lat), abs(max_lat))))
+    lng_delta = 180.0 if edge_cos * METERS_PER_DEGREE * 180.0 <= radius else radius / (METERS_PER_DEGREE * edge_cos)
+    for precision in range(GEOHASH_PRECISION, 0, -1):
+        lat_span, lng_span = geohash_cell_size(precision)
+        lng_cells = round(360.0 / lng_span)
+        first_row = int((min_lat + 90) // lat_span)
+        last_row = min(int((max_lat + 90) // lat_span), round(180.0 / lat_span) - 1)
+        first_col = int((lng - lng_delta + 180) // lng_span)
+        last_col = int((lng + lng_delta + 180) // lng_span)
+        cols = min(last_col - first_col + 1, lng_cells)
+        if (last_row - first_row + 1) * cols > NEARBY_MAX_CELLS:
+            continue
+        prefixes = set()
+        for row in range(first_row, last_row + 1):
+            cell_lat = -90 + (row + 0.5) * lat_span
+            for col in range(first_col, first_col + cols):
+                cell_lng = -180 + ((col % lng_cells) + 0.5) * lng_span
+                prefixes.add(geohash_encode(cell_lat, cell_lng, precision))
+        return sorted(prefixes)
+    return None
+
+
+@app.route('/api/scenics/nearby', methods=['GET'])
+def scenic_nearby():
+    try:
+        lat = float(request.args.get('lat', ''))
+        lng = float(request.args.get('lng', ''))
+    except ValueError:
+        return json_response(400, 'lat / lng 必填且为数字', None, 400)
+    if not valid_lat_lng(lat, lng):
+        return json_response(400, 'lat / lng 超出范围', None, 400)
+    try:
+        radius = float(request.args.get('radius', '').strip() or NEARBY_DEFAULT_RADIUS)
+        limit = int(request.args.get('limit', '').strip() or NEARBY_DEFAULT_LIMIT)
+    except ValueError:
+        return json_response(400, 'radius / limit 应为数字', None, 400)
+    if not radius > 0:
+        return json_response(400, 'radius 应大于 0', None, 400)
+    radius = min(radius, NEARBY_MAX_RADIUS)
+    limit = min(max(limit, 1), PAGE_MAX_LIMIT)
+
+    db = get_db()
+    prefixes = nearby_geohash_prefixes(lat, lng, radius)
+    # 先只取坐标算距离，再按 id 取前 limit 条的完整行
+    sql = 'SELECT s.id, s.latitude, s.longitude FROM scenic_geohash g JOIN scenic s ON s.id = g.scenic_id'
+    params = []
+    if prefixes:
+        # '{' 紧跟在 base32 最大字符 'z' 之后，[prefix, prefix + '{') 即该前缀的全部 geohash
+        sql += ' WHERE ' + ' OR '.join(['(g.geohash >= ? AND g.geohash < ?)'] * len(prefixes))
+        for prefix in prefixes:
+            params.extend([prefix, prefix + '{'])
+    candidates = []
+    for scenic_id, scenic_lat, scenic_lng in db.execute(sql, params).fetchall():
+        distance = distance_meters(lat, lng, scenic_lat, scenic_lng)
+        if distance <= radius:
+            candidates.append((distance, scenic_id))
+    candidates.sort()
+    nearest = candidates[:limit]
+    items = []
+    if nearest:
+        placeholders = ','.join('?' * len(nearest))
+        rows = {r['id']: r for r in db.execute(f'SELECT * FROM scenic WHERE id IN ({placeholders})',
+                                                [scenic_id for _, scenic_id in nearest]).fetchall()}
+        for distance, scenic_id in nearest:
+            item = dict(rows[scenic_id])
+            item['distance'] = round(distance, 1)
+            items.append(item)
+    return json_response(200, 'OK', {'items': items, 'truncated': len(candidates) > limit})
 
 
 # =====================================================
@@ -894,6 +1228,11 @@ def product_list():
     ptype = request.args.get('type', '').strip()
 
     db = get_db()
+    since = parse_since_param()
+    if since is not None:
+        # 增量模式针对整张表，忽略 keyword / type 过滤，由客户端本地筛选
+        return json_response(200, 'OK', catalog_delta(db, 'product', since))
+
     sql = 'SELECT * FROM product WHERE 1=1'
     params = []
 
@@ -905,11 +1244,15 @@ def product_list():
         sql += ' AND type = ?'
         params.append(ptype)
 
+    limit, cursor = parse_page_params()
+    if limit is not None:
+        return conditional_json_response(paged_rows(db, sql, params, limit, cursor))
+
     sql += ' ORDER BY id ASC'
     cur = db.execute(sql, params)
     rows = [dict(r) for r in cur.fetchall()]
 
-    return json_response(200, 'OK', rows)
+    return conditional_json_response(rows)
 
 
 @app.route('/api/products/<int:pid>', methods=['GET'])
@@ -1074,6 +1417,26 @@ def favorite_status():
     return json_response(200, 'OK', {'favorited': payload is not None, 'favorite': payload})
 
 
+@app.route('/api/favorites/ids', methods=['GET'])
+def favorite_ids():
+    """只返回收藏目标 id，供客户端在本地维护收藏集合，避免每次进入详情都查询 status。"""
+    user_id = request.args.get('user_id')
+    if not user_id:
+        return json_response(400, 'user_id 必填', None, 400)
+
+    db = get_db()
+    cur = db.execute('SELECT target_id, target_type FROM favorite WHERE user_id = ?', (user_id,))
+    scenic_ids = []
+    product_ids = []
+    for row in cur.fetchall():
+        target_type = (row['target_type'] or '').upper()
+        if target_type == 'SCENIC':
+            scenic_ids.append(row['target_id'])
+        elif target_type == 'PRODUCT':
+            product_ids.append(row['target_id'])
+    return json_response(200, 'OK', {'scenic_ids': scenic_ids, 'product_ids': product_ids})
+
+
 @app.route('/api/favorites/scenics', methods=['GET'])
 def my_fav_scenics():
     user_id = request.args.get('user_id')
@@ -1144,6 +1507,28 @@ def list_visited():
     return json_response(200, 'OK', rows)
 
 
+@app.route('/api/visited/status', methods=['GET'])
+def visited_status():
+    """单个景点的去过状态，走 idx_visited_user_scenic 索引，避免客户端下载整张列表再查找。"""
+    user_id = request.args.get('user_id')
+    scenic_id = request.args.get('scenic_id')
+    if not all([user_id, scenic_id]):
+        return json_response(400, 'user_id/scenic_id 必填', None, 400)
+
+    db = get_db()
+    sql = f'''
+        SELECT v.*,
+               {SCENIC_SELECT_COLUMNS}
+        FROM visited v
+        JOIN scenic s ON v.scenic_id = s.id
+        WHERE v.user_id = ? AND v.scenic_id = ?
+        ORDER BY v.visit_date DESC
+        LIMIT 1
+    '''
+    row = db.execute(sql, (user_id, scenic_id)).fetchone()
+    return json_response(200, 'OK', {'visited': row is not None, 'record': build_visited_payload(row)})
+
+
 @app.route('/api/visited/<int:visit_id>', methods=['DELETE'])
 def delete_visited(visit_id):
     user_id = request.args.get('user_id')
@@ -1355,6 +1740,248 @@ def order_detail(oid):
     return json_response(200, 'OK', {'order': payload})
 
 
+# =====================================================
+# 九、批量请求 batch（多个子请求一次往返）
+# =====================================================
+# 详情页需要同时拿到景点详情、收藏状态、去过记录，移动网络下逐个请求会放大延迟。
+# 客户端把 N 个子请求打包成一次 POST，服务端按路由表找到对应的视图函数直接调用，按原顺序返回 N 个子响应。
+# 子请求与外层请求共用同一个应用上下文和数据库连接，不会为每个子请求重新走一遍 WSGI 栈、打开新连接。
+# 子请求互不影响：某个子请求失败只体现在它自己的 status / body 中，未提交的写入会回滚。
+# 为避免滥用：单次最多 BATCH_MAX_REQUESTS 个子请求，且不允许嵌套 /api/batch。
+BATCH_MAX_REQUESTS = 20
+BATCH_ALLOWED_METHODS = {'GET', 'POST', 'PUT', 'DELETE'}
+
+
+def dispatch_sub_request(method, path, query, body):
+    """在当前应用上下文中直接调用子请求对应的视图函数，返回 (status, body)。"""
+    with app.test_request_context(path, method=method, query_string=query, json=body):
+        try:
+            if request.routing_exception is not None:
+                raise request.routing_exception
+            rv = app.view_functions[request.url_rule.endpoint](**request.view_args)
+        except HTTPException as e:
+            return e.code, {'code': e.code, 'msg': e.description, 'data': None}
+        except Exception:
+            app.logger.exception('batch sub-request failed: %s %s', method, path)
+            get_db().rollback()
+            return 500, {'code': 500, 'msg': '服务器内部错误', 'data': None}
+        resp = app.make_response(rv)
+        return resp.status_code, resp.get_json(silent=True)
+
+
+@app.route('/api/batch', methods=['POST'])
+def batch_requests():
+    data = get_json()
+    sub_requests = data.get('requests')
+    if not isinstance(sub_requests, list) or not sub_requests:
+        return json_response(400, 'requests 必须为非空数组', None, 400)
+    if len(sub_requests) > BATCH_MAX_REQUESTS:
+        return json_response(400, f'单次最多 {BATCH_MAX_REQUESTS} 个子请求', None, 400)
+
+    results = []
+    for item in sub_requests:
+        if not isinstance(item, dict):
+            results.append({'status': 400, 'body': {'code': 400, 'msg': '子请求格式错误', 'data': None}})
+            continue
+        method = str(item.get('method') or 'GET').upper()
+        path = item.get('path') or ''
+        if method not in BATCH_ALLOWED_METHODS or not path.startswith('/api/') or path.startswith('/api/batch'):
+            results.append({'status': 400, 'body': {'code': 400, 'msg': '不支持的子请求', 'data': None}})
+            continue
+        query = item.get('query') if isinstance(item.get('query'), dict) else None
+        body = item.get('body') if isinstance(item.get('body'), dict) else None
+        status, payload = dispatch_sub_request(method, path, query, body)
+        results.append({'status': status, 'body': payload})
+    return json_response(200, 'OK', results)
+
+
+# =====================================================
+# 十、图片缩略图 /img
+# =====================================================
+# 景点 / 商品封面是原图（通常几 MB），列表里只显示 120dp 的缩略图，地图 Marker 更小。
+# /img?src=<原图地址>&w=<像素宽度> 返回按宽度等比缩放后的 JPEG：
+# - w 向上取整到 IMG_WIDTH_BUCKETS 中的档位，限制缓存变体数量；超过最大档位时使用最大档位；
+# - 原图与生成的变体都缓存在 IMG_CACHE_DIR，同一张图只下载一次、每个档位只生成一次；
+# - src 只允许本站 /static/ 下的文件或 IMG_ALLOWED_HOSTS 中的图床，避免被当作任意 URL 代理；
+#   下载时跟随的每一次重定向也按同一规则校验，不会被图床跳转到其它地址；
+# - 响应头 X-Source-Bytes / X-Source-Size 给出原图大小，/api/img/stats 汇总节省的流量与解码内存。
+IMG_CACHE_DIR = os.path.join(BASE_DIR, 'cache', 'img')
+IMG_WIDTH_BUCKETS = (64, 128, 256, 512, 1024)
+IMG_ALLOWED_HOSTS = ('images.pexels.com',)
+IMG_FETCH_TIMEOUT = 10
+IMG_MAX_SOURCE_BYTES = 20 * 1024 * 1024
+IMG_JPEG_QUALITY = 80
+
+_img_lock = threading.Lock()
+# served / cache_hits 按请求计数；其余字段只在生成变体时累加一次，反映每个变体相对原图的节省量
+_img_stats = {
+    'served': 0,
+    'cache_hits': 0,
+    'generated': 0,
+    'source_bytes': 0,
+    'variant_bytes': 0,
+    'decoded_source_bytes': 0,
+    'decoded_variant_bytes': 0,
+}
+
+
+def snap_image_width(raw):
+    try:
+        width = int(raw)
+    except (TypeError, ValueError):
+        return None
+    if width <= 0:
+        return None
+    for bucket in IMG_WIDTH_BUCKETS:
+        if width <= bucket:
+            return bucket
+    return IMG_WIDTH_BUCKETS[-1]
+
+
+def atomic_write(path, data):
+    """先写临时文件再改名，并发请求同一变体时不会读到写了一半的文件。"""
+    fd, tmp_path = tempfile.mkstemp(dir=os.path.dirname(path))
+    with os.fdopen(fd, 'wb') as fh:
+        fh.write(data)
+    os.replace(tmp_path, path)
+
+
+def static_image_path(src):
+    """本站 /static/ 下真实存在的文件路径；越界或不存在返回 None。"""
+    static_root = os.path.join(BASE_DIR, 'static')
+    path = os.path.normpath(os.path.join(BASE_DIR, src.lstrip('/')))
+    if not path.startswith(static_root + os.sep) or not os.path.isfile(path):
+        return None
+    return path
+
+
+def is_allowed_remote_image(url):
+    parsed = urlparse(url)
+    return parsed.scheme in ('http', 'https') and parsed.hostname in IMG_ALLOWED_HOSTS
+
+
+def is_allowed_image_source(src):
+    """/img 的 src 白名单：本站 /static/ 文件或 IMG_ALLOWED_HOSTS 中的图床。"""
+    if src.startswith('/static/'):
+        return static_image_path(src) is not None
+    return is_allowed_remote_image(src)
+
+
+class AllowlistRedirectHandler(HTTPRedirectHandler):
+    """只跟随指向白名单图床的重定向，其余重定向直接作为下载失败处理。"""
+
+    def redirect_request(self, req, fp, code, msg, headers, newurl):
+        if not is_allowed_remote_image(newurl):
+            raise OSError(f'redirect to disallowed image host: {newurl}')
+        return super().redirect_request(req, fp, code, msg, headers, newurl)
+
+
+_img_opener = build_opener(AllowlistRedirectHandler)
+
+
+def load_image_source(src, key):
+    """返回原图在本地的路径；远程图片首次访问时下载到缓存目录。不合法的 src 返回 None。"""
+    if src.startswith('/static/'):
+        return static_image_path(src)
+    if not is_allowed_remote_image(src):
+        return None
+    path = os.path.join(IMG_CACHE_DIR, f'{key}.src')
+    if not os.path.isfile(path):
+        req = Request(src, headers={'User-Agent': 'TravelMap-Thumbnailer'})
+        with _img_opener.open(req, timeout=IMG_FETCH_TIMEOUT) as resp:
+            # 重定向已逐跳校验，这里再确认一次最终地址
+            if not is_allowed_remote_image(resp.geturl()):
+                return None
+            data = resp.read(IMG_MAX_SOURCE_BYTES + 1)
+        if len(data) > IMG_MAX_SOURCE_BYTES:
+            return None
+        atomic_write(path, data)
+    return path
+
+
+def build_image_variant(source_path, variant_path, meta_path, width):
+    with Image.open(source_path) as img:
+        source_size = img.size
+        # JPEG 可以直接按 1/2、1/4、1/8 解码，大图缩小时省掉大部分解码开销
+        img.draft('RGB', (width, max(1, source_size[1] * width // max(1, source_size[0]))))
+        img = img.convert('RGB')
+        if img.width > width:
+            img.thumbnail((width, img.height * width // img.width + 1))
+        fd, tmp_path = tempfile.mkstemp(dir=IMG_CACHE_DIR)
+        with os.fdopen(fd, 'wb') as fh:
+            img.save(fh, 'JPEG', quality=IMG_JPEG_QUALITY, optimize=True)
+        os.replace(tmp_path, variant_path)
+        variant_size = img.size
+    meta = {
+        'source_bytes': os.path.getsize(source_path),
+        'source_width': source_size[0],
+        'source_height': source_size[1],
+        'width': variant_size[0],
+        'height': variant_size[1],
+    }
+    atomic_write(meta_path, json.dumps(meta).encode('utf-8'))
+    return meta
+
+
+@app.route('/img', methods=['GET'])
+def image_variant():
+    src = request.args.get('src', '').strip()
+    width = snap_image_width(request.args.get('w'))
+    if not src or width is None:
+        return json_response(400, 'src 与 w 必填', None, 400)
+    if not is_allowed_image_source(src):
+        return json_response(400, '不支持的图片地址', None, 400)
+    if Image is None:
+        return json_response(501, '服务端未安装 Pillow，无法生成缩略图', None, 501)
+
+    os.makedirs(IMG_CACHE_DIR, exist_ok=True)
+    key = hashlib.sha1(src.encode('utf-8')).hexdigest()
+    variant_path = os.path.join(IMG_CACHE_DIR, f'{key}_w{width}.jpg')
+    meta_path = os.path.join(IMG_CACHE_DIR, f'{key}_w{width}.json')
+    generated = False
+    if os.path.isfile(variant_path) and os.path.isfile(meta_path):
+        with open(meta_path, 'r', encoding='utf-8') as fh:
+            meta = json.load(fh)
+    else:
+        try:
+            source_path = load_image_source(src, key)
+        except OSError:
+            return json_response(502, '原图下载失败', None, 502)
+        if source_path is None:
+            return json_response(400, '不支持的图片地址', None, 400)
+        try:
+            meta = build_image_variant(source_path, variant_path, meta_path, width)
+        except (OSError, Image.DecompressionBombError):
+            return json_response(415, '无法解析的图片', None, 415)
+        generated = True
+
+    with _img_lock:
+        _img_stats['served'] += 1
+        if generated:
+            _img_stats['generated'] += 1
+            _img_stats['source_bytes'] += meta['source_bytes']
+            _img_stats['variant_bytes'] += os.path.getsize(variant_path)
+            # 客户端按 ARGB_8888 解码，每像素 4 字节
+            _img_stats['decoded_source_bytes'] += meta['source_width'] * meta['source_height'] * 4
+            _img_stats['decoded_variant_bytes'] += meta['width'] * meta['height'] * 4
+        else:
+            _img_stats['cache_hits'] += 1
+
+    response = send_file(variant_path, mimetype='image/jpeg', max_age=30 * 24 * 3600, conditional=True)
+    response.headers['X-Source-Bytes'] = str(meta['source_bytes'])
+    response.headers['X-Source-Size'] = f"{meta['source_width']}x{meta['source_height']}"
+    return response
+
+
+@app.route('/api/img/stats', methods=['GET'])
+def image_stats():
+    with _img_lock:
+        stats = dict(_img_stats)
+    stats['network_bytes_saved'] = stats['source_bytes'] - stats['variant_bytes']
+    stats['decoded_bytes_saved'] = stats['decoded_source_bytes'] - stats['decoded_variant_bytes']
+    return json_response(200, 'OK', stats)
+
+
 # =====================================================
 # 主入口 main
 # =====================================================
@@ -0,0 +1,84 @@
+# -*- coding: utf-8 -*-
+"""
+景点 / 商品目录的增量同步与 keyset 分页，只依赖 sqlite3（不引用 Flask），
+app.py 的列表接口与 sync_check.py 的一致性检查共用这里的实现。
+"""
+
+# 支持增量同步（since 参数）的目录表
+CATALOG_SYNC_TABLES = ('scenic', 'product')
+
+
+def ensure_catalog_change(cur):
+    """
+    catalog_change 目录变更日志：景点 / 商品的增删改由触发器记录，version 单调递增，
+    客户端带 since=<version> 只拉取之后的变化；删除记录即 tombstone。
+    """
+    cur.execute('''CREATE TABLE IF NOT EXISTS catalog_change
+                   (
+                       version   INTEGER PRIMARY KEY AUTOINCREMENT,
+                       entity    TEXT    NOT NULL,
+                       entity_id INTEGER NOT NULL,
+                       op        TEXT    NOT NULL
+                   );''')
+    cur.execute('CREATE INDEX IF NOT EXISTS idx_catalog_change_entity ON catalog_change (entity, version);')
+    # 基线记录：保证首次全量同步后客户端拿到的 version >= 1，之后即可走增量
+    if cur.execute('SELECT COUNT(*) FROM catalog_change').fetchone()[0] == 0:
+        cur.execute("INSERT INTO catalog_change (entity, entity_id, op) VALUES ('baseline', 0, 'BASELINE')")
+    for table in CATALOG_SYNC_TABLES:
+        cur.execute(f'''CREATE TRIGGER IF NOT EXISTS trg_{table}_insert AFTER INSERT ON {table}
+                        BEGIN
+                            INSERT INTO catalog_change (entity, entity_id, op) VALUES ('{table}', NEW.id, 'UPSERT');
+                        END;''')
+        cur.execute(f'''CREATE TRIGGER IF NOT EXISTS trg_{table}_update AFTER UPDATE ON {table}
+                        BEGIN
+                            INSERT INTO catalog_change (entity, entity_id, op) VALUES ('{table}', OLD.id, 'DELETE');
+                            INSERT INTO catalog_change (entity, entity_id, op) VALUES ('{table}', NEW.id, 'UPSERT');
+                        END;''')
+        cur.execute(f'''CREATE TRIGGER IF NOT EXISTS trg_{table}_delete AFTER DELETE ON {table}
+                        BEGIN
+                            INSERT INTO catalog_change (entity, entity_id, op) VALUES ('{table}', OLD.id, 'DELETE');
+                        END;''')
+
+
+def paged_rows(db, sql, params, limit, cursor):
+    """在已带 WHERE 的 sql 上追加 id 游标条件，多取一条判断是否还有下一页。"""
+    cur = db.execute(sql + ' AND id > ? ORDER BY id ASC LIMIT ?', params + [cursor, limit + 1])
+    rows = [dict(r) for r in cur.fetchall()]
+    next_cursor = None
+    if len(rows) > limit:
+        rows = rows[:limit]
+        next_cursor = str(rows[-1]['id'])
+    return {'items': rows, 'next_cursor': next_cursor}
+
+
+def catalog_delta(db, table, since):
+    """
+    返回 table 自 since 版本以来的变化：
+    - version: 当前最大变更版本，客户端保存后作为下次的 since；
+    - full: 为 True 时 upserts 是全量数据，客户端需先清空本地副本；
+    - upserts: 新增或修改后的完整行（按 id 升序）；
+    - deletes: 已删除的 id（tombstone）。
+    同一 id 在区间内多次变化时以最后一次为准：当前仍存在即 upsert，否则 delete。
+    """
+    latest, oldest = db.execute('SELECT COALESCE(MAX(version), 0), MIN(version) FROM catalog_change').fetchone()
+    # since=0、客户端版本超前（库被重置）或变更日志已被清理到 since 之后，都退回全量
+    if since <= 0 or since > latest or (oldest is not None and since < oldest - 1):
+        rows = [dict(r) for r in db.execute(f'SELECT * FROM {table} ORDER BY id ASC').fetchall()]
+        return {'version': latest, 'full': True, 'upserts': rows, 'deletes': []}
+
+    changed = [r[0] for r in db.execute(
+        'SELECT DISTINCT entity_id FROM catalog_change WHERE entity = ? AND version > ? ORDER BY entity_id',
+        (table, since)).fetchall()]
+    upserts = []
+    deletes = []
+    for start in range(0, len(changed), 500):
+        chunk = changed[start:start + 500]
+        placeholders = ','.join('?' * len(chunk))
+        rows = {r['id']: dict(r) for r in db.execute(
+            f'SELECT * FROM {table} WHERE id IN ({placeholders})', chunk).fetchall()}
+        for entity_id in chunk:
+            if entity_id in rows:
+                upserts.append(rows[entity_id])
+            else:
+                deletes.append(entity_id)
+    return {'version': latest, 'full': False, 'upserts': upserts, 'deletes': deletes}
@@ -0,0 +1,122 @@
+# -*- coding: utf-8 -*-
+"""
+附近景点接口压测：在数据库临时副本上补充随机景点，用 Flask 测试客户端在随机位置反复请求
+/api/scenics/nearby，与客户端原来的做法（/api/scenics/map 全量拉取后本地按距离排序）对比
+耗时与响应字节数；每次请求都与暴力计算的结果核对。
+
+用法：
+   python nearby_load_test.py                    # 补到 20000 个景点，每种请求 200 次
+   python nearby_load_test.py 100000 500 42      # 补到 100000 个景点，500 次，随机种子 42
+"""
+import math
+import os
+import random
+import shutil
+import sqlite3
+import statistics
+import sys
+import tempfile
+import time
+
+BASE_DIR = os.path.dirname(os.path.abspath(__file__))
+SOURCE_DB = os.path.join(BASE_DIR, 'db', 'TravelMap.db')
+
+# 必须在 import app 之前设置，app 启动时会在该库上执行 ensure_schema()
+TMP_DIR = tempfile.mkdtemp(prefix='travelmap_nearby_')
+TMP_DB = os.path.join(TMP_DIR, 'TravelMap.db')
+shutil.copyfile(SOURCE_DB, TMP_DB)
+os.environ['TRAVELMAP_DB_PATH'] = TMP_DB
+
+from app import app, distance_meters  # noqa: E402
+
+RADIUS = 20000
+LIMIT = 20
+# 与现有景点大致相同的范围（中国东部）
+LAT_RANGE = (18.0, 41.0)
+LNG_RANGE = (100.0, 122.0)
+
+
+def pad_scenics(conn, rng, target):
+    count = conn.execute('SELECT COUNT(*) FROM scenic').fetchone()[0]
+    rows = [(f'压测景点{i}', '压测', '随机生成', round(rng.uniform(*LAT_RANGE), 6), round(rng.uniform(*LNG_RANGE), 6))
+            for i in range(max(0, target - count))]
+    conn.executemany('INSERT INTO scenic (name, city, description, latitude, longitude) VALUES (?, ?, ?, ?, ?)', rows)
+    conn.commit()
+    return count + len(rows)
+
+
+def full_pull_nearest(client, lat, lng):
+    """旧做法：全量拉取，本地算距离、过滤、排序。"""
+    response = client.get('/api/scenics/map')
+    rows = response.get_json()['data']
+    nearest = []
+    for row in rows:
+        if row['latitude'] is None or row['longitude'] is None:
+            continue
+        distance = distance_meters(lat, lng, row['latitude'], row['longitude'])
+        if distance <= RADIUS:
+            nearest.append((distance, row['id']))
+    nearest.sort()
+    return [entity_id for _, entity_id in nearest[:LIMIT]], len(response.data)
+
+
+def nearby(client, lat, lng):
+    response = client.get('/api/scenics/nearby', query_string={'lat': lat, 'lng': lng, 'radius': RADIUS,
+                                                               'limit': LIMIT})
+    body = response.get_json()
+    assert body['code'] == 200, body
+    return [row['id'] for row in body['data']['items']], len(response.data)
+
+
+def timed(fn, *args):
+    start = time.perf_counter()
+    result = fn(*args)
+    return (time.perf_counter() - start) * 1000, result
+
+
+def summary(name, millis, sizes):
+    millis = sorted(millis)
+    p95 = millis[min(len(millis) - 1, math.ceil(len(millis) * 0.95) - 1)]
+    print(f'{name:<10} mean={statistics.mean(millis):8.2f}ms p50={statistics.median(millis):8.2f}ms '
+          f'p95={p95:8.2f}ms bytes/req={int(statistics.mean(sizes))}')
+
+
+def main():
+    target = int(sys.argv[1]) if len(sys.argv) > 1 else 20000
+    requests = int(sys.argv[2]) if len(sys.argv) > 2 else 200
+    seed = int(sys.argv[3]) if len(sys.argv) > 3 else random.randrange(1 << 30)
+    rng = random.Random(seed)
+
+    conn = sqlite3.connect(TMP_DB)
+    client = app.test_client()
+    try:
+        # scenic 上的触发器在插入时同步写 scenic_geohash，这部分开销算在写入上，单独计时
+        pad_ms, total = timed(pad_scenics, conn, rng, target)
+        print(f'db={TMP_DB} scenics={total} requests={requests} radius={RADIUS}m limit={LIMIT} seed={seed}')
+        print(f'padding insert incl. geohash triggers: {pad_ms:.1f}ms')
+
+        nearby_ms, nearby_sizes, full_ms, full_sizes = [], [], [], []
+        for i in range(requests):
+            lat, lng = rng.uniform(*LAT_RANGE), rng.uniform(*LNG_RANGE)
+            millis, (ids, size) = timed(nearby, client, lat, lng)
+            nearby_ms.append(millis)
+            nearby_sizes.append(size)
+            millis, (expected, size) = timed(full_pull_nearest, client, lat, lng)
+            full_ms.append(millis)
+            full_sizes.append(size)
+            if ids != expected:
+                print(f'[FAIL] request={i} lat={lat} lng={lng} nearby={ids} expected={expected}')
+                return 1
+        summary('nearby', nearby_ms, nearby_sizes)
+        summary('full-pull', full_ms, full_sizes)
+        print(f'speedup={statistics.mean(full_ms) / statistics.mean(nearby_ms):.1f}x '
+              f'bytes={statistics.mean(full_sizes) / statistics.mean(nearby_sizes):.0f}x fewer; '
+              f'results match brute force')
+        return 0
+    finally:
+        conn.close()
+        shutil.rmtree(TMP_DIR, ignore_errors=True)
+
+
+if __name__ == '__main__':
+    sys.exit(main())
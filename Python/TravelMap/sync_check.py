@@ -0,0 +1,128 @@
+# -*- coding: utf-8 -*-
+"""
+增量同步一致性检查：在数据库临时副本上随机增删改景点 / 商品，
+模拟客户端用 since 增量同步维护本地副本，每轮都与全量列表、按随机 limit 翻完的分页结果逐字节比较。
+直接调用 catalog_sync 中接口所用的 catalog_delta / paged_rows，只依赖 sqlite3，不需要安装 Flask。
+
+用法：
+   python sync_check.py            # 默认 30 轮，每轮 1~8 次随机修改
+   python sync_check.py 100 42     # 100 轮，随机种子 42
+"""
+import json
+import os
+import random
+import shutil
+import sqlite3
+import sys
+import tempfile
+
+from catalog_sync import CATALOG_SYNC_TABLES, catalog_delta, ensure_catalog_change, paged_rows
+
+BASE_DIR = os.path.dirname(os.path.abspath(__file__))
+SOURCE_DB = os.path.join(BASE_DIR, 'db', 'TravelMap.db')
+
+
+def canonical(rows):
+    """按 id 排序后序列化，作为逐字节比较的基准。"""
+    return json.dumps(sorted(rows, key=lambda r: r['id']), ensure_ascii=False, sort_keys=True)
+
+
+def fetch_full(db, table):
+    """与不带参数的 GET /api/scenics、/api/products 相同的全量结果。"""
+    return [dict(r) for r in db.execute(f'SELECT * FROM {table} WHERE 1=1 ORDER BY id ASC').fetchall()]
+
+
+def fetch_paged(db, table, limit):
+    """与带 limit 的列表接口相同：按 next_cursor 翻到最后一页，拼出全部条目。"""
+    rows = []
+    cursor = 0
+    while True:
+        page = paged_rows(db, f'SELECT * FROM {table} WHERE 1=1', [], limit, cursor)
+        rows.extend(page['items'])
+        if page['next_cursor'] is None:
+            return rows
+        cursor = int(page['next_cursor'])
+
+
+def sync(db, table, local, since):
+    """模拟客户端：应用一次增量响应（经过一次 JSON 序列化，与网络传输一致），返回新的 since。"""
+    delta = json.loads(json.dumps(catalog_delta(db, table, since), ensure_ascii=False))
+    if delta['full']:
+        local.clear()
+    for row in delta['upserts']:
+        local[row['id']] = row
+    for entity_id in delta['deletes']:
+        local.pop(entity_id, None)
+    return delta['version'], len(delta['upserts']), len(delta['deletes'])
+
+
+def random_mutation(conn, rng, table):
+    ids = [r[0] for r in conn.execute(f'SELECT id FROM {table}').fetchall()]
+    op = rng.choice(['insert', 'update', 'update', 'delete']) if ids else 'insert'
+    if op == 'insert':
+        if table == 'scenic':
+            conn.execute('INSERT INTO scenic (name, city, description, latitude, longitude) VALUES (?, ?, ?, ?, ?)',
+                         (f'测试景点{rng.randint(1, 99999)}', rng.choice(['北京', '上海', '杭州']), '随机生成',
+                          round(rng.uniform(20, 45), 6), round(rng.uniform(100, 125), 6)))
+        else:
+            conn.execute('INSERT INTO product (name, price, stock, type, description) VALUES (?, ?, ?, ?, ?)',
+                         (f'测试商品{rng.randint(1, 99999)}', round(rng.uniform(1, 999), 2), rng.randint(0, 50),
+                          rng.choice(['TICKET', 'HOTEL', 'TRAVEL']), '随机生成'))
+    elif op == 'update':
+        target = rng.choice(ids)
+        if table == 'scenic':
+            conn.execute('UPDATE scenic SET description = ? WHERE id = ?', (f'更新于 {rng.random()}', target))
+        else:
+            conn.execute('UPDATE product SET stock = ?, price = ? WHERE id = ?',
+                         (rng.randint(0, 50), round(rng.uniform(1, 999), 2), target))
+    else:
+        conn.execute(f'DELETE FROM {table} WHERE id = ?', (rng.choice(ids),))
+    conn.commit()
+
+
+def main():
+    rounds = int(sys.argv[1]) if len(sys.argv) > 1 else 30
+    seed = int(sys.argv[2]) if len(sys.argv) > 2 else random.randrange(1 << 30)
+    rng = random.Random(seed)
+    tmp_dir = tempfile.mkdtemp(prefix='travelmap_sync_')
+    tmp_db = os.path.join(tmp_dir, 'TravelMap.db')
+    shutil.copyfile(SOURCE_DB, tmp_db)
+    print(f'db={tmp_db} rounds={rounds} seed={seed}')
+
+    # 接口所用的连接（sqlite3.Row）与随机修改所用的连接分开，模拟服务端与直接改库的运维脚本
+    db = sqlite3.connect(tmp_db)
+    db.row_factory = sqlite3.Row
+    ensure_catalog_change(db.cursor())
+    db.commit()
+    conn = sqlite3.connect(tmp_db)
+    local = {table: {} for table in CATALOG_SYNC_TABLES}
+    since = {table: 0 for table in CATALOG_SYNC_TABLES}
+    try:
+        for table in CATALOG_SYNC_TABLES:
+            since[table], _, _ = sync(db, table, local[table], 0)
+
+        for round_no in range(1, rounds + 1):
+            for _ in range(rng.randint(1, 8)):
+                random_mutation(conn, rng, rng.choice(CATALOG_SYNC_TABLES))
+            for table in CATALOG_SYNC_TABLES:
+                since[table], upserts, deletes = sync(db, table, local[table], since[table])
+                expected = canonical(fetch_full(db, table))
+                actual = canonical(list(local[table].values()))
+                limit = rng.randint(1, 100)
+                paged = canonical(fetch_paged(db, table, limit))
+                if expected != actual or expected != paged:
+                    print(f'[FAIL] round={round_no} table={table} since={since[table]} '
+                          f'delta_ok={expected == actual} paged_ok={expected == paged} limit={limit}')
+                    return 1
+                print(f'round={round_no} table={table} version={since[table]} '
+                      f'upserts={upserts} deletes={deletes} rows={len(local[table])} limit={limit} OK')
+        print('sync check passed')
+        return 0
+    finally:
+        conn.close()
+        db.close()
+        shutil.rmtree(tmp_dir, ignore_errors=True)
+
+
+if __name__ == '__main__':
+    sys.exit(main())